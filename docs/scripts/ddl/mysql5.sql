@@ -349,6 +349,37 @@ CREATE INDEX IX_mh_user_action_outpoint ON mh_user_action (outpoint);
 CREATE INDEX IX_mh_user_action_mediapackage_id ON mh_user_action (mediapackage);
 CREATE INDEX IX_mh_user_action_type ON mh_user_action (type);
 
+CREATE TABLE mh_user_action_mediapackage (
+  mediapackage VARCHAR(128) NOT NULL,
+  views BIGINT,
+  played BIGINT,
+  max_outpoint INTEGER,
+  PRIMARY KEY (mediapackage)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE mh_user_footprint_delta (
+  id BIGINT NOT NULL,
+  mediapackage VARCHAR(128) NOT NULL,
+  footprint_position INTEGER NOT NULL,
+  delta BIGINT,
+  PRIMARY KEY (id),
+  CONSTRAINT UNQ_mh_user_footprint_delta UNIQUE (mediapackage, footprint_position)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE mh_user_action_view (
+  id BIGINT NOT NULL,
+  mediapackage VARCHAR(128) NOT NULL,
+  session_id VARCHAR(50) NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT UNQ_mh_user_action_view UNIQUE (mediapackage, session_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE mh_user_action_statistics_rebuild (
+  id BIGINT NOT NULL,
+  completed DATETIME,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 CREATE TABLE mh_oaipmh_harvesting (
   url VARCHAR(255) NOT NULL,
   last_harvested datetime,
@@ -44,32 +44,36 @@ import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
 import org.opencastproject.series.api.SeriesService;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Function0;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.util.data.Option.Match;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
-import org.jboss.security.xacml.core.JBossPDP;
 import org.jboss.security.xacml.core.model.context.AttributeType;
 import org.jboss.security.xacml.core.model.context.RequestType;
 import org.jboss.security.xacml.core.model.context.SubjectType;
 import org.jboss.security.xacml.factories.RequestAttributeFactory;
 import org.jboss.security.xacml.factories.RequestResponseContextFactory;
-import org.jboss.security.xacml.interfaces.PolicyDecisionPoint;
 import org.jboss.security.xacml.interfaces.RequestContext;
 import org.jboss.security.xacml.interfaces.XACMLConstants;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -79,6 +83,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.management.ObjectInstance;
 import javax.xml.bind.JAXBException;
 
 /**
@@ -92,6 +97,15 @@ public class XACMLAuthorizationService implements AuthorizationService {
   /** The default filename for XACML attachments */
   public static final String XACML_FILENAME = "xacml.xml";
 
+  /** The configuration key for the maximum number of cached policies */
+  public static final String POLICY_CACHE_SIZE_KEY = "policy.cache.size";
+
+  /** The default maximum number of cached policies */
+  public static final int DEFAULT_POLICY_CACHE_SIZE = 1000;
+
+  /** The JMX type of the policy cache statistics */
+  private static final String JMX_POLICY_CACHE_TYPE = "XACMLPolicyCache";
+
   /** The workspace */
   protected Workspace workspace;
 
@@ -101,6 +115,53 @@ public class XACMLAuthorizationService implements AuthorizationService {
   /** The series service */
   protected SeriesService seriesService;
 
+  /** The policy cache statistics */
+  private final XACMLPolicyCacheStatistics policyCacheStatistics = new XACMLPolicyCacheStatistics();
+
+  /** The parsed policies */
+  private volatile XACMLPolicyCache policyCache = new XACMLPolicyCache(DEFAULT_POLICY_CACHE_SIZE,
+          policyCacheStatistics);
+
+  /** The registered JMX bean */
+  private ObjectInstance registeredMXBean;
+
+  /**
+   * OSGi callback on component activation.
+   *
+   * @param cc
+   *          the component context
+   */
+  public void activate(ComponentContext cc) {
+    int cacheSize = DEFAULT_POLICY_CACHE_SIZE;
+    if (cc != null)
+      cacheSize = OsgiUtil.getOptCfgAsInt(cc.getProperties(), POLICY_CACHE_SIZE_KEY).getOrElse(cacheSize);
+    if (cacheSize < 0) {
+      logger.warn("Invalid policy cache size {}, using the default of {}", cacheSize, DEFAULT_POLICY_CACHE_SIZE);
+      cacheSize = DEFAULT_POLICY_CACHE_SIZE;
+    }
+    policyCache = new XACMLPolicyCache(cacheSize, policyCacheStatistics);
+    logger.info("Caching up to {} XACML policies", cacheSize);
+    registeredMXBean = JmxUtil.registerMXBean(policyCacheStatistics, JMX_POLICY_CACHE_TYPE);
+  }
+
+  /**
+   * Returns the statistics of the policy cache.
+   *
+   * @return the policy cache statistics
+   */
+  XACMLPolicyCacheStatistics getPolicyCacheStatistics() {
+    return policyCacheStatistics;
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  public void deactivate() {
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
+    policyCache.clear();
+  }
+
   @Override
   public Tuple<AccessControlList, AclScope> getActiveAcl(final MediaPackage mp) {
     logger.debug("getActiveACl for media package {}", mp.getIdentifier());
@@ -328,7 +389,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
     if (attachments.size() == 1) {
       logger.debug("One security attachment found for media package {} with flavors {}", mp.getIdentifier(), flavors);
       for (Attachment attachment : attachments) {
-        result = loadAcl(attachment.getURI());
+        result = loadAcl(attachment);
       }
     } else if (attachments.size() < 1) {
       logger.debug("No security attachment found for media package {} with flavors {}", mp.getIdentifier(), flavors);
@@ -378,14 +439,13 @@ public class XACMLAuthorizationService implements AuthorizationService {
     return Tuple.tuple(mp, attachment);
   }
 
-  /** Load an ACL from the given URI. */
-  private Option<AccessControlList> loadAcl(final URI uri) {
-    logger.debug("Load Acl from {}", uri);
-    final File file = fromWorkspace(uri);
-    if (file != null) {
+  /** Load an ACL from the given attachment. */
+  private Option<AccessControlList> loadAcl(final Attachment attachment) {
+    logger.debug("Load Acl from {}", attachment.getURI());
+    final XACMLPolicyCache.Policy policy = getPolicy(attachment);
+    if (policy != null) {
       try {
-        InputStream in = new FileInputStream(file);
-        AccessControlList acl = XACMLUtils.parseXacml(in);
+        AccessControlList acl = policy.getAccessControlList();
         if (acl != null) {
           return Option.option(acl);
         }
@@ -393,11 +453,58 @@ public class XACMLAuthorizationService implements AuthorizationService {
         logger.error("Exception occured: {}", e);
       }
     } else {
-      logger.debug("URI {} not found", uri);
+      logger.debug("URI {} not found", attachment.getURI());
     }
     return Option.none();
   }
 
+  /**
+   * Returns the parsed policy of a XACML attachment. Policies of attachments with a checksum are looked up without
+   * accessing the workspace, other policies are identified by the checksum of the workspace file, which is still much
+   * cheaper than parsing it. Policies are always cached under the checksum of the content they were parsed from.
+   *
+   * @param attachment
+   *          the XACML attachment
+   * @return the policy or <code>null</code> if the XACML file cannot be read
+   */
+  private XACMLPolicyCache.Policy getPolicy(Attachment attachment) {
+    final XACMLPolicyCache cache = policyCache;
+    final URI uri = attachment.getURI();
+    String key = null;
+    if (attachment.getChecksum() != null) {
+      key = uri + "#" + attachment.getChecksum();
+      final XACMLPolicyCache.Policy policy = cache.get(key);
+      if (policy != null)
+        return policy;
+    }
+    final File file = fromWorkspace(uri);
+    if (file == null)
+      return null;
+    final byte[] xacml;
+    final String contentKey;
+    try {
+      xacml = FileUtils.readFileToByteArray(file);
+      final ChecksumType type = attachment.getChecksum() != null ? attachment.getChecksum().getType()
+              : ChecksumType.DEFAULT_TYPE;
+      contentKey = uri + "#" + Checksum.create(type, new ByteArrayInputStream(xacml));
+    } catch (IOException e) {
+      logger.error("Unable to read XACML policy file {}: {}", uri, e.getMessage());
+      return null;
+    }
+    // The file may have been changed since the attachment checksum was calculated
+    if (!contentKey.equals(key)) {
+      final XACMLPolicyCache.Policy policy = cache.get(contentKey);
+      if (policy != null)
+        return policy;
+    }
+    try {
+      return cache.put(contentKey, xacml);
+    } catch (Exception e) {
+      logger.error("Unable to parse XACML policy file {}: {}", uri, e.getMessage());
+      return null;
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -416,8 +523,8 @@ public class XACMLAuthorizationService implements AuthorizationService {
         return getXacmlAttachment(mp).map(new Function<Attachment, Boolean>() {
           @Override
           public Boolean apply(Attachment attachment) {
-            final File xacmlPolicyFile = fromWorkspace(attachment.getURI());
-            if (xacmlPolicyFile == null) {
+            final XACMLPolicyCache.Policy policy = getPolicy(attachment);
+            if (policy == null) {
               logger.warn("Unable to read XACML file from {}! Prevent access permissions.", attachment);
               return false;
             }
@@ -466,37 +573,18 @@ public class XACMLAuthorizationService implements AuthorizationService {
               return false;
             }
 
-            PolicyDecisionPoint pdp = getPolicyDecisionPoint(xacmlPolicyFile);
-
-            return pdp.evaluate(requestCtx).getDecision() == XACMLConstants.DECISION_PERMIT;
+            try {
+              return policy.evaluate(requestCtx).getDecision() == XACMLConstants.DECISION_PERMIT;
+            } catch (Exception e) {
+              logger.warn("Unable to evaluate the XACML policy of {}: {}", attachment, e.getMessage());
+              return false;
+            }
           }
         }).getOrElse(true);
       }
     });
   }
 
-  private PolicyDecisionPoint getPolicyDecisionPoint(File xacmlFile) {
-    // Build a JBoss PDP configuration. This is a custom jboss format, so we're just hacking it together here
-    StringBuilder sb = new StringBuilder();
-    sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
-    sb.append("<ns:jbosspdp xmlns:ns=\"urn:jboss:xacml:2.0\">");
-    sb.append("<ns:Policies><ns:Policy><ns:Location>");
-    sb.append(xacmlFile.toURI().toString());
-    sb.append("</ns:Location></ns:Policy></ns:Policies><ns:Locators>");
-    sb.append("<ns:Locator Name=\"org.jboss.security.xacml.locators.JBossPolicyLocator\">");
-    sb.append("</ns:Locator></ns:Locators></ns:jbosspdp>");
-    InputStream is = null;
-    try {
-      is = IOUtils.toInputStream(sb.toString(), "UTF-8");
-      return new JBossPDP(is);
-    } catch (IOException e) {
-      // Only happens if 'UTF-8' is an invalid encoding, which it isn't
-      throw new IllegalStateException("Unable to transform a string into a stream");
-    } finally {
-      IOUtils.closeQuietly(is);
-    }
-  }
-
   /**
    * Sets the workspace to use for retrieving XACML policies
    *
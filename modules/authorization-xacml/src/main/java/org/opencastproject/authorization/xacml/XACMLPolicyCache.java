@@ -0,0 +1,221 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.authorization.xacml;
+
+import org.opencastproject.security.api.AccessControlList;
+
+import org.jboss.security.xacml.core.JBossPDP;
+import org.jboss.security.xacml.factories.PolicyFactory;
+import org.jboss.security.xacml.interfaces.PolicyDecisionPoint;
+import org.jboss.security.xacml.interfaces.PolicyLocator;
+import org.jboss.security.xacml.interfaces.RequestContext;
+import org.jboss.security.xacml.interfaces.ResponseContext;
+import org.jboss.security.xacml.interfaces.XACMLPolicy;
+import org.jboss.security.xacml.locators.JBossPolicyLocator;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Size bounded cache of parsed XACML policies.
+ * <p>
+ * The policies are keyed by a string identifying the content of a policy file, e.g. the attachment URI and the
+ * checksum of the policy. A policy is parsed from the same bytes the checksum was calculated from when it is added to
+ * the cache, so a cached policy never reflects a later change of the file. If the cache is full, the least recently
+ * used policy is evicted.
+ */
+public class XACMLPolicyCache {
+
+  /** The maximum number of idle policy decision points kept per policy */
+  private static final int MAX_IDLE_PDPS = 4;
+
+  /** The cache statistics */
+  private final XACMLPolicyCacheStatistics statistics;
+
+  /** The maximum number of cached policies */
+  private final int capacity;
+
+  /** The cached policies in access order */
+  private final Map<String, Policy> policies;
+
+  /**
+   * Creates a cache.
+   *
+   * @param capacity
+   *          the maximum number of cached policies, <code>0</code> disables caching
+   * @param statistics
+   *          the statistics to update
+   */
+  public XACMLPolicyCache(int capacity, XACMLPolicyCacheStatistics statistics) {
+    this.capacity = capacity;
+    this.statistics = statistics;
+    this.policies = new LinkedHashMap<String, Policy>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Policy> eldest) {
+        if (size() <= XACMLPolicyCache.this.capacity)
+          return false;
+        XACMLPolicyCache.this.statistics.evicted();
+        return true;
+      }
+    };
+    statistics.setCapacity(capacity);
+  }
+
+  /**
+   * Returns a cached policy.
+   *
+   * @param key
+   *          the key identifying the policy content
+   * @return the policy or <code>null</code> if it is not cached
+   */
+  public synchronized Policy get(String key) {
+    final Policy policy = policies.get(key);
+    if (policy == null) {
+      statistics.missed();
+    } else {
+      statistics.hit();
+    }
+    return policy;
+  }
+
+  /**
+   * Adds a policy to the cache unless there already is a policy with the same key.
+   *
+   * @param key
+   *          the key identifying the policy content
+   * @param xacml
+   *          the policy content the key was derived from
+   * @return the cached policy
+   * @throws Exception
+   *           if the policy cannot be parsed
+   */
+  public Policy put(String key, byte[] xacml) throws Exception {
+    synchronized (this) {
+      final Policy policy = policies.get(key);
+      if (policy != null)
+        return policy;
+    }
+    // Parse outside of the lock, a concurrently added policy of the same key is preferred below
+    final Policy parsed = new Policy(xacml);
+    synchronized (this) {
+      Policy policy = policies.get(key);
+      if (policy == null) {
+        policy = parsed;
+        if (capacity > 0)
+          policies.put(key, policy);
+      }
+      statistics.setSize(policies.size());
+      return policy;
+    }
+  }
+
+  /**
+   * Removes all policies from the cache.
+   */
+  public synchronized void clear() {
+    policies.clear();
+    statistics.setSize(0);
+  }
+
+  /**
+   * Returns the number of cached policies.
+   *
+   * @return the cache size
+   */
+  public synchronized int size() {
+    return policies.size();
+  }
+
+  /**
+   * A parsed XACML policy. The JBoss policy decision points are not documented to be thread safe, so each of them is
+   * used by one thread at a time and additional ones are built from the policy content as needed.
+   */
+  public static final class Policy {
+
+    /** The policy content */
+    private final byte[] xacml;
+
+    /** The access control list */
+    private final AccessControlList acl;
+
+    /** The policy decision points not in use */
+    private final Queue<PolicyDecisionPoint> idle = new ConcurrentLinkedQueue<PolicyDecisionPoint>();
+
+    private Policy(byte[] xacml) throws Exception {
+      this.xacml = xacml;
+      this.acl = XACMLUtils.parseXacml(new ByteArrayInputStream(xacml));
+      idle.offer(createPolicyDecisionPoint(xacml));
+    }
+
+    /**
+     * Evaluates a request against this policy.
+     *
+     * @param request
+     *          the request
+     * @return the response
+     * @throws Exception
+     *           if a policy decision point cannot be built
+     */
+    public ResponseContext evaluate(RequestContext request) throws Exception {
+      PolicyDecisionPoint pdp = idle.poll();
+      if (pdp == null)
+        pdp = createPolicyDecisionPoint(xacml);
+      try {
+        return pdp.evaluate(request);
+      } finally {
+        if (idle.size() < MAX_IDLE_PDPS)
+          idle.offer(pdp);
+      }
+    }
+
+    /**
+     * Returns a copy of the access control list of this policy.
+     *
+     * @return the access control list
+     */
+    public AccessControlList getAccessControlList() {
+      // Access control lists are mutable, so each caller gets its own
+      return acl == null ? null : new AccessControlList(acl.getEntries());
+    }
+
+    private static PolicyDecisionPoint createPolicyDecisionPoint(byte[] xacml) throws Exception {
+      final Set<XACMLPolicy> policies = new HashSet<XACMLPolicy>();
+      policies.add(PolicyFactory.createPolicy(new ByteArrayInputStream(xacml)));
+      final PolicyLocator locator = new JBossPolicyLocator();
+      locator.setPolicies(policies);
+      final Set<PolicyLocator> locators = new HashSet<PolicyLocator>();
+      locators.add(locator);
+      final PolicyDecisionPoint pdp = new JBossPDP();
+      pdp.setPolicies(policies);
+      pdp.setLocators(locators);
+      return pdp;
+    }
+
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.authorization.xacml;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the hit rate of the {@link XACMLPolicyCache}.
+ */
+public class XACMLPolicyCacheStatistics implements XACMLPolicyCacheStatisticsMXBean {
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private volatile int capacity;
+  private volatile int size;
+
+  void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  void setSize(int size) {
+    this.size = size;
+  }
+
+  void hit() {
+    hitCount.incrementAndGet();
+  }
+
+  void missed() {
+    missCount.incrementAndGet();
+  }
+
+  void evicted() {
+    evictionCount.incrementAndGet();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.XACMLPolicyCacheStatisticsMXBean#getCapacity()
+   */
+  @Override
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.XACMLPolicyCacheStatisticsMXBean#getSize()
+   */
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.XACMLPolicyCacheStatisticsMXBean#getHitCount()
+   */
+  @Override
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.XACMLPolicyCacheStatisticsMXBean#getMissCount()
+   */
+  @Override
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.XACMLPolicyCacheStatisticsMXBean#getEvictionCount()
+   */
+  @Override
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.XACMLPolicyCacheStatisticsMXBean#getCacheHitRatio()
+   */
+  @Override
+  public float getCacheHitRatio() {
+    long hits = hitCount.get();
+    long total = hits + missCount.get();
+    return total == 0 ? 0.0f : (float) hits / total;
+  }
+
+}
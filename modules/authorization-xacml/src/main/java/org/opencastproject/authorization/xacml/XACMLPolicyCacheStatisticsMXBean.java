@@ -0,0 +1,70 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.authorization.xacml;
+
+/**
+ * JMX interface of the XACML policy cache statistics.
+ */
+public interface XACMLPolicyCacheStatisticsMXBean {
+
+  /**
+   * Gets the maximum number of cached policies.
+   *
+   * @return the cache capacity
+   */
+  int getCapacity();
+
+  /**
+   * Gets the number of cached policies.
+   *
+   * @return the cache size
+   */
+  int getSize();
+
+  /**
+   * Gets the number of lookups which found a cached policy.
+   *
+   * @return the number of cache hits
+   */
+  long getHitCount();
+
+  /**
+   * Gets the number of lookups which had to parse the policy.
+   *
+   * @return the number of cache misses
+   */
+  long getMissCount();
+
+  /**
+   * Gets the number of policies removed from the cache to make room for other policies.
+   *
+   * @return the number of evictions
+   */
+  long getEvictionCount();
+
+  /**
+   * Gets the ratio of cache hits to total lookups.
+   *
+   * @return the hit ratio
+   */
+  float getCacheHitRatio();
+
+}
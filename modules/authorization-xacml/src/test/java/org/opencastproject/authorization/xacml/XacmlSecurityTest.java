@@ -190,4 +190,34 @@ public class XacmlSecurityTest {
     Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
     Assert.assertFalse(authzService.hasPermission(mediapackage, "comment"));
   }
+
+  @Test
+  public void testPolicyCache() throws Exception {
+    MediaPackage mediapackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    AccessControlList acl = new AccessControlList(new AccessControlEntry("student", "read", true));
+    authzService.setAcl(mediapackage, AclScope.Episode, acl);
+
+    currentRoles.clear();
+    currentRoles.add(new JaxbRole("student", organization, ""));
+    XACMLPolicyCacheStatistics statistics = authzService.getPolicyCacheStatistics();
+    long misses = statistics.getMissCount();
+    long hits = statistics.getHitCount();
+    for (int i = 0; i < 3; i++) {
+      Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+      Assert.assertFalse(authzService.hasPermission(mediapackage, "write"));
+    }
+    Assert.assertEquals(misses + 1, statistics.getMissCount());
+    Assert.assertEquals(hits + 5, statistics.getHitCount());
+
+    // Cached access control lists must not be shared with the callers
+    AccessControlList activeAcl = authzService.getActiveAcl(mediapackage).getA();
+    activeAcl.getEntries().clear();
+    Assert.assertEquals(1, authzService.getActiveAcl(mediapackage).getA().getEntries().size());
+
+    // A changed policy is parsed again
+    acl = new AccessControlList(new AccessControlEntry("student", "write", true));
+    authzService.setAcl(mediapackage, AclScope.Episode, acl);
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "write"));
+  }
 }
@@ -87,6 +87,12 @@ import javax.persistence.Version;
                 + "j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.dispatchable.status.idfilter", query = "SELECT j.id FROM Job j "
                 + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids ORDER BY j.dateCreated"),
+        @NamedQuery(name = "Job.dispatchable.status.jobfilter", query = "SELECT j FROM Job j "
+                + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids ORDER BY j.dateCreated"),
+        @NamedQuery(name = "Job.dispatchable.status.signature", query = "SELECT j.id, j.status, "
+                + "j.creatorServiceRegistration.serviceType, j.operation FROM Job j "
+                + "WHERE j.dispatchable = true AND j.status IN :statuses ORDER BY j.dateCreated"),
+        @NamedQuery(name = "Job.status.idfilter", query = "SELECT j.id, j.status FROM Job j WHERE j.id IN :jobids"),
         @NamedQuery(name = "Job.undispatchable.status", query = "SELECT j FROM Job j where j.dispatchable = false and "
                 + "j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.processinghost.status", query = "SELECT j FROM Job j "
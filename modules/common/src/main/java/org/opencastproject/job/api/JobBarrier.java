@@ -292,10 +292,12 @@ public final class JobBarrier {
       final Map<Job, Job.Status> finishedJobs = new HashMap<Job, Job.Status>();
       while (true) {
         final long time = System.currentTimeMillis();
-        // Wait a little..
+        // Wait a little, or until the service registry reports that one of the jobs has terminated
         try {
           final long timeToSleep = Math.min(pollingInterval, Math.abs(endTime - time));
-          Thread.sleep(timeToSleep);
+          // Without a timeout to check, there is no need to look at the jobs if none of them has terminated
+          if (!awaitTermination(finishedJobs, timeToSleep) && workTime == 0)
+            continue;
         } catch (InterruptedException e) {
           logger.debug("Job polling thread was interrupted");
           return;
@@ -366,6 +368,44 @@ public final class JobBarrier {
       }
     }
 
+    /**
+     * Waits until the service registry notices the termination of one of the pending jobs. If the service registry
+     * returns before the timeout without having noticed a termination, the remaining time is spent sleeping.
+     *
+     * @param finishedJobs
+     *          the jobs that are known to be finished
+     * @param timeout
+     *          the maximum time to wait in milliseconds
+     * @return <code>false</code> if the service registry has waited for the whole timeout without noticing a
+     *         termination, in which case the status of the jobs does not have to be checked
+     * @throws InterruptedException
+     *           if the thread has been interrupted
+     */
+    private boolean awaitTermination(Map<Job, Job.Status> finishedJobs, long timeout) throws InterruptedException {
+      final long start = System.currentTimeMillis();
+      final List<Long> pendingJobIds = new ArrayList<Long>();
+      for (Job job : jobs) {
+        if (!finishedJobs.containsKey(job))
+          pendingJobIds.add(job.getId());
+      }
+      if (timeout > 0 && !pendingJobIds.isEmpty()) {
+        try {
+          if (serviceRegistry.waitForJobTermination(pendingJobIds, timeout))
+            return true;
+          // A registry returning early, e.g. because it cannot wait, is not trusted to have seen all terminations
+          if (System.currentTimeMillis() - start >= timeout)
+            return false;
+        } catch (ServiceRegistryException e) {
+          logger.debug("Unable to wait for the termination of {}, falling back to polling: {}", pendingJobIds,
+                  e.getMessage());
+        }
+      }
+      final long remaining = timeout - (System.currentTimeMillis() - start);
+      if (remaining > 0)
+        Thread.sleep(remaining);
+      return true;
+    }
+
     /**
      * Notifies listeners about the status change.
      *
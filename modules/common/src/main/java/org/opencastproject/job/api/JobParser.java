@@ -104,6 +104,26 @@ public final class JobParser {
     }
   }
 
+  /**
+   * Serializes the job list into a string representation.
+   *
+   * @param jobs
+   *          the job list
+   * @return the job list's serialized form
+   * @throws IOException
+   *           if parsing fails
+   */
+  public static String toXml(JaxbJobList jobs) throws IOException {
+    try {
+      Marshaller marshaller = jaxbContext.createMarshaller();
+      Writer writer = new StringWriter();
+      marshaller.marshal(jobs, writer);
+      return writer.toString();
+    } catch (JAXBException e) {
+      throw new IOException(e);
+    }
+  }
+
   /**
    * Parses an xml string representing a {@link JaxbJobList}
    *
@@ -429,6 +429,65 @@ public interface ServiceRegistry {
    */
   Job updateJob(Job job) throws NotFoundException, ServiceRegistryException;
 
+  /**
+   * Create and store several new jobs at once. Each of the given jobs serves as a template, providing the job type, the
+   * operation, the arguments, the payload, whether the job is dispatchable, the parent job and the job load. If a
+   * template does not define a parent job, the current job is used as the parent. All jobs are created in a single
+   * transaction, so either all or none of them are created.
+   *
+   * @param jobs
+   *          the job templates
+   * @return the created jobs, in the order of the templates
+   * @throws ServiceRegistryException
+   *           if there is a problem creating the jobs
+   */
+  List<Job> createJobs(List<Job> jobs) throws ServiceRegistryException;
+
+  /**
+   * Create and store several new jobs at once on behalf of a host, as in {@link #createJobs(List)}.
+   *
+   * @param host
+   *          the host creating the jobs, including the http(s) protocol
+   * @param jobs
+   *          the job templates
+   * @return the created jobs, in the order of the templates
+   * @throws ServiceRegistryException
+   *           if there is a problem creating the jobs
+   */
+  List<Job> createJobs(String host, List<Job> jobs) throws ServiceRegistryException;
+
+  /**
+   * Update several jobs in the database at once. All jobs are updated in a single transaction, so either all or none of
+   * them are updated.
+   *
+   * @param jobs
+   *          the jobs to update
+   * @return the updated jobs
+   * @throws NotFoundException
+   *           if one of the jobs does not exist
+   * @throws ServiceRegistryException
+   *           if there is a problem updating the jobs
+   */
+  List<Job> updateJobs(List<Job> jobs) throws NotFoundException, ServiceRegistryException;
+
+  /**
+   * Waits until at least one of the given jobs has terminated, i.e. has reached one of the states
+   * {@link Status#FINISHED}, {@link Status#FAILED}, {@link Status#CANCELED} or {@link Status#DELETED}, or until the
+   * timeout has elapsed. Implementations may return early, so callers still have to check the status of the jobs.
+   * Implementations check the jobs when called, so a termination that has not been noticed when the timeout elapsed is
+   * reported by the next call right away.
+   *
+   * @param ids
+   *          the job identifiers
+   * @param timeout
+   *          the maximum time to wait in milliseconds
+   * @return <code>true</code> if one of the jobs has terminated, <code>false</code> if no termination has been noticed
+   *         within the timeout
+   * @throws ServiceRegistryException
+   *           if there is a problem accessing the jobs
+   */
+  boolean waitForJobTermination(List<Long> ids, long timeout) throws ServiceRegistryException;
+
   /**
    * Gets a receipt by its ID, or null if not found
    *
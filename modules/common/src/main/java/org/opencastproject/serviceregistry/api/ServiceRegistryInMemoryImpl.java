@@ -473,6 +473,32 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return job;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs(java.util.List)
+   */
+  @Override
+  public List<Job> createJobs(List<Job> templates) throws ServiceRegistryException {
+    List<Job> createdJobs = new ArrayList<Job>(templates.size());
+    for (Job template : templates) {
+      Job parentJob = template.getParentJobId() != null ? new JobImpl(template.getParentJobId()) : getCurrentJob();
+      createdJobs.add(createJob(template.getJobType(), template.getOperation(), template.getArguments(),
+              template.getPayload(), template.isDispatchable(), parentJob, template.getJobLoad()));
+    }
+    return createdJobs;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs(java.lang.String, java.util.List)
+   */
+  @Override
+  public List<Job> createJobs(String host, List<Job> templates) throws ServiceRegistryException {
+    return createJobs(templates);
+  }
+
   private void removeJob(long id) throws NotFoundException, ServiceRegistryException {
     synchronized (jobs) {
       if (!jobs.containsKey(id))
@@ -571,6 +597,8 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
       try {
         updatedJob = updateInternal(job);
         jobs.put(updatedJob.getId(), JobParser.toXml(new JaxbJob(updatedJob)));
+        if (updatedJob.getStatus().isTerminated())
+          jobs.notifyAll();
       } catch (IOException e) {
         throw new IllegalStateException("Error serializing job", e);
       }
@@ -578,6 +606,53 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return updatedJob;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#updateJobs(java.util.List)
+   */
+  @Override
+  public List<Job> updateJobs(List<Job> jobsToUpdate) throws NotFoundException, ServiceRegistryException {
+    List<Job> updatedJobs = new ArrayList<Job>(jobsToUpdate.size());
+    synchronized (jobs) {
+      for (Job job : jobsToUpdate) {
+        updatedJobs.add(updateJob(job));
+      }
+    }
+    return updatedJobs;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#waitForJobTermination(java.util.List, long)
+   */
+  @Override
+  public boolean waitForJobTermination(List<Long> ids, long timeout) throws ServiceRegistryException {
+    final long deadline = System.currentTimeMillis() + timeout;
+    synchronized (jobs) {
+      while (true) {
+        for (Long id : ids) {
+          try {
+            if (getJob(id).getStatus().isTerminated())
+              return true;
+          } catch (NotFoundException e) {
+            return true;
+          }
+        }
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0)
+          return false;
+        try {
+          jobs.wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    }
+  }
+
   private Job updateInternal(Job job) {
     Date now = new Date();
     Status status = job.getStatus();
@@ -24,6 +24,7 @@ package org.opencastproject.fileupload.api.job;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 
+import java.util.BitSet;
 import java.util.UUID;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -66,6 +67,9 @@ public class FileUploadJob {
   private long chunksTotal = 1; // total number of chunks the upload consists of
   @XmlElement(name = "current-chunk")
   private Chunk currentChunk = new Chunk(); // information about the current chunk
+  @XmlElement(name = "chunks-received")
+  private String chunksReceived; // ranges of chunks received out of order, e.g. "0-4,7,9-11"
+  private BitSet receivedChunks; // decoded chunksReceived, created on first use
 
   public FileUploadJob() {
     this.id = UUID.randomUUID().toString();
@@ -130,6 +134,99 @@ public class FileUploadJob {
     this.currentChunk = currentChunk;
   }
 
+  /**
+   * Returns true if the chunk with the given number has been received. Chunks uploaded in order are also tracked by
+   * the current chunk.
+   *
+   * @param number
+   *          the chunk number
+   * @return true if the chunk has been received
+   */
+  public synchronized boolean isChunkReceived(int number) {
+    return number <= currentChunk.getNumber() || getReceivedChunks().get(number);
+  }
+
+  /**
+   * Marks the chunk with the given number as received. The current chunk is advanced to the last chunk of the
+   * received chunks without gaps.
+   *
+   * @param number
+   *          the chunk number
+   * @param size
+   *          the number of bytes of the chunk
+   */
+  public synchronized void setChunkReceived(int number, long size) {
+    BitSet received = getReceivedChunks();
+    received.set(number);
+    int last = currentChunk.getNumber();
+    int contiguous = received.nextClearBit(last + 1) - 1;
+    if (contiguous > last) {
+      received.clear(last + 1, contiguous + 1);
+      setCurrentChunk(new Chunk(contiguous, number == contiguous ? size : chunksize));
+    }
+    chunksReceived = encodeRanges(received);
+    setLastModified(System.currentTimeMillis());
+  }
+
+  /**
+   * Forgets all received chunks.
+   */
+  public synchronized void resetChunksReceived() {
+    getReceivedChunks().clear();
+    chunksReceived = null;
+    setCurrentChunk(new Chunk());
+  }
+
+  /**
+   * Returns the number of received chunks.
+   *
+   * @return the number of received chunks
+   */
+  public synchronized long getChunksReceivedCount() {
+    return currentChunk.getNumber() + 1 + getReceivedChunks().cardinality();
+  }
+
+  private BitSet getReceivedChunks() {
+    if (receivedChunks == null) {
+      receivedChunks = decodeRanges(chunksReceived);
+    }
+    return receivedChunks;
+  }
+
+  static String encodeRanges(BitSet bits) {
+    if (bits.isEmpty()) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    int from = bits.nextSetBit(0);
+    while (from >= 0) {
+      int to = bits.nextClearBit(from) - 1;
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+      sb.append(from);
+      if (to > from) {
+        sb.append('-').append(to);
+      }
+      from = bits.nextSetBit(to + 1);
+    }
+    return sb.toString();
+  }
+
+  static BitSet decodeRanges(String ranges) {
+    BitSet bits = new BitSet();
+    if (ranges == null || ranges.trim().isEmpty()) {
+      return bits;
+    }
+    for (String range : ranges.split(",")) {
+      String[] bounds = range.trim().split("-");
+      int from = Integer.parseInt(bounds[0]);
+      int to = bounds.length > 1 ? Integer.parseInt(bounds[1]) : from;
+      bits.set(from, to + 1);
+    }
+    return bits;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder().append("FileUploadJob(id=").append(this.id).append(", filename=")
@@ -53,6 +53,8 @@ public class Payload {
   private MediaPackage mediapackage; // the mediapackage this UploadJob should belong to
   @XmlElement(name = "flavor")
   private MediaPackageElementFlavor flavor;
+  @XmlElement(name = "checksum")
+  private String checksum; // MD5 checksum the uploaded file is verified against, or the one computed while uploading
 
   public Payload() {
     this.filename = "unknown";
@@ -106,6 +108,14 @@ public class Payload {
     this.flavor = flavor;
   }
 
+  public String getChecksum() {
+    return checksum;
+  }
+
+  public void setChecksum(String checksum) {
+    this.checksum = checksum;
+  }
+
   public URL getUrl() {
     return url;
   }
@@ -80,6 +80,7 @@ public class FileUploadRestService {
   static final String REQUESTFIELD_CHUNKNUM = "chunknumber";
   static final String REQUESTFIELD_MEDIAPACKAGE = "mediapackage";
   static final String REQUESTFIELD_FLAVOR = "flavor";
+  static final String REQUESTFIELD_CHECKSUM = "checksum";
   private static final Logger log = LoggerFactory.getLogger(FileUploadRestService.class);
   private FileUploadService uploadService;
   private MediaPackageBuilderFactory factory = null;
@@ -114,7 +115,8 @@ public class FileUploadRestService {
     @RestParameter(description = "The size of the file that will be uploaded", isRequired = false, name = REQUESTFIELD_FILESIZE, type = RestParameter.Type.STRING),
     @RestParameter(description = "The size of the chunks that will be uploaded", isRequired = false, name = REQUESTFIELD_CHUNKSIZE, type = RestParameter.Type.STRING),
     @RestParameter(description = "The flavor of this track", isRequired = false, name = REQUESTFIELD_FLAVOR, type = RestParameter.Type.STRING),
-    @RestParameter(description = "The mediapackage the file should belong to", isRequired = false, name = REQUESTFIELD_MEDIAPACKAGE, type = RestParameter.Type.TEXT)},
+    @RestParameter(description = "The mediapackage the file should belong to", isRequired = false, name = REQUESTFIELD_MEDIAPACKAGE, type = RestParameter.Type.TEXT),
+    @RestParameter(description = "The MD5 checksum the uploaded file is verified against", isRequired = false, name = REQUESTFIELD_CHECKSUM, type = RestParameter.Type.STRING)},
   reponses = {
     @RestResponse(description = "job was successfully created", responseCode = HttpServletResponse.SC_OK),
     @RestResponse(description = "upload service gave an error", responseCode = HttpServletResponse.SC_NO_CONTENT)
@@ -124,7 +126,8 @@ public class FileUploadRestService {
           @FormParam(REQUESTFIELD_FILESIZE) long filesize,
           @FormParam(REQUESTFIELD_CHUNKSIZE) int chunksize,
           @FormParam(REQUESTFIELD_MEDIAPACKAGE) String mediapackage,
-          @FormParam(REQUESTFIELD_FLAVOR) String flav) {
+          @FormParam(REQUESTFIELD_FLAVOR) String flav,
+          @FormParam(REQUESTFIELD_CHECKSUM) String checksum) {
     try {
       if (StringUtils.isBlank(filename)) {
         filename = "john.doe";
@@ -146,6 +149,10 @@ public class FileUploadRestService {
       }
 
       FileUploadJob job = uploadService.createJob(filename, filesize, chunksize, mp, flavor);
+      if (StringUtils.isNotBlank(checksum)) {
+        job.getPayload().setChecksum(checksum.trim());
+        uploadService.storeJob(job);
+      }
       return Response.ok(job.getId()).build();
     } catch (FileUploadException e) {
       log.error(e.getMessage(), e);
@@ -33,6 +33,8 @@ import org.opencastproject.ingest.api.IngestService;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 import org.opencastproject.mediapackage.Track;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.IoSupport;
 import org.opencastproject.util.data.Function2;
 import org.opencastproject.util.data.Option;
@@ -41,6 +43,7 @@ import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -54,15 +57,24 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Dictionary;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -75,12 +87,14 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
   static final String PROPKEY_KARAF_DATA = "karaf.data";
   static final String PROPKEY_CLEANER_MAXTTL = "org.opencastproject.upload.cleaner.maxttl";
   static final String PROPKEY_UPLOAD_WORKDIR = "org.opencastproject.upload.workdir";
+  static final String PROPKEY_UPLOAD_DIRECT = "org.opencastproject.upload.direct";
   static final String DEFAULT_UPLOAD_WORKDIR = "tmp/fileupload"; /* The default location is the storage dir */
   static final String UPLOAD_COLLECTION = "uploaded";
   static final String FILEEXT_DATAFILE = ".payload";
   static final String FILENAME_CHUNKFILE = "chunk.part";
   static final String FILENAME_JOBFILE = "job.xml";
   static final int READ_BUFFER_LENGTH = 512;
+  static final int WRITE_BUFFER_LENGTH = 64 * 1024;
   static final int DEFAULT_CLEANER_MAXTTL = 6;
 
   private File workRoot = null;
@@ -88,9 +102,11 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
   private Workspace workspace;
   private Marshaller jobMarshaller;
   private Unmarshaller jobUnmarshaller;
-  private HashMap<String, FileUploadJob> jobCache = new HashMap<String, FileUploadJob>();
+  private Map<String, FileUploadJob> jobCache = new ConcurrentHashMap<String, FileUploadJob>();
+  private Map<String, DirectUpload> directUploads = new ConcurrentHashMap<String, DirectUpload>();
   private FileUploadServiceCleaner cleaner;
   private int jobMaxTTL = DEFAULT_CLEANER_MAXTTL;
+  private boolean directWrite = false;
 
   // <editor-fold defaultstate="collapsed" desc="OSGi Service Stuff" >
   protected synchronized void activate(ComponentContext cc) throws Exception {
@@ -137,6 +153,9 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
       logger.warn("Unable to update configuration. {}", e.getMessage());
     }
     logger.info("Configuration updated. Jobs older than {} hours are deleted.", jobMaxTTL);
+    directWrite = BooleanUtils.toBoolean((String) properties.get(PROPKEY_UPLOAD_DIRECT));
+    logger.info("Configuration updated. Chunks are {}.",
+            directWrite ? "written directly to their position in the payload" : "appended to the payload in order");
   }
 
   protected void setWorkspace(Workspace workspace) {
@@ -243,6 +262,7 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
             if (job.lastModified() < cal.getTimeInMillis()) {
               FileUtils.forceDelete(dir);
               jobCache.remove(id);
+              directUploads.remove(id);
               logger.info("Deleted outdated job {}", id);
             }
           }
@@ -265,7 +285,9 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     try {
       logger.debug("Attempting to store job {}", job.getId());
       File jobFile = ensureExists(getJobFile(job.getId()));
-      jobMarshaller.marshal(job, jobFile);
+      synchronized (this) {
+        jobMarshaller.marshal(job, jobFile);
+      }
     } catch (Exception e) {
       throw fileUploadException(Severity.error, "Failed to write job file.", e);
     }
@@ -283,6 +305,9 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
       if (isLocked(id)) {
         jobCache.remove(id);
       }
+      if (directUploads.remove(id) != null) {
+        jobCache.remove(id);
+      }
       File jobDir = getJobDir(id);
       FileUtils.forceDelete(jobDir);
     } catch (Exception e) {
@@ -298,6 +323,11 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
    */
   @Override
   public void acceptChunk(FileUploadJob job, long chunkNumber, InputStream content) throws FileUploadException {
+    if (directWrite) {
+      acceptChunkDirect(job, chunkNumber, content);
+      return;
+    }
+
     // job already completed?
     if (job.getState().equals(FileUploadJob.JobState.COMPLETE)) {
       removeFromCache(job);
@@ -398,6 +428,7 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
 
     // update job
     if (chunkNumber == job.getChunksTotal() - 1) { // upload is complete
+      verifyPayloadChecksum(job);
       finalizeJob(job);
       logger.info("Upload job completed: {}", job);
     } else {
@@ -407,6 +438,327 @@ public class FileUploadServiceImpl implements FileUploadService, ManagedService
     removeFromCache(job);
   }
 
+  /**
+   * Verifies the payload file of a job whose chunks have been appended in order against the checksum of the payload,
+   * if there is one. A payload that does not match is deleted, so that the upload can be started over.
+   *
+   * @param job
+   *          the upload job
+   * @throws FileUploadException
+   *           if the payload cannot be read or has the wrong checksum
+   */
+  private void verifyPayloadChecksum(FileUploadJob job) throws FileUploadException {
+    final Payload payload = job.getPayload();
+    if (payload.getChecksum() == null) {
+      return;
+    }
+    final String checksum;
+    try {
+      checksum = Checksum.create(ChecksumType.DEFAULT_TYPE, getPayloadFile(job.getId())).getValue();
+    } catch (IOException e) {
+      removeFromCache(job);
+      throw fileUploadException(Severity.error, "Failed to compute checksum of the payload of job " + job.getId(), e);
+    }
+    if (!payload.getChecksum().equalsIgnoreCase(checksum)) {
+      try {
+        deletePayloadFile(job.getId());
+        ensureExists(getPayloadFile(job.getId()));
+      } catch (IOException e) {
+        logger.warn("Could not recreate payload file of job {}: {}", job.getId(), e.getMessage());
+      }
+      job.resetChunksReceived();
+      payload.setCurrentSize(0L);
+      job.setState(FileUploadJob.JobState.READY);
+      storeJob(job);
+      removeFromCache(job);
+      throw fileUploadException(Severity.warn,
+              format("Payload has wrong checksum. Awaited: %s, received: %s.", payload.getChecksum(), checksum));
+    }
+  }
+
+  /**
+   * Writes a chunk directly to its position in the payload file. Chunks may be uploaded in any order and in parallel.
+   * The MD5 checksum of the payload is computed while the chunks are received and verified against the checksum of the
+   * payload, if there is one, before the payload is handed over.
+   *
+   * @param job
+   *          the upload job
+   * @param chunkNumber
+   *          the number of the chunk
+   * @param content
+   *          the chunk data
+   * @throws FileUploadException
+   *           if the chunk cannot be accepted
+   */
+  private void acceptChunkDirect(FileUploadJob job, long chunkNumber, InputStream content) throws FileUploadException {
+    final DirectUpload upload = getDirectUpload(job);
+    job = upload.job;
+    if (chunkNumber < 0 || chunkNumber >= job.getChunksTotal()) {
+      throw fileUploadException(Severity.error, format("Wrong chunk number. Awaiting #0 to #%d but #%d was offered.",
+              job.getChunksTotal() - 1, chunkNumber));
+    }
+    final int number = (int) chunkNumber;
+    final MessageDigest digest;
+    synchronized (upload) {
+      FileUploadJob.JobState state = job.getState();
+      if (state == FileUploadJob.JobState.FINALIZING || state == FileUploadJob.JobState.COMPLETE) {
+        throw fileUploadException(Severity.warn, "Job is already complete.");
+      }
+      if (job.isChunkReceived(number) || !upload.inProgress.add(number)) {
+        throw fileUploadException(Severity.warn, format("Chunk #%d has already been received.", number));
+      }
+      job.setState(FileUploadJob.JobState.INPROGRESS);
+      // a chunk directly following the digested part of the payload is digested while it is received
+      digest = upload.digestedChunks == number ? cloneDigest(upload.digest) : null;
+    }
+    logger.debug("Receiving chunk #{} of job {}", number, job);
+
+    // write chunk to its position in the payload file
+    final long supposedSize = getSupposedChunkSize(job, number);
+    final long offset = number * (long) Math.max(job.getChunksize(), 0);
+    long received = 0L;
+    RandomAccessFile payloadFile = null;
+    try {
+      payloadFile = new RandomAccessFile(getPayloadFile(job.getId()), "rw");
+      FileChannel channel = payloadFile.getChannel();
+      byte[] readBuffer = new byte[WRITE_BUFFER_LENGTH];
+      int bytesRead;
+      while ((bytesRead = content.read(readBuffer)) != -1) {
+        if (supposedSize >= 0 && received + bytesRead > supposedSize) {
+          received += bytesRead;
+          break;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(readBuffer, 0, bytesRead);
+        while (buffer.hasRemaining()) {
+          received += channel.write(buffer, offset + received);
+        }
+        if (digest != null) {
+          digest.update(readBuffer, 0, bytesRead);
+        }
+      }
+    } catch (IOException e) {
+      chunkFailed(upload, number);
+      throw fileUploadException(Severity.error, "Failed to store chunk data", e);
+    } finally {
+      IOUtils.closeQuietly(content);
+      IOUtils.closeQuietly(payloadFile);
+    }
+
+    // check if chunk has right size
+    if (supposedSize >= 0 && received != supposedSize) {
+      chunkFailed(upload, number);
+      throw fileUploadException(Severity.warn,
+              format("Chunk has wrong size. Awaited: %d bytes, received: %d bytes.", supposedSize, received));
+    }
+
+    // update job
+    final boolean complete;
+    synchronized (upload) {
+      upload.inProgress.remove(number);
+      Payload payload = job.getPayload();
+      if (payload.getTotalSize() == -1 && job.getChunksTotal() == 1) { // set totalSize in case of ordinary form submit
+        payload.setTotalSize(received);
+      }
+      payload.setCurrentSize(payload.getCurrentSize() + received);
+      job.setChunkReceived(number, received);
+      if (digest != null && upload.digestedChunks == number) {
+        upload.digest = digest;
+        upload.digestedChunks++;
+      }
+      complete = job.getChunksReceivedCount() == job.getChunksTotal();
+      if (complete) {
+        job.setState(FileUploadJob.JobState.FINALIZING);
+      } else {
+        job.setState(upload.inProgress.isEmpty() ? FileUploadJob.JobState.READY : FileUploadJob.JobState.INPROGRESS);
+        storeJob(job);
+      }
+    }
+
+    if (!complete) {
+      updateDigest(upload, false);
+      return;
+    }
+
+    // verify checksum and hand over payload
+    try {
+      String checksum = updateDigest(upload, true);
+      Payload payload = job.getPayload();
+      if (payload.getChecksum() != null && !payload.getChecksum().equalsIgnoreCase(checksum)) {
+        synchronized (upload) {
+          job.resetChunksReceived();
+          payload.setCurrentSize(0L);
+          upload.resetDigest();
+          job.setState(FileUploadJob.JobState.READY);
+          storeJob(job);
+        }
+        throw fileUploadException(Severity.warn,
+                format("Payload has wrong checksum. Awaited: %s, received: %s.", payload.getChecksum(), checksum));
+      }
+      payload.setChecksum(checksum);
+      finalizeJob(job);
+      logger.info("Upload job completed: {}", job);
+      storeJob(job);
+    } finally {
+      if (job.getState() != FileUploadJob.JobState.READY) {
+        directUploads.remove(job.getId());
+        removeFromCache(job);
+      }
+    }
+  }
+
+  /**
+   * Returns the direct upload of a job, registering the job as the one all chunks of the upload are recorded with.
+   *
+   * @param job
+   *          the upload job
+   * @return the direct upload
+   */
+  private synchronized DirectUpload getDirectUpload(FileUploadJob job) {
+    DirectUpload upload = directUploads.get(job.getId());
+    if (upload == null) {
+      // concurrent requests may have loaded their own copy of the job, so the cached one is used if there is one
+      FileUploadJob cached = jobCache.get(job.getId());
+      upload = new DirectUpload(cached == null ? job : cached);
+      directUploads.put(job.getId(), upload);
+      jobCache.put(job.getId(), upload.job);
+    }
+    return upload;
+  }
+
+  /** Records that the upload of a chunk failed, so that it can be uploaded again. */
+  private void chunkFailed(DirectUpload upload, int number) {
+    synchronized (upload) {
+      upload.inProgress.remove(number);
+      if (upload.inProgress.isEmpty()) {
+        upload.job.setState(FileUploadJob.JobState.READY);
+      }
+    }
+  }
+
+  /**
+   * Returns the supposed size of a chunk.
+   *
+   * @return the size in bytes or <code>-1</code> if any size is acceptable
+   */
+  private long getSupposedChunkSize(FileUploadJob job, int number) {
+    if (job.getChunksize() == -1) {
+      return -1L;
+    }
+    if (number == job.getChunksTotal() - 1) {
+      long size = job.getPayload().getTotalSize() % job.getChunksize();
+      return size == 0 ? job.getChunksize() : size;
+    }
+    return job.getChunksize();
+  }
+
+  /**
+   * Digests the chunks following the digested part of the payload which have been received out of order. They are read
+   * back from the payload file, which is usually still cached by the operating system.
+   *
+   * @param upload
+   *          the direct upload
+   * @param wait
+   *          whether to wait for a concurrent update of the digest or to leave the update to that one
+   * @return the checksum if the whole payload has been digested, <code>null</code> otherwise
+   * @throws FileUploadException
+   *           if the payload cannot be read
+   */
+  private String updateDigest(DirectUpload upload, boolean wait) throws FileUploadException {
+    if (wait) {
+      upload.digestLock.lock();
+    } else if (!upload.digestLock.tryLock()) {
+      return null;
+    }
+    final FileUploadJob job = upload.job;
+    RandomAccessFile payloadFile = null;
+    try {
+      MessageDigest digest;
+      int next;
+      synchronized (upload) {
+        digest = cloneDigest(upload.digest);
+        next = upload.digestedChunks;
+      }
+      byte[] readBuffer = new byte[WRITE_BUFFER_LENGTH];
+      while (next < job.getChunksTotal() && job.isChunkReceived(next)) {
+        if (payloadFile == null) {
+          payloadFile = new RandomAccessFile(getPayloadFile(job.getId()), "r");
+        }
+        long size = getSupposedChunkSize(job, next);
+        if (size < 0) {
+          size = payloadFile.length();
+        }
+        FileChannel channel = payloadFile.getChannel();
+        long position = next * (long) Math.max(job.getChunksize(), 0);
+        long end = position + size;
+        while (position < end) {
+          ByteBuffer buffer = ByteBuffer.wrap(readBuffer, 0, (int) Math.min(readBuffer.length, end - position));
+          int bytesRead = channel.read(buffer, position);
+          if (bytesRead < 0) {
+            throw new IOException("Payload of job " + job.getId() + " is shorter than expected");
+          }
+          digest.update(readBuffer, 0, bytesRead);
+          position += bytesRead;
+        }
+        next++;
+        synchronized (upload) {
+          upload.digest = cloneDigest(digest);
+          upload.digestedChunks = next;
+        }
+      }
+      if (next < job.getChunksTotal()) {
+        return null;
+      }
+      return Checksum.convertToHex(digest.digest());
+    } catch (IOException e) {
+      throw fileUploadException(Severity.error, "Failed to compute checksum of the payload of job " + job.getId(), e);
+    } finally {
+      IOUtils.closeQuietly(payloadFile);
+      upload.digestLock.unlock();
+    }
+  }
+
+  private static MessageDigest cloneDigest(MessageDigest digest) {
+    try {
+      return (MessageDigest) digest.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("MD5 digests can be cloned", e);
+    }
+  }
+
+  /** The state of an upload job whose chunks are written directly to their position in the payload file. */
+  private static final class DirectUpload {
+
+    /** The job all chunks of the upload are recorded with */
+    private final FileUploadJob job;
+
+    /** The numbers of the chunks currently being received */
+    private final Set<Integer> inProgress = new HashSet<Integer>();
+
+    /** Held while chunks received out of order are digested */
+    private final ReentrantLock digestLock = new ReentrantLock();
+
+    /** The digest of the chunks <code>0</code> to <code>digestedChunks - 1</code> */
+    private MessageDigest digest;
+
+    /** The number of chunks at the start of the payload which have been digested */
+    private int digestedChunks;
+
+    private DirectUpload(FileUploadJob job) {
+      this.job = job;
+      resetDigest();
+    }
+
+    private void resetDigest() {
+      try {
+        digest = MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("MD5 is not supported", e);
+      }
+      digestedChunks = 0;
+    }
+
+  }
+
   /**
    * {@inheritDoc}
    *
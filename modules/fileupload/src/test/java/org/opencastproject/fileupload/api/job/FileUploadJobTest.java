@@ -0,0 +1,86 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.fileupload.api.job;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.BitSet;
+
+import javax.xml.bind.JAXBContext;
+
+public class FileUploadJobTest {
+
+  @Test
+  public void testRangesRoundTrip() throws Exception {
+    BitSet bits = new BitSet();
+    bits.set(0, 5);
+    bits.set(7);
+    bits.set(9, 12);
+    String ranges = FileUploadJob.encodeRanges(bits);
+    Assert.assertEquals("0-4,7,9-11", ranges);
+    Assert.assertEquals(bits, FileUploadJob.decodeRanges(ranges));
+
+    Assert.assertNull(FileUploadJob.encodeRanges(new BitSet()));
+    Assert.assertTrue(FileUploadJob.decodeRanges(null).isEmpty());
+    Assert.assertTrue(FileUploadJob.decodeRanges(" ").isEmpty());
+  }
+
+  @Test
+  public void testChunksReceivedOutOfOrder() throws Exception {
+    FileUploadJob job = new FileUploadJob("test.txt", 100L, 10, null, null);
+    job.setChunkReceived(3, 10L);
+    job.setChunkReceived(5, 10L);
+    job.setChunkReceived(4, 10L);
+    Assert.assertEquals(-1, job.getCurrentChunk().getNumber());
+    Assert.assertEquals(3, job.getChunksReceivedCount());
+    Assert.assertFalse(job.isChunkReceived(0));
+    Assert.assertTrue(job.isChunkReceived(4));
+
+    // the received chunks survive storing and loading the job
+    JAXBContext jctx = JAXBContext.newInstance("org.opencastproject.fileupload.api.job",
+            FileUploadJob.class.getClassLoader());
+    StringWriter writer = new StringWriter();
+    jctx.createMarshaller().marshal(job, writer);
+    FileUploadJob loaded = (FileUploadJob) jctx.createUnmarshaller().unmarshal(new StringReader(writer.toString()));
+    Assert.assertEquals(3, loaded.getChunksReceivedCount());
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(job.isChunkReceived(i), loaded.isChunkReceived(i));
+    }
+
+    // closing the gap advances the current chunk past the chunks received out of order
+    loaded.setChunkReceived(0, 10L);
+    loaded.setChunkReceived(2, 10L);
+    Assert.assertEquals(0, loaded.getCurrentChunk().getNumber());
+    loaded.setChunkReceived(1, 10L);
+    Assert.assertEquals(5, loaded.getCurrentChunk().getNumber());
+    Assert.assertEquals(6, loaded.getChunksReceivedCount());
+    Assert.assertFalse(loaded.isChunkReceived(6));
+
+    loaded.resetChunksReceived();
+    Assert.assertEquals(0, loaded.getChunksReceivedCount());
+    Assert.assertFalse(loaded.isChunkReceived(3));
+  }
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.fileupload.service;
+
+import org.opencastproject.fileupload.api.exception.FileUploadException;
+import org.opencastproject.fileupload.api.job.FileUploadJob;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+import org.opencastproject.workspace.api.Workspace;
+
+import org.apache.commons.io.IOUtils;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+public class FileUploadServiceImplTest {
+
+  private static final byte[] DATA = "Chunks arrive in any order".getBytes();
+  private static final int CHUNK_SIZE = 10;
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  private FileUploadServiceImpl service;
+
+  /** The content handed over to the workspace */
+  private byte[] stored;
+
+  @Before
+  public void setUp() throws Exception {
+    Workspace workspace = EasyMock.createNiceMock(Workspace.class);
+    EasyMock.expect(
+            workspace.putInCollection(EasyMock.eq(FileUploadServiceImpl.UPLOAD_COLLECTION), EasyMock.anyString(),
+                    EasyMock.anyObject(InputStream.class))).andAnswer(new IAnswer<URI>() {
+                      @Override
+                      public URI answer() throws Throwable {
+                        stored = IOUtils.toByteArray((InputStream) EasyMock.getCurrentArguments()[2]);
+                        return new URI("http://localhost/files/collection/uploaded/payload");
+                      }
+                    }).anyTimes();
+    EasyMock.replay(workspace);
+
+    service = new FileUploadServiceImpl();
+    service.setWorkspace(workspace);
+    configure(true);
+    service.activate(null);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    service.deactivate(null);
+  }
+
+  private void configure(boolean direct) throws Exception {
+    Hashtable<String, String> properties = new Hashtable<String, String>();
+    properties.put(FileUploadServiceImpl.PROPKEY_UPLOAD_WORKDIR, testFolder.getRoot().getAbsolutePath());
+    properties.put(FileUploadServiceImpl.PROPKEY_UPLOAD_DIRECT, Boolean.toString(direct));
+    service.updated(properties);
+  }
+
+  private FileUploadJob createJob(String checksum) throws Exception {
+    FileUploadJob job = service.createJob("test.txt", DATA.length, CHUNK_SIZE, null, null);
+    job.getPayload().setChecksum(checksum);
+    service.storeJob(job);
+    return job;
+  }
+
+  private void upload(String id, int... chunks) throws Exception {
+    for (int chunk : chunks) {
+      int from = chunk * CHUNK_SIZE;
+      byte[] content = Arrays.copyOfRange(DATA, from, Math.min(from + CHUNK_SIZE, DATA.length));
+      service.acceptChunk(service.getJob(id), chunk, new ByteArrayInputStream(content));
+    }
+  }
+
+  private static String md5(byte[] data) throws Exception {
+    return Checksum.create(ChecksumType.DEFAULT_TYPE, new ByteArrayInputStream(data)).getValue();
+  }
+
+  @Test
+  public void testOutOfOrderUpload() throws Exception {
+    String checksum = md5(DATA);
+    FileUploadJob job = createJob(checksum);
+    Assert.assertEquals(3, job.getChunksTotal());
+
+    // the last chunk first, so the remaining chunks are digested once the gap closes
+    upload(job.getId(), 2, 0);
+    Assert.assertEquals(FileUploadJob.JobState.READY, service.getJob(job.getId()).getState());
+    upload(job.getId(), 1);
+
+    job = service.getJob(job.getId());
+    Assert.assertEquals(FileUploadJob.JobState.COMPLETE, job.getState());
+    Assert.assertEquals(checksum, job.getPayload().getChecksum());
+    Assert.assertArrayEquals(DATA, stored);
+  }
+
+  @Test
+  public void testOutOfOrderUploadWithWrongChecksum() throws Exception {
+    FileUploadJob job = createJob(md5("Something else".getBytes()));
+    upload(job.getId(), 1, 2);
+    try {
+      upload(job.getId(), 0);
+      Assert.fail("The payload should have been rejected");
+    } catch (FileUploadException e) {
+      // Expected
+    }
+
+    // the chunks have been reset, so the upload can be started over
+    job = service.getJob(job.getId());
+    Assert.assertEquals(FileUploadJob.JobState.READY, job.getState());
+    Assert.assertEquals(0, job.getChunksReceivedCount());
+    Assert.assertNull(stored);
+  }
+
+  @Test
+  public void testChecksumWhenAppendingChunks() throws Exception {
+    configure(false);
+    FileUploadJob job = createJob(md5("Something else".getBytes()));
+    try {
+      upload(job.getId(), 0, 1, 2);
+      Assert.fail("The payload should have been rejected");
+    } catch (FileUploadException e) {
+      // Expected
+    }
+    Assert.assertEquals(0, service.getJob(job.getId()).getChunksReceivedCount());
+    Assert.assertNull(stored);
+
+    job = createJob(md5(DATA));
+    upload(job.getId(), 0, 1, 2);
+    Assert.assertEquals(FileUploadJob.JobState.COMPLETE, service.getJob(job.getId()).getState());
+    Assert.assertArrayEquals(DATA, stored);
+  }
+
+}
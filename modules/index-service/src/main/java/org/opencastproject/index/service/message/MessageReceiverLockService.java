@@ -20,30 +20,155 @@
  */
 package org.opencastproject.index.service.message;
 
+import org.opencastproject.util.OsgiUtil;
+import org.opencastproject.util.jmx.JmxUtil;
+
 import com.entwinemedia.fn.Fn;
 import com.google.common.util.concurrent.Striped;
 
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Dictionary;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 
+import javax.management.ObjectInstance;
+
+/**
+ * Serializes index updates per resource. Updates of different resources (e.g. media packages) are guarded by different
+ * lock stripes so that they can be processed in parallel, whereas updates of the same resource are always executed one
+ * after another.
+ */
 public class MessageReceiverLockService {
 
   private static final Logger logger = LoggerFactory.getLogger(MessageReceiverLockService.class);
 
-  private final Striped<Lock> lock = Striped.lazyWeakLock(1);
+  /** Configuration key for the number of lock stripes */
+  public static final String LOCK_STRIPES_KEY = "lock.stripes";
+
+  /** Configuration key for whether to use separate lock stripes per organization */
+  public static final String PARTITION_BY_ORGANIZATION_KEY = "lock.partition.organization";
+
+  /** The default number of lock stripes */
+  public static final int DEFAULT_LOCK_STRIPES = 1024;
+
+  /** The JMX business object type */
+  private static final String JMX_LOCK_STATISTICS_TYPE = "MessageReceiverLockStatistics";
+
+  /** The partition key used if the locks are not partitioned by organization */
+  private static final String DEFAULT_PARTITION = "";
+
+  /** The lock stripes per partition */
+  private final ConcurrentMap<String, Striped<Lock>> partitions = new ConcurrentHashMap<>();
+
+  /** The lock statistics */
+  private final MessageReceiverLockStatistics statistics = new MessageReceiverLockStatistics();
+
+  /** The number of lock stripes per partition */
+  private int stripes = DEFAULT_LOCK_STRIPES;
+
+  /** Whether to use separate lock stripes per organization */
+  private boolean partitionByOrganization = false;
+
+  /** The registered JMX bean */
+  private ObjectInstance registeredMXBean;
 
+  /**
+   * OSGi callback on component activation.
+   *
+   * @param cc
+   *          the component context
+   */
+  public void activate(ComponentContext cc) {
+    if (cc != null) {
+      Dictionary properties = cc.getProperties();
+      stripes = OsgiUtil.getOptCfgAsInt(properties, LOCK_STRIPES_KEY).getOrElse(DEFAULT_LOCK_STRIPES);
+      partitionByOrganization = OsgiUtil.getOptCfgAsBoolean(properties, PARTITION_BY_ORGANIZATION_KEY)
+              .getOrElse(false);
+    }
+    if (stripes < 1) {
+      logger.warn("Invalid number of lock stripes {}, using the default of {}", stripes, DEFAULT_LOCK_STRIPES);
+      stripes = DEFAULT_LOCK_STRIPES;
+    }
+    partitions.clear();
+    statistics.setStripes(stripes);
+    logger.info("Message receiver locks use {} stripes{}", stripes,
+            partitionByOrganization ? " per organization" : "");
+    registeredMXBean = JmxUtil.registerMXBean(statistics, JMX_LOCK_STATISTICS_TYPE);
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  public void deactivate() {
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
+  }
+
+  /**
+   * Executes the given function while holding the lock of the given resource.
+   *
+   * @param resource
+   *          the resource to lock
+   * @param function
+   *          the function to apply to the resource
+   * @return the result of the function
+   */
   public <K, A> A synchronize(K resource, Fn<K, A> function) {
-    final Lock lock = this.lock.get(resource);
-    lock.lock();
+    return synchronize(null, resource, function);
+  }
+
+  /**
+   * Executes the given function while holding the lock of the given resource within the given organization. If the
+   * locks are not partitioned by organization, the organization is ignored.
+   *
+   * @param organization
+   *          the organization identifier, may be <code>null</code>
+   * @param resource
+   *          the resource to lock
+   * @param function
+   *          the function to apply to the resource
+   * @return the result of the function
+   */
+  public <K, A> A synchronize(String organization, K resource, Fn<K, A> function) {
+    final Lock lock = getPartition(organization).get(resource);
+    final long waitStart = System.nanoTime();
+    final boolean contended = !lock.tryLock();
+    if (contended)
+      lock.lock();
+    final long holdStart = System.nanoTime();
     logger.debug("Locked resource '{}'", resource);
     try {
       return function.apply(resource);
     } finally {
       lock.unlock();
+      statistics.lockReleased(contended, holdStart - waitStart, System.nanoTime() - holdStart);
       logger.debug("Released locked resource '{}'", resource);
     }
   }
 
+  /**
+   * Returns the lock statistics.
+   *
+   * @return the statistics
+   */
+  MessageReceiverLockStatistics getStatistics() {
+    return statistics;
+  }
+
+  private Striped<Lock> getPartition(String organization) {
+    final String partition = partitionByOrganization && organization != null ? organization : DEFAULT_PARTITION;
+    Striped<Lock> striped = partitions.get(partition);
+    if (striped == null) {
+      final Striped<Lock> newStriped = Striped.lazyWeakLock(stripes);
+      striped = partitions.putIfAbsent(partition, newStriped);
+      if (striped == null)
+        striped = newStriped;
+    }
+    return striped;
+  }
+
 }
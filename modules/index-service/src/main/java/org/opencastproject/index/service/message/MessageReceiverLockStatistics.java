@@ -0,0 +1,153 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.index.service.message;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects lock wait and hold times of the {@link MessageReceiverLockService}.
+ */
+public class MessageReceiverLockStatistics implements MessageReceiverLockStatisticsMXBean {
+
+  private final AtomicLong lockCount = new AtomicLong();
+  private final AtomicLong contendedLockCount = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+  private final AtomicLong maxWaitTime = new AtomicLong();
+  private final AtomicLong totalHoldTime = new AtomicLong();
+  private final AtomicLong maxHoldTime = new AtomicLong();
+  private volatile int stripes;
+
+  void setStripes(int stripes) {
+    this.stripes = stripes;
+  }
+
+  /**
+   * Records a released lock.
+   *
+   * @param contended
+   *          whether the lock was held by another thread on acquisition
+   * @param waitTime
+   *          the time spent waiting for the lock in nanoseconds
+   * @param holdTime
+   *          the time the lock has been held in nanoseconds
+   */
+  void lockReleased(boolean contended, long waitTime, long holdTime) {
+    lockCount.incrementAndGet();
+    if (contended)
+      contendedLockCount.incrementAndGet();
+    totalWaitTime.addAndGet(waitTime);
+    totalHoldTime.addAndGet(holdTime);
+    updateMax(maxWaitTime, waitTime);
+    updateMax(maxHoldTime, holdTime);
+  }
+
+  private static void updateMax(AtomicLong max, long value) {
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getStripes()
+   */
+  @Override
+  public int getStripes() {
+    return stripes;
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getLockCount()
+   */
+  @Override
+  public long getLockCount() {
+    return lockCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getContendedLockCount()
+   */
+  @Override
+  public long getContendedLockCount() {
+    return contendedLockCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getTotalWaitTime()
+   */
+  @Override
+  public long getTotalWaitTime() {
+    return toMillis(totalWaitTime.get());
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getAverageWaitTime()
+   */
+  @Override
+  public long getAverageWaitTime() {
+    long count = lockCount.get();
+    return count == 0 ? 0 : toMillis(totalWaitTime.get() / count);
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getMaxWaitTime()
+   */
+  @Override
+  public long getMaxWaitTime() {
+    return toMillis(maxWaitTime.get());
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getAverageHoldTime()
+   */
+  @Override
+  public long getAverageHoldTime() {
+    long count = lockCount.get();
+    return count == 0 ? 0 : toMillis(totalHoldTime.get() / count);
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#getMaxHoldTime()
+   */
+  @Override
+  public long getMaxHoldTime() {
+    return toMillis(maxHoldTime.get());
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverLockStatisticsMXBean#reset()
+   */
+  @Override
+  public void reset() {
+    lockCount.set(0);
+    contendedLockCount.set(0);
+    totalWaitTime.set(0);
+    maxWaitTime.set(0);
+    totalHoldTime.set(0);
+    maxHoldTime.set(0);
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.index.service.message;
+
+/**
+ * JMX Bean interface exposing lock statistics of the message receivers
+ */
+public interface MessageReceiverLockStatisticsMXBean {
+
+  /**
+   * Gets the number of lock stripes per partition
+   *
+   * @return the number of lock stripes
+   */
+  int getStripes();
+
+  /**
+   * Gets the number of acquired locks
+   *
+   * @return the number of acquired locks
+   */
+  long getLockCount();
+
+  /**
+   * Gets the number of locks which were already held by another thread on acquisition
+   *
+   * @return the number of contended locks
+   */
+  long getContendedLockCount();
+
+  /**
+   * Gets the total time spent waiting for locks in milliseconds
+   *
+   * @return the total lock wait time
+   */
+  long getTotalWaitTime();
+
+  /**
+   * Gets the average time spent waiting for a lock in milliseconds
+   *
+   * @return the average lock wait time
+   */
+  long getAverageWaitTime();
+
+  /**
+   * Gets the longest time spent waiting for a lock in milliseconds
+   *
+   * @return the maximum lock wait time
+   */
+  long getMaxWaitTime();
+
+  /**
+   * Gets the average time a lock has been held in milliseconds
+   *
+   * @return the average lock hold time
+   */
+  long getAverageHoldTime();
+
+  /**
+   * Gets the longest time a lock has been held in milliseconds
+   *
+   * @return the maximum lock hold time
+   */
+  long getMaxHoldTime();
+
+  /**
+   * Resets all counters
+   */
+  void reset();
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.index.service.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.entwinemedia.fn.Fn;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MessageReceiverLockServiceTest {
+
+  private MessageReceiverLockService lockService;
+
+  @Before
+  public void setUp() throws Exception {
+    lockService = new MessageReceiverLockService();
+    lockService.activate(null);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    lockService.deactivate();
+  }
+
+  @Test
+  public void testSynchronize() throws Exception {
+    String result = lockService.synchronize("mp-1", new Fn<String, String>() {
+      @Override
+      public String apply(String resource) {
+        return resource + "-done";
+      }
+    });
+    assertEquals("mp-1-done", result);
+    assertEquals(1L, lockService.getStatistics().getLockCount());
+    assertEquals(0L, lockService.getStatistics().getContendedLockCount());
+  }
+
+  @Test(timeout = 30000)
+  public void testSameResourceIsSerialized() throws Exception {
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        lockService.synchronize("org", "mp-1", new Fn<String, Void>() {
+          @Override
+          public Void apply(String resource) {
+            locked.countDown();
+            try {
+              release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return null;
+          }
+        });
+      }
+    });
+    holder.start();
+    assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+    final CountDownLatch waiting = new CountDownLatch(1);
+    Thread waiter = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        waiting.countDown();
+        lockService.synchronize("org", "mp-1", new Fn<String, Void>() {
+          @Override
+          public Void apply(String resource) {
+            return null;
+          }
+        });
+      }
+    });
+    waiter.start();
+    assertTrue(waiting.await(10, TimeUnit.SECONDS));
+    // The waiter does not park before it blocks on the lock held by the holder
+    while (waiter.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+    release.countDown();
+    holder.join();
+    waiter.join();
+
+    assertEquals(2L, lockService.getStatistics().getLockCount());
+    assertEquals(1L, lockService.getStatistics().getContendedLockCount());
+  }
+
+}
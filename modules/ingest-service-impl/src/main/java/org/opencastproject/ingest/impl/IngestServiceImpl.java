@@ -33,6 +33,7 @@ import org.opencastproject.ingest.impl.jmx.IngestStatistics;
 import org.opencastproject.inspection.api.MediaInspectionService;
 import org.opencastproject.job.api.AbstractJobProducer;
 import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobBarrier;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.mediapackage.EName;
 import org.opencastproject.mediapackage.MediaPackage;
@@ -70,6 +71,8 @@ import org.opencastproject.series.api.SeriesService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.smil.api.util.SmilUtil;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.ConfigurationException;
 import org.opencastproject.util.IoSupport;
 import org.opencastproject.util.LoadUtil;
@@ -97,6 +100,9 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
@@ -122,12 +128,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -162,6 +173,15 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
   /** Managed Property key to overwrite existing series */
   public static final String PROPKEY_OVERWRITE_SERIES = "org.opencastproject.series.overwrite";
 
+  /** Managed Property key to inspect the tracks of zipped media packages while they are being received */
+  public static final String PROPKEY_ZIP_INSPECT_TRACKS = "zip.inspect.tracks";
+
+  /** Managed Property key for the time to wait for the inspection of zipped tracks in milliseconds */
+  public static final String PROPKEY_ZIP_INSPECT_TRACKS_TIMEOUT = "zip.inspect.tracks.timeout";
+
+  /** The default time to wait for the inspection of zipped tracks before leaving it to the workflow */
+  public static final long DEFAULT_ZIP_INSPECT_TRACKS_TIMEOUT = 5 * 60 * 1000L;
+
   /** Methods that ingest zips create jobs with this operation type */
   public static final String INGEST_ZIP = "zip";
 
@@ -256,6 +276,12 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
   /** Option to overwrite series on ingest */
   protected boolean isOverwriteSeries = defaultIsOverWriteSeries;
 
+  /** Option to inspect the tracks of zipped media packages while they are being received */
+  protected boolean inspectZipTracks = false;
+
+  /** Maximum time to wait for the inspection of zipped tracks in milliseconds */
+  protected long zipInspectionTimeout = DEFAULT_ZIP_INSPECT_TRACKS_TIMEOUT;
+
   /**
    * Creates a new ingest service instance.
    */
@@ -313,6 +339,21 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
     }
     logger.info("Configuration updated. It is {} that existing series will be overwritten during ingest.",
             isOverwriteSeries);
+    inspectZipTracks = BooleanUtils.toBoolean(StringUtils.trimToNull((String) properties.get(
+            PROPKEY_ZIP_INSPECT_TRACKS)));
+    logger.info("Tracks of zipped mediapackages are {}inspected while they are being received",
+            inspectZipTracks ? "" : "not ");
+    zipInspectionTimeout = DEFAULT_ZIP_INSPECT_TRACKS_TIMEOUT;
+    String zipInspectionTimeoutString = StringUtils.trimToNull((String) properties.get(
+            PROPKEY_ZIP_INSPECT_TRACKS_TIMEOUT));
+    if (zipInspectionTimeoutString != null) {
+      try {
+        zipInspectionTimeout = Long.parseLong(zipInspectionTimeoutString);
+      } catch (NumberFormatException e) {
+        logger.warn("Zip track inspection timeout '{}' is malformed, setting to {}", zipInspectionTimeoutString,
+                DEFAULT_ZIP_INSPECT_TRACKS_TIMEOUT);
+      }
+    }
   }
 
   /**
@@ -429,6 +470,8 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
 
     ZipArchiveInputStream zis = null;
     Set<String> collectionFilenames = new HashSet<>();
+    // Media inspection jobs started for the tracks while the remaining zip entries are being received
+    Map<String, Job> inspections = new LinkedHashMap<>();
     try {
       // We don't need anybody to do the dispatching for us. Therefore we need to make sure that the job is never in
       // QUEUED state but set it to INSTANTIATED in the beginning and then manually switch it to RUNNING.
@@ -443,6 +486,13 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
       ZipArchiveEntry entry;
       MediaPackage mp = null;
       Map<String, URI> uris = new HashMap<>();
+      // Checksums of the stored zip entries, computed while they are streamed to the working file repository
+      Map<String, Checksum> checksums = new HashMap<>();
+      // Elements which have already been moved to their final location, and whether their zip entry has been found
+      // relative to a root folder
+      Map<MediaPackageElement, Boolean> placed = new IdentityHashMap<>();
+      long start = System.currentTimeMillis();
+      long totalBytes = 0L;
       // Sequential number to append to file names so that, if two files have the same
       // name, one does not overwrite the other (see MH-9688)
       int seq = 1;
@@ -459,6 +509,18 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
           if (entry.getName().endsWith("manifest.xml") || entry.getName().endsWith("index.xml")) {
             // Build the mediapackage
             mp = loadMediaPackageFromManifest(new ZipEntryInputStream(zis, entry.getSize()));
+
+            // Determine the mediapackage identifier
+            if (mp.getIdentifier() == null || isBlank(mp.getIdentifier().toString()))
+              mp.setIdentifier(new UUIDIdBuilderImpl().createNew());
+
+            // Move the elements received so far to their final location
+            for (Map.Entry<String, URI> stored : uris.entrySet()) {
+              MediaPackageElement element = findZipElement(mp, stored.getKey(), placed);
+              if (element != null)
+                placeZipElement(mp, element, stored.getKey(), stored.getValue(), checksums.get(stored.getKey()),
+                        wfrCollectionId, placed, inspections);
+            }
           } else {
             logger.info("Storing zip entry {}/{} in working file repository collection '{}'", job.getId(),
                     entry.getName(), wfrCollectionId);
@@ -466,14 +528,22 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
             // name is different than the previous one(s) by adding a sequential number
             String fileName = FilenameUtils.getBaseName(entry.getName()) + "_" + seq++ + "."
                     + FilenameUtils.getExtension(entry.getName());
-            URI contentUri = workingFileRepository.putInCollection(wfrCollectionId, fileName,
-                    new ZipEntryInputStream(zis, entry.getSize()));
+            MessageDigest digest = MessageDigest.getInstance(ChecksumType.DEFAULT_TYPE.getName());
+            CountingInputStream in = new CountingInputStream(new DigestInputStream(
+                    new ZipEntryInputStream(zis, entry.getSize()), digest));
+            URI contentUri = workingFileRepository.putInCollection(wfrCollectionId, fileName, in);
+            // Make sure the checksum covers the whole entry
+            IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
             collectionFilenames.add(fileName);
             // Key is the zip entry name as it is
             String key = entry.getName();
             uris.put(key, contentUri);
-            ingestStatistics.add(entry.getSize());
-            logger.info("Zip entry {}/{} stored at {}", job.getId(), entry.getName(), contentUri);
+            checksums.put(key, Checksum.create(ChecksumType.DEFAULT_TYPE, Checksum.convertToHex(digest.digest())));
+            ingestStatistics.add(in.getByteCount());
+            totalBytes += in.getByteCount();
+            long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+            logger.info("Zip entry {}/{} stored at {} ({} bytes received in total, {} KB/s)", job.getId(),
+                    entry.getName(), contentUri, totalBytes, totalBytes / elapsed);
             // Figures out if there's a root folder. Does entry name starts with a folder?
             int pos = entry.getName().indexOf('/');
             if (pos == -1) {
@@ -486,6 +556,14 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
               // Just initialize folder name
               folderName = entry.getName().substring(0, pos);
             }
+
+            // If the manifest has already been read, the element can be moved to its final location right away
+            if (mp != null) {
+              MediaPackageElement element = findZipElement(mp, key, placed);
+              if (element != null)
+                placeZipElement(mp, element, key, contentUri, checksums.get(key), wfrCollectionId, placed,
+                        inspections);
+            }
           }
         } catch (IOException e) {
           logger.warn("Unable to process zip entry {}: {}", entry.getName(), e);
@@ -496,38 +574,40 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
       if (mp == null)
         throw new MediaPackageException("No manifest found in this zip");
 
-      // Determine the mediapackage identifier
-      if (mp.getIdentifier() == null || isBlank(mp.getIdentifier().toString()))
-        mp.setIdentifier(new UUIDIdBuilderImpl().createNew());
-
       String mediaPackageId = mp.getIdentifier().toString();
 
       logger.info("Ingesting mediapackage {} is named '{}'", mediaPackageId, mp.getTitle());
+      logger.info("Received {} bytes of mediapackage {} in {} ms", totalBytes, mediaPackageId,
+              System.currentTimeMillis() - start);
 
       // Make sure there are tracks in the mediapackage
       if (mp.getTracks().length == 0) {
         logger.warn("Mediapackage {} has no media tracks", mediaPackageId);
       }
 
-      // Update the element uris to point to their working file repository location
+      // The elements placed while receiving the zip have been matched before its layout was known
+      for (Map.Entry<MediaPackageElement, Boolean> placement : placed.entrySet()) {
+        if (placement.getValue() != hasRootFolder)
+          throw new MediaPackageException("Zip entry of element '" + placement.getKey().getIdentifier()
+                  + "' does not match the folder layout of the zip");
+      }
+
+      // Update the uris of the remaining elements to point to their working file repository location
       for (MediaPackageElement element : mp.elements()) {
+        if (placed.containsKey(element))
+          continue;
         // Key has root folder name if there is one
-        URI uri = uris.get((hasRootFolder ? folderName + "/" : "") + element.getURI().toString());
+        String key = (hasRootFolder ? folderName + "/" : "") + element.getURI().toString();
+        URI uri = uris.get(key);
 
         if (uri == null)
           throw new MediaPackageException("Unable to map element name '" + element.getURI() + "' to workspace uri");
-        logger.info("Ingested mediapackage element {}/{} located at {}", mediaPackageId, element.getIdentifier(), uri);
-        URI dest = workingFileRepository.moveTo(wfrCollectionId, FilenameUtils.getName(uri.toString()), mediaPackageId,
-                element.getIdentifier(), FilenameUtils.getName(element.getURI().toString()));
-        element.setURI(dest);
-
-        // TODO: This should be triggered somehow instead of being handled here
-        if (MediaPackageElements.SERIES.equals(element.getFlavor())) {
-          logger.info("Ingested mediapackage {} contains updated series information", mediaPackageId);
-          updateSeries(element.getURI());
-        }
+        placeZipElement(mp, element, key, uri, checksums.get(key), wfrCollectionId, placed, inspections);
       }
 
+      // Collect the results of the media inspection
+      collectInspections(mp, inspections);
+
       // Now that all elements are in place, start with ingest
       logger.info("Initiating processing of ingested mediapackage {}", mediaPackageId);
       WorkflowInstance workflowInstance = ingest(mp, workflowDefinitionId, workflowConfig, workflowInstanceId);
@@ -545,6 +625,7 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
       throw new IngestException(e);
     } finally {
       IOUtils.closeQuietly(zis);
+      cancelInspections(inspections);
       finallyUpdateJob(job);
       for (String filename : collectionFilenames) {
         workingFileRepository.deleteFromCollection(Long.toString(job.getId()), filename, true);
@@ -552,6 +633,172 @@ public class IngestServiceImpl extends AbstractJobProducer implements IngestServ
     }
   }
 
+  /**
+   * Returns the element of a media package referring to a zip entry, either by the entry name itself or by the entry
+   * name relative to its root folder. Since the root folder is not known before the whole zip has been received, a
+   * match relative to the root folder is only returned if it is the only one, and the caller has to check it against
+   * the folder layout of the zip once it is known.
+   *
+   * @return the element or <code>null</code> if there is no unambiguous match among the elements that have not been
+   *         placed yet
+   */
+  private static MediaPackageElement findZipElement(MediaPackage mp, String entryName,
+          Map<MediaPackageElement, Boolean> placed) {
+    int pos = entryName.indexOf('/');
+    String relativeName = pos == -1 ? null : entryName.substring(pos + 1);
+    MediaPackageElement exactMatch = null;
+    List<MediaPackageElement> relativeMatches = new ArrayList<>();
+    for (MediaPackageElement element : mp.elements()) {
+      if (placed.containsKey(element) || element.getURI() == null)
+        continue;
+      String name = element.getURI().toString();
+      if (name.equals(entryName)) {
+        if (exactMatch != null)
+          return null;
+        exactMatch = element;
+      } else if (name.equals(relativeName)) {
+        relativeMatches.add(element);
+      }
+    }
+    if (exactMatch != null)
+      return relativeMatches.isEmpty() ? exactMatch : null;
+    return relativeMatches.size() == 1 ? relativeMatches.get(0) : null;
+  }
+
+  /**
+   * Moves a zip entry to the final location of its media package element and starts inspecting it if it is a track.
+   */
+  private void placeZipElement(MediaPackage mp, MediaPackageElement element, String entryName, URI uri,
+          Checksum checksum, String wfrCollectionId, Map<MediaPackageElement, Boolean> placed,
+          Map<String, Job> inspections) throws Exception {
+    String mediaPackageId = mp.getIdentifier().toString();
+    logger.info("Ingested mediapackage element {}/{} located at {}", mediaPackageId, element.getIdentifier(), uri);
+    placed.put(element, !entryName.equals(element.getURI().toString()));
+    URI dest = workingFileRepository.moveTo(wfrCollectionId, FilenameUtils.getName(uri.toString()), mediaPackageId,
+            element.getIdentifier(), FilenameUtils.getName(element.getURI().toString()));
+    element.setURI(dest);
+
+    // The checksum has been computed while receiving the element, so nobody has to read it again
+    if (checksum != null) {
+      if (element.getChecksum() == null) {
+        element.setChecksum(checksum);
+      } else if (checksum.getType().equals(element.getChecksum().getType())
+              && !checksum.equals(element.getChecksum())) {
+        logger.warn("Mediapackage element {}/{} has checksum {} but the manifest states {}", mediaPackageId,
+                element.getIdentifier(), checksum, element.getChecksum());
+      }
+    }
+
+    // TODO: This should be triggered somehow instead of being handled here
+    if (MediaPackageElements.SERIES.equals(element.getFlavor())) {
+      logger.info("Ingested mediapackage {} contains updated series information", mediaPackageId);
+      updateSeries(element.getURI());
+    }
+
+    if (inspectZipTracks && element instanceof Track) {
+      logger.info("Inspecting track {}/{} while receiving the rest of the mediapackage", mediaPackageId,
+              element.getIdentifier());
+      inspections.put(element.getIdentifier(), mediaInspectionService.enrich(element, false));
+    }
+  }
+
+  /**
+   * Updates the tracks of a media package with the results of their inspection. Waits for the inspections at most for
+   * the configured timeout, and stops waiting as soon as one of them fails. Tracks whose inspection has not finished
+   * are left to the workflow. The collected inspections are removed from the map, so the remaining ones can be
+   * canceled using {@link #cancelInspections(Map)}.
+   */
+  private void collectInspections(MediaPackage mp, Map<String, Job> inspections) {
+    String mediaPackageId = mp.getIdentifier().toString();
+    long deadline = System.currentTimeMillis() + zipInspectionTimeout;
+    while (!inspections.isEmpty()) {
+      boolean failed = false;
+      for (Iterator<Map.Entry<String, Job>> i = inspections.entrySet().iterator(); i.hasNext();) {
+        Map.Entry<String, Job> inspection = i.next();
+        Job inspectionJob = inspection.getValue();
+        try {
+          if (!isTerminated(inspectionJob))
+            inspectionJob = serviceRegistry.getJob(inspectionJob.getId());
+          if (Job.Status.FINISHED.equals(inspectionJob.getStatus())) {
+            MediaPackageSupport.updateElement(mp,
+                    (Track) MediaPackageElementParser.getFromXml(inspectionJob.getPayload()));
+            i.remove();
+          } else if (isTerminated(inspectionJob)) {
+            logger.warn("Inspection of track {}/{} {}, leaving it to the workflow", mediaPackageId,
+                    inspection.getKey(), inspectionJob.getStatus());
+            i.remove();
+            failed = true;
+          }
+        } catch (Exception e) {
+          logger.warn("Unable to inspect track {}/{}, leaving it to the workflow: {}", mediaPackageId,
+                  inspection.getKey(), ExceptionUtils.getMessage(e));
+          i.remove();
+          failed = true;
+        }
+      }
+
+      long remaining = deadline - System.currentTimeMillis();
+      if (inspections.isEmpty()) {
+        return;
+      } else if (failed || remaining <= 0) {
+        logger.warn("Leaving the inspection of {} tracks of mediapackage {} to the workflow", inspections.size(),
+                mediaPackageId);
+        return;
+      }
+
+      List<Long> ids = new ArrayList<>();
+      for (Job inspectionJob : inspections.values()) {
+        ids.add(inspectionJob.getId());
+      }
+      try {
+        long wait = Math.min(remaining, JobBarrier.DEFAULT_POLLING_INTERVAL);
+        long start = System.currentTimeMillis();
+        // Registries which can't wait return early, don't let them turn this into a busy loop
+        if (!serviceRegistry.waitForJobTermination(ids, wait) && System.currentTimeMillis() - start < wait)
+          Thread.sleep(wait - (System.currentTimeMillis() - start));
+      } catch (ServiceRegistryException e) {
+        logger.debug("Unable to wait for the inspection of mediapackage {}: {}", mediaPackageId,
+                ExceptionUtils.getMessage(e));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Cancels the inspection jobs that have not terminated yet.
+   */
+  private void cancelInspections(Map<String, Job> inspections) {
+    for (Job inspectionJob : inspections.values()) {
+      try {
+        if (isTerminated(inspectionJob))
+          continue;
+        inspectionJob = serviceRegistry.getJob(inspectionJob.getId());
+        if (isTerminated(inspectionJob))
+          continue;
+        inspectionJob.setStatus(Job.Status.CANCELED);
+        serviceRegistry.updateJob(inspectionJob);
+        logger.info("Canceled the outstanding inspection job {}", inspectionJob.getId());
+      } catch (Exception e) {
+        logger.warn("Unable to cancel inspection job {}: {}", inspectionJob.getId(), ExceptionUtils.getMessage(e));
+      }
+    }
+    inspections.clear();
+  }
+
+  private static boolean isTerminated(Job job) {
+    switch (job.getStatus()) {
+      case CANCELED:
+      case DELETED:
+      case FAILED:
+      case FINISHED:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private MediaPackage loadMediaPackageFromManifest(InputStream manifest)
           throws IOException, MediaPackageException, IngestException {
     // TODO: Uncomment the following line and remove the patch when the compatibility with pre-1.4 MediaPackages is
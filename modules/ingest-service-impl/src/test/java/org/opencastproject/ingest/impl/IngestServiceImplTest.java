@@ -96,10 +96,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 
 public class IngestServiceImplTest {
@@ -373,6 +375,77 @@ public class IngestServiceImplTest {
 
   }
 
+  @Test
+  public void testThickClientInspectsTracks() throws Exception {
+    MediaInspectionService mediaInspectionService = EasyMock.createMock(MediaInspectionService.class);
+    EasyMock.expect(mediaInspectionService.enrich(EasyMock.anyObject(MediaPackageElement.class), EasyMock.eq(false)))
+            .andAnswer(new IAnswer<Job>() {
+              @Override
+              public Job answer() throws Throwable {
+                Track track = (Track) EasyMock.getCurrentArguments()[0];
+                // The checksum has been computed while the track was received
+                Assert.assertNotNull(track.getChecksum());
+                JobImpl succeededJob = new JobImpl();
+                succeededJob.setStatus(Status.FINISHED);
+                succeededJob.setPayload(MediaPackageElementParser.getAsXml(track));
+                return succeededJob;
+              }
+            }).times(2);
+    EasyMock.replay(mediaInspectionService);
+    service.setMediaInspectionService(mediaInspectionService);
+
+    Dictionary<String, String> properties = new Hashtable<>();
+    properties.put(IngestServiceImpl.PROPKEY_ZIP_INSPECT_TRACKS, "true");
+    service.updated(properties);
+
+    InputStream packageStream = null;
+    try {
+      packageStream = urlPackage.toURL().openStream();
+      WorkflowInstance instance = service.addZippedMediaPackage(packageStream);
+      Assert.assertEquals(workflowInstanceID, instance.getId());
+    } finally {
+      IOUtils.closeQuietly(packageStream);
+    }
+    EasyMock.verify(mediaInspectionService);
+  }
+
+  @Test
+  public void testThickClientCancelsOutstandingInspections() throws Exception {
+    final List<Job> inspections = new ArrayList<>();
+    MediaInspectionService mediaInspectionService = EasyMock.createMock(MediaInspectionService.class);
+    EasyMock.expect(mediaInspectionService.enrich(EasyMock.anyObject(MediaPackageElement.class), EasyMock.eq(false)))
+            .andAnswer(new IAnswer<Job>() {
+              @Override
+              public Job answer() throws Throwable {
+                // The inspection never finishes
+                Job job = serviceRegistry.createJob(IngestServiceImpl.JOB_TYPE, "inspect", null, null, false);
+                inspections.add(job);
+                return job;
+              }
+            }).times(2);
+    EasyMock.replay(mediaInspectionService);
+    service.setMediaInspectionService(mediaInspectionService);
+
+    Dictionary<String, String> properties = new Hashtable<>();
+    properties.put(IngestServiceImpl.PROPKEY_ZIP_INSPECT_TRACKS, "true");
+    properties.put(IngestServiceImpl.PROPKEY_ZIP_INSPECT_TRACKS_TIMEOUT, "100");
+    service.updated(properties);
+
+    InputStream packageStream = null;
+    try {
+      packageStream = urlPackage.toURL().openStream();
+      WorkflowInstance instance = service.addZippedMediaPackage(packageStream);
+      Assert.assertEquals(workflowInstanceID, instance.getId());
+    } finally {
+      IOUtils.closeQuietly(packageStream);
+    }
+    EasyMock.verify(mediaInspectionService);
+    Assert.assertEquals(2, inspections.size());
+    for (Job inspection : inspections) {
+      Assert.assertEquals(Status.CANCELED, serviceRegistry.getJob(inspection.getId()).getStatus());
+    }
+  }
+
   @Test
   public void testContentDisposition() throws Exception {
     MediaPackage mediaPackage = null;
@@ -0,0 +1,108 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.scheduler.api;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.RRule;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expands recurrence rules of scheduled events.
+ * <p>
+ * All calculations use explicit time zones. In particular, the JVM default time zone is never changed, so recurrences
+ * may be expanded by many threads concurrently.
+ */
+public final class RecurrenceUtil {
+
+  /** The UTC time zone the recurrence rules are expanded in */
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+  private RecurrenceUtil() {
+  }
+
+  /**
+   * Giving a start time and end time with a recurrence rule and a timezone, all periods of the recurrence rule are
+   * calculated taken daylight saving time into account.
+   * <p>
+   * The rule is expanded in UTC. Occurrences on the other side of a daylight saving time change than the start date
+   * are shifted by the DST savings of the given time zone, so that the events keep their local start time.
+   *
+   * @param start
+   *          the start date time
+   * @param end
+   *          the end date
+   * @param duration
+   *          the duration
+   * @param rRule
+   *          the recurrence rule
+   * @param tz
+   *          the timezone
+   * @return a list of scheduling periods
+   */
+  public static List<Period> calculatePeriods(Date start, Date end, long duration, RRule rRule, TimeZone tz) {
+    // UTC date times make ical4j use UTC calendars instead of calendars in the default time zone
+    DateTime seed = new DateTime(start);
+    seed.setUtc(true);
+
+    Calendar endCalendar = Calendar.getInstance(UTC);
+    endCalendar.setTime(end);
+    Calendar calendar = Calendar.getInstance(UTC);
+    calendar.setTime(seed);
+    calendar.set(Calendar.DAY_OF_MONTH, endCalendar.get(Calendar.DAY_OF_MONTH));
+    calendar.set(Calendar.MONTH, endCalendar.get(Calendar.MONTH));
+    calendar.set(Calendar.YEAR, endCalendar.get(Calendar.YEAR));
+    DateTime period = new DateTime(new Date(calendar.getTime().getTime() + duration));
+    period.setUtc(true);
+    duration = duration % TimeUnit.DAYS.toMillis(1);
+
+    List<Period> periods = new ArrayList<>();
+    for (Object date : rRule.getRecur().getDates(seed, period, Value.DATE_TIME)) {
+      long d = ((Date) date).getTime();
+
+      // Adjust for DST, if start of event
+      if (tz.inDaylightTime(seed)) { // Event starts in DST
+        if (!tz.inDaylightTime(new Date(d))) { // Date not in DST?
+          d += tz.getDSTSavings(); // Adjust for Fall back one hour
+        }
+      } else { // Event doesn't start in DST
+        if (tz.inDaylightTime(new Date(d))) {
+          d -= tz.getDSTSavings(); // Adjust for Spring forward one hour
+        }
+      }
+
+      DateTime periodStart = new DateTime(new Date(d));
+      periodStart.setUtc(true);
+      DateTime periodEnd = new DateTime(new Date(d + duration));
+      periodEnd.setUtc(true);
+      periods.add(new Period(periodStart, periodEnd));
+    }
+    return periods;
+  }
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.scheduler.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An interval tree over the scheduled events of a capture agent, used to find conflicting events in memory.
+ * <p>
+ * The events are sorted by their start date and stored in an implicit balanced binary tree in which every node knows
+ * the latest end date of its subtree, so that looking up the events overlapping a period takes
+ * <code>O(log n + k)</code> time for <code>k</code> matches. Periods are closed, i.e. an event ending exactly when the
+ * period starts is considered overlapping, the same as in the scheduler's asset manager queries.
+ *
+ * @param <A>
+ *          the type of the event values
+ */
+public final class EventIntervalIndex<A> {
+
+  private final long[] starts;
+  private final long[] ends;
+  private final long[] maxEnds;
+  private final Object[] values;
+
+  private EventIntervalIndex(List<Entry<A>> entries) {
+    final int size = entries.size();
+    starts = new long[size];
+    ends = new long[size];
+    maxEnds = new long[size];
+    values = new Object[size];
+    for (int i = 0; i < size; i++) {
+      final Entry<A> entry = entries.get(i);
+      starts[i] = entry.start;
+      ends[i] = entry.end;
+      values[i] = entry.value;
+    }
+    computeMaxEnds(0, size - 1);
+  }
+
+  /**
+   * Creates a builder for an index.
+   *
+   * @return the builder
+   */
+  public static <A> Builder<A> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Returns the number of events in the index.
+   *
+   * @return the number of events
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns the events overlapping the given period, ordered by their start date.
+   *
+   * @param start
+   *          the start of the period in milliseconds
+   * @param end
+   *          the end of the period in milliseconds
+   * @return the overlapping events
+   */
+  public List<A> findOverlapping(long start, long end) {
+    final List<A> result = new ArrayList<>();
+    collect(0, starts.length - 1, start, end, result);
+    return result;
+  }
+
+  /**
+   * Returns the events overlapping any of the given periods, in the order they are found.
+   *
+   * @param periods
+   *          the periods as <code>{start, end}</code> pairs in milliseconds
+   * @return the distinct overlapping events
+   */
+  public Set<A> findOverlapping(Collection<long[]> periods) {
+    final List<A> result = new ArrayList<>();
+    for (long[] period : periods) {
+      collect(0, starts.length - 1, period[0], period[1], result);
+    }
+    return new LinkedHashSet<>(result);
+  }
+
+  private long computeMaxEnds(int lo, int hi) {
+    if (lo > hi)
+      return Long.MIN_VALUE;
+    final int mid = (lo + hi) >>> 1;
+    maxEnds[mid] = Math.max(ends[mid], Math.max(computeMaxEnds(lo, mid - 1), computeMaxEnds(mid + 1, hi)));
+    return maxEnds[mid];
+  }
+
+  @SuppressWarnings("unchecked")
+  private void collect(int lo, int hi, long start, long end, List<A> result) {
+    if (lo > hi)
+      return;
+    final int mid = (lo + hi) >>> 1;
+    // No event in this subtree ends after the period has started
+    if (maxEnds[mid] < start)
+      return;
+    collect(lo, mid - 1, start, end, result);
+    // Events to the right start even later than this one
+    if (starts[mid] > end)
+      return;
+    if (ends[mid] >= start)
+      result.add((A) values[mid]);
+    collect(mid + 1, hi, start, end, result);
+  }
+
+  /** Collects the events of an {@link EventIntervalIndex}. */
+  public static final class Builder<A> {
+
+    private final List<Entry<A>> entries = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds an event to the index.
+     *
+     * @param start
+     *          the start date of the event in milliseconds
+     * @param end
+     *          the end date of the event in milliseconds
+     * @param value
+     *          the event
+     * @return this builder
+     */
+    public Builder<A> add(long start, long end, A value) {
+      entries.add(new Entry<>(start, end, value));
+      return this;
+    }
+
+    /**
+     * Creates the index of the events added so far.
+     *
+     * @return the index
+     */
+    public EventIntervalIndex<A> build() {
+      final List<Entry<A>> sorted = new ArrayList<>(entries);
+      Collections.sort(sorted, new Comparator<Entry<A>>() {
+        @Override
+        public int compare(Entry<A> e1, Entry<A> e2) {
+          return Long.compare(e1.start, e2.start);
+        }
+      });
+      return new EventIntervalIndex<>(sorted);
+    }
+
+  }
+
+  private static final class Entry<A> {
+
+    private final long start;
+    private final long end;
+    private final A value;
+
+    private Entry(long start, long end, A value) {
+      this.start = start;
+      this.end = end;
+      this.value = value;
+    }
+
+  }
+
+}
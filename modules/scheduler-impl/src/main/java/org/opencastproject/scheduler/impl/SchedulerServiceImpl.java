@@ -86,6 +86,7 @@ import org.opencastproject.scheduler.api.ConflictingEvent;
 import org.opencastproject.scheduler.api.Recording;
 import org.opencastproject.scheduler.api.RecordingImpl;
 import org.opencastproject.scheduler.api.RecordingState;
+import org.opencastproject.scheduler.api.RecurrenceUtil;
 import org.opencastproject.scheduler.api.SchedulerConflictException;
 import org.opencastproject.scheduler.api.SchedulerEvent;
 import org.opencastproject.scheduler.api.SchedulerException;
@@ -121,6 +122,7 @@ import com.entwinemedia.fn.data.Opt;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
+import net.fortuna.ical4j.model.Period;
 import net.fortuna.ical4j.model.ValidationException;
 import net.fortuna.ical4j.model.property.RRule;
 
@@ -141,7 +143,6 @@ import org.slf4j.LoggerFactory;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
@@ -1212,7 +1213,8 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
         predicate = predicate.and(p.end().le(d));
       }
       // TODO Replace comparator with date.orderBy(p.start().asc()); and remove p.start().target()
-      ASelectQuery select = query.select(query.snapshot(), p.start().target(), p.optOut().target()).where(predicate);
+      ASelectQuery select = query.select(query.snapshot(), p.start().target(), p.end().target(), p.optOut().target())
+              .where(predicate);
       return select.run().getRecords().sort(new Comparator<ARecord>() {
         @Override
         public int compare(ARecord o1, ARecord o2) {
@@ -1230,23 +1232,52 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   @Override
   public List<MediaPackage> findConflictingEvents(String captureDeviceID, Date startDate, Date endDate)
           throws SchedulerException {
-    // overlap
-    Stream<ARecord> overlapRecords = searchInternal(Opt.some(captureDeviceID), Opt.<Date> none(), Opt.some(startDate),
-            Opt.some(endDate), Opt.<Date> none());
-    // start between
-    Stream<ARecord> startBetweenRecords = searchInternal(Opt.some(captureDeviceID), Opt.some(startDate),
-            Opt.some(endDate), Opt.<Date> none(), Opt.<Date> none());
-    // end between
-    Stream<ARecord> endBetweenRecords = searchInternal(Opt.some(captureDeviceID), Opt.<Date> none(), Opt.<Date> none(),
-            Opt.some(startDate), Opt.some(endDate));
-
-    // Filter out opted out records
-    Stream<ARecord> records = overlapRecords.append(startBetweenRecords).append(endBetweenRecords)
-            .filter(filterOptedOutRecords);
-
+    // Events overlapping the period, starting within it or ending within it all start before its end and end after
+    // its start, so a single query covers them
+    Stream<ARecord> records = searchOverlapping(captureDeviceID, startDate, endDate);
     return new ArrayList<>(records.bind(recordToMp).toList());
   }
 
+  /**
+   * Returns the events of a capture agent that are not opted out and overlap the given period.
+   *
+   * @param captureAgentId
+   *          the capture agent identifier
+   * @param startDate
+   *          the start of the period
+   * @param endDate
+   *          the end of the period
+   * @return the records of the overlapping events, ordered by start date
+   */
+  private Stream<ARecord> searchOverlapping(String captureAgentId, Date startDate, Date endDate)
+          throws SchedulerException {
+    return searchInternal(Opt.some(captureAgentId), Opt.<Date> none(), Opt.some(endDate), Opt.some(startDate),
+            Opt.<Date> none()).filter(filterOptedOutRecords);
+  }
+
+  /**
+   * Loads the events of a capture agent that are not opted out and overlap the given period into an interval index,
+   * so that conflicts with many periods in between can be detected with a single query.
+   *
+   * @param captureAgentId
+   *          the capture agent identifier
+   * @param startDate
+   *          the start of the period
+   * @param endDate
+   *          the end of the period
+   * @return the index of the events
+   */
+  private EventIntervalIndex<ARecord> indexEvents(String captureAgentId, Date startDate, Date endDate)
+          throws SchedulerException {
+    EventIntervalIndex.Builder<ARecord> builder = EventIntervalIndex.builder();
+    for (ARecord record : searchOverlapping(captureAgentId, startDate, endDate)) {
+      Date start = record.getProperties().apply(Properties.getDate(START_DATE_CONFIG));
+      Date end = record.getProperties().apply(Properties.getDate(END_DATE_CONFIG));
+      builder.add(start.getTime(), end.getTime(), record);
+    }
+    return builder.build();
+  }
+
   private final Fn<ARecord, Boolean> filterOptedOutRecords = new Fn<ARecord, Boolean>() {
     @Override
     public Boolean apply(ARecord record) {
@@ -1339,49 +1370,25 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     notNull(tz, "timeZone");
 
     try {
-      final TimeZone timeZone = TimeZone.getDefault();
-      final TimeZone utc = TimeZone.getTimeZone("UTC");
-      TimeZone.setDefault(tz);
-      net.fortuna.ical4j.model.DateTime seed = new net.fortuna.ical4j.model.DateTime(start);
-      net.fortuna.ical4j.model.DateTime period = new net.fortuna.ical4j.model.DateTime();
-
-      Calendar endCalendar = Calendar.getInstance(utc);
-      endCalendar.setTime(end);
-      Calendar calendar = Calendar.getInstance(utc);
-      calendar.setTime(seed);
-      calendar.set(Calendar.DAY_OF_MONTH, endCalendar.get(Calendar.DAY_OF_MONTH));
-      calendar.set(Calendar.MONTH, endCalendar.get(Calendar.MONTH));
-      calendar.set(Calendar.YEAR, endCalendar.get(Calendar.YEAR));
-      period.setTime(calendar.getTime().getTime() + duration);
-      duration = duration % (DateTimeConstants.MILLIS_PER_DAY);
-
-      Set<MediaPackage> events = new HashSet<>();
-
-      TimeZone.setDefault(utc);
-      for (Object date : rrule.getRecur().getDates(seed, period, net.fortuna.ical4j.model.parameter.Value.DATE_TIME)) {
-        Date d = (Date) date;
-        Calendar cDate = Calendar.getInstance(utc);
-
-        // Adjust for DST, if start of event
-        if (tz.inDaylightTime(seed)) { // Event starts in DST
-          if (!tz.inDaylightTime(d)) { // Date not in DST?
-            d.setTime(d.getTime() + tz.getDSTSavings()); // Adjust for Fall back one hour
-          }
-        } else { // Event doesn't start in DST
-          if (tz.inDaylightTime(d)) {
-            d.setTime(d.getTime() - tz.getDSTSavings()); // Adjust for Spring forward one hour
-          }
-        }
-        cDate.setTime(d);
-
-        TimeZone.setDefault(timeZone);
-        events.addAll(
-                findConflictingEvents(captureAgentId, cDate.getTime(), new Date(cDate.getTimeInMillis() + duration)));
-        TimeZone.setDefault(utc);
+      List<long[]> periods = new ArrayList<>();
+      long periodsStart = Long.MAX_VALUE;
+      long periodsEnd = Long.MIN_VALUE;
+      for (Period period : RecurrenceUtil.calculatePeriods(start, end, duration, rrule, tz)) {
+        long periodStart = period.getStart().getTime();
+        long periodEnd = period.getEnd().getTime();
+        periods.add(new long[] { periodStart, periodEnd });
+        periodsStart = Math.min(periodsStart, periodStart);
+        periodsEnd = Math.max(periodsEnd, periodEnd);
       }
 
-      TimeZone.setDefault(timeZone);
-      return new ArrayList<>(events);
+      if (periods.isEmpty())
+        return new ArrayList<>();
+
+      // Load the events of the whole recurrence once and check all periods against them in memory
+      EventIntervalIndex<ARecord> index = indexEvents(captureAgentId, new Date(periodsStart), new Date(periodsEnd));
+      logger.debug("Checking {} recurrences against {} events of capture agent {}", periods.size(), index.size(),
+              captureAgentId);
+      return new ArrayList<>($(index.findOverlapping(periods)).bind(recordToMp).toList());
     } catch (Exception e) {
       logger.error("Failed to search for conflicting events: {}", getStackTrace(e));
       throw new SchedulerException(e);
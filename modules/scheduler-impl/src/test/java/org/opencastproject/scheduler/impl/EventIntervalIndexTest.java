@@ -0,0 +1,116 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class EventIntervalIndexTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(EventIntervalIndexTest.class);
+
+  private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+  @Test
+  public void testFindOverlapping() {
+    EventIntervalIndex<String> index = EventIntervalIndex.<String> builder()
+            .add(10 * HOUR, 11 * HOUR, "c")
+            .add(0, HOUR, "a")
+            .add(2 * HOUR, 5 * HOUR, "b")
+            .build();
+    assertEquals(3, index.size());
+
+    // start between, end between and overlapping events
+    assertEquals(Arrays.asList("a", "b"), index.findOverlapping(HOUR / 2, 3 * HOUR));
+    assertEquals(Arrays.asList("b"), index.findOverlapping(3 * HOUR, 4 * HOUR));
+    assertEquals(Arrays.asList("b", "c"), index.findOverlapping(4 * HOUR, 12 * HOUR));
+    // periods are closed
+    assertEquals(Arrays.asList("a", "b"), index.findOverlapping(HOUR, 2 * HOUR));
+    assertTrue(index.findOverlapping(6 * HOUR, 9 * HOUR).isEmpty());
+    assertTrue(index.findOverlapping(12 * HOUR, 13 * HOUR).isEmpty());
+
+    List<long[]> periods = new ArrayList<>();
+    periods.add(new long[] { 0, HOUR / 2 });
+    periods.add(new long[] { 4 * HOUR, 10 * HOUR });
+    periods.add(new long[] { 20 * HOUR, 21 * HOUR });
+    periods.add(new long[] { HOUR / 4, HOUR / 2 });
+    assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b", "c")), index.findOverlapping(periods));
+
+    assertTrue(EventIntervalIndex.<String> builder().build().findOverlapping(0, HOUR).isEmpty());
+  }
+
+  @Test
+  public void testRecurringConflictsWithManyEvents() {
+    final Random random = new Random(42);
+    final int events = 10000;
+    final long[] starts = new long[events];
+    final long[] ends = new long[events];
+    EventIntervalIndex.Builder<Integer> builder = EventIntervalIndex.builder();
+    for (int i = 0; i < events; i++) {
+      // A year of events lasting up to four hours
+      starts[i] = (long) (random.nextDouble() * 365 * 24 * HOUR);
+      ends[i] = starts[i] + (long) (random.nextDouble() * 4 * HOUR);
+      builder.add(starts[i], ends[i], i);
+    }
+    final EventIntervalIndex<Integer> index = builder.build();
+
+    // A semester of daily recurrences
+    final List<long[]> periods = new ArrayList<>();
+    final long seriesStart = 90 * 24 * HOUR + 9 * HOUR;
+    for (int day = 0; day < 180; day++) {
+      final long start = seriesStart + day * 24 * HOUR;
+      periods.add(new long[] { start, start + 90 * 60 * 1000L });
+    }
+
+    long time = System.nanoTime();
+    final Set<Integer> expected = new LinkedHashSet<>();
+    for (long[] period : periods) {
+      for (int i = 0; i < events; i++) {
+        if (starts[i] <= period[1] && ends[i] >= period[0])
+          expected.add(i);
+      }
+    }
+    final long linearTime = System.nanoTime() - time;
+
+    time = System.nanoTime();
+    final Set<Integer> found = index.findOverlapping(periods);
+    final long indexTime = System.nanoTime() - time;
+
+    assertEquals(expected.size(), found.size());
+    assertTrue(found.containsAll(expected));
+    logger.info("Checked {} recurrences against {} events: {} conflicts, linear scan {} ms, interval index {} ms",
+            periods.size(), events, found.size(), TimeUnit.NANOSECONDS.toMillis(linearTime),
+            TimeUnit.NANOSECONDS.toMillis(indexTime));
+  }
+
+}
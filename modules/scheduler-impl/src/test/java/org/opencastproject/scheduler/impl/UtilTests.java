@@ -32,10 +32,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class UtilTests {
   private static final Logger logger = LoggerFactory.getLogger(UtilTests.class);
@@ -129,6 +134,53 @@ public class UtilTests {
 
   }
 
+  @Test
+  public void calculatePeriodsConcurrently() throws Exception {
+    final TimeZone defaultTimeZone = TimeZone.getDefault();
+    final TimeZone[] zones = { jst, pst, cet };
+    final List<List<String>> expected = new ArrayList<>();
+    for (TimeZone tz : zones) {
+      expected.add(generateSemester(tz));
+    }
+    assertEquals("The default time zone must not be changed", defaultTimeZone, TimeZone.getDefault());
+
+    ExecutorService executor = Executors.newFixedThreadPool(zones.length * 2);
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        final TimeZone tz = zones[i % zones.length];
+        results.add(executor.submit(new Callable<List<String>>() {
+          @Override
+          public List<String> call() throws Exception {
+            return generateSemester(tz);
+          }
+        }));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(expected.get(i % zones.length), results.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals("The default time zone must not be changed", defaultTimeZone, TimeZone.getDefault());
+  }
+
+  private List<String> generateSemester(TimeZone tz) throws ParseException {
+    Calendar start = Calendar.getInstance(tz);
+    start.clear();
+    start.set(2016, 2, 1, 10, 15);
+    Calendar end = Calendar.getInstance(tz);
+    end.clear();
+    end.set(2016, 7, 31, 10, 15);
+    List<Period> periods = generatePeriods(tz, start, end, "MO,WE,FR", 90L * 60 * 1000);
+    assertEquals(79, periods.size());
+    List<String> times = new ArrayList<>();
+    for (Period p : periods) {
+      times.add(p.getStart().getTime() + "-" + p.getEnd().getTime());
+    }
+    return times;
+  }
+
   private List<Period> generatePeriods(TimeZone tz, Calendar start, Calendar end, String days, Long duration)
           throws ParseException {
     Calendar utcDate = Calendar.getInstance(utc);
@@ -0,0 +1,223 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.search.impl;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageParser;
+import org.opencastproject.search.impl.persistence.SearchEntity;
+import org.opencastproject.search.impl.persistence.SearchServiceDatabase;
+import org.opencastproject.search.impl.persistence.SearchServiceDatabaseException;
+import org.opencastproject.search.impl.solr.SolrIndexManager;
+import org.opencastproject.security.api.AccessControlList;
+import org.opencastproject.security.api.AccessControlParser;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.OrganizationDirectoryService;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.util.SecurityUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Populates the search index from the search database.
+ * <p>
+ * The search entries are read per organization in pages of consecutive media package identifiers. Each page is
+ * parsed, turned into solr documents and posted to the index as a single request by a bounded pool of workers. The
+ * pages are read while the workers are busy, and reading blocks as long as all workers have a page waiting.
+ */
+class SearchIndexPopulator {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(SearchIndexPopulator.class);
+
+  /** The minimum time in milliseconds between two progress reports */
+  private static final long PROGRESS_INTERVAL = 10000L;
+
+  private final SearchServiceDatabase persistence;
+  private final SolrIndexManager indexManager;
+  private final OrganizationDirectoryService organizationDirectory;
+  private final SecurityService securityService;
+  private final String systemUserName;
+
+  /** The number of workers */
+  private final int threads;
+
+  /** The number of search entries read and posted at once */
+  private final int batchSize;
+
+  /** The number of processed search entries */
+  private final AtomicInteger processed = new AtomicInteger();
+
+  /** The number of search entries which could not be indexed */
+  private final AtomicInteger errors = new AtomicInteger();
+
+  /** The time of the last progress report */
+  private final AtomicLong lastProgress = new AtomicLong();
+
+  /** The number of search entries to index */
+  private int total;
+
+  /** The start time of the population */
+  private long start;
+
+  /**
+   * Creates a populator.
+   *
+   * @param persistence
+   *          the search database
+   * @param indexManager
+   *          the index manager
+   * @param organizationDirectory
+   *          the organization directory
+   * @param securityService
+   *          the security service
+   * @param systemUserName
+   *          the name of the system user the entries are indexed as
+   * @param threads
+   *          the number of workers
+   * @param batchSize
+   *          the number of search entries read and posted at once
+   */
+  SearchIndexPopulator(SearchServiceDatabase persistence, SolrIndexManager indexManager,
+          OrganizationDirectoryService organizationDirectory, SecurityService securityService, String systemUserName,
+          int threads, int batchSize) {
+    this.persistence = persistence;
+    this.indexManager = indexManager;
+    this.organizationDirectory = organizationDirectory;
+    this.securityService = securityService;
+    this.systemUserName = systemUserName;
+    this.threads = threads;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Indexes all search entries. The changes are not committed.
+   *
+   * @return the number of search entries which could not be indexed
+   * @throws SearchServiceDatabaseException
+   *           if the search entries cannot be read
+   */
+  int populate() throws SearchServiceDatabaseException {
+    total = persistence.countMediaPackages();
+    start = System.currentTimeMillis();
+    lastProgress.set(start);
+    logger.info("Indexing {} search entries using {} threads", total, threads);
+
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+    try {
+      for (String organizationId : persistence.getOrganizations()) {
+        String lastId = "";
+        List<SearchEntity> page;
+        do {
+          page = persistence.getSearchEntities(organizationId, lastId, batchSize);
+          if (page.isEmpty())
+            break;
+          lastId = page.get(page.size() - 1).getMediaPackageId();
+          executor.execute(new Batch(organizationId, page));
+        } while (page.size() == batchSize);
+      }
+    } finally {
+      executor.shutdown();
+      try {
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          logger.debug("Waiting for the search index workers to finish");
+        }
+      } catch (InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    long duration = Math.max(1L, System.currentTimeMillis() - start);
+    logger.info("Indexed {} search entries in {}s ({} per second)", processed.get(), duration / 1000,
+            processed.get() * 1000L / duration);
+    return errors.get();
+  }
+
+  private void progress() {
+    long now = System.currentTimeMillis();
+    long last = lastProgress.get();
+    if (now - last < PROGRESS_INTERVAL || !lastProgress.compareAndSet(last, now))
+      return;
+    int count = processed.get();
+    logger.info("Indexed {} of {} search entries ({} per second)", count, total,
+            count * 1000L / Math.max(1L, now - start));
+  }
+
+  /** Indexes a page of search entries of one organization */
+  private final class Batch implements Runnable {
+
+    private final String organizationId;
+    private final List<SearchEntity> entities;
+
+    private Batch(String organizationId, List<SearchEntity> entities) {
+      this.organizationId = organizationId;
+      this.entities = entities;
+    }
+
+    @Override
+    public void run() {
+      int added = 0;
+      try {
+        // The documents are created in the context of their organization
+        Organization organization = organizationDirectory.getOrganization(organizationId);
+        securityService.setOrganization(organization);
+        securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
+
+        List<SolrIndexManager.MediaPackageEntry> entries = new ArrayList<SolrIndexManager.MediaPackageEntry>(
+                entities.size());
+        for (SearchEntity entity : entities) {
+          try {
+            MediaPackage mediaPackage = MediaPackageParser.getFromXml(entity.getMediaPackageXML());
+            AccessControlList acl = entity.getAccessControl() == null ? null
+                    : AccessControlParser.parseAcl(entity.getAccessControl());
+            entries.add(new SolrIndexManager.MediaPackageEntry(mediaPackage, acl, entity.getDeletionDate(),
+                    entity.getModificationDate()));
+          } catch (Exception e) {
+            logger.error("Unable to read search entry {}: {}", entity.getMediaPackageId(), e.getMessage());
+          }
+        }
+        if (!entries.isEmpty())
+          added = indexManager.add(entries);
+      } catch (Exception e) {
+        logger.error("Unable to index {} search entries of organization {}: {}", entities.size(), organizationId,
+                e.getMessage());
+      } finally {
+        securityService.setOrganization(null);
+        securityService.setUser(null);
+      }
+      errors.addAndGet(entities.size() - added);
+      processed.addAndGet(entities.size());
+      progress();
+    }
+
+  }
+
+}
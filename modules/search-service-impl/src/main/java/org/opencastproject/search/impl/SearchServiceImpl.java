@@ -41,7 +41,6 @@ import org.opencastproject.search.impl.solr.SolrIndexManager;
 import org.opencastproject.search.impl.solr.SolrRequester;
 import org.opencastproject.security.api.AccessControlList;
 import org.opencastproject.security.api.AuthorizationService;
-import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.Permissions;
 import org.opencastproject.security.api.SecurityService;
@@ -55,7 +54,6 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.solr.SolrServerFactory;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
-import org.opencastproject.util.data.Tuple;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -81,7 +79,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Dictionary;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -113,12 +110,39 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The key to look for in the service configuration file to override the {@link DEFAULT_DELETE_JOB_LOAD} */
   public static final String DELETE_JOB_LOAD_KEY = "job.load.delete";
 
+  /** The key to look for in the service configuration file to set how changes to the search index are committed */
+  public static final String COMMIT_POLICY_KEY = "solr.commit.policy";
+
+  /** The key to look for in the service configuration file to set the maximum time until a change is committed */
+  public static final String COMMIT_LATENCY_KEY = "solr.commit.latency";
+
+  /** The key to look for in the service configuration file to set the number of threads populating the index */
+  public static final String POPULATE_THREADS_KEY = "index.populate.threads";
+
+  /** The key to look for in the service configuration file to set the number of entries indexed at once */
+  public static final String POPULATE_BATCH_SIZE_KEY = "index.populate.batch.size";
+
+  /** The default number of media packages posted to solr at once while populating the index */
+  public static final int DEFAULT_POPULATE_BATCH_SIZE = 100;
+
   /** The load introduced on the system by creating an add job */
   private float addJobLoad = DEFAULT_ADD_JOB_LOAD;
 
   /** The load introduced on the system by creating a delete job */
   private float deleteJobLoad = DEFAULT_DELETE_JOB_LOAD;
 
+  /** How changes to the search index are committed */
+  private SolrIndexManager.CommitPolicy commitPolicy = SolrIndexManager.CommitPolicy.IMMEDIATE;
+
+  /** The maximum time in milliseconds until a change to the search index is committed */
+  private int commitLatency = SolrIndexManager.DEFAULT_COMMIT_LATENCY;
+
+  /** The number of threads populating the index */
+  private int populateThreads = Runtime.getRuntime().availableProcessors();
+
+  /** The number of media packages posted to solr at once while populating the index */
+  private int populateBatchSize = DEFAULT_POPULATE_BATCH_SIZE;
+
   /** counter how often the index has already been tried to populate */
   private int retriesToPopulateIndex = 0;
 
@@ -231,6 +255,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     solrRequester = new SolrRequester(solrServer, securityService, serializer);
     indexManager = new SolrIndexManager(solrServer, workspace, mdServices, seriesService, mpeg7CatalogService,
             securityService);
+    applyCommitPolicy();
 
     String systemUserName = cc.getBundleContext().getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER);
     populateIndex(systemUserName);
@@ -240,6 +265,13 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
    * Service deactivator, called via declarative services configuration.
    */
   public void deactivate() {
+    if (indexManager != null) {
+      try {
+        indexManager.close();
+      } catch (SolrServerException e) {
+        logger.warn("Unable to commit the search index: {}", e.getMessage());
+      }
+    }
     SolrServerFactory.shutdown(solrServer);
   }
 
@@ -514,40 +546,22 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     if (instancesInSolr == 0L) {
       logger.info("No search index found");
       logger.info("Starting population of search index from database");
-      Iterator<Tuple<MediaPackage, String>> mediaPackages;
+      int errors;
       try {
-        mediaPackages = persistence.getAllMediaPackages();
+        errors = new SearchIndexPopulator(persistence, indexManager, organizationDirectory, securityService,
+                systemUserName, populateThreads, populateBatchSize).populate();
       } catch (SearchServiceDatabaseException e) {
         logger.error("Unable to load the search entries: {}", e.getMessage());
         throw new ServiceException(e.getMessage());
       }
-      int errors = 0;
-      while (mediaPackages.hasNext()) {
-        try {
-          Tuple<MediaPackage, String> mediaPackage = mediaPackages.next();
-
-          String mediaPackageId = mediaPackage.getA().getIdentifier().toString();
-
-          Organization organization = organizationDirectory.getOrganization(mediaPackage.getB());
-          securityService.setOrganization(organization);
-          securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
-
-          AccessControlList acl = persistence.getAccessControlList(mediaPackageId);
-          Date modificationDate = persistence.getModificationDate(mediaPackageId);
-          Date deletionDate = persistence.getDeletionDate(mediaPackageId);
-
-          indexManager.add(mediaPackage.getA(), acl, deletionDate, modificationDate);
-        } catch (Exception e) {
-          logger.error("Unable to index search instances: {}", e);
-          if (retryToPopulateIndex(systemUserName)) {
-            logger.warn("Trying to re-index search index later. Aborting for now.");
-            return;
-          }
-          errors++;
-        } finally {
-          securityService.setOrganization(null);
-          securityService.setUser(null);
-        }
+      try {
+        indexManager.commit();
+      } catch (SolrServerException e) {
+        logger.error("Unable to commit the search index: {}", e);
+      }
+      if (errors > 0 && retryToPopulateIndex(systemUserName)) {
+        logger.warn("Trying to re-index search index later. Aborting for now.");
+        return;
       }
       if (errors > 0)
         logger.error("Skipped {} erroneous search entries while populating the search index", errors);
@@ -740,5 +754,51 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   public void updated(@SuppressWarnings("rawtypes") Dictionary properties) throws ConfigurationException {
     addJobLoad = LoadUtil.getConfiguredLoadValue(properties, ADD_JOB_LOAD_KEY, DEFAULT_ADD_JOB_LOAD, serviceRegistry);
     deleteJobLoad = LoadUtil.getConfiguredLoadValue(properties, DELETE_JOB_LOAD_KEY, DEFAULT_DELETE_JOB_LOAD, serviceRegistry);
+
+    commitPolicy = SolrIndexManager.CommitPolicy.IMMEDIATE;
+    commitLatency = SolrIndexManager.DEFAULT_COMMIT_LATENCY;
+    populateThreads = Runtime.getRuntime().availableProcessors();
+    populateBatchSize = DEFAULT_POPULATE_BATCH_SIZE;
+    if (properties != null) {
+      populateThreads = getPositiveInteger(properties, POPULATE_THREADS_KEY, populateThreads);
+      populateBatchSize = getPositiveInteger(properties, POPULATE_BATCH_SIZE_KEY, populateBatchSize);
+
+      String policy = StringUtils.trimToNull((String) properties.get(COMMIT_POLICY_KEY));
+      if (policy != null) {
+        try {
+          commitPolicy = SolrIndexManager.CommitPolicy.valueOf(policy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+          throw new ConfigurationException(COMMIT_POLICY_KEY, "Unknown commit policy " + policy);
+        }
+      }
+      commitLatency = getPositiveInteger(properties, COMMIT_LATENCY_KEY, commitLatency);
+    }
+    applyCommitPolicy();
+  }
+
+  private static int getPositiveInteger(@SuppressWarnings("rawtypes") Dictionary properties, String key,
+          int defaultValue) throws ConfigurationException {
+    String value = StringUtils.trimToNull((String) properties.get(key));
+    if (value == null)
+      return defaultValue;
+    int result;
+    try {
+      result = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(key, "Not an integer: " + value);
+    }
+    if (result <= 0)
+      throw new ConfigurationException(key, "Has to be positive: " + value);
+    return result;
+  }
+
+  private void applyCommitPolicy() {
+    if (indexManager == null)
+      return;
+    try {
+      indexManager.setCommitPolicy(commitPolicy, commitLatency);
+    } catch (SolrServerException e) {
+      logger.warn("Unable to commit the search index: {}", e.getMessage());
+    }
   }
 }
@@ -43,7 +43,10 @@ import javax.persistence.TemporalType;
         @NamedQuery(name = "Search.getCount", query = "SELECT COUNT(s) FROM SearchEntity s"),
         @NamedQuery(name = "Search.findById", query = "SELECT s FROM SearchEntity s WHERE s.mediaPackageId=:mediaPackageId"),
         @NamedQuery(name = "Search.findBySeriesId", query = "SELECT s FROM SearchEntity s WHERE s.seriesId=:seriesId"),
-        @NamedQuery(name = "Search.getNoSeries", query = "SELECT s FROM SearchEntity s WHERE s.seriesId IS NULL")})
+        @NamedQuery(name = "Search.getNoSeries", query = "SELECT s FROM SearchEntity s WHERE s.seriesId IS NULL"),
+        @NamedQuery(name = "Search.findOrganizations", query = "SELECT DISTINCT s.organization FROM SearchEntity s"),
+        @NamedQuery(name = "Search.findByOrganizationAfterId", query = "SELECT s FROM SearchEntity s WHERE "
+                + "s.organization=:organization AND s.mediaPackageId>:mediaPackageId ORDER BY s.mediaPackageId")})
 public class SearchEntity {
 
   /** media package id, primary key */
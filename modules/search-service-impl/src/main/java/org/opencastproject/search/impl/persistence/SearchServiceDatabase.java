@@ -29,6 +29,7 @@ import org.opencastproject.util.data.Tuple;
 
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * API that defines persistent storage of series.
@@ -45,6 +46,41 @@ public interface SearchServiceDatabase {
    */
   Iterator<Tuple<MediaPackage, String>> getAllMediaPackages() throws SearchServiceDatabaseException;
 
+  /**
+   * Returns the number of search entries in persistent storage.
+   *
+   * @return the number of stored media packages
+   * @throws SearchServiceDatabaseException
+   *           if exception occurs
+   */
+  int countMediaPackages() throws SearchServiceDatabaseException;
+
+  /**
+   * Returns the identifiers of all organizations owning search entries.
+   *
+   * @return the organization identifiers
+   * @throws SearchServiceDatabaseException
+   *           if exception occurs
+   */
+  List<String> getOrganizations() throws SearchServiceDatabaseException;
+
+  /**
+   * Returns a page of the search entries of an organization, ordered by their media package identifier. The search
+   * entries are returned as stored, without checking the permissions of the current user.
+   *
+   * @param organization
+   *          the organization identifier
+   * @param afterMediaPackageId
+   *          only entries with a greater media package identifier are returned, use an empty string for the first page
+   * @param limit
+   *          the maximum number of entries to return
+   * @return the search entries
+   * @throws SearchServiceDatabaseException
+   *           if exception occurs
+   */
+  List<SearchEntity> getSearchEntities(String organization, String afterMediaPackageId, int limit)
+          throws SearchServiceDatabaseException;
+
   /**
    * Returns the organization id of the selected media package
    *
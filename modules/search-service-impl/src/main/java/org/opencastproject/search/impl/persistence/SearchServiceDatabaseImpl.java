@@ -206,6 +206,75 @@ public class SearchServiceDatabaseImpl implements SearchServiceDatabase {
     return mediaPackageList.iterator();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.impl.persistence.SearchServiceDatabase#countMediaPackages()
+   */
+  @Override
+  public int countMediaPackages() throws SearchServiceDatabaseException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query query = em.createNamedQuery("Search.getCount");
+      return ((Number) query.getSingleResult()).intValue();
+    } catch (Exception e) {
+      logger.error("Could not count episodes: {}", e.getMessage());
+      throw new SearchServiceDatabaseException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.impl.persistence.SearchServiceDatabase#getOrganizations()
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> getOrganizations() throws SearchServiceDatabaseException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query query = em.createNamedQuery("Search.findOrganizations");
+      return (List<String>) query.getResultList();
+    } catch (Exception e) {
+      logger.error("Could not retrieve the organizations of the episodes: {}", e.getMessage());
+      throw new SearchServiceDatabaseException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.impl.persistence.SearchServiceDatabase#getSearchEntities(String, String, int)
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<SearchEntity> getSearchEntities(String organization, String afterMediaPackageId, int limit)
+          throws SearchServiceDatabaseException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query query = em.createNamedQuery("Search.findByOrganizationAfterId");
+      query.setParameter("organization", organization);
+      query.setParameter("mediaPackageId", afterMediaPackageId);
+      query.setMaxResults(limit);
+      return (List<SearchEntity>) query.getResultList();
+    } catch (Exception e) {
+      logger.error("Could not retrieve the episodes of organization {}: {}", organization, e.getMessage());
+      throw new SearchServiceDatabaseException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
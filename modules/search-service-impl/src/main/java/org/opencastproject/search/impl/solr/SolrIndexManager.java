@@ -81,6 +81,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
@@ -107,6 +108,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Utility class used to manage the search index.
@@ -142,6 +147,60 @@ public class SolrIndexManager {
 
   private SecurityService securityService;
 
+  /** How changes to the index are committed */
+  private volatile CommitPolicy commitPolicy = CommitPolicy.IMMEDIATE;
+
+  /** The maximum time in milliseconds until a change is committed, unless the commit policy is immediate */
+  private volatile int commitLatency = DEFAULT_COMMIT_LATENCY;
+
+  /** Whether there are changes waiting for the next periodic commit */
+  private final AtomicBoolean uncommitted = new AtomicBoolean(false);
+
+  /** Executes the periodic commits */
+  private ScheduledExecutorService commitExecutor = null;
+
+  /** The default maximum time in milliseconds until a change is committed */
+  public static final int DEFAULT_COMMIT_LATENCY = 1000;
+
+  /** How changes to the index are committed */
+  public enum CommitPolicy {
+    /** Every change is committed right away */
+    IMMEDIATE,
+    /** Solr commits the changes within the commit latency */
+    WITHIN,
+    /** Changes are committed periodically, once per commit latency */
+    PERIODIC
+  }
+
+  /** A media package to add to the index along with its access control list and dates */
+  public static final class MediaPackageEntry {
+    private final MediaPackage mediaPackage;
+    private final AccessControlList acl;
+    private final Date deletionDate;
+    private final Date modificationDate;
+
+    /**
+     * @param mediaPackage
+     *          the media package
+     * @param acl
+     *          the access control list for this media package
+     * @param deletionDate
+     *          the deletion date or <code>null</code>
+     * @param modificationDate
+     *          the modification date
+     */
+    public MediaPackageEntry(MediaPackage mediaPackage, AccessControlList acl, Date deletionDate, Date modificationDate) {
+      this.mediaPackage = mediaPackage;
+      this.acl = acl;
+      this.deletionDate = deletionDate;
+      this.modificationDate = modificationDate;
+    }
+
+    public MediaPackage getMediaPackage() {
+      return mediaPackage;
+    }
+  }
+
   /** Convert a DublinCoreValue into a date. */
   private static Function<DublinCoreValue, Option<Date>> toDateF = new Function<DublinCoreValue, Option<Date>>() {
     @Override
@@ -201,6 +260,109 @@ public class SolrIndexManager {
     setStaticMetadataServices(notNull(mdServices, "metadata service"));
   }
 
+  /**
+   * Sets how changes to the index are committed. Pending changes are committed before the policy is changed.
+   *
+   * @param policy
+   *          the commit policy
+   * @param latency
+   *          the maximum time in milliseconds until a change is committed, ignored by the immediate policy
+   * @throws SolrServerException
+   *           if committing the pending changes fails
+   */
+  public synchronized void setCommitPolicy(CommitPolicy policy, int latency) throws SolrServerException {
+    stopPeriodicCommits();
+    commitPending();
+    commitPolicy = notNull(policy, "commit policy");
+    commitLatency = latency;
+    if (policy == CommitPolicy.PERIODIC) {
+      commitExecutor = Executors.newSingleThreadScheduledExecutor();
+      commitExecutor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            commitPending();
+          } catch (SolrServerException e) {
+            logger.warn("Unable to commit the search index: {}", e.getMessage());
+          }
+        }
+      }, latency, latency, TimeUnit.MILLISECONDS);
+    }
+    logger.info("Committing search index changes {}", policy == CommitPolicy.IMMEDIATE ? "immediately"
+            : "within " + latency + "ms");
+  }
+
+  /**
+   * Commits all changes to the index, regardless of the commit policy.
+   *
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public void commit() throws SolrServerException {
+    // Changes sent while committing mark the index as uncommitted again
+    uncommitted.set(false);
+    boolean committed = false;
+    try {
+      solrServer.commit();
+      committed = true;
+    } catch (IOException e) {
+      throw new SolrServerException(e);
+    } finally {
+      // Keep the changes pending so that the next periodic commit retries
+      if (!committed)
+        uncommitted.set(true);
+    }
+  }
+
+  /**
+   * Stops the periodic commits and commits the pending changes.
+   *
+   * @throws SolrServerException
+   *           if committing the pending changes fails
+   */
+  public synchronized void close() throws SolrServerException {
+    stopPeriodicCommits();
+    commitPending();
+  }
+
+  private void stopPeriodicCommits() {
+    if (commitExecutor == null)
+      return;
+    commitExecutor.shutdown();
+    try {
+      commitExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    commitExecutor = null;
+  }
+
+  private void commitPending() throws SolrServerException {
+    if (uncommitted.get())
+      commit();
+  }
+
+  /**
+   * Sends documents to solr in a single request and commits them according to the commit policy.
+   */
+  private void update(Collection<SolrInputDocument> documents) throws SolrServerException, IOException {
+    UpdateRequest request = new UpdateRequest();
+    request.add(documents);
+    if (commitPolicy == CommitPolicy.WITHIN)
+      request.setCommitWithin(commitLatency);
+    request.process(solrServer);
+    switch (commitPolicy) {
+      case IMMEDIATE:
+        commit();
+        break;
+      case PERIODIC:
+        uncommitted.set(true);
+        break;
+      default:
+        // Solr commits on its own
+    }
+  }
+
   /**
    * Clears the search index. Make sure you know what you are doing.
    *
@@ -253,8 +415,7 @@ public class SolrIndexManager {
 
       // Set the oc_deleted field to the current date, then update
       Schema.setOcDeleted(inputDocument, deletionDate);
-      solrServer.add(inputDocument);
-      solrServer.commit();
+      update(Collections.singletonList(inputDocument));
       return true;
     } catch (IOException e) {
       throw new SolrServerException(e);
@@ -293,11 +454,12 @@ public class SolrIndexManager {
       }
 
       // Post everything to the search index
+      List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(2);
       if (episodeDocument != null)
-        solrServer.add(episodeDocument);
+        documents.add(episodeDocument);
       if (seriesDocument != null)
-        solrServer.add(seriesDocument);
-      solrServer.commit();
+        documents.add(seriesDocument);
+      update(documents);
       return true;
     } catch (Exception e) {
       throw new SolrServerException(e);
@@ -325,28 +487,79 @@ public class SolrIndexManager {
   public boolean add(MediaPackage sourceMediaPackage, AccessControlList acl, Date deletionDate, Date modificationDate)
           throws SolrServerException {
     try {
-      SolrInputDocument episodeDocument = createEpisodeInputDocument(sourceMediaPackage, acl);
-
-      SolrInputDocument seriesDocument = createSeriesInputDocument(sourceMediaPackage.getSeries(), acl);
-      if (seriesDocument != null)
-        Schema.enrich(episodeDocument, seriesDocument);
-
-      Schema.setOcModified(episodeDocument, modificationDate);
-      if (deletionDate != null)
-        Schema.setOcDeleted(episodeDocument, deletionDate);
-
-      solrServer.add(episodeDocument);
-      solrServer.add(seriesDocument);
-      solrServer.commit();
+      update(createInputDocuments(sourceMediaPackage, acl, deletionDate, modificationDate));
       return true;
     } catch (Exception e) {
+      // A rollback would discard the pending changes of other media packages as well
+      if (commitPolicy == CommitPolicy.IMMEDIATE) {
+        try {
+          solrServer.rollback();
+        } catch (IOException e1) {
+          throw new SolrServerException(e1);
+        }
+      }
+      throw new SolrServerException(e);
+    }
+  }
+
+  /**
+   * Posts media packages of the current organization to solr in a single request without committing them, regardless
+   * of the commit policy. Call {@link #commit()} once all media packages have been posted. Media packages whose
+   * documents cannot be created are skipped.
+   *
+   * @param entries
+   *          the media packages to post
+   * @return the number of media packages posted
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public int add(List<MediaPackageEntry> entries) throws SolrServerException {
+    List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(entries.size() * 2);
+    int added = 0;
+    for (MediaPackageEntry entry : entries) {
       try {
-        solrServer.rollback();
-      } catch (IOException e1) {
-        throw new SolrServerException(e1);
+        documents.addAll(createInputDocuments(entry.mediaPackage, entry.acl, entry.deletionDate,
+                entry.modificationDate));
+        added++;
+      } catch (Exception e) {
+        logger.error("Unable to create the search index documents of media package {}: {}",
+                entry.mediaPackage.getIdentifier(), e.getMessage());
       }
+    }
+    if (documents.isEmpty())
+      return 0;
+    try {
+      UpdateRequest request = new UpdateRequest();
+      request.add(documents);
+      request.process(solrServer);
+      // Committed by the caller, or by the next periodic commit at the latest
+      uncommitted.set(true);
+    } catch (IOException e) {
       throw new SolrServerException(e);
     }
+    return added;
+  }
+
+  /**
+   * Creates the episode and series documents of a media package.
+   */
+  private List<SolrInputDocument> createInputDocuments(MediaPackage mediaPackage, AccessControlList acl,
+          Date deletionDate, Date modificationDate) throws MediaPackageException, IOException, UnauthorizedException {
+    SolrInputDocument episodeDocument = createEpisodeInputDocument(mediaPackage, acl);
+
+    SolrInputDocument seriesDocument = createSeriesInputDocument(mediaPackage.getSeries(), acl);
+    if (seriesDocument != null)
+      Schema.enrich(episodeDocument, seriesDocument);
+
+    Schema.setOcModified(episodeDocument, modificationDate);
+    if (deletionDate != null)
+      Schema.setOcDeleted(episodeDocument, deletionDate);
+
+    List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(2);
+    documents.add(episodeDocument);
+    if (seriesDocument != null)
+      documents.add(seriesDocument);
+    return documents;
   }
 
   /**
@@ -88,6 +88,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 
@@ -483,6 +484,31 @@ public class SearchServiceImplTest {
     assertEquals(1, resultItem.getMediaPackage().getCatalogs().length);
   }
 
+  /**
+   * Tests that changes to the index are only visible after the next commit when commits are issued periodically.
+   */
+  @Test
+  public void testPeriodicCommitPolicy() throws Exception {
+    MediaPackage mediaPackage = getMediaPackage("/manifest-simple.xml");
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, READ.toString(), true));
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, WRITE.toString(), true));
+
+    SolrIndexManager indexManager = service.getSolrIndexManager();
+    indexManager.setCommitPolicy(SolrIndexManager.CommitPolicy.PERIODIC, 3600000);
+    try {
+      service.addSynchronously(mediaPackage);
+
+      SearchQuery q = new SearchQuery();
+      q.withId("10.0000/1");
+      assertEquals(0, service.getByQuery(q).size());
+
+      indexManager.commit();
+      assertEquals(1, service.getByQuery(q).size());
+    } finally {
+      indexManager.setCommitPolicy(SolrIndexManager.CommitPolicy.IMMEDIATE, 0);
+    }
+  }
+
   /**
    * Ads a simple media package that has a dublin core for the episode only.
    */
@@ -695,4 +721,31 @@ public class SearchServiceImplTest {
     // This time we should have 10 results
     assertEquals(10, service.getByQuery(new SearchQuery()).size());
   }
+
+  @Test
+  public void testPopulateIndexInBatches() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      MediaPackage mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+      mediaPackage.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew());
+      searchDatabase.storeMediaPackage(mediaPackage, acl, new Date());
+    }
+
+    OrganizationDirectoryService orgDirectory = EasyMock.createNiceMock(OrganizationDirectoryService.class);
+    EasyMock.expect(orgDirectory.getOrganization((String) EasyMock.anyObject())).andReturn(new DefaultOrganization())
+    .anyTimes();
+    EasyMock.replay(orgDirectory);
+    service.setOrganizationDirectoryService(orgDirectory);
+
+    // Index the media packages in pages smaller than the number of entries, using several workers
+    Hashtable<String, String> properties = new Hashtable<String, String>();
+    properties.put(SearchServiceImpl.POPULATE_THREADS_KEY, "3");
+    properties.put(SearchServiceImpl.POPULATE_BATCH_SIZE_KEY, "3");
+    service.updated(properties);
+
+    assertEquals(0, service.getByQuery(new SearchQuery()).size());
+
+    service.populateIndex("System Admin");
+
+    assertEquals(10, service.getByQuery(new SearchQuery()).size());
+  }
 }
@@ -424,6 +424,47 @@ public abstract class ServiceRegistryRemoteBase implements ServiceRegistry {
     throw new ServiceRegistryException("Unable to create a job of type '" + type + " (" + responseStatusCode + ")");
   }
 
+  @Override
+  public List<Job> createJobs(List<Job> templates) throws ServiceRegistryException {
+    return createJobs(getServerUrl(), templates);
+  }
+
+  @Override
+  public List<Job> createJobs(String host, List<Job> templates) throws ServiceRegistryException {
+    if (templates.isEmpty())
+      return new ArrayList<Job>();
+    final HttpPost post = post("createjobs");
+    try {
+      List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
+      params.add(new BasicNameValuePair("host", host));
+      params.add(new BasicNameValuePair("jobs", JobParser.toXml(new JaxbJobList(templates))));
+      post.setEntity(new UrlEncodedFormEntity(params));
+    } catch (UnsupportedEncodingException e) {
+      throw new ServiceRegistryException("Can not url encode post parameters", e);
+    } catch (IOException e) {
+      throw new ServiceRegistryException("Can not serialize job templates", e);
+    }
+    HttpResponse response = null;
+    int responseStatusCode;
+    try {
+      response = getHttpClient().execute(post);
+      responseStatusCode = response.getStatusLine().getStatusCode();
+      if (responseStatusCode == HttpStatus.SC_OK) {
+        List<Job> jobs = new ArrayList<Job>();
+        for (JaxbJob job : JobParser.parseJobList(response.getEntity().getContent()).getJobs()) {
+          jobs.add(job.toJob());
+        }
+        logger.debug("Created {} new jobs", jobs.size());
+        return jobs;
+      }
+    } catch (Exception e) {
+      throw new ServiceRegistryException("Unable to create " + templates.size() + " jobs", e);
+    } finally {
+      getHttpClient().close(response);
+    }
+    throw new ServiceRegistryException("Unable to create " + templates.size() + " jobs (" + responseStatusCode + ")");
+  }
+
   @Override
   public Job updateJob(Job job) throws ServiceRegistryException, NotFoundException {
     final HttpPut put = put("job/" + job.getId() + ".xml");
@@ -479,6 +520,34 @@ public abstract class ServiceRegistryRemoteBase implements ServiceRegistry {
     throw new ServiceRegistryException("Unable to retrieve job " + id + " (" + responseStatusCode + ")");
   }
 
+  @Override
+  public boolean waitForJobTermination(List<Long> ids, long timeout) throws ServiceRegistryException {
+    if (ids.isEmpty())
+      return false;
+    QueryStringBuilder queryStringBuilder = new QueryStringBuilder("job/waitfortermination");
+    for (Long id : ids) {
+      queryStringBuilder.add("id", Long.toString(id));
+    }
+    queryStringBuilder.add("timeout", Long.toString(timeout));
+
+    final HttpGet get = get(queryStringBuilder.toString());
+    HttpResponse response = null;
+    int responseStatusCode;
+    try {
+      response = getHttpClient().execute(get);
+      responseStatusCode = response.getStatusLine().getStatusCode();
+      if (responseStatusCode == HttpStatus.SC_OK) {
+        return Boolean.parseBoolean(EntityUtils.toString(response.getEntity()).trim());
+      }
+    } catch (IOException e) {
+      throw new ServiceRegistryException("Unable to wait for the termination of jobs " + ids, e);
+    } finally {
+      getHttpClient().close(response);
+    }
+    throw new ServiceRegistryException("Unable to wait for the termination of jobs " + ids + " ("
+            + responseStatusCode + ")");
+  }
+
   @Override
   public List<Job> getChildJobs(long id) throws ServiceRegistryException {
     final HttpGet get = get("job/" + id + "/children.xml");
@@ -887,6 +956,46 @@ public abstract class ServiceRegistryRemoteBase implements ServiceRegistry {
     throw new IllegalStateException("Unable to get service statistics (" + responseStatusCode + ")");
   }
 
+  @Override
+  public List<Job> updateJobs(List<Job> jobs) throws ServiceRegistryException, NotFoundException {
+    if (jobs.isEmpty())
+      return jobs;
+    final HttpPost post = post("updatejobs");
+    try {
+      List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
+      params.add(new BasicNameValuePair("jobs", JobParser.toXml(new JaxbJobList(jobs))));
+      post.setEntity(new UrlEncodedFormEntity(params));
+    } catch (UnsupportedEncodingException e) {
+      throw new ServiceRegistryException("Can not url encode post parameters", e);
+    } catch (IOException e) {
+      throw new ServiceRegistryException("Can not serialize " + jobs.size() + " jobs", e);
+    }
+    HttpResponse response = null;
+    int responseStatusCode;
+    try {
+      response = getHttpClient().execute(post);
+      responseStatusCode = response.getStatusLine().getStatusCode();
+      if (responseStatusCode == HttpStatus.SC_OK) {
+        // The updated jobs carry the new versions, so they can be updated again
+        List<Job> updatedJobs = new ArrayList<Job>(jobs.size());
+        for (JaxbJob job : JobParser.parseJobList(response.getEntity().getContent()).getJobs()) {
+          updatedJobs.add(job.toJob());
+        }
+        logger.debug("Updated {} jobs", updatedJobs.size());
+        return updatedJobs;
+      } else if (responseStatusCode == HttpStatus.SC_NOT_FOUND) {
+        throw new NotFoundException("One of the jobs to update was not found");
+      }
+    } catch (NotFoundException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServiceRegistryException("Unable to update " + jobs.size() + " jobs", e);
+    } finally {
+      getHttpClient().close(response);
+    }
+    throw new ServiceRegistryException("Unable to update " + jobs.size() + " jobs (" + responseStatusCode + ")");
+  }
+
   @Override
   public void removeJobs(List<Long> ids)throws NotFoundException, ServiceRegistryException {
     HttpPost post = post("removejobs");
@@ -0,0 +1,228 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.job.api.Job.Status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory queue of the jobs waiting to be dispatched.
+ * <p>
+ * The jobs are ordered the same way the dispatcher has always processed them: restarted jobs first, then queued jobs
+ * and workflow jobs last. Jobs of the same rank are ordered by their identifier, i.e. by creation.
+ */
+public class DispatchQueue {
+
+  /** The queued jobs in dispatch order */
+  private final TreeSet<Entry> entries = new TreeSet<>();
+
+  /** The queued jobs by identifier */
+  private final Map<Long, Entry> entriesById = new HashMap<>();
+
+  /**
+   * Adds a job to the queue or updates its position if it is already queued.
+   *
+   * @param id
+   *          the job identifier
+   * @param status
+   *          the job status
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the job operation
+   */
+  public synchronized void offer(long id, Status status, String jobType, String operation) {
+    Entry entry = new Entry(id, rank(status, jobType), jobType, operation);
+    Entry existing = entriesById.put(id, entry);
+    if (existing != null)
+      entries.remove(existing);
+    entries.add(entry);
+  }
+
+  /**
+   * Removes a job from the queue.
+   *
+   * @param id
+   *          the job identifier
+   * @return whether the job has been queued
+   */
+  public synchronized boolean remove(long id) {
+    Entry entry = entriesById.remove(id);
+    if (entry == null)
+      return false;
+    entries.remove(entry);
+    return true;
+  }
+
+  /**
+   * Returns whether the job is queued.
+   *
+   * @param id
+   *          the job identifier
+   * @return whether the job is queued
+   */
+  public synchronized boolean contains(long id) {
+    return entriesById.containsKey(id);
+  }
+
+  /**
+   * Returns the queued jobs in dispatch order.
+   *
+   * @return a snapshot of the queued jobs
+   */
+  public synchronized List<Entry> getEntries() {
+    return new ArrayList<>(entries);
+  }
+
+  /**
+   * Returns the number of queued jobs.
+   *
+   * @return the queue size
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removes all jobs from the queue.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    entriesById.clear();
+  }
+
+  /**
+   * Replaces the queue content with the dispatchable jobs found in the database. Jobs that have been added to the queue
+   * after <code>since</code> are kept even if they are missing from the given jobs, since they may have been created
+   * after the database has been queried.
+   *
+   * @param dispatchable
+   *          the dispatchable jobs found in the database
+   * @param since
+   *          the time in milliseconds at which the database has been queried
+   */
+  public synchronized void reconcile(Collection<Entry> dispatchable, long since) {
+    Set<Long> ids = new HashSet<>();
+    for (Entry entry : dispatchable) {
+      ids.add(entry.getId());
+      Entry existing = entriesById.put(entry.getId(), entry);
+      if (existing != null)
+        entries.remove(existing);
+      entries.add(entry);
+    }
+    Iterator<Entry> i = entries.iterator();
+    while (i.hasNext()) {
+      Entry entry = i.next();
+      if (!ids.contains(entry.getId()) && entry.getQueued() < since) {
+        i.remove();
+        entriesById.remove(entry.getId());
+      }
+    }
+  }
+
+  /**
+   * Creates a queue entry.
+   *
+   * @param id
+   *          the job identifier
+   * @param status
+   *          the job status
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the job operation
+   * @return the entry
+   */
+  public static Entry entry(long id, Status status, String jobType, String operation) {
+    return new Entry(id, rank(status, jobType), jobType, operation);
+  }
+
+  private static int rank(Status status, String jobType) {
+    if (ServiceRegistryJpaImpl.TYPE_WORKFLOW.equals(jobType))
+      return 2;
+    return Status.RESTART.equals(status) ? 0 : 1;
+  }
+
+  /**
+   * A job waiting to be dispatched.
+   */
+  public static final class Entry implements Comparable<Entry> {
+
+    private final long id;
+    private final int rank;
+    private final String signature;
+    private final long queued;
+
+    private Entry(long id, int rank, String jobType, String operation) {
+      this.id = id;
+      this.rank = rank;
+      this.signature = new StringBuilder(jobType).append('@').append(operation).toString();
+      this.queued = System.currentTimeMillis();
+    }
+
+    /** Returns the job identifier */
+    public long getId() {
+      return id;
+    }
+
+    /** Returns the job signature, i.e. the job type and operation */
+    public String getSignature() {
+      return signature;
+    }
+
+    /** Returns the time in milliseconds at which the job has been added to the queue */
+    public long getQueued() {
+      return queued;
+    }
+
+    @Override
+    public int compareTo(Entry o) {
+      if (rank != o.rank)
+        return rank < o.rank ? -1 : 1;
+      return id < o.id ? -1 : (id == o.id ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Entry && ((Entry) o).id == id && ((Entry) o).rank == rank;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (id ^ (id >>> 32));
+    }
+
+    @Override
+    public String toString() {
+      return "Job " + id + " (" + signature + ")";
+    }
+  }
+
+}
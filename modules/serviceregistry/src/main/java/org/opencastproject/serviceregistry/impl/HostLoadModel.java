@@ -0,0 +1,202 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.serviceregistry.api.SystemLoad;
+import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory model of the load on the hosts of the cluster.
+ * <p>
+ * The model keeps track of the load each job currently puts on its processing host, so that job status transitions can
+ * be applied incrementally instead of summing up the job loads in the database for every load balancing decision.
+ * Changes made by other nodes are not visible to the model, which is why it has to be reset from the database
+ * periodically.
+ */
+public class HostLoadModel {
+
+  /** Differences in load below this threshold are considered rounding errors */
+  private static final float TOLERANCE = 0.001f;
+
+  /** The load of each job contributing to the host loads */
+  private final Map<Long, JobLoad> jobs = new HashMap<>();
+
+  /** The current load per host */
+  private final Map<String, Float> loads = new LinkedHashMap<>();
+
+  /** The time of the last reset or <code>-1</code> if the model is invalid */
+  private long lastReset = -1;
+
+  /**
+   * Replaces the model with the given state.
+   *
+   * @param hosts
+   *          the registered hosts
+   * @param jobLoads
+   *          the jobs contributing to the host loads
+   * @param now
+   *          the current time in milliseconds
+   * @return the number of hosts whose load differed from the model before the reset
+   */
+  public synchronized int reset(Collection<String> hosts, Map<Long, JobLoad> jobLoads, long now) {
+    final Map<String, Float> previous = lastReset < 0 ? null : new HashMap<>(loads);
+    jobs.clear();
+    loads.clear();
+    for (String host : hosts) {
+      loads.put(host, 0.0f);
+    }
+    for (Map.Entry<Long, JobLoad> entry : jobLoads.entrySet()) {
+      jobs.put(entry.getKey(), entry.getValue());
+      add(entry.getValue().getHost(), entry.getValue().getLoad());
+    }
+    lastReset = now;
+
+    if (previous == null)
+      return 0;
+    int drift = 0;
+    for (Map.Entry<String, Float> entry : loads.entrySet()) {
+      final Float load = previous.remove(entry.getKey());
+      if (load == null || Math.abs(load - entry.getValue()) > TOLERANCE)
+        drift++;
+    }
+    return drift + previous.size();
+  }
+
+  /**
+   * Updates the load a job puts on its processing host.
+   *
+   * @param id
+   *          the job identifier
+   * @param host
+   *          the processing host or <code>null</code> if the job does not contribute to any host load
+   * @param load
+   *          the job load
+   */
+  public synchronized void update(long id, String host, float load) {
+    final JobLoad existing = host == null ? jobs.remove(id) : jobs.put(id, new JobLoad(host, load));
+    if (existing != null)
+      add(existing.getHost(), -existing.getLoad());
+    if (host != null)
+      add(host, load);
+  }
+
+  /**
+   * Removes a job from the model.
+   *
+   * @param id
+   *          the job identifier
+   */
+  public synchronized void remove(long id) {
+    update(id, null, 0.0f);
+  }
+
+  /**
+   * Marks the model as invalid, e.g. because a host has changed, so that it is reset before it is used next.
+   */
+  public synchronized void invalidate() {
+    lastReset = -1;
+  }
+
+  /**
+   * Returns whether the model has been reset within the given time.
+   *
+   * @param now
+   *          the current time in milliseconds
+   * @param maxAge
+   *          the maximum age of the model in milliseconds
+   * @return whether the model can be used
+   */
+  public synchronized boolean isValid(long now, long maxAge) {
+    return lastReset >= 0 && now - lastReset < maxAge;
+  }
+
+  /**
+   * Returns a copy of the current host loads.
+   *
+   * @return the host loads
+   */
+  public synchronized SystemLoad getSystemLoad() {
+    final SystemLoad systemLoad = new SystemLoad();
+    for (Map.Entry<String, Float> entry : loads.entrySet()) {
+      systemLoad.addNodeLoad(new NodeLoad(entry.getKey(), entry.getValue()));
+    }
+    return systemLoad;
+  }
+
+  /**
+   * Returns the number of jobs contributing to the host loads.
+   *
+   * @return the number of jobs
+   */
+  public synchronized int getJobCount() {
+    return jobs.size();
+  }
+
+  private void add(String host, float load) {
+    final Float current = loads.get(host);
+    float updated = current == null ? load : current + load;
+    if (Math.abs(updated) < TOLERANCE)
+      updated = 0.0f;
+    loads.put(host, updated);
+  }
+
+  /**
+   * Creates a job load.
+   *
+   * @param host
+   *          the processing host
+   * @param load
+   *          the job load
+   * @return the job load
+   */
+  public static JobLoad jobLoad(String host, float load) {
+    return new JobLoad(host, load);
+  }
+
+  /** The load a job puts on its processing host */
+  public static final class JobLoad {
+
+    private final String host;
+    private final float load;
+
+    private JobLoad(String host, float load) {
+      this.host = host;
+      this.load = load;
+    }
+
+    /** Returns the processing host. */
+    public String getHost() {
+      return host;
+    }
+
+    /** Returns the job load. */
+    public float getLoad() {
+      return load;
+    }
+
+  }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the threads waiting for jobs to terminate.
+ * <p>
+ * Terminations reported to this node's service registry are signaled right away. Jobs terminated by other nodes are
+ * signaled once the service registry finds them terminated in the database, see {@link #getJobIds()}.
+ */
+public class JobTerminationNotifier {
+
+  /** The subscriptions by job identifier */
+  private final Map<Long, Set<Subscription>> subscriptions = new HashMap<>();
+
+  /**
+   * Subscribes to the termination of the given jobs. The subscription has to be closed once it is no longer used.
+   *
+   * @param ids
+   *          the job identifiers
+   * @return the subscription
+   */
+  public synchronized Subscription subscribe(Collection<Long> ids) {
+    final Subscription subscription = new Subscription(ids);
+    for (Long id : subscription.ids) {
+      Set<Subscription> jobSubscriptions = subscriptions.get(id);
+      if (jobSubscriptions == null) {
+        jobSubscriptions = new HashSet<>();
+        subscriptions.put(id, jobSubscriptions);
+      }
+      jobSubscriptions.add(subscription);
+    }
+    return subscription;
+  }
+
+  /**
+   * Wakes all threads waiting for the given job.
+   *
+   * @param id
+   *          the identifier of the terminated job
+   */
+  public void jobTerminated(long id) {
+    final List<Subscription> notified;
+    synchronized (this) {
+      final Set<Subscription> jobSubscriptions = subscriptions.get(id);
+      if (jobSubscriptions == null)
+        return;
+      notified = new ArrayList<>(jobSubscriptions);
+    }
+    for (Subscription subscription : notified) {
+      subscription.latch.countDown();
+    }
+  }
+
+  /**
+   * Returns the jobs that threads are currently waiting for.
+   *
+   * @return the job identifiers
+   */
+  public synchronized List<Long> getJobIds() {
+    return new ArrayList<>(subscriptions.keySet());
+  }
+
+  /**
+   * Returns the number of jobs that threads are currently waiting for.
+   *
+   * @return the number of jobs
+   */
+  public synchronized int size() {
+    return subscriptions.size();
+  }
+
+  private synchronized void unsubscribe(Subscription subscription) {
+    for (Long id : subscription.ids) {
+      final Set<Subscription> jobSubscriptions = subscriptions.get(id);
+      if (jobSubscriptions != null) {
+        jobSubscriptions.remove(subscription);
+        if (jobSubscriptions.isEmpty())
+          subscriptions.remove(id);
+      }
+    }
+  }
+
+  /** A subscription to the termination of a set of jobs */
+  public final class Subscription implements AutoCloseable {
+
+    private final Set<Long> ids;
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private Subscription(Collection<Long> ids) {
+      this.ids = new HashSet<>(ids);
+    }
+
+    /**
+     * Waits until one of the jobs has terminated.
+     *
+     * @param timeout
+     *          the maximum time to wait in milliseconds
+     * @return whether one of the jobs has terminated
+     * @throws InterruptedException
+     *           if the waiting thread has been interrupted
+     */
+    public boolean await(long timeout) throws InterruptedException {
+      return latch.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+      unsubscribe(this);
+    }
+
+  }
+
+}
@@ -57,6 +57,7 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.serviceregistry.api.ServiceStatistics;
 import org.opencastproject.serviceregistry.api.SystemLoad;
 import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
+import org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.HostsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.JobsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.ServicesStatistics;
@@ -105,9 +106,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.management.ObjectInstance;
 import javax.persistence.EntityManager;
@@ -127,6 +131,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** JPA persistence unit name */
   public static final String PERSISTENCE_UNIT = "org.opencastproject.common";
 
+  /** Entity manager properties writing the jobs of batch creations and updates with JDBC batches */
+  private static final Map<String, Object> BATCH_WRITING_PROPERTIES = Collections.<String, Object> singletonMap(
+          "eclipselink.jdbc.batch-writing", "JDBC");
+
   /** Id of the workflow's start operation operation, need to match the corresponding enum value in WorkflowServiceImpl */
   public static final String START_OPERATION = "START_OPERATION";
 
@@ -153,6 +161,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Jobs statistics JMX type */
   private static final String JMX_JOBS_STATISTICS_TYPE = "JobsStatistics";
 
+  /** Host loads statistics JMX type */
+  private static final String JMX_HOST_LOADS_STATISTICS_TYPE = "HostLoadsStatistics";
+
   /** The JMX business object for hosts statistics */
   private HostsStatistics hostsStatistics;
 
@@ -162,6 +173,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** The JMX business object for jobs statistics */
   private JobsStatistics jobsStatistics;
 
+  /** The cached host loads */
+  protected final HostLoadModel hostLoadModel = new HostLoadModel();
+
+  /** The JMX business object for the cached host loads */
+  private final HostLoadsStatistics hostLoadsStatistics = new HostLoadsStatistics(hostLoadModel);
+
+  /** The threads waiting for jobs to terminate */
+  protected final JobTerminationNotifier jobTerminationNotifier = new JobTerminationNotifier();
+
   /** Current job used to process job in the service registry */
   private static final ThreadLocal<Job> currentJob = new ThreadLocal<Job>();
 
@@ -171,6 +191,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the dispatch interval in milliseconds */
   protected static final String OPT_DISPATCHINTERVAL = "dispatchinterval";
 
+  /** Configuration key for the interval between two reconciliations of the dispatch queue in milliseconds */
+  protected static final String OPT_DISPATCH_RECONCILE_INTERVAL = "dispatch.reconcile.interval";
+
+  /** Configuration key for the maximum age of the cached host loads in milliseconds */
+  protected static final String OPT_HOSTLOADS_REFRESH_INTERVAL = "hostloads.refresh.interval";
+
   /** Configuration key for the interval to check whether the hosts in the service registry are still alive [sec] * */
   protected static final String OPT_HEARTBEATINTERVAL = "heartbeat.interval";
 
@@ -189,6 +215,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Default delay between job dispatching attempts, in milliseconds */
   static final long DEFAULT_DISPATCH_INTERVAL = 5000;
 
+  /** Delay between two checks of the database for jobs terminated by other nodes, in milliseconds */
+  static final long TERMINATION_CHECK_INTERVAL = 1000;
+
+  /** Default maximum age of the cached host loads before they are reloaded from the database, in milliseconds */
+  static final long DEFAULT_HOSTLOADS_REFRESH_INTERVAL = 5000;
+
+  /** Delay between a job event and the dispatching it triggers, in milliseconds, to collect further events */
+  static final long DISPATCH_WAKEUP_DELAY = 100;
+
   /** Default jobs limit during dispatching
    * (larger value will fetch more entries from the database at the same time and increase RAM usage) */
   static final int DEFAULT_DISPATCH_JOBS_LIMIT = 100;
@@ -223,9 +258,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Tracks services published locally and adds them to the service registry */
   protected RestServiceTracker tracker = null;
 
-  /** The thread pool to use for dispatching queued jobs and checking on phantom services. */
+  /** The thread pool to use for checking on phantom services. */
   protected ScheduledExecutorService scheduledExecutor = null;
 
+  /** The executor checking the database for the termination of jobs that threads are waiting for */
+  protected ScheduledExecutorService terminationCheckExecutor = null;
+
+  /** The executor dispatching queued jobs, <code>null</code> if dispatching is disabled on this node */
+  protected ScheduledExecutorService dispatchExecutor = null;
+
   /** The security service */
   protected SecurityService securityService = null;
 
@@ -243,6 +284,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Maximum age of jobs being considering for service statistics */
   protected int maxJobAge = DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE;
 
+  /** Maximum age of the cached host loads in milliseconds, the cache is disabled if this is not positive */
+  protected long hostLoadsRefreshInterval = DEFAULT_HOSTLOADS_REFRESH_INTERVAL;
+
   /** A static list of statuses that influence how load balancing is calculated */
   protected static final List<Status> JOB_STATUSES_INFLUENCING_LOAD_BALANCING;
 
@@ -254,7 +298,16 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   }
 
   /** The dispatcher priority list */
-  protected final Map<Long, String> dispatchPriorityList = new HashMap<>();
+  protected final Map<Long, String> dispatchPriorityList = new ConcurrentHashMap<>();
+
+  /** The jobs waiting to be dispatched */
+  protected final DispatchQueue dispatchQueue = new DispatchQueue();
+
+  /** Whether a dispatching round triggered by a job event is pending */
+  private final AtomicBoolean dispatchPending = new AtomicBoolean(false);
+
+  /** The job dispatcher triggered by job events */
+  private final JobDispatcher eventDispatcher = new JobDispatcher(false);
 
   /** Whether to accept a job whose load exceeds the host’s max load */
   protected Boolean acceptJobLoadsExeedingMaxLoad = true;
@@ -284,6 +337,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     // Clean all undispatchable jobs that were orphaned when this host was last deactivated
     cleanUndispatchableJobs(hostName);
 
+    // Notice jobs terminated by other nodes, which are not reported to this node's registry
+    terminationCheckExecutor = Executors.newSingleThreadScheduledExecutor();
+    terminationCheckExecutor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        checkJobTerminations();
+      }
+    }, TERMINATION_CHECK_INTERVAL, TERMINATION_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+
     // Register JMX beans with statistics
     try {
       List<ServiceStatistics> serviceStatistics = getServiceStatistics();
@@ -293,6 +355,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       jmxBeans.add(JmxUtil.registerMXBean(hostsStatistics, JMX_HOSTS_STATISTICS_TYPE));
       jmxBeans.add(JmxUtil.registerMXBean(servicesStatistics, JMX_SERVICES_STATISTICS_TYPE));
       jmxBeans.add(JmxUtil.registerMXBean(jobsStatistics, JMX_JOBS_STATISTICS_TYPE));
+      jmxBeans.add(JmxUtil.registerMXBean(hostLoadsStatistics, JMX_HOST_LOADS_STATISTICS_TYPE));
     } catch (ServiceRegistryException e) {
       logger.error("Error registering JMX statistic beans {}", e);
     }
@@ -371,6 +434,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     if (scheduledExecutor != null) {
       scheduledExecutor.shutdownNow();
     }
+    if (terminationCheckExecutor != null) {
+      terminationCheckExecutor.shutdownNow();
+    }
+    if (dispatchExecutor != null) {
+      dispatchExecutor.shutdownNow();
+    }
   }
 
   /**
@@ -500,43 +569,20 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    */
   public Job createJob(String host, String serviceType, String operation, List<String> arguments, String payload,
           boolean dispatchable, Job parentJob, float jobLoad) throws ServiceRegistryException {
-    if (StringUtils.isBlank(host)) {
-      throw new IllegalArgumentException("Host can't be null");
-    }
-    if (StringUtils.isBlank(serviceType)) {
-      throw new IllegalArgumentException("Service type can't be null");
-    }
-    if (StringUtils.isBlank(operation)) {
-      throw new IllegalArgumentException("Operation can't be null");
-    }
+    checkJobArguments(host, serviceType, operation);
     EntityManager em = null;
     EntityTransaction tx = null;
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
-      ServiceRegistrationJpaImpl creatingService = getServiceRegistration(em, serviceType, host);
-      if (creatingService == null) {
-        throw new ServiceRegistryException("No service registration exists for type '" + serviceType + "' on host '"
-                + host + "'");
-      }
-      if (creatingService.getHostRegistration().isMaintenanceMode()) {
-        logger.warn("Creating a job from {}, which is currently in maintenance mode.", creatingService.getHost());
-      } else if (!creatingService.getHostRegistration().isActive()) {
-        logger.warn("Creating a job from {}, which is currently inactive.", creatingService.getHost());
-      }
-
-      User currentUser = securityService.getUser();
-      Organization currentOrganization = securityService.getOrganization();
-
-      JpaJob jpaJob = new JpaJob(currentUser, currentOrganization, creatingService, operation, arguments, payload,
-              dispatchable, jobLoad);
 
       // Bind the given parent job to the new job
+      JpaJob jpaParentJob = null;
+      JpaJob jpaRootJob = null;
       if (parentJob != null) {
 
         // Get the JPA instance of the parent job
-        JpaJob jpaParentJob;
         try {
           jpaParentJob = getJpaJob(parentJob.getId());
         } catch (NotFoundException e) {
@@ -544,10 +590,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           throw new ServiceRegistryException(e);
         }
 
-        jpaJob.setParentJob(jpaParentJob);
-
         // Get the JPA instance of the root job
-        JpaJob jpaRootJob = jpaParentJob;
+        jpaRootJob = jpaParentJob;
         if (parentJob.getRootJobId() != null) {
           try {
             jpaRootJob = getJpaJob(parentJob.getRootJobId());
@@ -556,22 +600,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
             throw new ServiceRegistryException(e);
           }
         }
-        jpaJob.setRootJob(jpaRootJob);
-      }
-
-      // if this job is not dispatchable, it must be handled by the host that has created it
-      if (dispatchable) {
-        jpaJob.setStatus(Status.QUEUED);
-      } else {
-        jpaJob.setProcessorServiceRegistration(creatingService);
       }
 
-      em.persist(jpaJob);
+      ServiceRegistrationJpaImpl creatingService = getCreatingService(em, serviceType, host);
+      JpaJob jpaJob = persistJob(em, creatingService, operation, arguments, payload, dispatchable, jpaParentJob,
+              jpaRootJob, jobLoad);
       tx.commit();
 
-      setJobUri(jpaJob);
-      Job job = jpaJob.toJob();
-      return job;
+      return jobCreated(jpaJob);
     } catch (RollbackException e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -583,6 +619,197 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs(java.util.List)
+   */
+  @Override
+  public List<Job> createJobs(List<Job> templates) throws ServiceRegistryException {
+    return createJobs(this.hostName, templates);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs(java.lang.String, java.util.List)
+   */
+  @Override
+  public List<Job> createJobs(String host, List<Job> templates) throws ServiceRegistryException {
+    for (Job template : templates) {
+      checkJobArguments(host, template.getJobType(), template.getOperation());
+    }
+    final List<Job> createdJobs = new ArrayList<Job>(templates.size());
+    if (templates.isEmpty())
+      return createdJobs;
+
+    final Job currentJob = getCurrentJob();
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager(BATCH_WRITING_PROPERTIES);
+      tx = em.getTransaction();
+      tx.begin();
+
+      // Look up the creating services and parent jobs first, so that the new jobs are not flushed by the queries and
+      // can be written in a single batch on commit
+      final Map<String, ServiceRegistrationJpaImpl> creatingServices = new HashMap<String, ServiceRegistrationJpaImpl>();
+      final Map<Long, JpaJob> parentJobs = new HashMap<Long, JpaJob>();
+      for (Job template : templates) {
+        if (!creatingServices.containsKey(template.getJobType()))
+          creatingServices.put(template.getJobType(), getCreatingService(em, template.getJobType(), host));
+        Long parentJobId = template.getParentJobId();
+        if (parentJobId == null && currentJob != null)
+          parentJobId = currentJob.getId();
+        if (parentJobId != null && !parentJobs.containsKey(parentJobId)) {
+          JpaJob jpaParentJob = em.find(JpaJob.class, parentJobId);
+          if (jpaParentJob == null) {
+            logger.error("Parent job with id {} not found in the persistence context", parentJobId);
+            throw new ServiceRegistryException(new NotFoundException("Job " + parentJobId + " not found"));
+          }
+          parentJobs.put(parentJobId, jpaParentJob);
+        }
+      }
+
+      final List<JpaJob> jpaJobs = new ArrayList<JpaJob>(templates.size());
+      for (Job template : templates) {
+        Long parentJobId = template.getParentJobId();
+        if (parentJobId == null && currentJob != null)
+          parentJobId = currentJob.getId();
+        JpaJob jpaParentJob = parentJobId == null ? null : parentJobs.get(parentJobId);
+        JpaJob jpaRootJob = null;
+        if (jpaParentJob != null)
+          jpaRootJob = jpaParentJob.getRootJob() != null ? jpaParentJob.getRootJob() : jpaParentJob;
+
+        float jobLoad = template.getJobLoad() == null ? 1.0f : template.getJobLoad();
+        jpaJobs.add(persistJob(em, creatingServices.get(template.getJobType()), template.getOperation(),
+                template.getArguments(), template.getPayload(), template.isDispatchable(), jpaParentJob, jpaRootJob,
+                jobLoad));
+      }
+      tx.commit();
+
+      for (JpaJob jpaJob : jpaJobs) {
+        createdJobs.add(jobCreated(jpaJob));
+      }
+      logger.debug("Created {} jobs in a single transaction", createdJobs.size());
+      return createdJobs;
+    } catch (PersistenceException e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      if (em != null)
+        em.close();
+    }
+  }
+
+  private void checkJobArguments(String host, String serviceType, String operation) {
+    if (StringUtils.isBlank(host)) {
+      throw new IllegalArgumentException("Host can't be null");
+    }
+    if (StringUtils.isBlank(serviceType)) {
+      throw new IllegalArgumentException("Service type can't be null");
+    }
+    if (StringUtils.isBlank(operation)) {
+      throw new IllegalArgumentException("Operation can't be null");
+    }
+  }
+
+  /**
+   * Gets the service registration creating a job.
+   *
+   * @param em
+   *          the entity manager
+   * @param serviceType
+   *          the job type
+   * @param host
+   *          the creating host
+   * @return the service registration
+   * @throws ServiceRegistryException
+   *           if the creating service is not registered
+   */
+  private ServiceRegistrationJpaImpl getCreatingService(EntityManager em, String serviceType, String host)
+          throws ServiceRegistryException {
+    ServiceRegistrationJpaImpl creatingService = getServiceRegistration(em, serviceType, host);
+    if (creatingService == null) {
+      throw new ServiceRegistryException("No service registration exists for type '" + serviceType + "' on host '"
+              + host + "'");
+    }
+    if (creatingService.getHostRegistration().isMaintenanceMode()) {
+      logger.warn("Creating a job from {}, which is currently in maintenance mode.", creatingService.getHost());
+    } else if (!creatingService.getHostRegistration().isActive()) {
+      logger.warn("Creating a job from {}, which is currently inactive.", creatingService.getHost());
+    }
+    return creatingService;
+  }
+
+  /**
+   * Creates a new job and adds it to the persistence context of a running transaction.
+   *
+   * @param em
+   *          the entity manager
+   * @param creatingService
+   *          the service registration creating the job
+   * @param operation
+   *          the operation
+   * @param arguments
+   *          the arguments
+   * @param payload
+   *          the payload
+   * @param dispatchable
+   *          whether the job is to be dispatched
+   * @param parentJob
+   *          the parent job or <code>null</code>
+   * @param rootJob
+   *          the root job or <code>null</code>
+   * @param jobLoad
+   *          the job load
+   * @return the new job
+   */
+  private JpaJob persistJob(EntityManager em, ServiceRegistrationJpaImpl creatingService, String operation,
+          List<String> arguments, String payload, boolean dispatchable, JpaJob parentJob, JpaJob rootJob,
+          float jobLoad) {
+    User currentUser = securityService.getUser();
+    Organization currentOrganization = securityService.getOrganization();
+
+    JpaJob jpaJob = new JpaJob(currentUser, currentOrganization, creatingService, operation, arguments, payload,
+            dispatchable, jobLoad);
+
+    if (parentJob != null) {
+      jpaJob.setParentJob(parentJob);
+      jpaJob.setRootJob(rootJob);
+    }
+
+    // if this job is not dispatchable, it must be handled by the host that has created it
+    if (dispatchable) {
+      jpaJob.setStatus(Status.QUEUED);
+    } else {
+      jpaJob.setProcessorServiceRegistration(creatingService);
+    }
+
+    em.persist(jpaJob);
+    return jpaJob;
+  }
+
+  /**
+   * Finishes the creation of a job after its transaction has been committed.
+   *
+   * @param jpaJob
+   *          the created job
+   * @return the created job
+   */
+  private Job jobCreated(JpaJob jpaJob) {
+    setJobUri(jpaJob);
+    Job job = jpaJob.toJob();
+    // Only nodes dispatching jobs drain the queue
+    if (job.isDispatchable() && dispatchExecutor != null) {
+      dispatchQueue.offer(job.getId(), job.getStatus(), job.getJobType(), job.getOperation());
+      triggerDispatch();
+    }
+    return job;
+  }
+
   @Override
   public void removeJobs(List<Long> jobIds) throws NotFoundException, ServiceRegistryException {
 
@@ -612,6 +839,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
 
       tx.commit();
+      for (long jobId : jobIds) {
+        hostLoadModel.remove(jobId);
+        jobTerminationNotifier.jobTerminated(jobId);
+      }
       logger.debug("Jobs with IDs '{}' deleted", jobIds);
     } finally {
       if (em != null)
@@ -753,6 +984,44 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    // Jobs queued by other nodes are only picked up on reconciliation, so by default the dispatch queue is reconciled
+    // as often as the database used to be polled, keeping the worst case dispatch latency at the dispatch interval
+    long reconcileInterval = dispatchInterval;
+    String reconcileIntervalString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_RECONCILE_INTERVAL));
+    if (StringUtils.isNotBlank(reconcileIntervalString)) {
+      try {
+        reconcileInterval = Long.parseLong(reconcileIntervalString);
+      } catch (Exception e) {
+        logger.warn("Dispatch queue reconciliation interval '{}' is malformed, setting to {}", reconcileIntervalString,
+                dispatchInterval);
+        reconcileInterval = dispatchInterval;
+      }
+    }
+    if (dispatchInterval > 0 && reconcileInterval < dispatchInterval) {
+      logger.warn("Dispatch queue reconciliation interval {} ms lower than dispatch interval, adjusting to {}",
+              reconcileInterval, dispatchInterval);
+      reconcileInterval = dispatchInterval;
+    }
+
+    String hostLoadsRefreshString = StringUtils.trimToNull((String) properties.get(OPT_HOSTLOADS_REFRESH_INTERVAL));
+    if (StringUtils.isNotBlank(hostLoadsRefreshString)) {
+      try {
+        hostLoadsRefreshInterval = Long.parseLong(hostLoadsRefreshString);
+      } catch (Exception e) {
+        logger.warn("Host loads refresh interval '{}' is malformed, setting to {}", hostLoadsRefreshString,
+                DEFAULT_HOSTLOADS_REFRESH_INTERVAL);
+        hostLoadsRefreshInterval = DEFAULT_HOSTLOADS_REFRESH_INTERVAL;
+      }
+    } else {
+      hostLoadsRefreshInterval = DEFAULT_HOSTLOADS_REFRESH_INTERVAL;
+    }
+    if (hostLoadsRefreshInterval > 0) {
+      logger.info("Host loads are cached for at most {} ms", hostLoadsRefreshInterval);
+    } else {
+      logger.info("Host loads caching disabled");
+    }
+    hostLoadModel.invalidate();
+
     String jobStatsString = StringUtils.trimToNull((String) properties.get(OPT_JOBSTATISTICS));
     if (StringUtils.isNotBlank(jobStatsString)) {
       try {
@@ -779,8 +1048,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     if (scheduledExecutor != null) {
       scheduledExecutor.shutdown();
     }
+    if (dispatchExecutor != null) {
+      dispatchExecutor.shutdown();
+    }
 
-    scheduledExecutor = Executors.newScheduledThreadPool(2);
+    scheduledExecutor = Executors.newScheduledThreadPool(1);
 
     // Schedule the service heartbeat if the interval is > 0
     if (heartbeatInterval > 0) {
@@ -789,11 +1061,61 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               TimeUnit.SECONDS);
     }
 
-    // Schedule the job dispatching.
+    // Schedule the job dispatching. Jobs are dispatched as soon as they are queued or other jobs are finished. Jobs
+    // that could not be dispatched are retried every dispatch interval, and the queue is reconciled with the database
+    // to pick up jobs queued by other nodes.
+    dispatchPending.set(false);
     if (dispatchInterval > 0) {
       logger.debug("Starting job dispatching at a custom interval of {}s", dispatchInterval / 1000);
-      scheduledExecutor.scheduleWithFixedDelay(new JobDispatcher(), dispatchInterval, dispatchInterval,
+      dispatchExecutor = Executors.newSingleThreadScheduledExecutor();
+      dispatchExecutor.scheduleWithFixedDelay(new JobDispatcher(true), dispatchInterval, reconcileInterval,
+              TimeUnit.MILLISECONDS);
+      dispatchExecutor.scheduleWithFixedDelay(new JobDispatcher(false), dispatchInterval, dispatchInterval,
               TimeUnit.MILLISECONDS);
+    } else {
+      dispatchExecutor = null;
+      dispatchQueue.clear();
+    }
+  }
+
+  /**
+   * Triggers a dispatching round on this node unless one is already pending. Does nothing if dispatching is disabled.
+   */
+  protected void triggerDispatch() {
+    final ScheduledExecutorService executor = dispatchExecutor;
+    if (executor == null || executor.isShutdown())
+      return;
+    if (dispatchPending.compareAndSet(false, true)) {
+      try {
+        executor.schedule(eventDispatcher, DISPATCH_WAKEUP_DELAY, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        dispatchPending.set(false);
+      }
+    }
+  }
+
+  /**
+   * Updates the dispatch queue after a job has been updated and triggers dispatching if the update has added the job
+   * to the queue or if it has freed processing capacity. Jobs are not queued if this node does not dispatch jobs.
+   *
+   * @param previousStatus
+   *          the job status before the update
+   * @param job
+   *          the updated job
+   */
+  private void updateDispatchQueue(Status previousStatus, JpaJob job) {
+    final Status status = job.getStatus();
+    if (dispatchExecutor != null && job.isDispatchable()
+            && (Status.QUEUED.equals(status) || Status.RESTART.equals(status))) {
+      dispatchQueue.offer(job.getId(), status, job.getJobType(), job.getOperation());
+      // Jobs put back after a failed dispatching attempt are retried with the next regular dispatching round
+      if (!Status.DISPATCHING.equals(previousStatus))
+        triggerDispatch();
+    } else {
+      dispatchQueue.remove(job.getId());
+      if (status != previousStatus && JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(previousStatus)
+              && !JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(status))
+        triggerDispatch();
     }
   }
 
@@ -837,6 +1159,86 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return getJpaJob(id).toJob();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#waitForJobTermination(java.util.List, long)
+   */
+  @Override
+  public boolean waitForJobTermination(List<Long> ids, long timeout) throws ServiceRegistryException {
+    if (ids.isEmpty())
+      return false;
+    // Subscribe before looking at the database, so that no termination between the two steps is missed
+    try (JobTerminationNotifier.Subscription subscription = jobTerminationNotifier.subscribe(ids)) {
+      if (hasTerminatedJob(ids))
+        return true;
+      return subscription.await(timeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Wakes the threads waiting for jobs which have terminated in the meantime. Jobs terminated through this node's
+   * registry are signaled right away, so this only matters for jobs terminated by other nodes.
+   */
+  protected void checkJobTerminations() {
+    final List<Long> ids = jobTerminationNotifier.getJobIds();
+    if (ids.isEmpty())
+      return;
+    try {
+      for (Long id : findTerminatedJobs(ids)) {
+        jobTerminationNotifier.jobTerminated(id);
+      }
+    } catch (ServiceRegistryException e) {
+      logger.warn("Unable to check whether the jobs waited for have terminated: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Returns whether at least one of the given jobs has terminated or does not exist anymore.
+   *
+   * @param ids
+   *          the job identifiers
+   * @return whether one of the jobs has terminated
+   * @throws ServiceRegistryException
+   *           if there is a problem communicating with the jobs database
+   */
+  private boolean hasTerminatedJob(List<Long> ids) throws ServiceRegistryException {
+    return !findTerminatedJobs(ids).isEmpty();
+  }
+
+  /**
+   * Returns those of the given jobs which have terminated or do not exist anymore.
+   *
+   * @param ids
+   *          the job identifiers
+   * @return the identifiers of the terminated jobs
+   * @throws ServiceRegistryException
+   *           if there is a problem communicating with the jobs database
+   */
+  private Set<Long> findTerminatedJobs(List<Long> ids) throws ServiceRegistryException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query query = em.createNamedQuery("Job.status.idfilter");
+      query.setParameter("jobids", ids);
+      final Set<Long> terminated = new HashSet<Long>(ids);
+      for (Object result : query.getResultList()) {
+        Object[] row = (Object[]) result;
+        if (!Status.values()[((Number) row[1]).intValue()].isTerminated())
+          terminated.remove(((Number) row[0]).longValue());
+      }
+      return terminated;
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -863,6 +1265,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       em = emf.createEntityManager();
       Job oldJob = getJob(job.getId());
       JpaJob jpaJob = updateInternal(em, job);
+      updateDispatchQueue(oldJob.getStatus(), jpaJob);
 
       // All WorkflowService Jobs will be ignored
       if (oldJob.getStatus() != job.getStatus() && !TYPE_WORKFLOW.equals(job.getJobType())) {
@@ -888,6 +1291,80 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return updateJob(jpaJob).toJob();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#updateJobs(java.util.List)
+   */
+  @Override
+  public List<Job> updateJobs(List<Job> jobs) throws NotFoundException, ServiceRegistryException {
+    final List<Job> updatedJobs = new ArrayList<Job>(jobs.size());
+    if (jobs.isEmpty())
+      return updatedJobs;
+
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager(BATCH_WRITING_PROPERTIES);
+      tx = em.getTransaction();
+      tx.begin();
+
+      // Load everything before modifying the jobs, so that the updates are not flushed by the queries and can be
+      // written in a single batch on commit. The service registrations are looked up once per job type and host.
+      final Map<List<String>, ServiceRegistrationJpaImpl> registrations = new HashMap<>();
+      for (Job job : jobs) {
+        List<String> key = Arrays.asList(job.getJobType(), job.getProcessingHost());
+        if (!registrations.containsKey(key))
+          registrations.put(key, getServiceRegistration(em, job.getJobType(), job.getProcessingHost()));
+      }
+      final List<JpaJob> jpaJobs = new ArrayList<JpaJob>(jobs.size());
+      final List<Status> previousStatuses = new ArrayList<Status>(jobs.size());
+      final List<JpaJob> persistentJobs = new ArrayList<JpaJob>(jobs.size());
+      for (Job job : jobs) {
+        JpaJob fromDb = em.find(JpaJob.class, job.getId());
+        if (fromDb == null)
+          throw new NotFoundException("Job " + job.getId() + " not found");
+        JpaJob jpaJob = JpaJob.from(job);
+        jpaJob.setProcessorServiceRegistration(
+                registrations.get(Arrays.asList(job.getJobType(), job.getProcessingHost())));
+        previousStatuses.add(fromDb.getStatus());
+        jpaJobs.add(jpaJob);
+        persistentJobs.add(fromDb);
+      }
+      for (int i = 0; i < jpaJobs.size(); i++) {
+        update(persistentJobs.get(i), jpaJobs.get(i));
+        em.merge(persistentJobs.get(i));
+      }
+      tx.commit();
+
+      for (int i = 0; i < jpaJobs.size(); i++) {
+        JpaJob jpaJob = jpaJobs.get(i);
+        Status previousStatus = previousStatuses.get(i);
+        jpaJob.setVersion(persistentJobs.get(i).toJob().getVersion());
+        setJobUri(jpaJob);
+        updateHostLoad(jpaJob);
+        notifyJobTermination(jpaJob);
+        updateDispatchQueue(previousStatus, jpaJob);
+
+        // All WorkflowService Jobs will be ignored
+        if (previousStatus != jpaJob.getStatus() && !TYPE_WORKFLOW.equals(jpaJob.getJobType())) {
+          updateServiceForFailover(jpaJob);
+        }
+        updatedJobs.add(jpaJob.toJob());
+      }
+      logger.debug("Updated {} jobs in a single transaction", updatedJobs.size());
+      return updatedJobs;
+    } catch (PersistenceException e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      if (em != null)
+        em.close();
+    }
+  }
+
   protected JpaJob setJobUri(JpaJob job) {
     try {
       job.setUri(new URI(jobHost + "/services/job/" + job.getId() + ".xml"));
@@ -932,6 +1409,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       tx.commit();
       job.setVersion(fromDb.toJob().getVersion());
       setJobUri(job);
+      updateHostLoad(job);
+      notifyJobTermination(job);
       return job;
     } catch (PersistenceException e) {
       if (tx.isActive()) {
@@ -1008,8 +1487,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       job.setDateCreated(now);
     }
     if (job.getProcessingHost() != null) {
-      ServiceRegistrationJpaImpl processingService = (ServiceRegistrationJpaImpl) getServiceRegistration(
-              job.getJobType(), job.getProcessingHost());
+      // The processing host is taken from the registration of the in-memory job, which is looked up only if missing
+      ServiceRegistrationJpaImpl processingService = jpaJob.getProcessorServiceRegistration();
+      if (processingService == null) {
+        processingService = (ServiceRegistrationJpaImpl) getServiceRegistration(job.getJobType(),
+                job.getProcessingHost());
+      }
       fromDb.setProcessorServiceRegistration(processingService);
     }
     if (Status.RUNNING.equals(status) && !Status.WAITING.equals(fromDbStatus)) {
@@ -1095,6 +1578,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       logger.info("Registering {} with a maximum load of {}", host, maxLoad);
       tx.commit();
       hostsStatistics.updateHost(hostRegistration);
+      hostLoadModel.invalidate();
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -1132,6 +1616,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       tx.commit();
       logger.info("Host {} unregistered", host);
       hostsStatistics.updateHost(existingHostRegistration);
+      hostLoadModel.invalidate();
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -1175,6 +1660,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
       tx.commit();
       hostsStatistics.updateHost(hostRegistration);
+      hostLoadModel.invalidate();
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -1217,6 +1703,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       logger.info("Disabling {}", host);
       tx.commit();
       hostsStatistics.updateHost(hostRegistration);
+      hostLoadModel.invalidate();
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -1319,6 +1806,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
       tx.commit();
       hostsStatistics.updateHost(hostRegistration);
+      hostLoadModel.invalidate();
       servicesStatistics.updateService(registration);
       return registration;
     } catch (Exception e) {
@@ -1443,6 +1931,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         em.merge(job);
       }
       tx.commit();
+      hostLoadModel.invalidate();
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -1494,6 +1983,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       em.merge(reg);
       tx.commit();
       hostsStatistics.updateHost(reg);
+      hostLoadModel.invalidate();
     } catch (RollbackException e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -1728,16 +2218,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   }
 
   /**
-   * Gets jobs of all types that are in the given state.
+   * Gets the dispatch queue entries of all dispatchable jobs that are in the given state.
    *
    * @param em the entity manager
-   * @param offset apply offset to the db query if offset &gt; 0
-   * @param limit apply limit to the db query if limit &gt; 0
    * @param statuses the job status should be one from the given statuses
    * @return the list of jobs waiting for dispatch
    * @throws ServiceRegistryException if there is a problem communicating with the jobs database
    */
-  protected List<JpaJob> getDispatchableJobsWithStatus(EntityManager em, int offset, int limit, Status... statuses)
+  protected List<DispatchQueue.Entry> getDispatchableJobsWithStatus(EntityManager em, Status... statuses)
           throws ServiceRegistryException {
     if (statuses == null)
       return Collections.EMPTY_LIST;
@@ -1747,39 +2235,50 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       statusesOrdinal.add(status.ordinal());
     }
 
-    TypedQuery<JpaJob> query = null;
     try {
-      query = em.createNamedQuery("Job.dispatchable.status", JpaJob.class);
+      Query query = em.createNamedQuery("Job.dispatchable.status.signature");
       query.setParameter("statuses", statusesOrdinal);
-      if (offset > 0)
-        query.setFirstResult(offset);
-      if (limit > 0)
-        query.setMaxResults(limit);
-      return query.getResultList();
+      List<DispatchQueue.Entry> entries = new ArrayList<>();
+      for (Object result : query.getResultList()) {
+        Object[] row = (Object[]) result;
+        Status status = Status.values()[((Number) row[1]).intValue()];
+        entries.add(DispatchQueue.entry(((Number) row[0]).longValue(), status, (String) row[2], (String) row[3]));
+      }
+      return entries;
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
   }
 
   /**
-   * Return dispatchable job ids, where the job status is RESTART or QUEUED and the job id is listed in the given set.
+   * Gets the dispatchable jobs with status RESTART or QUEUED from the given list of job identifiers, in the order of
+   * the identifiers.
    *
    * @param em the entity manager
-   * @param jobIds set with job id's interested in
-   * @return list with dispatchable job id's from the given set, with job status RESTART or QUEUED
+   * @param jobIds list with the job identifiers interested in
+   * @return the dispatchable jobs from the given list
    * @throws ServiceRegistryException if there is a problem communicating with the jobs database
    */
-  protected List<Long> getDispatchableJobsWithIdFilter(EntityManager em, Set<Long> jobIds)
+  protected List<JpaJob> getDispatchableJobsWithJobFilter(EntityManager em, List<Long> jobIds)
           throws ServiceRegistryException {
     if (jobIds == null || jobIds.isEmpty())
       return Collections.EMPTY_LIST;
 
-    Query query = null;
     try {
-      query = em.createNamedQuery("Job.dispatchable.status.idfilter");
-      query.setParameter("jobids", dispatchPriorityList.keySet());
+      TypedQuery<JpaJob> query = em.createNamedQuery("Job.dispatchable.status.jobfilter", JpaJob.class);
+      query.setParameter("jobids", jobIds);
       query.setParameter("statuses", Arrays.asList(Status.RESTART.ordinal(), Status.QUEUED.ordinal()));
-      return query.getResultList();
+      Map<Long, JpaJob> jobs = new HashMap<>();
+      for (JpaJob job : query.getResultList()) {
+        jobs.put(job.getId(), job);
+      }
+      List<JpaJob> result = new ArrayList<>(jobs.size());
+      for (Long jobId : jobIds) {
+        JpaJob job = jobs.get(jobId);
+        if (job != null)
+          result.add(job);
+      }
+      return result;
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
@@ -2052,7 +2551,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      SystemLoad loadByHost = getHostLoads(em);
+      SystemLoad loadByHost = getCachedHostLoads(em);
       List<HostRegistration> hostRegistrations = getHostRegistrations();
       List<ServiceRegistration> serviceRegistrations = getServiceRegistrationsByType(serviceType);
       return getServiceRegistrationsByLoad(serviceType, serviceRegistrations, hostRegistrations, loadByHost);
@@ -2072,13 +2571,116 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      return getHostLoads(em);
+      return getCachedHostLoads(em);
     } finally {
       if (em != null)
         em.close();
     }
   }
 
+  /**
+   * Reloads the cached host loads from the database and returns them.
+   *
+   * @return the current host loads
+   */
+  public SystemLoad refreshCurrentHostLoads() {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      if (hostLoadsRefreshInterval <= 0)
+        return getHostLoads(em);
+      refreshHostLoads(em);
+      return hostLoadModel.getSystemLoad();
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * Returns the current host loads from the cache, reloading them from the database if they are older than the
+   * configured refresh interval or have been invalidated.
+   *
+   * @param em
+   *          the entity manager
+   * @return the host loads
+   */
+  SystemLoad getCachedHostLoads(EntityManager em) {
+    if (hostLoadsRefreshInterval <= 0)
+      return getHostLoads(em);
+    if (hostLoadModel.isValid(System.currentTimeMillis(), hostLoadsRefreshInterval)) {
+      hostLoadsStatistics.cacheHit();
+      return hostLoadModel.getSystemLoad();
+    }
+    refreshHostLoads(em);
+    return hostLoadModel.getSystemLoad();
+  }
+
+  /**
+   * Reloads the cached host loads from the database and records whether they had drifted from the database.
+   *
+   * @param em
+   *          the entity manager
+   */
+  void refreshHostLoads(EntityManager em) {
+    final long now = System.currentTimeMillis();
+    Query q = em.createNamedQuery("ServiceRegistration.jobloads");
+    List<Integer> statuses = new LinkedList<Integer>();
+    for (Status status : JOB_STATUSES_INFLUENCING_LOAD_BALANCING) {
+      statuses.add(status.ordinal());
+    }
+    q.setParameter("statuses", statuses);
+    q.setParameter("workflow_type", TYPE_WORKFLOW);
+
+    final Map<Long, HostLoadModel.JobLoad> jobLoads = new HashMap<>();
+    for (Object result : q.getResultList()) {
+      Object[] resultArray = (Object[]) result;
+      long id = ((Number) resultArray[0]).longValue();
+      String host = String.valueOf(resultArray[1]);
+      float load = resultArray[2] == null ? 0.0f : ((Number) resultArray[2]).floatValue();
+      jobLoads.put(id, HostLoadModel.jobLoad(host, load));
+    }
+
+    final List<String> hosts = new ArrayList<>();
+    for (HostRegistration h : getHostRegistrations(em)) {
+      hosts.add(h.getBaseUrl());
+    }
+
+    int drift = hostLoadModel.reset(hosts, jobLoads, now);
+    hostLoadsStatistics.refreshed(drift);
+    if (drift > 0)
+      logger.debug("Cached loads of {} hosts differed from the database and have been refreshed", drift);
+  }
+
+  /**
+   * Wakes the threads waiting for the given job if it has terminated.
+   *
+   * @param job
+   *          the updated job
+   */
+  private void notifyJobTermination(JpaJob job) {
+    if (job.getStatus() != null && job.getStatus().isTerminated())
+      jobTerminationNotifier.jobTerminated(job.getId());
+  }
+
+  /**
+   * Applies the current state of a job to the cached host loads.
+   *
+   * @param job
+   *          the updated job
+   */
+  private void updateHostLoad(JpaJob job) {
+    final ServiceRegistrationJpaImpl processor = job.getProcessorServiceRegistration();
+    if (processor != null && JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(job.getStatus())
+            && !TYPE_WORKFLOW.equals(processor.getServiceType()) && processor.isOnline() && processor.isActive()
+            && processor.getHostRegistration() != null && !processor.getHostRegistration().isMaintenanceMode()) {
+      hostLoadModel.update(job.getId(), processor.getHostRegistration().getBaseUrl(),
+              job.getJobLoad() == null ? 0.0f : job.getJobLoad());
+    } else {
+      hostLoadModel.remove(job.getId());
+    }
+  }
+
   /**
    * Gets a map of hosts to the number of jobs currently loading that host
    *
@@ -2772,14 +3374,28 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   };
 
   /**
-   * This dispatcher implementation will check for jobs in the QUEUED {@link Status}. If
-   * new jobs are found, the dispatcher will attempt to dispatch each job to the least loaded service.
+   * This dispatcher implementation will dispatch the jobs waiting in the dispatch queue, i. e. jobs in the RESTART or
+   * QUEUED {@link Status}, to the least loaded service. Optionally, the dispatch queue is reconciled with the database
+   * before, to pick up jobs that have been queued by other nodes.
    */
   class JobDispatcher implements Runnable {
 
     /** A list with job types that cannot be dispatched in each interation */
     private List<String> undispatchableJobTypes = null;
 
+    /** Whether to reconcile the dispatch queue with the database */
+    private final boolean reconcile;
+
+    /**
+     * Creates a job dispatcher.
+     *
+     * @param reconcile
+     *          whether to reconcile the dispatch queue with the database before dispatching
+     */
+    JobDispatcher(boolean reconcile) {
+      this.reconcile = reconcile;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -2787,6 +3403,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      */
     @Override
     public void run() {
+      if (!reconcile)
+        dispatchPending.set(false);
 
       logger.debug("Starting job dispatching");
 
@@ -2795,68 +3413,44 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       try {
         em = emf.createEntityManager();
 
-        // FIXME: the stats are not currently used and the queries are very
-        // expense in database time.
-        if (collectJobstats) {
-          jobsStatistics.updateAvg(getAvgOperations(em));
-          jobsStatistics.updateJobCount(getCountPerHostService(em));
+        if (reconcile) {
+          // FIXME: the stats are not currently used and the queries are very
+          // expense in database time.
+          if (collectJobstats) {
+            jobsStatistics.updateAvg(getAvgOperations(em));
+            jobsStatistics.updateJobCount(getCountPerHostService(em));
+          }
+
+          long reconciliationStart = System.currentTimeMillis();
+          dispatchQueue.reconcile(getDispatchableJobsWithStatus(em, Status.RESTART, Status.QUEUED),
+                  reconciliationStart);
+          logger.debug("Reconciled dispatch queue with the database, {} jobs waiting", dispatchQueue.size());
+
+          // Verify the cached host loads against the database, since jobs processed by other nodes are not tracked
+          if (hostLoadsRefreshInterval > 0)
+            refreshHostLoads(em);
         }
 
-        if (!dispatchPriorityList.isEmpty()) {
-          // Remove outdated jobs from priority list
-          List<Long> jobIds = getDispatchableJobsWithIdFilter(em, dispatchPriorityList.keySet());
-          for (Long jobId : new HashSet<>(dispatchPriorityList.keySet())) {
-            if (!jobIds.contains(jobId)) {
-              dispatchPriorityList.remove(jobId);
-            }
+        // Remove outdated jobs from priority list
+        for (Long jobId : new HashSet<>(dispatchPriorityList.keySet())) {
+          if (!dispatchQueue.contains(jobId)) {
+            dispatchPriorityList.remove(jobId);
           }
         }
 
-        int jobsOffset = 0;
-        List<JpaJob> dispatchableJobs = null;
-        List<JpaJob> workflowJobs = new ArrayList();
-        boolean jobsFound = false;
-        do {
-          // dispatch all dispatchable jobs with status restarted
-          dispatchableJobs = getDispatchableJobsWithStatus(em, jobsOffset, DEFAULT_DISPATCH_JOBS_LIMIT, Status.RESTART);
-          jobsOffset += DEFAULT_DISPATCH_JOBS_LIMIT;
-          jobsFound = !dispatchableJobs.isEmpty();
-
-          // skip all jobs of type workflow, we will handle them next
-          for (JpaJob job : dispatchableJobs) {
-            if (TYPE_WORKFLOW.equals(job.getJobType())) {
-              workflowJobs.add(job);
-            }
-          }
-          if (dispatchableJobs.removeAll(workflowJobs) && dispatchableJobs.isEmpty())
+        // Dispatch the queued jobs in batches, skipping jobs we already know can't be dispatched
+        List<Long> jobIds = new ArrayList<>(DEFAULT_DISPATCH_JOBS_LIMIT);
+        for (DispatchQueue.Entry entry : dispatchQueue.getEntries()) {
+          if (undispatchableJobTypes.contains(entry.getSignature())
+                  && !dispatchPriorityList.containsKey(entry.getId()))
             continue;
-
-          dispatchDispatchableJobs(em, dispatchableJobs);
-        } while (jobsFound);
-
-        jobsOffset = 0;
-        jobsFound = false;
-        do {
-          // dispatch all dispatchable jobs with status queued
-          dispatchableJobs = getDispatchableJobsWithStatus(em, jobsOffset, DEFAULT_DISPATCH_JOBS_LIMIT, Status.QUEUED);
-          jobsOffset += DEFAULT_DISPATCH_JOBS_LIMIT;
-          jobsFound = !dispatchableJobs.isEmpty();
-
-          // skip all jobs of type workflow, we will handle them next
-          for (JpaJob job : dispatchableJobs) {
-            if (TYPE_WORKFLOW.equals(job.getJobType())) {
-              workflowJobs.add(job);
-            }
+          jobIds.add(entry.getId());
+          if (jobIds.size() == DEFAULT_DISPATCH_JOBS_LIMIT) {
+            dispatchQueuedJobs(em, jobIds);
+            jobIds.clear();
           }
-          if (dispatchableJobs.removeAll(workflowJobs) && dispatchableJobs.isEmpty())
-            continue;
-
-          dispatchDispatchableJobs(em, dispatchableJobs);
-        } while (jobsFound);
-
-        if (!workflowJobs.isEmpty())
-          dispatchDispatchableJobs(em, workflowJobs);
-
+        }
+        dispatchQueuedJobs(em, jobIds);
       } catch (Throwable t) {
         logger.warn("Error dispatching jobs", t);
       } finally {
@@ -2868,6 +3462,31 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       logger.debug("Finished job dispatching");
     }
 
+    /**
+     * Dispatch the queued jobs with the given identifiers. Jobs that are no longer waiting for dispatch are removed
+     * from the dispatch queue.
+     *
+     * @param em the entity manager
+     * @param jobIds the identifiers of the jobs to dispatch
+     * @throws ServiceRegistryException if there is a problem communicating with the jobs database
+     */
+    private void dispatchQueuedJobs(EntityManager em, List<Long> jobIds) throws ServiceRegistryException {
+      if (jobIds.isEmpty())
+        return;
+      List<JpaJob> jobs = getDispatchableJobsWithJobFilter(em, jobIds);
+      if (jobs.size() < jobIds.size()) {
+        Set<Long> dispatchableJobIds = new HashSet<>();
+        for (JpaJob job : jobs) {
+          dispatchableJobIds.add(job.getId());
+        }
+        for (Long jobId : jobIds) {
+          if (!dispatchableJobIds.contains(jobId))
+            dispatchQueue.remove(jobId);
+        }
+      }
+      dispatchDispatchableJobs(em, jobs);
+    }
+
     /**
      * Dispatch the given jobs.
      *
@@ -2876,7 +3495,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      */
     private void dispatchDispatchableJobs(EntityManager em, List<JpaJob> jobsToDispatch) {
       //Get the current system load
-      SystemLoad systemLoad = getHostLoads(em);
+      SystemLoad systemLoad = getCachedHostLoads(em);
 
       for (JpaJob job : jobsToDispatch) {
 
@@ -2965,6 +3584,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
             }
 
             dispatchPriorityList.remove(job.getId());
+            dispatchQueue.remove(job.getId());
           } catch (ServiceUnavailableException e) {
             logger.debug("Jobs of type {} currently cannot be dispatched", job.getOperation());
             // Don't mark workflow jobs as undispatchable to not impact worklfow operations
@@ -2973,6 +3593,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
             continue;
           } catch (UndispatchableJobException e) {
             logger.debug("Job {} currently cannot be dispatched", job.getId());
+            requeueUndispatchableJob(job);
             continue;
           }
 
@@ -2987,6 +3608,35 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    /**
+     * Keeps a job that could not be dispatched in the dispatch queue if it is still waiting to be dispatched, e.g.
+     * because it has been put back into the queue. Otherwise, the job has failed or is being dispatched by another
+     * node and is removed from the queue and the priority list.
+     *
+     * @param job
+     *          the job that could not be dispatched
+     */
+    private void requeueUndispatchableJob(JpaJob job) {
+      final Status status;
+      try {
+        status = getJpaJob(job.getId()).getStatus();
+      } catch (NotFoundException e) {
+        dispatchPriorityList.remove(job.getId());
+        dispatchQueue.remove(job.getId());
+        return;
+      } catch (ServiceRegistryException e) {
+        logger.debug("Unable to look up the status of job {}, leaving it to the next reconciliation", job.getId());
+        return;
+      }
+      if (Status.QUEUED.equals(status) || Status.RESTART.equals(status)) {
+        if (!dispatchQueue.contains(job.getId()))
+          dispatchQueue.offer(job.getId(), status, job.getJobType(), job.getOperation());
+      } else {
+        dispatchPriorityList.remove(job.getId());
+        dispatchQueue.remove(job.getId());
+      }
+    }
+
     /**
      * Dispatches the job to the least loaded service that will accept the job, or throws a
      * <code>ServiceUnavailableException</code> if there is no such service.
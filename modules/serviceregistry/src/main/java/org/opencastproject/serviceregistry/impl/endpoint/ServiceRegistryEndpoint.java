@@ -62,10 +62,12 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONValue;
 import org.osgi.service.component.ComponentContext;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -91,6 +93,15 @@ import javax.ws.rs.core.Response.Status;
 @RestService(name = "serviceregistry", title = "Service Registry", notes = { "All paths above are relative to the REST endpoint base" }, abstractText = "Provides registration and management functions for servers and services in this Opencast instance or cluster.")
 public class ServiceRegistryEndpoint {
 
+  /** The maximum time in milliseconds a request waiting for the termination of jobs is held open */
+  public static final long MAX_TERMINATION_WAIT = 10000L;
+
+  /** The maximum number of requests waiting for the termination of jobs at the same time */
+  public static final int MAX_TERMINATION_WAITERS = 25;
+
+  /** Limits the request threads blocked by requests waiting for the termination of jobs */
+  private final Semaphore terminationWaiters = new Semaphore(MAX_TERMINATION_WAITERS);
+
   /** The remote service maanger */
   protected ServiceRegistry serviceRegistry = null;
 
@@ -508,6 +519,78 @@ public class ServiceRegistryEndpoint {
     }
   }
 
+  @POST
+  @Path("createjobs")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "createjobs", description = "Creates several new jobs in a single transaction.", returnDescription = "An XML representation of the created jobs.", restParameters = {
+          @RestParameter(name = "host", isRequired = true, type = Type.STRING, description = "The creating host, including the http(s) protocol"),
+          @RestParameter(name = "jobs", isRequired = true, type = Type.TEXT, description = "The job templates as XML, defining the job type, operation, arguments, payload, whether the job is dispatchable, parent job and job load of each job") }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "Jobs created."),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The required parameters were not supplied, bad request.") })
+  public Response createJobs(@FormParam("host") String host, @FormParam("jobs") String jobsXml) {
+    if (StringUtils.isBlank(host) || StringUtils.isBlank(jobsXml))
+      return Response.status(Status.BAD_REQUEST).build();
+    try {
+      List<Job> templates = new ArrayList<Job>();
+      for (JaxbJob job : JobParser.parseJobList(jobsXml).getJobs()) {
+        templates.add(job.toJob());
+      }
+      List<Job> jobs = serviceRegistry.createJobs(host, templates);
+      return Response.ok(new JaxbJobList(jobs)).build();
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException(Status.BAD_REQUEST);
+    } catch (Exception e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
+  @POST
+  @Path("updatejobs")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "updatejobs", description = "Updates several existing jobs in a single transaction", returnDescription = "An XML representation of the updated jobs.", restParameters = { @RestParameter(name = "jobs", isRequired = true, type = Type.TEXT, description = "The updated jobs as XML") }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "Jobs updated."),
+          @RestResponse(responseCode = SC_NOT_FOUND, description = "One of the jobs was not found.") })
+  public Response updateJobs(@FormParam("jobs") String jobsXml) throws NotFoundException {
+    try {
+      List<Job> jobs = new ArrayList<Job>();
+      for (JaxbJob job : JobParser.parseJobList(jobsXml).getJobs()) {
+        jobs.add(job.toJob());
+      }
+      return Response.ok(new JaxbJobList(serviceRegistry.updateJobs(jobs))).build();
+    } catch (NotFoundException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
+  @GET
+  @Path("job/waitfortermination")
+  @Produces(MediaType.TEXT_PLAIN)
+  @RestQuery(name = "waitfortermination", description = "Waits until at least one of the given jobs has terminated or the timeout has elapsed. "
+          + "The timeout is capped at " + MAX_TERMINATION_WAIT + " milliseconds. If " + MAX_TERMINATION_WAITERS
+          + " requests are already waiting, the jobs are checked once without waiting.", returnDescription = "Whether one of the jobs has terminated, as plain text", restParameters = {
+          @RestParameter(name = "id", isRequired = true, type = Type.INTEGER, description = "The identifier of a job to wait for, may be repeated"),
+          @RestParameter(name = "timeout", isRequired = true, type = Type.INTEGER, description = "The maximum time to wait in milliseconds") }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "Whether a job has terminated returned."),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "No job identifier or an invalid timeout was given.") })
+  public Response waitForJobTermination(@QueryParam("id") List<Long> ids, @QueryParam("timeout") long timeout) {
+    if (ids == null || ids.isEmpty() || timeout < 0)
+      return Response.status(Status.BAD_REQUEST).build();
+    // Callers fall back to polling if the request returns early, so don't block more request threads
+    final boolean waiting = terminationWaiters.tryAcquire();
+    try {
+      boolean terminated = serviceRegistry.waitForJobTermination(ids,
+              waiting ? Math.min(timeout, MAX_TERMINATION_WAIT) : 0L);
+      return Response.ok(Boolean.toString(terminated)).build();
+    } catch (ServiceRegistryException e) {
+      throw new WebApplicationException(e);
+    } finally {
+      if (waiting)
+        terminationWaiters.release();
+    }
+  }
+
   @GET
   @Path("job/{id}.xml")
   @Produces(MediaType.TEXT_XML)
@@ -664,10 +747,13 @@ public class ServiceRegistryEndpoint {
   @RestQuery(name = "currentload", description = "Returns the current load on the servers in this service registry.  "
           + "If there is only one server in this service registry this will be the the load that one server.  "
           + "If it is a distributed install across many servers then this number will be a dictionary of the load on all nodes in the cluster.",
-          returnDescription = "The current load across the cluster", restParameters = {},
-          reponses = { @RestResponse(responseCode = SC_OK, description = "Current load for the cluster.") })
-  public Response getCurrentLoad() {
+          returnDescription = "The current load across the cluster", restParameters = {
+              @RestParameter(name = "refresh", isRequired = false, type = Type.BOOLEAN, defaultValue = "false", description = "Whether to reload the cached loads from the database.")
+          }, reponses = { @RestResponse(responseCode = SC_OK, description = "Current load for the cluster.") })
+  public Response getCurrentLoad(@QueryParam("refresh") boolean refresh) {
     try {
+      if (refresh && serviceRegistry instanceof ServiceRegistryJpaImpl)
+        return Response.ok(((ServiceRegistryJpaImpl) serviceRegistry).refreshCurrentHostLoads()).build();
       return Response.ok(serviceRegistry.getCurrentHostLoads()).build();
     } catch (ServiceRegistryException e) {
       throw new WebApplicationException(e);
@@ -0,0 +1,124 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl.jmx;
+
+import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
+import org.opencastproject.serviceregistry.impl.HostLoadModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HostLoadsStatistics implements HostLoadsStatisticsMXBean {
+
+  private final HostLoadModel model;
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong refreshCount = new AtomicLong();
+  private final AtomicLong driftCount = new AtomicLong();
+  private final AtomicInteger lastDriftHosts = new AtomicInteger();
+
+  public HostLoadsStatistics(HostLoadModel model) {
+    this.model = model;
+  }
+
+  /** Records a host load lookup served from the cache. */
+  public void cacheHit() {
+    cacheHits.incrementAndGet();
+  }
+
+  /**
+   * Records a refresh of the host loads from the database.
+   *
+   * @param driftHosts
+   *          the number of hosts whose cached load differed from the database
+   */
+  public void refreshed(int driftHosts) {
+    refreshCount.incrementAndGet();
+    lastDriftHosts.set(driftHosts);
+    if (driftHosts > 0)
+      driftCount.incrementAndGet();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getHostLoads()
+   */
+  @Override
+  public String[] getHostLoads() {
+    List<String> loads = new ArrayList<String>();
+    for (NodeLoad load : model.getSystemLoad().getNodeLoads()) {
+      loads.add(load.getHost() + "=" + load.getLoadFactor());
+    }
+    return loads.toArray(new String[loads.size()]);
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getJobCount()
+   */
+  @Override
+  public int getJobCount() {
+    return model.getJobCount();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getCacheHits()
+   */
+  @Override
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getRefreshCount()
+   */
+  @Override
+  public long getRefreshCount() {
+    return refreshCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getDriftCount()
+   */
+  @Override
+  public long getDriftCount() {
+    return driftCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getLastDriftHosts()
+   */
+  @Override
+  public int getLastDriftHosts() {
+    return lastDriftHosts.get();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#reset()
+   */
+  @Override
+  public void reset() {
+    cacheHits.set(0);
+    refreshCount.set(0);
+    driftCount.set(0);
+    lastDriftHosts.set(0);
+  }
+
+}
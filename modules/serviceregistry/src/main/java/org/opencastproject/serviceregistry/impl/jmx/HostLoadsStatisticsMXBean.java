@@ -0,0 +1,75 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the cached host loads used for load balancing.
+ */
+public interface HostLoadsStatisticsMXBean {
+
+  /**
+   * Gets the current load of each host
+   *
+   * @return an array of host loads in the form <code>host=load</code>
+   */
+  String[] getHostLoads();
+
+  /**
+   * Gets the number of jobs currently contributing to the host loads
+   *
+   * @return the number of jobs
+   */
+  int getJobCount();
+
+  /**
+   * Gets the number of host load lookups served from the cache
+   *
+   * @return the number of cache hits
+   */
+  long getCacheHits();
+
+  /**
+   * Gets the number of times the host loads have been loaded from the database
+   *
+   * @return the number of database loads
+   */
+  long getRefreshCount();
+
+  /**
+   * Gets the number of refreshes that found the cached loads to differ from the database
+   *
+   * @return the number of refreshes with drift
+   */
+  long getDriftCount();
+
+  /**
+   * Gets the number of hosts whose cached load differed from the database on the last refresh
+   *
+   * @return the number of hosts with drift
+   */
+  int getLastDriftHosts();
+
+  /**
+   * Resets the counters
+   */
+  void reset();
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.job.api.Job.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class DispatchQueueTest {
+
+  private DispatchQueue queue;
+
+  @Before
+  public void setUp() {
+    queue = new DispatchQueue();
+  }
+
+  @Test
+  public void testDispatchOrder() {
+    queue.offer(1L, Status.QUEUED, ServiceRegistryJpaImpl.TYPE_WORKFLOW, "START_WORKFLOW");
+    queue.offer(2L, Status.QUEUED, "non-wf", "encode");
+    queue.offer(3L, Status.RESTART, "non-wf", "encode");
+    queue.offer(4L, Status.QUEUED, "non-wf", "inspect");
+
+    List<DispatchQueue.Entry> entries = queue.getEntries();
+    assertEquals(4, entries.size());
+    assertEquals(3L, entries.get(0).getId());
+    assertEquals(2L, entries.get(1).getId());
+    assertEquals(4L, entries.get(2).getId());
+    assertEquals(1L, entries.get(3).getId());
+    assertEquals("non-wf@inspect", entries.get(2).getSignature());
+  }
+
+  @Test
+  public void testOfferUpdatesPosition() {
+    queue.offer(1L, Status.QUEUED, "non-wf", "encode");
+    queue.offer(2L, Status.QUEUED, "non-wf", "encode");
+    queue.offer(2L, Status.RESTART, "non-wf", "encode");
+
+    List<DispatchQueue.Entry> entries = queue.getEntries();
+    assertEquals(2, entries.size());
+    assertEquals(2L, entries.get(0).getId());
+    assertEquals(1L, entries.get(1).getId());
+  }
+
+  @Test
+  public void testRemove() {
+    queue.offer(1L, Status.QUEUED, "non-wf", "encode");
+    assertTrue(queue.contains(1L));
+    assertTrue(queue.remove(1L));
+    assertFalse(queue.remove(1L));
+    assertFalse(queue.contains(1L));
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testReconcile() {
+    queue.offer(1L, Status.QUEUED, "non-wf", "encode");
+    long since = System.currentTimeMillis() + 1;
+    queue.reconcile(Arrays.asList(DispatchQueue.entry(2L, Status.QUEUED, "non-wf", "encode")), since);
+    assertFalse(queue.contains(1L));
+    assertTrue(queue.contains(2L));
+
+    // Jobs queued after the database has been queried are kept
+    queue.offer(3L, Status.QUEUED, "non-wf", "encode");
+    queue.reconcile(Arrays.asList(DispatchQueue.entry(2L, Status.QUEUED, "non-wf", "encode")), 0L);
+    assertTrue(queue.contains(2L));
+    assertTrue(queue.contains(3L));
+  }
+
+}
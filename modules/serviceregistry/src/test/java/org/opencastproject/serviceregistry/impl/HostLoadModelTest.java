@@ -0,0 +1,103 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.serviceregistry.api.SystemLoad;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class HostLoadModelTest {
+
+  private static final String HOST_1 = "http://host1";
+  private static final String HOST_2 = "http://host2";
+
+  private HostLoadModel model;
+
+  @Before
+  public void setUp() {
+    model = new HostLoadModel();
+    model.reset(Arrays.asList(HOST_1, HOST_2), Collections.<Long, HostLoadModel.JobLoad> emptyMap(), 1000L);
+  }
+
+  @Test
+  public void testRegisteredHostsWithoutLoad() {
+    SystemLoad systemLoad = model.getSystemLoad();
+    assertEquals(2, systemLoad.getNodeLoads().size());
+    assertEquals(0.0f, systemLoad.get(HOST_1).getLoadFactor(), 0.0001f);
+    assertEquals(0.0f, systemLoad.get(HOST_2).getLoadFactor(), 0.0001f);
+  }
+
+  @Test
+  public void testJobTransitions() {
+    model.update(1L, HOST_1, 2.0f);
+    model.update(2L, HOST_1, 0.5f);
+    assertEquals(2.5f, model.getSystemLoad().get(HOST_1).getLoadFactor(), 0.0001f);
+
+    // Applying the same state twice does not change the load
+    model.update(1L, HOST_1, 2.0f);
+    assertEquals(2.5f, model.getSystemLoad().get(HOST_1).getLoadFactor(), 0.0001f);
+
+    // The job moves to another host
+    model.update(1L, HOST_2, 2.0f);
+    assertEquals(0.5f, model.getSystemLoad().get(HOST_1).getLoadFactor(), 0.0001f);
+    assertEquals(2.0f, model.getSystemLoad().get(HOST_2).getLoadFactor(), 0.0001f);
+
+    // The jobs finish
+    model.update(1L, null, 2.0f);
+    model.remove(2L);
+    assertEquals(0.0f, model.getSystemLoad().get(HOST_1).getLoadFactor(), 0.0001f);
+    assertEquals(0.0f, model.getSystemLoad().get(HOST_2).getLoadFactor(), 0.0001f);
+    assertEquals(0, model.getJobCount());
+  }
+
+  @Test
+  public void testResetReportsDrift() {
+    model.update(1L, HOST_1, 1.0f);
+
+    Map<Long, HostLoadModel.JobLoad> jobLoads = new HashMap<>();
+    jobLoads.put(1L, HostLoadModel.jobLoad(HOST_1, 1.0f));
+    assertEquals(0, model.reset(Arrays.asList(HOST_1, HOST_2), jobLoads, 2000L));
+
+    jobLoads.put(2L, HostLoadModel.jobLoad(HOST_2, 3.0f));
+    assertEquals(1, model.reset(Arrays.asList(HOST_1, HOST_2), jobLoads, 3000L));
+    assertEquals(3.0f, model.getSystemLoad().get(HOST_2).getLoadFactor(), 0.0001f);
+    assertEquals(2, model.getJobCount());
+  }
+
+  @Test
+  public void testValidity() {
+    assertTrue(model.isValid(1500L, 1000L));
+    assertFalse(model.isValid(2000L, 1000L));
+    model.invalidate();
+    assertFalse(model.isValid(1500L, 1000L));
+  }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class JobTerminationNotifierTest {
+
+  private JobTerminationNotifier notifier;
+
+  @Before
+  public void setUp() {
+    notifier = new JobTerminationNotifier();
+  }
+
+  @Test
+  public void testTimeoutWithoutTermination() throws Exception {
+    try (JobTerminationNotifier.Subscription subscription = notifier.subscribe(Arrays.asList(1L, 2L))) {
+      notifier.jobTerminated(3L);
+      assertFalse(subscription.await(10L));
+    }
+    assertEquals(0, notifier.size());
+  }
+
+  @Test
+  public void testTerminationBeforeAwait() throws Exception {
+    try (JobTerminationNotifier.Subscription subscription = notifier.subscribe(Arrays.asList(1L, 2L))) {
+      notifier.jobTerminated(2L);
+      assertTrue(subscription.await(0L));
+    }
+  }
+
+  @Test
+  public void testWakesWaitingThread() throws Exception {
+    final CountDownLatch subscribed = new CountDownLatch(1);
+    final AtomicBoolean terminated = new AtomicBoolean(false);
+    Thread waiter = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try (JobTerminationNotifier.Subscription subscription = notifier.subscribe(Collections.singletonList(1L))) {
+          subscribed.countDown();
+          terminated.set(subscription.await(TimeUnit.SECONDS.toMillis(30)));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    waiter.start();
+    subscribed.await();
+    notifier.jobTerminated(1L);
+    waiter.join(TimeUnit.SECONDS.toMillis(30));
+    assertTrue(terminated.get());
+    assertEquals(0, notifier.size());
+  }
+
+}
@@ -50,6 +50,7 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.impl.jpa.ServiceRegistrationJpaImpl;
+import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.UrlSupport;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Monadics;
@@ -66,6 +67,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -261,6 +263,50 @@ public class JobTest {
     assertTrue(jobChildren.exists(matchesId(job5)));
   }
 
+  @Test
+  public void testCreateAndUpdateJobs() throws Exception {
+    Job parentJob = serviceRegistry.createJob(LOCALHOST, JOB_TYPE_1, OPERATION_NAME, null, null, false, null);
+
+    List<Job> templates = new ArrayList<Job>();
+    for (int i = 0; i < 3; i++) {
+      Job template = new JobImpl();
+      template.setJobType(JOB_TYPE_2);
+      template.setOperation(OPERATION_NAME);
+      template.setArguments(Arrays.asList("track-" + i));
+      template.setDispatchable(false);
+      template.setParentJobId(parentJob.getId());
+      template.setJobLoad(2.0f);
+      templates.add(template);
+    }
+
+    List<Job> jobs = serviceRegistry.createJobs(templates);
+    assertEquals(3, jobs.size());
+    for (int i = 0; i < 3; i++) {
+      Job jobFromDb = serviceRegistry.getJob(jobs.get(i).getId());
+      assertEquals(Status.INSTANTIATED, jobFromDb.getStatus());
+      assertEquals(JOB_TYPE_2, jobFromDb.getJobType());
+      assertEquals("track-" + i, jobFromDb.getArguments().get(0));
+      assertEquals(parentJob.getId(), jobFromDb.getParentJobId().longValue());
+      assertEquals(new Float(2.0f), jobFromDb.getJobLoad());
+    }
+    assertEquals(3, serviceRegistry.getChildJobs(parentJob.getId()).size());
+
+    for (Job job : jobs) {
+      job.setStatus(Status.RUNNING);
+    }
+    serviceRegistry.updateJobs(jobs);
+    assertEquals(3, serviceRegistry.count(JOB_TYPE_2, Status.RUNNING));
+
+    Job missing = new JobImpl(-1L);
+    missing.setStatus(Status.FINISHED);
+    try {
+      serviceRegistry.updateJobs(Arrays.asList(jobs.get(0), missing));
+      Assert.fail("Updating a missing job must fail");
+    } catch (NotFoundException e) {
+      // expected
+    }
+  }
+
   private static Fn<Job, Boolean> matchesId(final Job j) {
     return new Fn<Job, Boolean>() {
       @Override
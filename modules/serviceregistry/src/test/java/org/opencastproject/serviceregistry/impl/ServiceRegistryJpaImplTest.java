@@ -26,6 +26,7 @@ import static org.junit.Assert.assertEquals;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobBarrier;
+import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -72,6 +73,7 @@ import java.util.Hashtable;
 import java.util.concurrent.Executors;
 
 import javax.management.ObjectInstance;
+import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
 public class ServiceRegistryJpaImplTest {
@@ -130,7 +132,7 @@ public class ServiceRegistryJpaImplTest {
   }
 
   public void setUpEntityManagerFactory() {
-    emf = PersistenceUtil.newTestEntityManagerFactory("org.opencastproject.common");
+    emf = PersistenceUtil.newTestEntityManagerFactory(ServiceRegistryJpaImpl.PERSISTENCE_UNIT);
   }
 
   public void setUpServiceRegistryJpaImpl()
@@ -357,4 +359,30 @@ public class ServiceRegistryJpaImplTest {
     }
   }
 
+  @Test
+  public void testJobTerminatedByOtherNode() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    registerTestHostAndService();
+    Job testJob = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+    try (JobTerminationNotifier.Subscription subscription = serviceRegistryJpaImpl.jobTerminationNotifier
+            .subscribe(Collections.singletonList(testJob.getId()))) {
+      serviceRegistryJpaImpl.checkJobTerminations();
+      Assert.assertFalse(subscription.await(0L));
+
+      // Another node finishes the job without going through this node's registry
+      EntityManager em = emf.createEntityManager();
+      try {
+        em.getTransaction().begin();
+        em.find(JpaJob.class, testJob.getId()).setStatus(Status.FINISHED);
+        em.getTransaction().commit();
+      } finally {
+        em.close();
+      }
+
+      serviceRegistryJpaImpl.checkJobTerminations();
+      Assert.assertTrue(subscription.await(0L));
+    }
+    Assert.assertTrue(serviceRegistryJpaImpl.waitForJobTermination(Collections.singletonList(testJob.getId()), 0L));
+  }
+
 }
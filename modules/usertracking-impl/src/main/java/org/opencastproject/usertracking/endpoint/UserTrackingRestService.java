@@ -21,8 +21,10 @@
 
 package org.opencastproject.usertracking.endpoint;
 
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
 import static javax.servlet.http.HttpServletResponse.SC_CREATED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.SecurityService;
@@ -30,6 +32,7 @@ import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.usertracking.api.UserSession;
 import org.opencastproject.usertracking.api.UserTrackingException;
 import org.opencastproject.usertracking.api.UserTrackingService;
+import org.opencastproject.usertracking.impl.UserActionBufferFullException;
 import org.opencastproject.usertracking.impl.UserActionImpl;
 import org.opencastproject.usertracking.impl.UserActionListImpl;
 import org.opencastproject.usertracking.impl.UserSessionImpl;
@@ -257,7 +260,9 @@ public class UserTrackingRestService {
           @RestParameter(name = "type", description = "The episode identifier", isRequired = true, type = Type.STRING),
           @RestParameter(name = "in", description = "The beginning of the time range", isRequired = true, type = Type.STRING),
           @RestParameter(name = "out", description = "The end of the time range", isRequired = false, type = Type.STRING),
-          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action") })
+          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action"),
+                  @RestResponse(responseCode = SC_ACCEPTED, description = "The user action has been buffered and will be recorded later on"),
+                  @RestResponse(responseCode = SC_SERVICE_UNAVAILABLE, description = "The user action buffer is full and the user action has been dropped") })
   public Response addFootprint(@FormParam("id") String mediapackageId, @FormParam("in") String inString,
           @FormParam("out") String outString, @FormParam("type") String type, @FormParam("playing") String isPlaying,
           @Context HttpServletRequest request) {
@@ -322,10 +327,16 @@ public class UserTrackingRestService {
       } else {
         a = (UserActionImpl) usertrackingService.addUserTrackingEvent(a, s);
       }
+    } catch (UserActionBufferFullException e) {
+      throw new WebApplicationException(e, Status.SERVICE_UNAVAILABLE);
     } catch (UserTrackingException e) {
       throw new WebApplicationException(e);
     }
 
+    // Buffered user actions are written later on and cannot be referenced yet
+    if (a.getId() == null)
+      return Response.status(Status.ACCEPTED).entity(a).build();
+
     URI uri;
     try {
       uri = new URI(UrlSupport.concat(new String[] { serverUrl, serviceUrl, "action", a.getId().toString(), ".xml" }));
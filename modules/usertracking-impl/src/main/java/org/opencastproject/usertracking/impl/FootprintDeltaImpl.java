@@ -0,0 +1,86 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The change in the number of views at a position of a media package. Every footprint adds one at its inpoint and
+ * subtracts one at its outpoint, so the views at a position are the sum of the deltas up to that position.
+ */
+@Entity(name = "FootprintDelta")
+@Access(AccessType.FIELD)
+@Table(name = "mh_user_footprint_delta", uniqueConstraints = @UniqueConstraint(columnNames = { "mediapackage", "footprint_position" }))
+@NamedQueries({
+        @NamedQuery(name = "findFootprintDeltas", query = "SELECT f.position, f.delta FROM FootprintDelta f WHERE f.mediapackageId = :mediapackageId ORDER BY f.position"),
+        @NamedQuery(name = "updateFootprintDelta", query = "UPDATE FootprintDelta f SET f.delta = f.delta + :delta WHERE f.mediapackageId = :mediapackageId AND f.position = :position"),
+        @NamedQuery(name = "deleteFootprintDeltas", query = "DELETE FROM FootprintDelta f WHERE f.mediapackageId = :mediapackageId") })
+public class FootprintDeltaImpl {
+
+  @Id
+  @Column(name = "id")
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+
+  @Column(name = "mediapackage", length = 128, nullable = false)
+  private String mediapackageId;
+
+  @Column(name = "footprint_position", nullable = false)
+  private int position;
+
+  @Column(name = "delta")
+  private long delta;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public FootprintDeltaImpl() {
+  }
+
+  public FootprintDeltaImpl(String mediapackageId, int position, long delta) {
+    this.mediapackageId = mediapackageId;
+    this.position = position;
+    this.delta = delta;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  public long getDelta() {
+    return delta;
+  }
+
+}
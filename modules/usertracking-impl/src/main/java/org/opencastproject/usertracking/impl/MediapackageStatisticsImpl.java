@@ -0,0 +1,90 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Views and played time of a media package, maintained incrementally while user actions are recorded.
+ */
+@Entity(name = "MediapackageStatistics")
+@Access(AccessType.FIELD)
+@Table(name = "mh_user_action_mediapackage")
+@NamedQueries({
+        @NamedQuery(name = "findMediapackageStatistics", query = "SELECT s FROM MediapackageStatistics s WHERE s.mediapackageId = :mediapackageId"),
+        @NamedQuery(name = "findMediapackageStatisticsReport", query = "SELECT s.mediapackageId, s.views, s.played FROM MediapackageStatistics s ORDER BY s.mediapackageId"),
+        @NamedQuery(name = "updateMediapackageStatistics", query = "UPDATE MediapackageStatistics s SET s.views = s.views + :views, s.played = s.played + :played, s.maxOutpoint = CASE WHEN s.maxOutpoint < :maxOutpoint THEN :maxOutpoint ELSE s.maxOutpoint END WHERE s.mediapackageId = :mediapackageId"),
+        @NamedQuery(name = "deleteMediapackageStatistics", query = "DELETE FROM MediapackageStatistics s WHERE s.mediapackageId = :mediapackageId") })
+public class MediapackageStatisticsImpl {
+
+  @Id
+  @Column(name = "mediapackage", length = 128)
+  private String mediapackageId;
+
+  /** The number of sessions with user actions on the media package */
+  @Column(name = "views")
+  private long views;
+
+  /** The sum of the lengths of the user actions */
+  @Column(name = "played")
+  private long played;
+
+  /** The largest outpoint of the footprints */
+  @Column(name = "max_outpoint")
+  private int maxOutpoint;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public MediapackageStatisticsImpl() {
+  }
+
+  public MediapackageStatisticsImpl(String mediapackageId, long views, long played, int maxOutpoint) {
+    this.mediapackageId = mediapackageId;
+    this.views = views;
+    this.played = played;
+    this.maxOutpoint = maxOutpoint;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public long getViews() {
+    return views;
+  }
+
+  public long getPlayed() {
+    return played;
+  }
+
+  public int getMaxOutpoint() {
+    return maxOutpoint;
+  }
+
+}
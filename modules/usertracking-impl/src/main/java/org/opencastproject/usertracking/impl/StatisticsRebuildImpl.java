@@ -0,0 +1,74 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import java.util.Date;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Records that the view statistics have been rebuilt from the user actions. The row is written once a rebuild has
+ * finished, so an interrupted rebuild is started again on the next activation.
+ */
+@Entity(name = "StatisticsRebuild")
+@Access(AccessType.FIELD)
+@Table(name = "mh_user_action_statistics_rebuild")
+@NamedQueries({
+        @NamedQuery(name = "deleteStatisticsRebuilds", query = "DELETE FROM StatisticsRebuild r") })
+public class StatisticsRebuildImpl {
+
+  /** The identifier of the only row */
+  public static final long ID = 1L;
+
+  @Id
+  @Column(name = "id")
+  private long id;
+
+  /** The time the rebuild has finished */
+  @Column(name = "completed")
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date completed;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public StatisticsRebuildImpl() {
+  }
+
+  public StatisticsRebuildImpl(Date completed) {
+    this.id = ID;
+    this.completed = completed;
+  }
+
+  public Date getCompleted() {
+    return completed;
+  }
+
+}
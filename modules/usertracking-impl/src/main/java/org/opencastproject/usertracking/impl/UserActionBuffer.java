@@ -0,0 +1,321 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.UserAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded write-behind buffer for user actions.
+ * <p>
+ * User actions are queued in memory and written to the database in batches, either periodically or as soon as a full
+ * batch is waiting. A footprint continuing the last buffered footprint of the same session is merged into that
+ * footprint instead of being queued. If the buffer is full, callers wait for the given time and the user action is
+ * dropped if the buffer did not drain in the meantime. A batch which cannot be written is put back into the buffer, as
+ * far as there is space, and retried with the next flush.
+ */
+public class UserActionBuffer {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserActionBuffer.class);
+
+  /** The number of attempts to write a batch before its user actions are dropped */
+  private static final int MAX_WRITE_ATTEMPTS = 3;
+
+  /** The service writing the batches */
+  private final UserTrackingServiceImpl service;
+
+  /** The buffer statistics */
+  private final UserActionBufferStatistics statistics;
+
+  /** The maximum number of buffered user actions */
+  private final int capacity;
+
+  /** The maximum number of user actions written in one transaction */
+  private final int batchSize;
+
+  /** The time in nanoseconds to wait for space in a full buffer */
+  private final long offerTimeout;
+
+  /** The buffered user actions in arrival order */
+  private final ArrayDeque<UserAction> queue = new ArrayDeque<>();
+
+  /** The last buffered footprint per session */
+  private final Map<String, UserAction> lastFootprints = new HashMap<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+
+  /** Serializes the flushes so that the user actions are written in arrival order */
+  private final Object flushLock = new Object();
+
+  /** The number of consecutive failed attempts to write the oldest buffered user actions, guarded by the flush lock */
+  private int failedAttempts = 0;
+
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Creates a buffer and starts flushing it periodically.
+   *
+   * @param service
+   *          the service writing the batches
+   * @param statistics
+   *          the statistics to update
+   * @param capacity
+   *          the maximum number of buffered user actions
+   * @param batchSize
+   *          the maximum number of user actions written in one transaction
+   * @param flushInterval
+   *          the flush interval in milliseconds
+   * @param offerTimeout
+   *          the time in milliseconds to wait for space in a full buffer
+   */
+  public UserActionBuffer(UserTrackingServiceImpl service, UserActionBufferStatistics statistics, int capacity,
+          int batchSize, long flushInterval, long offerTimeout) {
+    this.service = service;
+    this.statistics = statistics;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.offerTimeout = TimeUnit.MILLISECONDS.toNanos(offerTimeout);
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        flush();
+      }
+    }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffers a user action. The session of the user action has to be set.
+   *
+   * @param action
+   *          the user action
+   * @return the buffered user action, which is a previously buffered footprint if the action has been merged into it,
+   *         or <code>null</code> if the action has been dropped because the buffer is full
+   */
+  public UserAction add(UserAction action) {
+    final boolean footprint = UserTrackingServiceImpl.FOOTPRINT_KEY.equals(action.getType());
+    final String sessionId = action.getSession().getSessionId();
+    boolean fullBatch = false;
+    lock.lock();
+    try {
+      if (footprint) {
+        final UserAction last = lastFootprints.get(sessionId);
+        if (last != null && last.getMediapackageId().equals(action.getMediapackageId())
+                && last.getOutpoint() == action.getInpoint()) {
+          last.setOutpoint(action.getOutpoint());
+          last.setIsPlaying(action.getIsPlaying());
+          statistics.coalesced();
+          return last;
+        }
+      }
+      if (queue.size() >= capacity) {
+        statistics.blocked();
+        long nanos = offerTimeout;
+        while (queue.size() >= capacity) {
+          if (nanos <= 0) {
+            statistics.dropped();
+            logger.debug("Dropping {} of session {}, the user action buffer is full", action.getType(), sessionId);
+            return null;
+          }
+          nanos = notFull.awaitNanos(nanos);
+        }
+      }
+      queue.add(action);
+      if (footprint)
+        lastFootprints.put(sessionId, action);
+      statistics.queued();
+      fullBatch = queue.size() == batchSize;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      statistics.dropped();
+      return null;
+    } finally {
+      lock.unlock();
+    }
+    if (fullBatch)
+      requestFlush();
+    return action;
+  }
+
+  /**
+   * Writes all buffered user actions to the database. If a batch cannot be written, it is put back into the buffer and
+   * the flush stops. The user actions of a batch are dropped after {@link #MAX_WRITE_ATTEMPTS} failed attempts.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<UserAction> batch;
+      do {
+        batch = drain();
+        if (batch.isEmpty())
+          return;
+        try {
+          service.writeBatch(batch);
+          statistics.flushed(batch.size());
+          failedAttempts = 0;
+        } catch (Exception e) {
+          if (++failedAttempts < MAX_WRITE_ATTEMPTS) {
+            logger.warn("Unable to write {} buffered user actions, retrying with the next flush: {}", batch.size(),
+                    e.getMessage());
+            requeue(batch);
+          } else {
+            logger.warn("Unable to write {} buffered user actions after {} attempts: {}", batch.size(),
+                    failedAttempts, e.getMessage());
+            failedAttempts = 0;
+            drop(batch);
+          }
+          return;
+        }
+      } while (batch.size() == batchSize);
+    }
+  }
+
+  /**
+   * Stops the periodic flushing and writes the remaining user actions to the database. User actions which cannot be
+   * written are dropped.
+   */
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    synchronized (flushLock) {
+      List<UserAction> remaining;
+      while (!(remaining = drain()).isEmpty()) {
+        drop(remaining);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of buffered user actions.
+   *
+   * @return the number of user actions waiting to be written
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the maximum number of buffered user actions.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private void requestFlush() {
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      });
+    } catch (RuntimeException e) {
+      logger.debug("Not flushing the user action buffer early: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Puts a batch which could not be written back to the head of the buffer. The user actions of the batch which don't
+   * fit into the buffer anymore are dropped.
+   */
+  private void requeue(List<UserAction> batch) {
+    final List<UserAction> overflow;
+    lock.lock();
+    try {
+      final int requeued = Math.min(batch.size(), Math.max(0, capacity - queue.size()));
+      for (int i = requeued - 1; i >= 0; i--) {
+        final UserAction action = batch.get(i);
+        // An identifier may have been assigned by the failed transaction
+        action.setId(null);
+        queue.addFirst(action);
+      }
+      overflow = batch.subList(requeued, batch.size());
+    } finally {
+      lock.unlock();
+    }
+    if (!overflow.isEmpty())
+      drop(overflow);
+  }
+
+  /**
+   * Drops user actions which could not be written and logs them.
+   */
+  private void drop(List<UserAction> actions) {
+    statistics.failed(actions.size());
+    final StringBuilder dropped = new StringBuilder();
+    for (UserAction action : actions) {
+      if (dropped.length() > 0)
+        dropped.append(", ");
+      dropped.append(action.getType()).append(" of session ").append(action.getSession().getSessionId())
+              .append(" on ").append(action.getMediapackageId());
+    }
+    logger.warn("Dropped {} user actions which could not be written: {}", actions.size(), dropped);
+  }
+
+  /**
+   * Removes the next batch from the buffer. Footprints of the batch can no longer be extended in memory, following
+   * footprints are merged with them when the next batch is written.
+   */
+  private List<UserAction> drain() {
+    lock.lock();
+    try {
+      final List<UserAction> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+      while (batch.size() < batchSize && !queue.isEmpty()) {
+        final UserAction action = queue.poll();
+        final String sessionId = action.getSession().getSessionId();
+        if (lastFootprints.get(sessionId) == action)
+          lastFootprints.remove(sessionId);
+        batch.add(action);
+      }
+      if (!batch.isEmpty())
+        notFull.signalAll();
+      return batch;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.UserTrackingException;
+
+/**
+ * Indicates that a user action has been dropped because the write-behind buffer is full.
+ */
+public class UserActionBufferFullException extends UserTrackingException {
+
+  /** The UID for serialization */
+  private static final long serialVersionUID = -2613471250953480519L;
+
+  /**
+   * Constructs a UserActionBufferFullException.
+   */
+  public UserActionBufferFullException() {
+    super("The user action buffer is full");
+  }
+}
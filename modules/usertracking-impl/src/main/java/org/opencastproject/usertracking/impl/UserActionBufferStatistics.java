@@ -0,0 +1,164 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics of the {@link UserActionBuffer}.
+ */
+public class UserActionBufferStatistics implements UserActionBufferStatisticsMXBean {
+
+  private final AtomicLong queuedCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong blockedCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong writtenCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private volatile UserActionBuffer buffer;
+
+  void setBuffer(UserActionBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  void queued() {
+    queuedCount.incrementAndGet();
+  }
+
+  void coalesced() {
+    coalescedCount.incrementAndGet();
+  }
+
+  void blocked() {
+    blockedCount.incrementAndGet();
+  }
+
+  void dropped() {
+    droppedCount.incrementAndGet();
+  }
+
+  void flushed(int written) {
+    flushCount.incrementAndGet();
+    writtenCount.addAndGet(written);
+  }
+
+  void failed(int failed) {
+    failedCount.addAndGet(failed);
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#isEnabled()
+   */
+  @Override
+  public boolean isEnabled() {
+    return buffer != null;
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getCapacity()
+   */
+  @Override
+  public int getCapacity() {
+    final UserActionBuffer current = buffer;
+    return current == null ? 0 : current.getCapacity();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getBufferedCount()
+   */
+  @Override
+  public int getBufferedCount() {
+    final UserActionBuffer current = buffer;
+    return current == null ? 0 : current.size();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getQueuedCount()
+   */
+  @Override
+  public long getQueuedCount() {
+    return queuedCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getCoalescedCount()
+   */
+  @Override
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getBlockedCount()
+   */
+  @Override
+  public long getBlockedCount() {
+    return blockedCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getDroppedCount()
+   */
+  @Override
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getFlushCount()
+   */
+  @Override
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getWrittenCount()
+   */
+  @Override
+  public long getWrittenCount() {
+    return writtenCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#getFailedCount()
+   */
+  @Override
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.usertracking.impl.UserActionBufferStatisticsMXBean#reset()
+   */
+  @Override
+  public void reset() {
+    queuedCount.set(0);
+    coalescedCount.set(0);
+    blockedCount.set(0);
+    droppedCount.set(0);
+    flushCount.set(0);
+    writtenCount.set(0);
+    failedCount.set(0);
+  }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+/**
+ * JMX Bean interface exposing statistics of the user action write-behind buffer
+ */
+public interface UserActionBufferStatisticsMXBean {
+
+  /**
+   * Gets whether user actions are buffered or written synchronously
+   *
+   * @return whether the buffer is enabled
+   */
+  boolean isEnabled();
+
+  /**
+   * Gets the maximum number of user actions waiting to be written
+   *
+   * @return the buffer capacity
+   */
+  int getCapacity();
+
+  /**
+   * Gets the number of user actions currently waiting to be written
+   *
+   * @return the number of buffered user actions
+   */
+  int getBufferedCount();
+
+  /**
+   * Gets the number of user actions accepted by the buffer
+   *
+   * @return the number of queued user actions
+   */
+  long getQueuedCount();
+
+  /**
+   * Gets the number of footprints merged into a buffered footprint of the same session
+   *
+   * @return the number of coalesced footprints
+   */
+  long getCoalescedCount();
+
+  /**
+   * Gets the number of user actions which had to wait for the buffer to drain
+   *
+   * @return the number of blocked user actions
+   */
+  long getBlockedCount();
+
+  /**
+   * Gets the number of user actions dropped because the buffer was full
+   *
+   * @return the number of dropped user actions
+   */
+  long getDroppedCount();
+
+  /**
+   * Gets the number of batches written to the database
+   *
+   * @return the number of flushed batches
+   */
+  long getFlushCount();
+
+  /**
+   * Gets the number of user actions written to the database
+   *
+   * @return the number of written user actions
+   */
+  long getWrittenCount();
+
+  /**
+   * Gets the number of user actions lost because their batch could not be written
+   *
+   * @return the number of failed user actions
+   */
+  long getFailedCount();
+
+  /**
+   * Resets the counters
+   */
+  void reset();
+
+}
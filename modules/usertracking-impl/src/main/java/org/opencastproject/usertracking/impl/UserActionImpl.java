@@ -61,6 +61,9 @@ import javax.xml.bind.annotation.XmlType;
         @NamedQuery(name = "countSessionsOfMediapackage", query = "SELECT COUNT(distinct a.session) FROM UserAction a WHERE a.mediapackageId = :mediapackageId"),
         @NamedQuery(name = "findLastUserFootprintOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session AND a.type = \'FOOTPRINT\'  ORDER BY a.created DESC"),
         @NamedQuery(name = "findLastUserActionsOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session ORDER BY a.created DESC"),
+        @NamedQuery(name = "findUserActionsOfMediapackageForStatistics", query = "SELECT a.session.sessionId, a.type, a.inpoint, a.outpoint, a.length FROM UserAction a WHERE a.mediapackageId = :mediapackageId ORDER BY a.created"),
+        @NamedQuery(name = "findDistinctMediapackageIds", query = "SELECT DISTINCT a.mediapackageId FROM UserAction a ORDER BY a.mediapackageId"),
+        @NamedQuery(name = "findLastMediapackageId", query = "SELECT MAX(a.mediapackageId) FROM UserAction a"),
         @NamedQuery(name = "findUserActionsByType", query = "SELECT a FROM UserAction a WHERE a.type = :type"),
         @NamedQuery(name = "findUserActionsByTypeAndMediapackageId", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type"),
         @NamedQuery(name = "findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type ORDER BY a.outpoint DESC"),
@@ -35,6 +35,7 @@ import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
 import org.opencastproject.usertracking.endpoint.ReportImpl;
 import org.opencastproject.usertracking.endpoint.ReportItemImpl;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.jmx.JmxUtil;
 
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ConfigurationException;
@@ -46,13 +47,23 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.management.ObjectInstance;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
@@ -74,6 +85,25 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
 
+  /** Configuration key for whether user actions are written asynchronously in batches */
+  public static final String BUFFER_ENABLED = "org.opencastproject.usertracking.buffer.enabled";
+  /** Configuration key for the maximum number of buffered user actions */
+  public static final String BUFFER_CAPACITY = "org.opencastproject.usertracking.buffer.capacity";
+  /** Configuration key for the maximum number of user actions written in one transaction */
+  public static final String BUFFER_BATCH_SIZE = "org.opencastproject.usertracking.buffer.batch.size";
+  /** Configuration key for the flush interval in milliseconds */
+  public static final String BUFFER_FLUSH_INTERVAL = "org.opencastproject.usertracking.buffer.flush.interval";
+  /** Configuration key for the time in milliseconds to wait for space in a full buffer */
+  public static final String BUFFER_OFFER_TIMEOUT = "org.opencastproject.usertracking.buffer.offer.timeout";
+
+  public static final int DEFAULT_BUFFER_CAPACITY = 10000;
+  public static final int DEFAULT_BUFFER_BATCH_SIZE = 500;
+  public static final long DEFAULT_BUFFER_FLUSH_INTERVAL = 5000L;
+  public static final long DEFAULT_BUFFER_OFFER_TIMEOUT = 100L;
+
+  /** The JMX business object type */
+  private static final String JMX_BUFFER_STATISTICS_TYPE = "UserActionBufferStatistics";
+
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
   private boolean detailedTracking = false;
@@ -84,7 +114,23 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   /** The factory used to generate the entity manager */
   protected EntityManagerFactory emf = null;
 
-  /** OSGi DI */
+  /** Rebuilds the view statistics in the background */
+  private ExecutorService statisticsExecutor = null;
+
+  /** Whether the view statistics cover all recorded user actions */
+  private volatile boolean statisticsReady = false;
+
+  /** The write-behind buffer or <code>null</code> if user actions are written synchronously */
+  private volatile UserActionBuffer buffer = null;
+
+  /** Guards replacing the buffer against user actions being added to the buffer that is replaced */
+  private final ReentrantReadWriteLock bufferLock = new ReentrantReadWriteLock();
+
+  /** The write-behind buffer statistics */
+  private final UserActionBufferStatistics bufferStatistics = new UserActionBufferStatistics();
+
+  /** The registered JMX bean */
+  private ObjectInstance registeredMXBean;
 
   /** OSGi DI */
   void setEntityManagerFactory(EntityManagerFactory emf) {
@@ -96,6 +142,19 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
    */
   public void activate() {
     logger.debug("activate()");
+    checkStatistics();
+    registeredMXBean = JmxUtil.registerMXBean(bufferStatistics, JMX_BUFFER_STATISTICS_TYPE);
+  }
+
+  /**
+   * Deactivation callback, writes the buffered user actions
+   */
+  public void deactivate() {
+    if (statisticsExecutor != null)
+      statisticsExecutor.shutdownNow();
+    setBuffer(null);
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
   }
 
   @Override
@@ -122,12 +181,81 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
       logSession = Boolean.valueOf((String) val);
     }
 
+    val = props.get(BUFFER_ENABLED);
+    if (val != null && String.class.isInstance(val) && Boolean.valueOf((String) val)) {
+      int capacity = getPositiveInt(props, BUFFER_CAPACITY, DEFAULT_BUFFER_CAPACITY);
+      int batchSize = getPositiveInt(props, BUFFER_BATCH_SIZE, DEFAULT_BUFFER_BATCH_SIZE);
+      long flushInterval = getPositiveInt(props, BUFFER_FLUSH_INTERVAL, (int) DEFAULT_BUFFER_FLUSH_INTERVAL);
+      long offerTimeout = getPositiveInt(props, BUFFER_OFFER_TIMEOUT, (int) DEFAULT_BUFFER_OFFER_TIMEOUT);
+      logger.info("Buffering up to {} user actions, writing batches of {} every {}ms", capacity, batchSize,
+              flushInterval);
+      setBuffer(new UserActionBuffer(this, bufferStatistics, capacity, batchSize, flushInterval, offerTimeout));
+    } else {
+      setBuffer(null);
+    }
+  }
+
+  private static int getPositiveInt(Dictionary props, String key, int defaultValue) {
+    Object val = props.get(key);
+    if (val == null || !String.class.isInstance(val) || StringUtils.isBlank((String) val))
+      return defaultValue;
+    try {
+      int value = Integer.parseInt(StringUtils.trim((String) val));
+      if (value > 0)
+        return value;
+    } catch (NumberFormatException e) {
+      // Fall through to the warning below
+    }
+    logger.warn("Invalid value '{}' for {}, using the default of {}", val, key, defaultValue);
+    return defaultValue;
+  }
+
+  /**
+   * Replaces the write-behind buffer, writing the user actions of the previous buffer.
+   *
+   * @param newBuffer
+   *          the new buffer or <code>null</code> to write user actions synchronously
+   */
+  private synchronized void setBuffer(UserActionBuffer newBuffer) {
+    final UserActionBuffer previous;
+    bufferLock.writeLock().lock();
+    try {
+      previous = buffer;
+      buffer = newBuffer;
+      bufferStatistics.setBuffer(newBuffer);
+    } finally {
+      bufferLock.writeLock().unlock();
+    }
+    if (previous != null)
+      previous.shutdown();
+  }
+
+  /**
+   * Returns the write-behind buffer statistics.
+   *
+   * @return the statistics
+   */
+  UserActionBufferStatistics getBufferStatistics() {
+    return bufferStatistics;
+  }
+
+  /**
+   * Writes the buffered user actions to the database. Does nothing if user actions are written synchronously.
+   */
+  public void flush() {
+    UserActionBuffer current = buffer;
+    if (current != null)
+      current.flush();
   }
 
   public int getViews(String mediapackageId) {
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
+      if (statisticsReady) {
+        MediapackageStatisticsImpl statistics = em.find(MediapackageStatisticsImpl.class, mediapackageId);
+        return statistics == null ? 0 : (int) statistics.getViews();
+      }
       Query q = em.createNamedQuery("countSessionsOfMediapackage");
       q.setParameter("mediapackageId", mediapackageId);
       return ((Long) q.getSingleResult()).intValue();
@@ -138,7 +266,6 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
-  @SuppressWarnings("unchecked")
   public UserAction addUserFootprint(UserAction a, UserSession session) throws UserTrackingException {
     a.setType(FOOTPRINT_KEY);
     EntityManager em = null;
@@ -146,33 +273,31 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+    if (buffer != null) {
+      final UserAction buffered = addToBuffer(a, session);
+      if (buffered != null)
+        return buffered;
+    }
+    ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
       UserSession userSession = populateSession(em, session);
 
-      Query q = em.createNamedQuery("findLastUserFootprintOfSession");
-      q.setMaxResults(1);
-      q.setParameter("session", userSession);
-      Collection<UserAction> userActions = q.getResultList();
-
-      if (userActions.size() >= 1) {
-        UserAction last = userActions.iterator().next();
-        if (last.getMediapackageId().equals(a.getMediapackageId()) && last.getType().equals(a.getType())
-                && last.getOutpoint() == a.getInpoint()) {
-          //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
-          last.setOutpoint(a.getOutpoint());
-          a = last;
-          a.setId(last.getId());
-        } else {
-          a.setSession(userSession);
-          em.persist(a);
-        }
+      UserAction last = findLastFootprint(em, userSession);
+      if (continues(last, a)) {
+        //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
+        statistics.extended(last, a.getOutpoint());
+        last.setOutpoint(a.getOutpoint());
+        a = last;
+        a.setId(last.getId());
       } else {
         a.setSession(userSession);
+        statistics.added(a);
         em.persist(a);
       }
+      statistics.apply(em);
       tx.commit();
       return a;
     } catch (Exception e) {
@@ -193,13 +318,21 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+    if (buffer != null) {
+      final UserAction buffered = addToBuffer(a, session);
+      if (buffered != null)
+        return buffered;
+    }
+    ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
       UserSession userSession = populateSession(em, session);
       a.setSession(userSession);
+      statistics.added(a);
       em.persist(a);
+      statistics.apply(em);
       tx.commit();
       return a;
     } catch (Exception e) {
@@ -214,6 +347,245 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  /**
+   * Hands a user action over to the write-behind buffer. Buffered user actions do not have an identifier yet.
+   *
+   * @return the buffered user action or <code>null</code> if the buffer has been disabled in the meantime
+   * @throws UserActionBufferFullException
+   *           if the buffer is full and the user action has been dropped
+   */
+  private UserAction addToBuffer(UserAction a, UserSession session) throws UserActionBufferFullException {
+    // The buffer is not replaced and shut down while a user action is being added to it
+    bufferLock.readLock().lock();
+    try {
+      final UserActionBuffer current = buffer;
+      if (current == null)
+        return null;
+      a.setSession(session);
+      final UserAction buffered = current.add(a);
+      if (buffered == null)
+        throw new UserActionBufferFullException();
+      return buffered;
+    } finally {
+      bufferLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes a batch of buffered user actions in a single transaction. Footprints continuing the last footprint of their
+   * session are merged into that footprint, just like {@link #addUserFootprint(UserAction, UserSession)} does.
+   *
+   * @param actions
+   *          the user actions in arrival order
+   * @throws UserTrackingException
+   *           if the batch could not be written
+   */
+  void writeBatch(List<UserAction> actions) throws UserTrackingException {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
+    try {
+      em = emf.createEntityManager();
+      // Lookups within the batch are answered from the maps below, don't interrupt the batched inserts
+      em.setFlushMode(FlushModeType.COMMIT);
+      tx = em.getTransaction();
+      tx.begin();
+      Map<String, UserSession> sessions = new HashMap<>();
+      Map<String, UserAction> lastFootprints = new HashMap<>();
+      for (UserAction a : actions) {
+        String sessionId = a.getSession().getSessionId();
+        UserSession userSession = sessions.get(sessionId);
+        if (userSession == null) {
+          userSession = populateSession(em, a.getSession());
+          sessions.put(sessionId, userSession);
+        }
+        if (FOOTPRINT_KEY.equals(a.getType())) {
+          UserAction last = lastFootprints.containsKey(sessionId) ? lastFootprints.get(sessionId)
+                  : findLastFootprint(em, userSession);
+          if (continues(last, a)) {
+            statistics.extended(last, a.getOutpoint());
+            last.setOutpoint(a.getOutpoint());
+            lastFootprints.put(sessionId, last);
+            continue;
+          }
+          lastFootprints.put(sessionId, a);
+        }
+        a.setSession(userSession);
+        statistics.added(a);
+        em.persist(a);
+      }
+      statistics.apply(em);
+      tx.commit();
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Checks whether the view statistics have been rebuilt and rebuilds them in the background if they haven't, e.g. after
+   * upgrading from a version without view statistics or after an interrupted rebuild. The statistics are not used until
+   * they have been rebuilt.
+   */
+  private void checkStatistics() {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      if (em.find(StatisticsRebuildImpl.class, StatisticsRebuildImpl.ID) != null) {
+        statisticsReady = true;
+        return;
+      }
+      // Without any user actions, there is nothing to rebuild
+      if (em.createNamedQuery("findLastMediapackageId").getSingleResult() == null) {
+        completeRebuild();
+        return;
+      }
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+    logger.info("View statistics have not been rebuilt yet, rebuilding them");
+    statisticsExecutor = Executors.newSingleThreadExecutor();
+    statisticsExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          rebuildStatistics();
+        } catch (Exception e) {
+          logger.error("Unable to rebuild the view statistics, using the user actions instead", e);
+        }
+      }
+    });
+    statisticsExecutor.shutdown();
+  }
+
+  /**
+   * Rebuilds the view statistics of all media packages from the user actions. Each media package is rebuilt in its own
+   * transaction, so that user actions can be recorded in the meantime.
+   *
+   * @throws UserTrackingException
+   *           if the statistics could not be rebuilt
+   */
+  @SuppressWarnings("unchecked")
+  void rebuildStatistics() throws UserTrackingException {
+    statisticsReady = false;
+    List<String> mediapackageIds;
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      em.createNamedQuery("deleteStatisticsRebuilds").executeUpdate();
+      tx.commit();
+      mediapackageIds = em.createNamedQuery("findDistinctMediapackageIds").getResultList();
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+    int rebuilt = 0;
+    for (String mediapackageId : mediapackageIds) {
+      if (Thread.currentThread().isInterrupted()) {
+        logger.info("Stopped rebuilding the view statistics after {} of {} media packages", rebuilt,
+                mediapackageIds.size());
+        return;
+      }
+      if (mediapackageId == null)
+        continue;
+      rebuildStatistics(mediapackageId);
+      if (++rebuilt % 1000 == 0)
+        logger.info("Rebuilt the view statistics of {} of {} media packages", rebuilt, mediapackageIds.size());
+    }
+    completeRebuild();
+    logger.info("Rebuilt the view statistics of {} media packages", rebuilt);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void rebuildStatistics(String mediapackageId) throws UserTrackingException {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      // Transactions recording user actions of the media package wait for the rebuild, or the rebuild waits for them
+      em.find(MediapackageStatisticsImpl.class, mediapackageId, LockModeType.PESSIMISTIC_WRITE);
+      ViewStatisticsUpdate.delete(em, mediapackageId);
+      em.clear();
+      Query q = em.createNamedQuery("findUserActionsOfMediapackageForStatistics");
+      q.setParameter("mediapackageId", mediapackageId);
+      ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
+      for (Object[] row : (List<Object[]>) q.getResultList()) {
+        statistics.added((String) row[0], mediapackageId, (String) row[1], (Integer) row[2], (Integer) row[3],
+                (Integer) row[4]);
+      }
+      statistics.apply(em);
+      tx.commit();
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Records that the view statistics have been rebuilt and starts using them.
+   */
+  private void completeRebuild() {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      em.merge(new StatisticsRebuildImpl(new Date()));
+      tx.commit();
+    } catch (Exception e) {
+      // Another node may have completed a rebuild at the same time
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      logger.warn("Unable to record the rebuild of the view statistics", e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+    statisticsReady = true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private UserAction findLastFootprint(EntityManager em, UserSession userSession) {
+    Query q = em.createNamedQuery("findLastUserFootprintOfSession");
+    q.setMaxResults(1);
+    q.setParameter("session", userSession);
+    Collection<UserAction> userActions = q.getResultList();
+    return userActions.isEmpty() ? null : userActions.iterator().next();
+  }
+
+  private static boolean continues(UserAction last, UserAction a) {
+    return last != null && last.getMediapackageId().equals(a.getMediapackageId())
+            && last.getType().equals(a.getType()) && last.getOutpoint() == a.getInpoint();
+  }
+
   private UserSession populateSession(EntityManager em, UserSession session) {
     //Try and find the session.  If not found, persist it
     Query q = em.createNamedQuery("findUserSessionBySessionId");
@@ -538,7 +910,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = em.createNamedQuery("countSessionsGroupByMediapackage");
+      Query q = em.createNamedQuery(statisticsReady ? "findMediapackageStatisticsReport"
+              : "countSessionsGroupByMediapackage");
       q.setFirstResult(offset);
       if (limit > 0)
         q.setMaxResults(limit);
@@ -590,11 +963,11 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     try {
       em = emf.createEntityManager();
       Query q = em.createNamedQuery("countSessionsGroupByMediapackageByIntervall");
+      q.setParameter("begin", calBegin, TemporalType.TIMESTAMP);
+      q.setParameter("end", calEnd, TemporalType.TIMESTAMP);
       q.setFirstResult(offset);
       if (limit > 0)
         q.setMaxResults(limit);
-      q.setParameter("begin", calBegin, TemporalType.TIMESTAMP);
-      q.setParameter("end", calEnd, TemporalType.TIMESTAMP);
 
       @SuppressWarnings("unchecked")
       List<Object[]> result = q.getResultList();
@@ -620,6 +993,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (! logUser) userId = null;
     try {
       em = emf.createEntityManager();
+      if (statisticsReady && StringUtils.trimToNull(userId) == null)
+        return getFootprintsFromStatistics(em, mediapackageId);
       Query q = null;
       if (StringUtils.trimToNull(userId) == null) {
         q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC");
@@ -666,6 +1041,42 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  /**
+   * Creates the footprints of a media package from the footprint deltas, resulting in the same footprints as counting
+   * the views per position of every footprint.
+   */
+  @SuppressWarnings("unchecked")
+  private FootprintList getFootprintsFromStatistics(EntityManager em, String mediapackageId) {
+    MediapackageStatisticsImpl statistics = em.find(MediapackageStatisticsImpl.class, mediapackageId);
+    int maxOutpoint = statistics == null ? 0 : statistics.getMaxOutpoint();
+    Query q = em.createNamedQuery("findFootprintDeltas");
+    q.setParameter("mediapackageId", mediapackageId);
+    List<Object[]> deltas = q.getResultList();
+
+    FootprintList list = new FootprintsListImpl();
+    long views = 0;
+    int i = 0;
+    while (i < deltas.size() && (Integer) deltas.get(i)[0] <= 0) {
+      views += (Long) deltas.get(i++)[1];
+    }
+    Footprint start = new FootprintImpl();
+    start.setPosition(0);
+    start.setViews(views);
+    list.add(start);
+    for (; i < deltas.size(); i++) {
+      int position = (Integer) deltas.get(i)[0];
+      long delta = (Long) deltas.get(i)[1];
+      if (position > maxOutpoint || delta == 0)
+        continue;
+      views += delta;
+      Footprint footprint = new FootprintImpl();
+      footprint.setPosition(position);
+      footprint.setViews(views);
+      list.add(footprint);
+    }
+    return list;
+  }
+
   /**
    * {@inheritDoc}
    *
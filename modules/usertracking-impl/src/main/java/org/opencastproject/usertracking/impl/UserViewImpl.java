@@ -0,0 +1,77 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * A session that has been counted as a view of a media package. The unique constraint makes sure that a view is only
+ * counted once, even if several nodes record user actions of the same session concurrently.
+ */
+@Entity(name = "UserView")
+@Access(AccessType.FIELD)
+@Table(name = "mh_user_action_view", uniqueConstraints = @UniqueConstraint(columnNames = { "mediapackage", "session_id" }))
+@NamedQueries({
+        @NamedQuery(name = "findViewSessions", query = "SELECT v.sessionId FROM UserView v WHERE v.mediapackageId = :mediapackageId AND v.sessionId IN :sessionIds"),
+        @NamedQuery(name = "deleteViews", query = "DELETE FROM UserView v WHERE v.mediapackageId = :mediapackageId") })
+public class UserViewImpl {
+
+  @Id
+  @Column(name = "id")
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+
+  @Column(name = "mediapackage", length = 128, nullable = false)
+  private String mediapackageId;
+
+  @Column(name = "session_id", length = 50, nullable = false)
+  private String sessionId;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public UserViewImpl() {
+  }
+
+  public UserViewImpl(String mediapackageId, String sessionId) {
+    this.mediapackageId = mediapackageId;
+    this.sessionId = sessionId;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public String getSessionId() {
+    return sessionId;
+  }
+
+}
@@ -0,0 +1,234 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.UserAction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * Collects the changes of the view statistics caused by the user actions written in one transaction and applies them
+ * in the same transaction, with one relative update per media package and footprint position.
+ * <p>
+ * The statistics row of a media package is updated before its views are checked, so the row lock serializes counting
+ * the views of a media package with concurrent transactions and rebuilds. The media packages are updated in the order
+ * of their identifiers, so that concurrent transactions don't lock the statistics rows in different orders.
+ */
+final class ViewStatisticsUpdate {
+
+  /** The maximum number of sessions checked for a view with one query */
+  private static final int VIEW_QUERY_SIZE = 500;
+
+  /** The changes per media package: played and largest footprint outpoint */
+  private final NavigableMap<String, long[]> mediapackages = new TreeMap<>();
+
+  /** The footprint delta changes per media package and position */
+  private final NavigableMap<String, Map<Integer, Long>> deltas = new TreeMap<>();
+
+  /** The sessions per media package which may add a view */
+  private final Map<String, Set<String>> sessions = new TreeMap<>();
+
+  /**
+   * Records a new user action.
+   *
+   * @param a
+   *          the user action
+   */
+  void added(UserAction a) {
+    added(a.getSession().getSessionId(), a.getMediapackageId(), a.getType(), a.getInpoint(), a.getOutpoint(),
+            a.getLength());
+  }
+
+  /**
+   * Records a new user action.
+   */
+  void added(String sessionId, String mediapackageId, String type, int inpoint, int outpoint, int length) {
+    if (mediapackageId == null)
+      return;
+    final long[] mediapackage = getMediapackage(mediapackageId);
+    if (sessionId != null)
+      getSessions(mediapackageId).add(sessionId);
+    mediapackage[0] += length;
+    if (UserTrackingServiceImpl.FOOTPRINT_KEY.equals(type)) {
+      mediapackage[1] = Math.max(mediapackage[1], outpoint);
+      footprint(mediapackageId, inpoint, outpoint, 1);
+    }
+  }
+
+  /**
+   * Records a footprint being extended to a new outpoint. Has to be called before the outpoint is changed.
+   *
+   * @param last
+   *          the footprint
+   * @param outpoint
+   *          the new outpoint
+   */
+  void extended(UserAction last, int outpoint) {
+    final String mediapackageId = last.getMediapackageId();
+    if (mediapackageId == null)
+      return;
+    final long[] mediapackage = getMediapackage(mediapackageId);
+    mediapackage[0] += outpoint - last.getOutpoint();
+    mediapackage[1] = Math.max(mediapackage[1], outpoint);
+    footprint(mediapackageId, last.getInpoint(), last.getOutpoint(), -1);
+    footprint(mediapackageId, last.getInpoint(), outpoint, 1);
+  }
+
+  /**
+   * Applies the changes to the statistics tables. The sessions which have not been counted as a view of their media
+   * package yet are recorded as views, so applying the changes fails if another transaction records the same view
+   * concurrently.
+   *
+   * @param em
+   *          the entity manager of the transaction writing the user actions
+   */
+  void apply(EntityManager em) {
+    for (Map.Entry<String, long[]> entry : mediapackages.entrySet()) {
+      final String mediapackageId = entry.getKey();
+      final long[] values = entry.getValue();
+      final boolean exists = update(em, mediapackageId, 0, values[0], values[1]);
+      final long views = countViews(em, mediapackageId);
+      if (!exists)
+        em.persist(new MediapackageStatisticsImpl(mediapackageId, views, values[0], (int) values[1]));
+      else if (views > 0)
+        update(em, mediapackageId, views, 0, 0);
+      final Map<Integer, Long> positions = deltas.get(mediapackageId);
+      if (positions == null)
+        continue;
+      for (Map.Entry<Integer, Long> delta : positions.entrySet()) {
+        if (delta.getValue() == 0)
+          continue;
+        final Query q = em.createNamedQuery("updateFootprintDelta");
+        q.setParameter("mediapackageId", mediapackageId);
+        q.setParameter("position", delta.getKey());
+        q.setParameter("delta", delta.getValue());
+        if (q.executeUpdate() == 0)
+          em.persist(new FootprintDeltaImpl(mediapackageId, delta.getKey(), delta.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Adds to the statistics of a media package.
+   *
+   * @return <code>false</code> if the media package has no statistics yet
+   */
+  private static boolean update(EntityManager em, String mediapackageId, long views, long played, long maxOutpoint) {
+    final Query q = em.createNamedQuery("updateMediapackageStatistics");
+    q.setParameter("mediapackageId", mediapackageId);
+    q.setParameter("views", views);
+    q.setParameter("played", played);
+    q.setParameter("maxOutpoint", (int) maxOutpoint);
+    return q.executeUpdate() > 0;
+  }
+
+  /**
+   * Records the sessions of a media package which have not been counted as a view yet as views.
+   *
+   * @return the number of new views
+   */
+  @SuppressWarnings("unchecked")
+  private long countViews(EntityManager em, String mediapackageId) {
+    final Set<String> candidates = sessions.get(mediapackageId);
+    if (candidates == null)
+      return 0;
+    final List<String> sessionIds = new ArrayList<>(candidates);
+    long views = 0;
+    for (int i = 0; i < sessionIds.size(); i += VIEW_QUERY_SIZE) {
+      final List<String> chunk = sessionIds.subList(i, Math.min(i + VIEW_QUERY_SIZE, sessionIds.size()));
+      final Query q = em.createNamedQuery("findViewSessions");
+      q.setParameter("mediapackageId", mediapackageId);
+      q.setParameter("sessionIds", chunk);
+      final Set<String> counted = new HashSet<>((List<String>) q.getResultList());
+      for (String sessionId : chunk) {
+        if (counted.contains(sessionId))
+          continue;
+        em.persist(new UserViewImpl(mediapackageId, sessionId));
+        views++;
+      }
+    }
+    return views;
+  }
+
+  /**
+   * Removes the statistics and views of a media package.
+   *
+   * @param em
+   *          the entity manager of the transaction
+   * @param mediapackageId
+   *          the media package identifier
+   */
+  static void delete(EntityManager em, String mediapackageId) {
+    for (String name : new String[] { "deleteMediapackageStatistics", "deleteFootprintDeltas", "deleteViews" }) {
+      em.createNamedQuery(name).setParameter("mediapackageId", mediapackageId).executeUpdate();
+    }
+  }
+
+  private void footprint(String mediapackageId, int inpoint, int outpoint, long count) {
+    if (inpoint >= outpoint)
+      return;
+    final Map<Integer, Long> positions = getPositions(mediapackageId);
+    addDelta(positions, inpoint, count);
+    addDelta(positions, outpoint, -count);
+  }
+
+  private Map<Integer, Long> getPositions(String mediapackageId) {
+    Map<Integer, Long> positions = deltas.get(mediapackageId);
+    if (positions == null) {
+      positions = new TreeMap<>();
+      deltas.put(mediapackageId, positions);
+    }
+    return positions;
+  }
+
+  private static void addDelta(Map<Integer, Long> positions, int position, long delta) {
+    final Long current = positions.get(position);
+    positions.put(position, current == null ? delta : current + delta);
+  }
+
+  private Set<String> getSessions(String mediapackageId) {
+    Set<String> candidates = sessions.get(mediapackageId);
+    if (candidates == null) {
+      candidates = new HashSet<>();
+      sessions.put(mediapackageId, candidates);
+    }
+    return candidates;
+  }
+
+  private long[] getMediapackage(String mediapackageId) {
+    long[] values = mediapackages.get(mediapackageId);
+    if (values == null) {
+      values = new long[2];
+      mediapackages.put(mediapackageId, values);
+    }
+    return values;
+  }
+
+}
@@ -28,6 +28,7 @@ import org.opencastproject.usertracking.api.Report;
 import org.opencastproject.usertracking.api.UserAction;
 import org.opencastproject.usertracking.api.UserActionList;
 import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.api.UserTrackingException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
@@ -38,7 +39,11 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
 
 public class UserTrackingServiceImplTest {
   private UserTrackingServiceImpl service = null;
@@ -643,6 +648,230 @@ public class UserTrackingServiceImplTest {
     verifyUserActionLists(1, 0, 10, 1);
   }
 
+  /**
+   * Test the view statistics being maintained incrementally and rebuilt from the user actions
+   * @throws Exception
+   */
+  @Test
+  public void testViewStatistics() throws Exception {
+    DateFormat format = new SimpleDateFormat("yyyyMMddHHmm");
+    Date firstDay = format.parse("201603011000");
+    Date secondDay = format.parse("201603021000");
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", "mp", "me", "127.0.0.1", 0, 10, firstDay);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", "mp", "me", "127.0.0.1", 10, 20, firstDay);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session456", "mp", "someone else", "127.0.0.1", 5, 15, secondDay);
+    createAndVerifyUserAction("PLAY", "session123", "mp", "me", "127.0.0.1", 20, 20, secondDay);
+    verifyViewStatistics();
+
+    service.rebuildStatistics();
+    verifyViewStatistics();
+  }
+
+  /**
+   * Test a session recorded by several nodes being counted as one view
+   * @throws Exception
+   */
+  @Test
+  public void testViewStatisticsOfSeveralNodes() throws Exception {
+    UserTrackingServiceImpl otherNode = new UserTrackingServiceImpl();
+    otherNode.setEntityManagerFactory(service.emf);
+    otherNode.activate();
+    Date now = new Date();
+    UserSession session = createUserSession("session123", "me", "127.0.0.1");
+    service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, now, session), session);
+    session = createUserSession("session123", "me", "127.0.0.1");
+    otherNode.addUserTrackingEvent(createUserAction("PLAY", "mp", 20, 30, now, session), session);
+    Assert.assertEquals(1, service.getViews("mp"));
+    Assert.assertEquals(1, otherNode.getViews("mp"));
+    Report report = service.getReport(0, 0);
+    Assert.assertEquals(1, report.getViews());
+    Assert.assertEquals(20, report.getPlayed());
+
+    session = createUserSession("session456", "someone else", "127.0.0.1");
+    otherNode.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 40, 50, now, session), session);
+    Assert.assertEquals(2, service.getViews("mp"));
+  }
+
+  /**
+   * Test the view statistics not being used before a rebuild has been recorded as completed
+   * @throws Exception
+   */
+  @Test
+  public void testInterruptedRebuild() throws Exception {
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", "mp", "me", "127.0.0.1", 0, 10);
+    EntityManager em = service.emf.createEntityManager();
+    try {
+      em.getTransaction().begin();
+      em.createNamedQuery("deleteStatisticsRebuilds").executeUpdate();
+      ViewStatisticsUpdate.delete(em, "mp");
+      em.getTransaction().commit();
+    } finally {
+      em.close();
+    }
+
+    // A node without completed rebuild counts the user actions
+    UserTrackingServiceImpl restartedNode = new UserTrackingServiceImpl();
+    restartedNode.setEntityManagerFactory(service.emf);
+    Assert.assertEquals(1, restartedNode.getViews("mp"));
+    Assert.assertEquals(0, service.getViews("mp"));
+
+    restartedNode.rebuildStatistics();
+    Assert.assertEquals(1, service.getViews("mp"));
+
+    // The completed rebuild is recorded, so the next node uses the statistics right away
+    UserTrackingServiceImpl nextNode = new UserTrackingServiceImpl();
+    nextNode.setEntityManagerFactory(service.emf);
+    nextNode.activate();
+    Assert.assertEquals(1, nextNode.getViews("mp"));
+    nextNode.deactivate();
+  }
+
+  private void verifyViewStatistics() throws Exception {
+    Assert.assertEquals(2, service.getViews("mp"));
+
+    FootprintList list = getFootprintList("mp", null, 4);
+    verifyFootprintViewsAndPositions(list, 0, 0, 1);
+    verifyFootprintViewsAndPositions(list, 1, 5, 2);
+    verifyFootprintViewsAndPositions(list, 2, 15, 1);
+    verifyFootprintViewsAndPositions(list, 3, 20, 0);
+
+    Report report = service.getReport(0, 0);
+    Assert.assertEquals(1, report.getTotal());
+    Assert.assertEquals(2, report.getViews());
+    Assert.assertEquals(30, report.getPlayed());
+
+    report = service.getReport("20160301", "20160303", 0, 0);
+    Assert.assertEquals(1, report.getTotal());
+    Assert.assertEquals(2, report.getViews());
+    Assert.assertEquals(30, report.getPlayed());
+
+    report = service.getReport("20160301", "20160302", 0, 0);
+    Assert.assertEquals(1, report.getViews());
+    Assert.assertEquals(20, report.getPlayed());
+  }
+
+  /**
+   * Test buffered footprints being merged in memory and written in batches
+   * @throws Exception
+   */
+  @Test
+  public void testBufferedFootprints() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(UserTrackingServiceImpl.BUFFER_ENABLED, "true");
+    props.setProperty(UserTrackingServiceImpl.BUFFER_FLUSH_INTERVAL, "3600000");
+    service.updated(props);
+    Date now = new Date();
+    try {
+      UserSession a = createUserSession("session123", "me", "127.0.0.1");
+      UserSession b = createUserSession("session456", "someone else", "127.0.0.1");
+      UserAction first = service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, now, a), a);
+      UserAction merged = service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 10, 20, now, a), a);
+      service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 5, 15, now, b), b);
+      service.addUserTrackingEvent(createUserAction("PLAY", "mp", 20, 20, now, a), a);
+
+      // Nothing has been written yet
+      Assert.assertSame(first, merged);
+      Assert.assertNull(first.getId());
+      Assert.assertEquals(20, first.getOutpoint());
+      Assert.assertEquals(0, service.getViews("mp"));
+
+      service.flush();
+      Assert.assertNotNull(first.getId());
+      Assert.assertEquals(2, service.getViews("mp"));
+      Assert.assertEquals(3, service.getUserActions(0, 0).getTotal());
+
+      // A footprint continuing a written footprint is merged in the database
+      service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 20, 30, now, a), a);
+      service.flush();
+      Assert.assertEquals(2, service.getUserActionsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 0).getTotal());
+      Assert.assertEquals(30, service.getUserAction(first.getId()).getOutpoint());
+    } finally {
+      service.updated(new Properties());
+    }
+  }
+
+  /**
+   * Test user actions being dropped if the buffer is full
+   * @throws Exception
+   */
+  @Test
+  public void testBufferBackPressure() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(UserTrackingServiceImpl.BUFFER_ENABLED, "true");
+    props.setProperty(UserTrackingServiceImpl.BUFFER_CAPACITY, "2");
+    props.setProperty(UserTrackingServiceImpl.BUFFER_BATCH_SIZE, "10");
+    props.setProperty(UserTrackingServiceImpl.BUFFER_FLUSH_INTERVAL, "3600000");
+    props.setProperty(UserTrackingServiceImpl.BUFFER_OFFER_TIMEOUT, "1");
+    service.updated(props);
+    UserActionBufferStatisticsMXBean statistics = service.getBufferStatistics();
+    statistics.reset();
+    Date now = new Date();
+    try {
+      for (int i = 0; i < 2; i++) {
+        UserSession session = createUserSession("session" + i, "me", "127.0.0.1");
+        service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, now, session), session);
+      }
+      UserSession dropped = createUserSession("session2", "me", "127.0.0.1");
+      try {
+        service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, now, dropped), dropped);
+        Assert.fail("The user action should have been dropped");
+      } catch (UserActionBufferFullException e) {
+        // Expected
+      }
+      Assert.assertEquals(2, statistics.getBufferedCount());
+      Assert.assertEquals(2, statistics.getQueuedCount());
+      Assert.assertEquals(1, statistics.getBlockedCount());
+      Assert.assertEquals(1, statistics.getDroppedCount());
+
+      service.flush();
+      Assert.assertEquals(0, statistics.getBufferedCount());
+      Assert.assertEquals(1, statistics.getFlushCount());
+      Assert.assertEquals(2, statistics.getWrittenCount());
+      Assert.assertEquals(2, service.getViews("mp"));
+    } finally {
+      service.updated(new Properties());
+    }
+    Assert.assertFalse(statistics.isEnabled());
+  }
+
+  /**
+   * Test a batch which cannot be written being kept in the buffer and written with the next flush
+   * @throws Exception
+   */
+  @Test
+  public void testBufferRetriesFailedBatch() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    UserTrackingServiceImpl failingOnce = new UserTrackingServiceImpl() {
+      @Override
+      void writeBatch(List<UserAction> actions) throws UserTrackingException {
+        if (attempts.incrementAndGet() == 1)
+          throw new UserTrackingException("Database unavailable");
+        super.writeBatch(actions);
+      }
+    };
+    failingOnce.setEntityManagerFactory(newTestEntityManagerFactory(UserTrackingServiceImpl.PERSISTENCE_UNIT));
+    UserActionBufferStatistics statistics = new UserActionBufferStatistics();
+    UserActionBuffer buffer = new UserActionBuffer(failingOnce, statistics, 10, 10, 3600000L, 1L);
+    Date now = new Date();
+    try {
+      for (int i = 0; i < 2; i++) {
+        UserSession session = createUserSession("session" + i, "me", "127.0.0.1");
+        buffer.add(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, now, session));
+      }
+      buffer.flush();
+      Assert.assertEquals(2, buffer.size());
+      Assert.assertEquals(0, statistics.getWrittenCount());
+      Assert.assertEquals(0, statistics.getFailedCount());
+
+      buffer.flush();
+      Assert.assertEquals(0, buffer.size());
+      Assert.assertEquals(2, statistics.getWrittenCount());
+      Assert.assertEquals(0, statistics.getFailedCount());
+    } finally {
+      buffer.shutdown();
+    }
+  }
+
   /**
    * Tests to make sure reports with date restrictions work as expected.
    * @throws Exception
@@ -0,0 +1,110 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import java.util.Arrays;
+
+/**
+ * The scene change scores of the frames of a video track, as detected by the FFmpeg <code>select</code> filter.
+ * Only frames whose score exceeds the threshold used for the detection are stored, so segmentations for any
+ * changes threshold greater than or equal to that threshold can be derived without decoding the track again.
+ *
+ */
+public class SceneScores {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final float threshold;
+  private long[] times = new long[INITIAL_CAPACITY];
+  private float[] scores = new float[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /**
+   * creates a new, empty list of scene scores
+   *
+   * @param threshold the threshold the scores were detected with
+   */
+  public SceneScores(float threshold) {
+    this.threshold = threshold;
+  }
+
+  /**
+   * get the threshold the scores were detected with
+   *
+   * @return threshold
+   */
+  public float getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * get the number of frames with a scene score
+   *
+   * @return number of frames
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * adds the scene score of a frame. Frames have to be added in presentation order.
+   *
+   * @param time presentation time of the frame in milliseconds
+   * @param score scene change score of the frame
+   */
+  public void add(long time, float score) {
+    if (size == times.length) {
+      times = Arrays.copyOf(times, size * 2);
+      scores = Arrays.copyOf(scores, size * 2);
+    }
+    times[size] = time;
+    scores[size] = score;
+    size++;
+  }
+
+  /**
+   * checks whether segmentations for the given changes threshold can be derived from these scores
+   *
+   * @param changesThreshold the changes threshold
+   * @return true if the scores were detected with a threshold lower than or equal to the given one
+   */
+  public boolean covers(float changesThreshold) {
+    return changesThreshold >= threshold;
+  }
+
+  /**
+   * get the presentation times of all frames whose scene score exceeds the given changes threshold
+   *
+   * @param changesThreshold the changes threshold
+   * @return presentation times in milliseconds
+   */
+  public long[] getChanges(float changesThreshold) {
+    long[] changes = new long[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (scores[i] > changesThreshold) {
+        changes[count++] = times[i];
+      }
+    }
+    return Arrays.copyOf(changes, count);
+  }
+
+}
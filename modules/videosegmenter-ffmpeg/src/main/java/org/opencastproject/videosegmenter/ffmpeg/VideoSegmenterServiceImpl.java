@@ -80,8 +80,11 @@ import java.util.regex.Pattern;
  * This plugin runs
  *
  * <pre>
- * ffmpeg -nostats -i in.mp4 -filter:v 'select=gt(scene\,0.04),showinfo' -f null - 2&gt;&amp;1 | grep Parsed_showinfo_1
+ * ffmpeg -nostats -i in.mp4 -filter:v 'select=gt(scene\,0.04),metadata=print:key=lavfi.scene_score' -f null - 2&gt;&amp;1 | grep Parsed_metadata_1
  * </pre>
+ *
+ * once per track and derives the segmentations for the changes thresholds tried while optimizing the number of
+ * segments from the captured scene scores.
  */
 public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
 VideoSegmenterService, ManagedService {
@@ -97,6 +100,9 @@ VideoSegmenterService, ManagedService {
   /** Path to the executable */
   protected String binary;
 
+  /** The frame metadata key of the scene change score set by the FFmpeg select filter */
+  private static final String SCENE_SCORE_KEY = "lavfi.scene_score";
+
   public static final String FFMPEG_BINARY_CONFIG = "org.opencastproject.composer.ffmpeg.path";
   public static final String FFMPEG_BINARY_DEFAULT = "ffmpeg";
 
@@ -416,6 +422,10 @@ VideoSegmenterService, ManagedService {
 
       logger.info("Starting video segmentation of {}", mediaUrl);
 
+      // decode the track only once and capture the scene scores of all frames that any changes threshold tried
+      // during the optimization could select. The threshold is lowered only by halving it, at most once per cycle.
+      SceneScores sceneScores = runSceneDetectionFFmpeg(mediaFile,
+              changesThreshold / (float) Math.pow(2, Math.max(0, maxCycles - 1)));
 
       // optimization loop to get a segmentation with a number of segments close
       // to the desired number of segments
@@ -426,8 +436,12 @@ VideoSegmenterService, ManagedService {
             contentTime, contentLocator);
 
 
-        // run the segmentation with FFmpeg
-        segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+        // derive the segmentation from the scene scores, decoding the track again only if the changes threshold
+        // dropped below the one the scores were captured with
+        if (!sceneScores.covers(changesThresholdLocal)) {
+          sceneScores = runSceneDetectionFFmpeg(mediaFile, changesThresholdLocal);
+        }
+        segments = createSegments(track, videoContent, sceneScores, changesThresholdLocal);
 
 
         // calculate errors for "normal" and filtered segmentation
@@ -620,39 +634,50 @@ VideoSegmenterService, ManagedService {
   }
 
   /**
-   * Does the actual segmentation with an FFmpeg call, adds the segments to the given videoContent of a catalog and
-   * returns a list with the resulting segments
+   * Runs FFmpeg once on the given file and captures the scene scores of all frames whose score exceeds the given
+   * threshold
    *
-   * @param track the element to analyze
-   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
    * @param mediaFile the file of the track to analyze
-   * @param changesThreshold the changesThreshold that is used as option for the FFmpeg call
-   * @return a list of the resulting segments
+   * @param threshold the lowest changes threshold the scores will be used for
+   * @return the scene scores
    * @throws IOException
    */
-  protected LinkedList<Segment> runSegmentationFFmpeg(Track track, Video videoContent, File mediaFile,
-          float changesThreshold) throws IOException {
+  protected SceneScores runSceneDetectionFFmpeg(File mediaFile, float threshold) throws IOException {
 
     String[] command = new String[] { binary, "-nostats", "-i",
       mediaFile.getAbsolutePath().replaceAll(" ", "\\ "),
-      "-filter:v", "select=gt(scene\\," + changesThreshold + "),showinfo",
+      "-filter:v", "select=gt(scene\\," + threshold + "),metadata=print:key=" + SCENE_SCORE_KEY,
       "-f", "null", "-"
     };
     String commandline = StringUtils.join(command, " ");
 
     logger.info("Running {}", commandline);
 
+    // [Parsed_metadata_1 @ 0x157fb40] frame:0    pts:12   pts_time:12
+    // [Parsed_metadata_1 @ 0x157fb40] lavfi.scene_score=0.341627
+
+    SceneScores sceneScores = new SceneScores(threshold);
     ProcessBuilder pbuilder = new ProcessBuilder(command);
-    List<String> segmentsStrings = new LinkedList<String>();
     Process process = pbuilder.start();
     BufferedReader reader = new BufferedReader(
             new InputStreamReader(process.getErrorStream()));
     try {
       LineReader lr = new LineReader(reader);
+      Pattern timePattern = Pattern.compile("pts_time\\:(-?\\d+(\\.\\d+)?)");
+      String scorePrefix = SCENE_SCORE_KEY + "=";
+      long time = 0;
       String line = lr.readLine();
       while (null != line) {
-        if (line.startsWith("[Parsed_showinfo")) {
-          segmentsStrings.add(line);
+        if (line.startsWith("[Parsed_metadata")) {
+          int scoreIndex = line.indexOf(scorePrefix);
+          if (scoreIndex >= 0) {
+            sceneScores.add(time, Float.parseFloat(line.substring(scoreIndex + scorePrefix.length()).trim()));
+          } else {
+            Matcher matcher = timePattern.matcher(line);
+            if (matcher.find()) {
+              time = (long) (Float.parseFloat(matcher.group(1)) * 1000);
+            }
+          }
         }
         line = lr.readLine();
       }
@@ -662,14 +687,31 @@ VideoSegmenterService, ManagedService {
       reader.close();
     }
 
-    // [Parsed_showinfo_1 @ 0x157fb40] n:0 pts:12 pts_time:12 pos:227495
-    // fmt:rgb24 sar:0/1 s:320x240 i:P iskey:1 type:I checksum:8DF39EA9
-    // plane_checksum:[8DF39EA9]
+    logger.info("Scene detection of {} found {} frames with a scene score above {}",
+            mediaFile.toURI().toURL(), sceneScores.size(), threshold);
+
+    return sceneScores;
+  }
+
+  /**
+   * Creates the segments for the given changes threshold from the scene scores of a track, adds them to the given
+   * videoContent of a catalog and returns a list with the resulting segments
+   *
+   * @param track the element to analyze
+   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
+   * @param sceneScores the scene scores of the track
+   * @param changesThreshold the changesThreshold frames have to exceed to start a new segment
+   * @return a list of the resulting segments
+   */
+  protected LinkedList<Segment> createSegments(Track track, Video videoContent, SceneScores sceneScores,
+          float changesThreshold) {
+
+    long[] changes = sceneScores.getChanges(changesThreshold);
 
     int segmentcount = 1;
     LinkedList<Segment> segments = new LinkedList<Segment>();
 
-    if (segmentsStrings.size() == 0) {
+    if (changes.length == 0) {
       Segment s = videoContent.getTemporalDecomposition()
           .createSegment("segment-" + segmentcount);
       s.setMediaTime(new MediaRelTimeImpl(0, track.getDuration()));
@@ -677,14 +719,8 @@ VideoSegmenterService, ManagedService {
     } else {
       long starttime = 0;
       long endtime = 0;
-      Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
-      for (String seginfo : segmentsStrings) {
-        Matcher matcher = pattern.matcher(seginfo);
-        String time = "0";
-        while (matcher.find()) {
-          time = matcher.group().substring(9);
-        }
-        endtime = (long)(Float.parseFloat(time) * 1000);
+      for (long change : changes) {
+        endtime = change;
         long segmentLength = endtime - starttime;
         if (1000 * stabilityThresholdPrefilter < segmentLength) {
           Segment segment = videoContent.getTemporalDecomposition()
@@ -704,8 +740,7 @@ VideoSegmenterService, ManagedService {
       segments.add(s);
     }
 
-   logger.info("Segmentation of {} yields {} segments",
-           mediaFile.toURI().toURL(), segments.size());
+    logger.info("Segmentation with changes threshold {} yields {} segments", changesThreshold, segments.size());
 
     return segments;
   }
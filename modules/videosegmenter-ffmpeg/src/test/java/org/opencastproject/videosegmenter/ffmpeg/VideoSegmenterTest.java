@@ -421,4 +421,37 @@ public class VideoSegmenterTest {
 
   }
 
+  @Test
+  public void testSegmentsFromSceneScores() {
+    MediaTime contentTime = new MediaRelTimeImpl(0, track.getDuration());
+    MediaLocator contentLocator = new MediaLocatorImpl(track.getURI());
+    track.setDuration(mediaDuration);
+
+    SceneScores sceneScores = new SceneScores(0.01f);
+    sceneScores.add(500L, 0.5f);
+    sceneScores.add(4000L, 0.02f);
+    sceneScores.add(12000L, 0.3f);
+    sceneScores.add(12500L, 0.2f);
+    assertTrue(sceneScores.covers(0.025f));
+    assertFalse(sceneScores.covers(0.005f));
+
+    // changes that are closer than the prefilter stability threshold to the previous one are skipped
+    Mpeg7Catalog mpeg7 = mpeg7Service.newInstance();
+    Video videoContent = mpeg7.addVideoContent("videosegment", contentTime, contentLocator);
+    LinkedList<Segment> segments = vsegmenter.createSegments(track, videoContent, sceneScores, 0.015f);
+    assertEquals(3, segments.size());
+    assertEquals(4000L, segments.get(0).getMediaTime().getMediaDuration().getDurationInMilliseconds());
+    assertEquals(4000L, segments.get(1).getMediaTime().getMediaTimePoint().getTimeInMilliseconds());
+    assertEquals(12500L, segments.get(2).getMediaTime().getMediaTimePoint().getTimeInMilliseconds());
+
+    // a higher changes threshold is evaluated from the same scores
+    mpeg7 = mpeg7Service.newInstance();
+    videoContent = mpeg7.addVideoContent("videosegment", contentTime, contentLocator);
+    segments = vsegmenter.createSegments(track, videoContent, sceneScores, 0.25f);
+    assertEquals(2, segments.size());
+    assertEquals(firstSegmentDuration, segments.get(0).getMediaTime().getMediaDuration().getDurationInMilliseconds());
+    assertEquals(secondSegmentDuration, segments.get(1).getMediaTime().getMediaDuration()
+            .getDurationInMilliseconds());
+  }
+
 }
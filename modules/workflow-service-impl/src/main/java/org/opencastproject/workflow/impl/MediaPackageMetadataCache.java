@@ -0,0 +1,176 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl;
+
+import org.opencastproject.mediapackage.Catalog;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.metadata.api.MediaPackageMetadata;
+import org.opencastproject.metadata.api.MediaPackageMetadataService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size bounded cache of the metadata extracted from the catalogs of media packages.
+ * <p>
+ * The metadata of all metadata services is cached together, keyed by the URIs and checksums of the catalogs it has
+ * been extracted from, and by their flavors, which determine how the catalogs are interpreted. Media packages with the
+ * same catalogs share the cached metadata, and the metadata is extracted again as soon as a catalog is added, removed
+ * or changed. Media packages with catalogs without a checksum are not cached, since a changed catalog may keep its URI,
+ * and neither are media packages without catalogs, which have nothing to read. If the cache is full, the least recently
+ * used metadata is evicted.
+ */
+class MediaPackageMetadataCache {
+
+  /** The maximum number of cached metadata */
+  private final int capacity;
+
+  /** The cached metadata in access order */
+  private final Map<Key, Extraction> metadata;
+
+  /**
+   * Creates a cache.
+   *
+   * @param capacity
+   *          the maximum number of cached metadata, <code>0</code> disables caching
+   */
+  MediaPackageMetadataCache(int capacity) {
+    this.capacity = capacity;
+    this.metadata = new LinkedHashMap<Key, Extraction>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Extraction> eldest) {
+        return size() > MediaPackageMetadataCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the metadata of a media package, extracting it with the metadata services unless the catalogs of the
+   * media package are unchanged since the last extraction.
+   *
+   * @param services
+   *          the metadata services
+   * @param mp
+   *          the media package
+   * @return the metadata of each service in the order of the services, may contain <code>null</code>
+   */
+  List<MediaPackageMetadata> getMetadata(Collection<MediaPackageMetadataService> services, MediaPackage mp) {
+    final List<MediaPackageMetadataService> extractors = new ArrayList<MediaPackageMetadataService>(services);
+    final Key key = capacity > 0 ? Key.of(mp) : null;
+    if (key != null) {
+      synchronized (this) {
+        Extraction cached = metadata.get(key);
+        // Metadata extracted by services which have been added or removed in the meantime is not used
+        if (cached != null && cached.services.equals(extractors))
+          return cached.metadata;
+      }
+    }
+    final List<MediaPackageMetadata> extracted = new ArrayList<MediaPackageMetadata>(extractors.size());
+    for (MediaPackageMetadataService service : extractors) {
+      extracted.add(service.getMetadata(mp));
+    }
+    if (key != null) {
+      synchronized (this) {
+        metadata.put(key, new Extraction(extractors, Collections.unmodifiableList(extracted)));
+      }
+    }
+    return extracted;
+  }
+
+  /**
+   * Removes all metadata from the cache.
+   */
+  synchronized void clear() {
+    metadata.clear();
+  }
+
+  /**
+   * Returns the number of cached metadata.
+   *
+   * @return the cache size
+   */
+  synchronized int size() {
+    return metadata.size();
+  }
+
+  /** The metadata extracted by a list of metadata services */
+  private static final class Extraction {
+
+    private final List<MediaPackageMetadataService> services;
+    private final List<MediaPackageMetadata> metadata;
+
+    private Extraction(List<MediaPackageMetadataService> services, List<MediaPackageMetadata> metadata) {
+      this.services = services;
+      this.metadata = metadata;
+    }
+
+  }
+
+  /** Identifies the catalogs of a media package */
+  private static final class Key {
+
+    private final String[] catalogs;
+
+    private Key(String[] catalogs) {
+      this.catalogs = catalogs;
+    }
+
+    /**
+     * Creates the key of a media package.
+     *
+     * @return the key or <code>null</code> if the media package has no catalogs or a catalog has no checksum
+     */
+    static Key of(MediaPackage mp) {
+      final Catalog[] mpCatalogs = mp.getCatalogs();
+      if (mpCatalogs.length == 0)
+        return null;
+      final String[] catalogs = new String[mpCatalogs.length];
+      for (int i = 0; i < mpCatalogs.length; i++) {
+        final Catalog catalog = mpCatalogs[i];
+        if (catalog.getChecksum() == null)
+          return null;
+        catalogs[i] = catalog.getFlavor() + " " + catalog.getURI() + " " + catalog.getChecksum();
+      }
+      Arrays.sort(catalogs);
+      return new Key(catalogs);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.equals(catalogs, ((Key) obj).catalogs);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(catalogs);
+    }
+
+  }
+
+}
@@ -71,6 +71,7 @@ import org.opencastproject.serviceregistry.api.UndispatchableJobException;
 import org.opencastproject.util.JobUtil;
 import org.opencastproject.util.Log;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.data.Effect0;
 import org.opencastproject.util.data.Function0;
 import org.opencastproject.util.data.Option;
@@ -101,6 +102,8 @@ import org.opencastproject.workflow.api.WorkflowService;
 import org.opencastproject.workflow.api.WorkflowSet;
 import org.opencastproject.workflow.api.WorkflowStateException;
 import org.opencastproject.workflow.api.WorkflowStatistics;
+import org.opencastproject.workflow.impl.jmx.WorkflowLocksStatistics;
+import org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatistics;
 import org.opencastproject.workflow.impl.jmx.WorkflowsStatistics;
 import org.opencastproject.workspace.api.Workspace;
 
@@ -138,9 +141,14 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -185,12 +193,48 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** The default value for {@link #workflowStatsCollect} */
   public static final Boolean DEFAULT_STATS_COLLECT_CONFIG = false;
 
+  /** The configuration key for setting {@link #workflowStatsReconcileInterval} */
+  public static final String STATS_RECONCILE_INTERVAL_CONFIG_KEY = "workflowstats.reconcile.interval";
+
+  /** The default value for {@link #workflowStatsReconcileInterval} */
+  public static final int DEFAULT_STATS_RECONCILE_INTERVAL = 60;
+
   /** Constant value indicating a <code>null</code> parent id */
   private static final String NULL_PARENT_ID = "-";
 
+  /** The configuration key for setting the number of lock stripes */
+  public static final String LOCK_STRIPES_CONFIG_KEY = "lock.stripes";
+
+  /** The default number of lock stripes */
+  public static final int DEFAULT_LOCK_STRIPES = 1024;
+
+  /** The configuration key for setting the number of media packages whose extracted metadata is cached */
+  public static final String METADATA_CACHE_SIZE_CONFIG_KEY = "metadata.cache.size";
+
+  /** The default number of media packages whose extracted metadata is cached */
+  public static final int DEFAULT_METADATA_CACHE_SIZE = 1000;
+
+  /** The configuration key for setting the maximum number of workflow operations running at the same time */
+  public static final String OPERATION_THREADS_CONFIG_KEY = "operation.threads";
+
+  /** The default maximum number of workflow operations running at the same time, 0 if unbounded */
+  public static final int DEFAULT_OPERATION_THREADS = 0;
+
+  /** The configuration key for setting the number of workflow operations waiting for a thread */
+  public static final String OPERATION_QUEUE_SIZE_CONFIG_KEY = "operation.queue.size";
+
+  /** The default number of workflow operations waiting for a thread */
+  public static final int DEFAULT_OPERATION_QUEUE_SIZE = 100;
+
   /** Workflow statistics JMX type */
   private static final String JMX_WORKFLOWS_STATISTICS_TYPE = "WorkflowsStatistics";
 
+  /** Workflow lock statistics JMX type */
+  private static final String JMX_WORKFLOW_LOCKS_STATISTICS_TYPE = "WorkflowLocksStatistics";
+
+  /** Workflow operations statistics JMX type */
+  private static final String JMX_WORKFLOW_OPERATIONS_STATISTICS_TYPE = "WorkflowOperationsStatistics";
+
   /** The load imposed on the system by a workflow job.
    *  We are keeping this hardcoded because otherwise bad things will likely happen,
    *  like an inability to process a workflow past a certain point in high-load conditions
@@ -202,6 +246,12 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
 
   /** The JMX business object for workflows statistics */
   private WorkflowsStatistics workflowsStatistics;
+
+  /** The JMX business object for workflow lock statistics */
+  private final WorkflowLocksStatistics lockStatistics = new WorkflowLocksStatistics();
+
+  /** The JMX business object for the pool of threads running workflow operations */
+  private final WorkflowOperationsStatistics operationsStatistics = new WorkflowOperationsStatistics();
   /** Error resolution handler id constant */
   public static final String ERROR_RESOLUTION_HANDLER_ID = "error-resolution";
 
@@ -211,21 +261,42 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** Flag whether to collect JMX statistics */
   protected boolean workflowStatsCollect = DEFAULT_STATS_COLLECT_CONFIG;
 
+  /** The interval in minutes between two reconciliations of the JMX statistics with the index, 0 to disable */
+  protected int workflowStatsReconcileInterval = DEFAULT_STATS_RECONCILE_INTERVAL;
+
+  /** Reconciles the JMX statistics with the index */
+  private ScheduledExecutorService statisticsReconciler;
+
+  /** The scheduled reconciliation of the JMX statistics */
+  private ScheduledFuture<?> statisticsReconciliation;
+
   /** The collection of workflow definitions */
   // protected Map<String, WorkflowDefinition> workflowDefinitions = new HashMap<String, WorkflowDefinition>();
 
   /** The metadata services */
   private SortedSet<MediaPackageMetadataService> metadataServices;
 
+  /** The metadata extracted from the catalogs of recently updated media packages */
+  private MediaPackageMetadataCache metadataCache = new MediaPackageMetadataCache(DEFAULT_METADATA_CACHE_SIZE);
+
   /** The data access object responsible for storing and retrieving workflow instances */
   protected WorkflowServiceIndex index;
 
   /** The list of workflow listeners */
   private final List<WorkflowListener> listeners = new CopyOnWriteArrayList<WorkflowListener>();
 
-  /** The thread pool to use for firing listeners and handling dispatched jobs */
+  /** The thread pool to use for firing listeners */
   protected ThreadPoolExecutor executorService;
 
+  /** The thread pool to use for handling dispatched jobs, i.e. running workflow operations */
+  protected ThreadPoolExecutor operationExecutor;
+
+  /** The maximum number of workflow operations running at the same time, 0 if unbounded */
+  private int operationThreads = DEFAULT_OPERATION_THREADS;
+
+  /** The number of workflow operations waiting for a thread before further workflow jobs are declined */
+  private int operationQueueSize = DEFAULT_OPERATION_QUEUE_SIZE;
+
   /** The workspace */
   protected Workspace workspace = null;
 
@@ -256,13 +327,13 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** The workflow definition scanner */
   private WorkflowDefinitionScanner workflowDefinitionScanner;
 
-  /** List of initially delayed workflows */
-  private final List<Long> delayedWorkflows = new ArrayList<Long>();
+  /** Set of initially delayed workflows */
+  private final Set<Long> delayedWorkflows = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
 
-  /** Striped locks for synchronization */
-  private final Striped<Lock> lock = Striped.lazyWeakLock(1);
-  private final Striped<Lock> updateLock = Striped.lazyWeakLock(1);
-  private final Striped<Lock> mediaPackageLocks = Striped.lazyWeakLock(1);
+  /** Striped locks for synchronization per workflow instance and media package */
+  private Striped<Lock> lock = Striped.lazyWeakLock(DEFAULT_LOCK_STRIPES);
+  private Striped<Lock> updateLock = Striped.lazyWeakLock(DEFAULT_LOCK_STRIPES);
+  private Striped<Lock> mediaPackageLocks = Striped.lazyWeakLock(DEFAULT_LOCK_STRIPES);
 
   static {
     YES = new HashSet<String>(Arrays.asList(new String[] { "yes", "true", "on" }));
@@ -290,25 +361,117 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   public void activate(ComponentContext componentContext) {
     this.componentContext = componentContext;
     executorService = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    operationThreads = DEFAULT_OPERATION_THREADS;
+    operationQueueSize = DEFAULT_OPERATION_QUEUE_SIZE;
+    if (componentContext != null) {
+      operationThreads = OsgiUtil.getOptCfgAsInt(componentContext.getProperties(), OPERATION_THREADS_CONFIG_KEY)
+              .getOrElse(DEFAULT_OPERATION_THREADS);
+      if (operationThreads < 0) {
+        logger.warn("Invalid number of operation threads {}, using the default of {}", operationThreads,
+                DEFAULT_OPERATION_THREADS);
+        operationThreads = DEFAULT_OPERATION_THREADS;
+      }
+      operationQueueSize = OsgiUtil.getOptCfgAsInt(componentContext.getProperties(), OPERATION_QUEUE_SIZE_CONFIG_KEY)
+              .getOrElse(DEFAULT_OPERATION_QUEUE_SIZE);
+      if (operationQueueSize < 0) {
+        logger.warn("Invalid operation queue size {}, using the default of {}", operationQueueSize,
+                DEFAULT_OPERATION_QUEUE_SIZE);
+        operationQueueSize = DEFAULT_OPERATION_QUEUE_SIZE;
+      }
+    }
+    if (operationThreads > 0) {
+      // Operations beyond the queue size are declined in isReadyToAccept() and dispatched again later
+      operationExecutor = new ThreadPoolExecutor(operationThreads, operationThreads, 60L, TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>());
+      operationExecutor.allowCoreThreadTimeOut(true);
+      logger.info("Running at most {} workflow operations at the same time", operationThreads);
+    } else {
+      operationExecutor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    }
+    operationsStatistics.setExecutor(operationExecutor, operationThreads);
+    int lockStripes = DEFAULT_LOCK_STRIPES;
+    if (componentContext != null) {
+      lockStripes = OsgiUtil.getOptCfgAsInt(componentContext.getProperties(), LOCK_STRIPES_CONFIG_KEY)
+              .getOrElse(DEFAULT_LOCK_STRIPES);
+      if (lockStripes < 1) {
+        logger.warn("Invalid number of lock stripes {}, using the default of {}", lockStripes, DEFAULT_LOCK_STRIPES);
+        lockStripes = DEFAULT_LOCK_STRIPES;
+      }
+    }
+    int metadataCacheSize = DEFAULT_METADATA_CACHE_SIZE;
+    if (componentContext != null) {
+      metadataCacheSize = OsgiUtil.getOptCfgAsInt(componentContext.getProperties(), METADATA_CACHE_SIZE_CONFIG_KEY)
+              .getOrElse(DEFAULT_METADATA_CACHE_SIZE);
+      if (metadataCacheSize < 0) {
+        logger.warn("Invalid metadata cache size {}, using the default of {}", metadataCacheSize,
+                DEFAULT_METADATA_CACHE_SIZE);
+        metadataCacheSize = DEFAULT_METADATA_CACHE_SIZE;
+      }
+    }
+    metadataCache = new MediaPackageMetadataCache(metadataCacheSize);
+    lock = Striped.lazyWeakLock(lockStripes);
+    updateLock = Striped.lazyWeakLock(lockStripes);
+    mediaPackageLocks = Striped.lazyWeakLock(lockStripes);
+    lockStatistics.setStripes(lockStripes);
+    logger.info("Workflow service locks use {} stripes", lockStripes);
+    jmxBeans.add(JmxUtil.registerMXBean(lockStatistics, JMX_WORKFLOW_LOCKS_STATISTICS_TYPE));
+    jmxBeans.add(JmxUtil.registerMXBean(operationsStatistics, JMX_WORKFLOW_OPERATIONS_STATISTICS_TYPE));
     try {
       logger.info("Generating JMX workflow statistics");
-      workflowsStatistics = new WorkflowsStatistics(getBeanStatistics(), getHoldWorkflows());
+      workflowsStatistics = new WorkflowsStatistics();
+      reconcileStatistics();
       jmxBeans.add(JmxUtil.registerMXBean(workflowsStatistics, JMX_WORKFLOWS_STATISTICS_TYPE));
     } catch (WorkflowDatabaseException e) {
       logger.error("Error registarting JMX statistic beans", e);
     }
+    scheduleStatisticsReconciliation();
     super.activate();
     logger.info("Activate Workflow service");
   }
 
   @Override
   public void deactivate() {
+    synchronized (this) {
+      if (statisticsReconciler != null) {
+        statisticsReconciler.shutdownNow();
+        statisticsReconciler = null;
+        statisticsReconciliation = null;
+      }
+    }
     for (ObjectInstance mxbean : jmxBeans) {
       JmxUtil.unregisterMXBean(mxbean);
     }
+    if (operationExecutor != null)
+      operationExecutor.shutdown();
     super.deactivate();
   }
 
+  /**
+   * Returns the statistics of the threads running workflow operations.
+   */
+  WorkflowOperationsStatistics getOperationsStatistics() {
+    return operationsStatistics;
+  }
+
+  /**
+   * Acquires the lock guarding the given key and records whether it had to wait for another thread.
+   *
+   * @param striped
+   *          the striped locks
+   * @param key
+   *          the key to lock, e.g. a workflow instance or media package identifier
+   * @return the acquired lock
+   */
+  private Lock acquireLock(Striped<Lock> striped, Object key) {
+    final Lock lock = striped.get(key);
+    final long start = System.nanoTime();
+    final boolean contended = !lock.tryLock();
+    if (contended)
+      lock.lock();
+    lockStatistics.lockAcquired(contended, System.nanoTime() - start);
+    return lock;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -612,8 +775,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
           Long parentWorkflowId, Map<String, String> properties) throws WorkflowDatabaseException,
           WorkflowParsingException, NotFoundException {
     // We have to synchronize per media package to avoid starting multiple simultaneous workflows for one media package.
-    final Lock lock = mediaPackageLocks.get(sourceMediaPackage.getIdentifier().toString());
-    lock.lock();
+    final Lock lock = acquireLock(mediaPackageLocks, sourceMediaPackage.getIdentifier().toString());
     try {
       logger.startUnitOfWork();
       if (workflowDefinition == null)
@@ -1005,8 +1167,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   @Override
   public WorkflowInstance stop(long workflowInstanceId) throws WorkflowException, NotFoundException,
           UnauthorizedException {
-    final Lock lock = this.lock.get(workflowInstanceId);
-    lock.lock();
+    final Lock lock = acquireLock(this.lock, workflowInstanceId);
     try {
       WorkflowInstanceImpl instance = getWorkflowById(workflowInstanceId);
 
@@ -1051,8 +1212,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   @Override
   public void remove(long workflowInstanceId) throws WorkflowDatabaseException, NotFoundException,
           UnauthorizedException, WorkflowParsingException, WorkflowStateException {
-    final Lock lock = this.lock.get(workflowInstanceId);
-    lock.lock();
+    final Lock lock = acquireLock(this.lock, workflowInstanceId);
     try {
       WorkflowQuery query = new WorkflowQuery();
       query.withId(Long.toString(workflowInstanceId));
@@ -1115,6 +1275,10 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         // At last, remove workflow instance from the index
         try {
           index.remove(workflowInstanceId);
+          if (workflowStatsCollect && workflowsStatistics != null) {
+            workflowsStatistics.updateWorkflow(instance.getOrganization().getId(), workflowInstanceId,
+                    instance.getTemplate(), state, null);
+          }
         } catch (NotFoundException e) {
           // This should never happen, because we got workflow instance by querying the index...
           logger.warn("Workflow instance could not be removed from index: %s", ExceptionUtils.getStackTrace(e));
@@ -1139,8 +1303,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   @Override
   public WorkflowInstance suspend(long workflowInstanceId) throws WorkflowException, NotFoundException,
           UnauthorizedException {
-    final Lock lock = this.lock.get(workflowInstanceId);
-    lock.lock();
+    final Lock lock = acquireLock(this.lock, workflowInstanceId);
     try {
       WorkflowInstanceImpl instance = getWorkflowById(workflowInstanceId);
       instance.setState(PAUSED);
@@ -1300,8 +1463,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
    */
   @Override
   public void update(final WorkflowInstance workflowInstance) throws WorkflowException, UnauthorizedException {
-    final Lock lock = updateLock.get(workflowInstance.getId());
-    lock.lock();
+    final Lock lock = acquireLock(updateLock, workflowInstance.getId());
     try {
       WorkflowInstance originalWorkflowInstance = null;
       try {
@@ -1342,6 +1504,8 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
 
       // Synchronize the job status with the workflow
       WorkflowState workflowState = workflowInstance.getState();
+
+      // Serialized once per update, shared by the job payload, the index and the listener snapshot
       String xml;
       try {
         xml = WorkflowParser.toXml(workflowInstance);
@@ -1390,11 +1554,14 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
       }
 
       // Update both workflow and workflow job
+      WorkflowState originalState = originalWorkflowInstance == null ? null : originalWorkflowInstance.getState();
       try {
         job = serviceRegistry.updateJob(job);
         messageSender.sendObjectMessage(WorkflowItem.WORKFLOW_QUEUE, MessageSender.DestinationType.Queue,
                 WorkflowItem.updateInstance(workflowInstance));
-        index(workflowInstance);
+        // The concurrency checks and callers polling for paused or finished workflows query the index, so new
+        // workflows and state changes have to be visible right away. Operation progress may become visible later.
+        index(workflowInstance, xml, originalState != workflowState);
       } catch (ServiceRegistryException e) {
         logger.error(
                 "Update of workflow job %s in the service registry failed, service registry and workflow index may be out of sync",
@@ -1410,16 +1577,20 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         throw new WorkflowException(e);
       }
 
-      if (workflowStatsCollect) {
-        workflowsStatistics.updateWorkflow(getBeanStatistics(), getHoldWorkflows());
+      if (workflowStatsCollect && workflowsStatistics != null) {
+        workflowsStatistics.updateWorkflow(workflowInstance.getOrganization().getId(), workflowInstance.getId(),
+                workflowInstance.getTemplate(), originalState, workflowState);
       }
 
-      try {
-        WorkflowInstance clone = WorkflowParser.parseWorkflowInstance(WorkflowParser.toXml(workflowInstance));
-        fireListeners(originalWorkflowInstance, clone);
-      } catch (Exception e) {
-        // Can't happen, since we are converting from an in-memory object
-        throw new IllegalStateException("In-memory workflow instance could not be serialized", e);
+      // The listeners are notified asynchronously, so they get a copy of the instance as it has been stored
+      if (!listeners.isEmpty()) {
+        try {
+          WorkflowInstance clone = WorkflowParser.parseWorkflowInstance(xml);
+          fireListeners(originalWorkflowInstance, clone);
+        } catch (Exception e) {
+          // Can't happen, since we are converting from an in-memory object
+          throw new IllegalStateException("In-memory workflow instance could not be serialized", e);
+        }
       }
     } finally {
       lock.unlock();
@@ -1439,6 +1610,23 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     index.update(workflowInstance);
   }
 
+  /**
+   * Updates the search index entries for this workflow instance, reusing its serialized form.
+   *
+   * @param workflowInstance
+   *          the workflow
+   * @param xml
+   *          the serialized workflow
+   * @param readYourWrites
+   *          whether queries have to find the updated workflow once this method returns
+   * @throws WorkflowDatabaseException
+   *           if there is a problem storing the workflow instance
+   */
+  protected void index(final WorkflowInstance workflowInstance, String xml, boolean readYourWrites)
+          throws WorkflowDatabaseException {
+    index.update(workflowInstance, xml, readYourWrites);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -1703,7 +1891,8 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   }
 
   /**
-   * Reads the available metadata from the dublin core catalog (if there is one) and updates the mediapackage.
+   * Reads the available metadata from the dublin core catalog (if there is one) and updates the mediapackage. The
+   * metadata is only read again if the catalogs of the media package have changed since it was last read.
    *
    * @param mp
    *          the media package
@@ -1713,8 +1902,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
       logger.warn("No metadata services are registered, so no media package metadata can be extracted from catalogs");
       return;
     }
-    for (MediaPackageMetadataService metadataService : metadataServices) {
-      MediaPackageMetadata metadata = metadataService.getMetadata(mp);
+    for (MediaPackageMetadata metadata : metadataCache.getMetadata(metadataServices, mp)) {
       MediaPackageMetadataSupport.populateMediaPackageMetadata(mp, metadata);
     }
   }
@@ -1740,6 +1928,15 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   public boolean isReadyToAccept(Job job) throws ServiceRegistryException, UndispatchableJobException {
     String operation = job.getOperation();
 
+    // Leave the job to be dispatched again later if all operation threads are busy and enough operations are waiting
+    if (operationThreads > 0 && operationExecutor.getActiveCount() >= operationThreads
+            && operationExecutor.getQueue().size() >= operationQueueSize) {
+      operationsStatistics.declined();
+      logger.debug("Declining job {}, {} workflow operations are waiting for a thread", job.getId(),
+              operationExecutor.getQueue().size());
+      return false;
+    }
+
     // Only restrict execution of new jobs
     if (!Operation.START_WORKFLOW.toString().equals(operation))
       return true;
@@ -1796,10 +1993,9 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
 
     // Avoid running multiple workflows with same media package id at the same time
     if (toomany) {
-      if (!delayedWorkflows.contains(workflow.getId())) {
+      if (delayedWorkflows.add(workflow.getId())) {
         logger.info("Delaying start of workflow %s, another workflow on media package %s is still running",
                 workflow.getId(), mediaPackageId);
-        delayedWorkflows.add(workflow.getId());
       }
       return false;
     }
@@ -1813,7 +2009,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
    * @see org.opencastproject.job.api.AbstractJobProducer#acceptJob(org.opencastproject.job.api.Job)
    */
   @Override
-  public synchronized void acceptJob(Job job) throws ServiceRegistryException {
+  public void acceptJob(Job job) throws ServiceRegistryException {
     User originalUser = securityService.getUser();
     Organization originalOrg = securityService.getOrganization();
     try {
@@ -1825,12 +2021,11 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
       job = serviceRegistry.updateJob(job);
 
       // Check if this workflow was initially delayed
-      if (delayedWorkflows.contains(job.getId())) {
-        delayedWorkflows.remove(job.getId());
+      if (delayedWorkflows.remove(job.getId())) {
         logger.info("Starting initially delayed workflow %s, %d more waiting", job.getId(), delayedWorkflows.size());
       }
 
-      executorService.submit(new JobRunner(job, serviceRegistry.getCurrentJob()));
+      operationExecutor.submit(new JobRunner(job, serviceRegistry.getCurrentJob()));
     } catch (Exception e) {
       if (e instanceof ServiceRegistryException)
         throw (ServiceRegistryException) e;
@@ -1976,61 +2171,61 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     return serviceRegistry.count(JOB_TYPE, status);
   }
 
-  private WorkflowStatistics getBeanStatistics() throws WorkflowDatabaseException {
-    WorkflowStatistics stats = new WorkflowStatistics();
-    long total = 0L;
-    long failed = 0L;
-    long failing = 0L;
-    long instantiated = 0L;
-    long paused = 0L;
-    long running = 0L;
-    long stopped = 0L;
-    long finished = 0L;
-
+  /**
+   * Replaces the JMX statistics with the statistics of all organizations read from the index.
+   *
+   * @throws WorkflowDatabaseException
+   *           if the index cannot be queried
+   */
+  private void reconcileStatistics() throws WorkflowDatabaseException {
+    Map<String, WorkflowStatistics> statistics = new HashMap<String, WorkflowStatistics>();
+    List<WorkflowInstance> workflows = new ArrayList<WorkflowInstance>();
     Organization organization = securityService.getOrganization();
+    User user = organization == null ? null : securityService.getUser();
     try {
       for (Organization org : organizationDirectoryService.getOrganizations()) {
         securityService.setOrganization(org);
-        WorkflowStatistics statistics = getStatistics();
-        total += statistics.getTotal();
-        failed += statistics.getFailed();
-        failing += statistics.getFailing();
-        instantiated += statistics.getInstantiated();
-        paused += statistics.getPaused();
-        running += statistics.getRunning();
-        stopped += statistics.getStopped();
-        finished += statistics.getFinished();
+        if (componentContext != null)
+          securityService.setUser(SecurityUtil.createSystemUser(componentContext, org));
+        statistics.put(org.getId(), getStatistics());
+        int count = WorkflowsStatistics.MAX_WORKFLOWS_ON_HOLD - workflows.size();
+        if (count > 0) {
+          WorkflowQuery workflowQuery = new WorkflowQuery().withState(WorkflowInstance.WorkflowState.PAUSED)
+                  .withCount(count);
+          workflows.addAll(Arrays.asList(getWorkflowInstances(workflowQuery).getItems()));
+        }
       }
     } finally {
       securityService.setOrganization(organization);
+      securityService.setUser(user);
     }
-
-    stats.setTotal(total);
-    stats.setFailed(failed);
-    stats.setFailing(failing);
-    stats.setInstantiated(instantiated);
-    stats.setPaused(paused);
-    stats.setRunning(running);
-    stats.setStopped(stopped);
-    stats.setFinished(finished);
-    return stats;
+    workflowsStatistics.reconcile(statistics, workflows);
   }
 
-  private List<WorkflowInstance> getHoldWorkflows() throws WorkflowDatabaseException {
-    List<WorkflowInstance> workflows = new ArrayList<WorkflowInstance>();
-    Organization organization = securityService.getOrganization();
-    try {
-      for (Organization org : organizationDirectoryService.getOrganizations()) {
-        securityService.setOrganization(org);
-        WorkflowQuery workflowQuery = new WorkflowQuery().withState(WorkflowInstance.WorkflowState.PAUSED).withCount(
-                Integer.MAX_VALUE);
-        WorkflowSet workflowSet = getWorkflowInstances(workflowQuery);
-        workflows.addAll(Arrays.asList(workflowSet.getItems()));
-      }
-    } finally {
-      securityService.setOrganization(organization);
+  /**
+   * Schedules the periodic reconciliation of the JMX statistics, which are otherwise only updated from the workflow
+   * state changes seen by this service.
+   */
+  private synchronized void scheduleStatisticsReconciliation() {
+    if (statisticsReconciliation != null) {
+      statisticsReconciliation.cancel(false);
+      statisticsReconciliation = null;
     }
-    return workflows;
+    if (!workflowStatsCollect || workflowStatsReconcileInterval <= 0 || workflowsStatistics == null)
+      return;
+    if (statisticsReconciler == null)
+      statisticsReconciler = Executors.newSingleThreadScheduledExecutor();
+    statisticsReconciliation = statisticsReconciler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          reconcileStatistics();
+        } catch (Throwable t) {
+          logger.warn("Unable to reconcile the workflow statistics: {}", ExceptionUtils.getMessage(t));
+        }
+      }
+    }, workflowStatsReconcileInterval, workflowStatsReconcileInterval, TimeUnit.MINUTES);
+    logger.debug("Workflow statistics are reconciled every {} minutes", workflowStatsReconcileInterval);
   }
 
   /**
@@ -2166,6 +2361,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
    */
   protected void addMetadataService(MediaPackageMetadataService service) {
     metadataServices.add(service);
+    metadataCache.clear();
   }
 
   /**
@@ -2176,6 +2372,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
    */
   protected void removeMetadataService(MediaPackageMetadataService service) {
     metadataServices.remove(service);
+    metadataCache.clear();
   }
 
   /**
@@ -2217,6 +2414,17 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         workflowStatsCollect = DEFAULT_STATS_COLLECT_CONFIG;
       }
     }
+    String reconcileInterval = StringUtils.trimToNull((String) properties.get(STATS_RECONCILE_INTERVAL_CONFIG_KEY));
+    workflowStatsReconcileInterval = DEFAULT_STATS_RECONCILE_INTERVAL;
+    if (reconcileInterval != null) {
+      try {
+        workflowStatsReconcileInterval = Integer.parseInt(reconcileInterval);
+      } catch (NumberFormatException e) {
+        logger.warn("Workflow statistics reconciliation interval '{}' is malformed, setting to {}", reconcileInterval,
+                DEFAULT_STATS_RECONCILE_INTERVAL);
+      }
+    }
+    scheduleStatisticsReconciliation();
   }
 
   /**
@@ -44,6 +44,36 @@ public interface WorkflowServiceIndex {
    */
   void update(WorkflowInstance instance) throws WorkflowDatabaseException;
 
+  /**
+   * Update the workflow instance, or add it to persistence if it is not already stored, reusing its serialized form.
+   *
+   * @param instance
+   *          The workflow instance to store
+   * @param xml
+   *          The serialized workflow instance, as returned by
+   *          {@link org.opencastproject.workflow.api.WorkflowParser#toXml(WorkflowInstance)}
+   * @throws WorkflowDatabaseException
+   *           if there is a problem storing the workflow instance
+   */
+  void update(WorkflowInstance instance, String xml) throws WorkflowDatabaseException;
+
+  /**
+   * Update the workflow instance, or add it to persistence if it is not already stored, reusing its serialized form.
+   * Implementations may write updates asynchronously, in which case only the latest update of a workflow instance
+   * might be written and queries might not find it right away.
+   *
+   * @param instance
+   *          The workflow instance to store
+   * @param xml
+   *          The serialized workflow instance, as returned by
+   *          {@link org.opencastproject.workflow.api.WorkflowParser#toXml(WorkflowInstance)}
+   * @param readYourWrites
+   *          Whether queries have to find the updated workflow instance once this method returns
+   * @throws WorkflowDatabaseException
+   *           if there is a problem storing the workflow instance
+   */
+  void update(WorkflowInstance instance, String xml, boolean readYourWrites) throws WorkflowDatabaseException;
+
   /**
    * Remove the workflow instance with this id.
    *
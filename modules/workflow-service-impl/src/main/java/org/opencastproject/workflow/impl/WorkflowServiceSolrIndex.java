@@ -71,6 +71,7 @@ import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.FacetField.Count;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -89,13 +90,19 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides data access to the workflow service through file storage in the workspace, indexed via solr.
@@ -198,8 +205,32 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   /** Whether to index workflows synchronously as they are stored */
   protected boolean synchronousIndexing = true;
 
-  /** The thread pool to use in asynchronous indexing */
-  protected ExecutorService indexingExecutor;
+  /** The thread to use in asynchronous indexing */
+  protected ScheduledExecutorService indexingExecutor;
+
+  /** The default number of workflow instances written to the index at once in asynchronous indexing */
+  public static final int DEFAULT_INDEXING_BATCH_SIZE = 100;
+
+  /** The default time in milliseconds a workflow instance may wait for being written in asynchronous indexing */
+  public static final long DEFAULT_INDEXING_LATENCY = 1000L;
+
+  /** The number of workflow instances written to the index at once in asynchronous indexing */
+  protected int indexingBatchSize = DEFAULT_INDEXING_BATCH_SIZE;
+
+  /** The time in milliseconds a workflow instance may wait for being written in asynchronous indexing */
+  protected long indexingLatency = DEFAULT_INDEXING_LATENCY;
+
+  /** The maximum number of attempts to write a document in asynchronous indexing */
+  protected static final int MAX_INDEXING_ATTEMPTS = 5;
+
+  /** The maximum time in milliseconds to wait before retrying to write documents in asynchronous indexing */
+  protected static final long MAX_INDEXING_RETRY_DELAY = 60000L;
+
+  /** The documents waiting for being written to the index, only the latest one per workflow instance is kept */
+  private final Map<Long, SolrInputDocument> pendingDocuments = new LinkedHashMap<Long, SolrInputDocument>();
+
+  /** The number of failed attempts to write the waiting documents, guarded by <code>pendingDocuments</code> */
+  private final Map<Long, Integer> failedAttempts = new HashMap<Long, Integer>();
 
   public static final Fn<Job, Boolean> operationIsStartWorkflow = new Fn<Job, Boolean>() {
     @Override
@@ -211,7 +242,9 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   /**
    * Callback from the OSGi environment on component registration. The indexing behavior can be set using component
    * context properties. <code>synchronousIndexing=true|false</code> determines whether threads performing workflow
-   * updates block on adding the workflow instances to the search index.
+   * updates block on adding the workflow instances to the search index. In asynchronous indexing, the updates are
+   * written in batches of up to <code>indexingBatchSize</code> workflow instances at least every
+   * <code>indexingLatency</code> milliseconds.
    *
    * @param cc
    *          the component context
@@ -228,19 +261,50 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
       solrRoot = SolrServerFactory.getEmbeddedDir(cc, CONFIG_SOLR_ROOT, "workflow");
     }
     Object syncIndexingConfig = cc.getProperties().get("synchronousIndexing");
-    if (syncIndexingConfig != null && (syncIndexingConfig instanceof Boolean)) {
+    if (syncIndexingConfig instanceof Boolean) {
       this.synchronousIndexing = (Boolean) syncIndexingConfig;
+    } else if (syncIndexingConfig != null) {
+      this.synchronousIndexing = Boolean.parseBoolean(syncIndexingConfig.toString().trim());
     }
     if (this.synchronousIndexing) {
       logger.debug("Workflows will be added to the search index synchronously");
     } else {
-      logger.debug("Workflows will be added to the search index asynchronously");
-      indexingExecutor = Executors.newSingleThreadExecutor();
+      indexingBatchSize = Math.max(1, (int) getLongProperty(cc, "indexingBatchSize", DEFAULT_INDEXING_BATCH_SIZE));
+      indexingLatency = getLongProperty(cc, "indexingLatency", DEFAULT_INDEXING_LATENCY);
+      logger.debug("Workflows will be added to the search index asynchronously in batches of {} within {}ms",
+              indexingBatchSize, indexingLatency);
+      indexingExecutor = createIndexingExecutor();
     }
     String systemUserName = cc.getBundleContext().getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER);
     activate(systemUserName);
   }
 
+  /**
+   * Creates the executor used in asynchronous indexing. Scheduled writes are discarded on shutdown, since the pending
+   * documents are written when the index is deactivated.
+   *
+   * @return the executor
+   */
+  static ScheduledExecutorService createIndexingExecutor() {
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    return executor;
+  }
+
+  private static long getLongProperty(ComponentContext cc, String key, long defaultValue) {
+    Object value = cc.getProperties().get(key);
+    if (value instanceof Number)
+      return ((Number) value).longValue();
+    if (value != null && StringUtils.isNotBlank(value.toString())) {
+      try {
+        return Long.parseLong(value.toString().trim());
+      } catch (NumberFormatException e) {
+        logger.warn("Invalid value '{}' of {}, using {}", value, key, defaultValue);
+      }
+    }
+    return defaultValue;
+  }
+
   private long count() throws WorkflowDatabaseException {
     try {
       QueryResponse response = solrServer.query(new SolrQuery("*:*"));
@@ -378,6 +442,14 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
    * Shuts down the solr index.
    */
   public void deactivate() {
+    if (indexingExecutor != null) {
+      indexingExecutor.shutdown();
+      try {
+        flush();
+      } catch (WorkflowDatabaseException e) {
+        logger.warn("Unable to write the pending workflow updates to the index: {}", e.getMessage());
+      }
+    }
     SolrServerFactory.shutdown(solrServer);
   }
 
@@ -400,9 +472,49 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   }
 
   public void index(final WorkflowInstance instance) throws WorkflowDatabaseException {
+    index(instance, null);
+  }
+
+  /**
+   * Adds the workflow instance to the search index.
+   *
+   * @param instance
+   *          the instance
+   * @param xml
+   *          the serialized instance or <code>null</code> to serialize it
+   * @throws WorkflowDatabaseException
+   *           if the instance cannot be indexed
+   */
+  public void index(final WorkflowInstance instance, String xml) throws WorkflowDatabaseException {
+    index(instance, xml, false);
+  }
+
+  /**
+   * Adds the workflow instance to the search index.
+   *
+   * @param instance
+   *          the instance
+   * @param xml
+   *          the serialized instance or <code>null</code> to serialize it
+   * @param readYourWrites
+   *          whether to return only after the instance can be found in the index even in asynchronous indexing
+   * @throws WorkflowDatabaseException
+   *           if the instance cannot be indexed
+   */
+  public void index(final WorkflowInstance instance, String xml, boolean readYourWrites)
+          throws WorkflowDatabaseException {
+    // The document is created right away, so it reflects the instance as it is now even if it is added later
+    final SolrInputDocument doc;
+    try {
+      doc = createDocument(instance, xml);
+    } catch (Exception e) {
+      if (synchronousIndexing || readYourWrites)
+        throw new WorkflowDatabaseException("Unable to index workflow", e);
+      WorkflowServiceSolrIndex.logger.warn("Unable to index {}: {}", instance, e);
+      return;
+    }
     if (synchronousIndexing) {
       try {
-        SolrInputDocument doc = createDocument(instance);
         synchronized (solrServer) {
           solrServer.add(doc);
           solrServer.commit();
@@ -411,24 +523,154 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
         throw new WorkflowDatabaseException("Unable to index workflow", e);
       }
     } else {
-      indexingExecutor.submit(new Runnable() {
+      int pending;
+      synchronized (pendingDocuments) {
+        // A newer document replaces the waiting one of the same workflow instance
+        pendingDocuments.put(instance.getId(), doc);
+        failedAttempts.remove(instance.getId());
+        pending = pendingDocuments.size();
+      }
+      if (readYourWrites) {
+        // Other workflows' documents failing to be written are retried later and don't concern this caller
+        if (writePendingDocuments(true).contains(instance.getId()))
+          throw new WorkflowDatabaseException("Unable to index workflow " + instance.getId());
+      } else if (pending == indexingBatchSize) {
+        scheduleFlush(0L);
+      } else if (pending == 1) {
+        scheduleFlush(indexingLatency);
+      }
+    }
+  }
+
+  private void scheduleFlush(long delay) {
+    try {
+      indexingExecutor.schedule(new Runnable() {
         @Override
         public void run() {
-          try {
-            SolrInputDocument doc = createDocument(instance);
-            synchronized (solrServer) {
-              solrServer.add(doc);
-              // Use solr's autoCommit feature instead of committing on each document addition.
-              // See http://opencast.jira.com/browse/MH-7040 and
-              // http://osdir.com/ml/solr-user.lucene.apache.org/2009-09/msg00744.html
-              // solrServer.commit();
+          // Solr commits the documents itself, there is no need to wait for them to become visible
+          writePendingDocuments(false);
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // The index is being deactivated and writes the pending documents itself
+      logger.debug("Not scheduling the indexing of pending workflow updates");
+    }
+  }
+
+  /**
+   * Writes the workflow instances waiting for being indexed in asynchronous indexing and commits them, so that they
+   * can be found in the index.
+   *
+   * @throws WorkflowDatabaseException
+   *           if some of the instances cannot be indexed, they are retried later
+   */
+  public void flush() throws WorkflowDatabaseException {
+    final Set<Long> failed = writePendingDocuments(true);
+    if (!failed.isEmpty())
+      throw new WorkflowDatabaseException("Unable to index workflows " + failed);
+  }
+
+  /**
+   * Writes the documents waiting for being indexed. Documents which cannot be written are queued again unless a newer
+   * document of the same workflow instance has been queued in the meantime, and retried with an increasing delay.
+   *
+   * @param commit
+   *          whether to commit the documents before returning, otherwise solr is asked to commit them within the
+   *          indexing latency
+   * @return the identifiers of the workflow instances which could not be indexed
+   */
+  private Set<Long> writePendingDocuments(boolean commit) {
+    final Map<Long, SolrInputDocument> failed = new LinkedHashMap<Long, SolrInputDocument>();
+    synchronized (solrServer) {
+      final Map<Long, SolrInputDocument> written = new LinkedHashMap<Long, SolrInputDocument>();
+      while (true) {
+        final Map<Long, SolrInputDocument> batch = new LinkedHashMap<Long, SolrInputDocument>();
+        synchronized (pendingDocuments) {
+          Iterator<Map.Entry<Long, SolrInputDocument>> documents = pendingDocuments.entrySet().iterator();
+          while (documents.hasNext() && batch.size() < indexingBatchSize) {
+            Map.Entry<Long, SolrInputDocument> document = documents.next();
+            batch.put(document.getKey(), document.getValue());
+            documents.remove();
+          }
+        }
+        if (batch.isEmpty())
+          break;
+        try {
+          add(batch.values(), commit);
+          written.putAll(batch);
+        } catch (Exception e) {
+          // Find the documents causing the failure
+          logger.debug("Unable to index {} workflows at once, indexing them one by one: {}", batch.size(),
+                  e.getMessage());
+          for (Map.Entry<Long, SolrInputDocument> document : batch.entrySet()) {
+            try {
+              add(Collections.singletonList(document.getValue()), commit);
+              written.put(document.getKey(), document.getValue());
+            } catch (Exception e1) {
+              logger.warn("Unable to index workflow {}: {}", document.getKey(), e1.getMessage());
+              failed.put(document.getKey(), document.getValue());
             }
-          } catch (Exception e) {
-            WorkflowServiceSolrIndex.logger.warn("Unable to index {}: {}", instance, e);
           }
         }
-      });
+      }
+      if (commit && !written.isEmpty()) {
+        try {
+          solrServer.commit();
+        } catch (Exception e) {
+          logger.warn("Unable to commit {} indexed workflows: {}", written.size(), e.getMessage());
+          failed.putAll(written);
+          written.clear();
+        }
+      }
+      synchronized (pendingDocuments) {
+        for (Long id : written.keySet()) {
+          failedAttempts.remove(id);
+        }
+      }
+      if (!failed.isEmpty())
+        retry(failed);
+    }
+    return failed.keySet();
+  }
+
+  /**
+   * Sends documents to the index in a single request. Unless they are going to be committed explicitly, solr is asked
+   * to commit them within the indexing latency.
+   */
+  private void add(Collection<SolrInputDocument> documents, boolean commit) throws SolrServerException, IOException {
+    UpdateRequest request = new UpdateRequest();
+    request.add(documents);
+    if (!commit)
+      request.setCommitWithin((int) Math.min(Integer.MAX_VALUE, Math.max(1L, indexingLatency)));
+    request.process(solrServer);
+  }
+
+  /**
+   * Queues documents which could not be written again and schedules their next attempt. Has to be called while holding
+   * the solr server lock, so that documents of workflow instances removed in the meantime are not queued again.
+   */
+  private void retry(Map<Long, SolrInputDocument> failed) {
+    int maxAttempts = 0;
+    synchronized (pendingDocuments) {
+      for (Map.Entry<Long, SolrInputDocument> document : failed.entrySet()) {
+        final Long id = document.getKey();
+        if (pendingDocuments.containsKey(id))
+          continue;
+        final Integer previous = failedAttempts.get(id);
+        final int attempts = previous == null ? 1 : previous + 1;
+        if (attempts >= MAX_INDEXING_ATTEMPTS) {
+          logger.error("Giving up indexing workflow {} after {} attempts, it is indexed again on its next update", id,
+                  attempts);
+          failedAttempts.remove(id);
+          continue;
+        }
+        failedAttempts.put(id, attempts);
+        pendingDocuments.put(id, document.getValue());
+        maxAttempts = Math.max(maxAttempts, attempts);
+      }
     }
+    if (maxAttempts > 0 && indexingExecutor != null)
+      scheduleFlush(Math.min(MAX_INDEXING_RETRY_DELAY, Math.max(1L, indexingLatency) << maxAttempts));
   }
 
   /**
@@ -440,11 +682,26 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
    * @throws Exception
    */
   protected SolrInputDocument createDocument(WorkflowInstance instance) throws Exception {
+    return createDocument(instance, null);
+  }
+
+  /**
+   * Creates the search index document of a workflow instance.
+   *
+   * @param instance
+   *          the instance
+   * @param xml
+   *          the serialized instance or <code>null</code> to serialize it
+   * @return the solr input document
+   * @throws Exception
+   */
+  protected SolrInputDocument createDocument(WorkflowInstance instance, String xml) throws Exception {
     SolrInputDocument doc = new SolrInputDocument();
     doc.addField(ID_KEY, instance.getId());
     doc.addField(WORKFLOW_DEFINITION_KEY, instance.getTemplate());
     doc.addField(STATE_KEY, instance.getState().toString());
-    String xml = WorkflowParser.toXml(instance);
+    if (xml == null)
+      xml = WorkflowParser.toXml(instance);
     doc.addField(XML_KEY, xml);
 
     // index the current operation if there is one. If the workflow is finished, there is no current operation, so use a
@@ -1055,6 +1312,11 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   public void remove(long id) throws WorkflowDatabaseException, NotFoundException {
     try {
       synchronized (solrServer) {
+        // Make sure a waiting update does not add the instance again
+        synchronized (pendingDocuments) {
+          pendingDocuments.remove(id);
+          failedAttempts.remove(id);
+        }
         solrServer.deleteById(Long.toString(id));
         solrServer.commit();
       }
@@ -1073,12 +1335,39 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     index(instance);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.workflow.impl.WorkflowServiceIndex#update(org.opencastproject.workflow.api.WorkflowInstance,
+   *      java.lang.String)
+   */
+  @Override
+  public void update(WorkflowInstance instance, String xml) throws WorkflowDatabaseException {
+    index(instance, xml);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.workflow.impl.WorkflowServiceIndex#update(org.opencastproject.workflow.api.WorkflowInstance,
+   *      java.lang.String, boolean)
+   */
+  @Override
+  public void update(WorkflowInstance instance, String xml, boolean readYourWrites)
+          throws WorkflowDatabaseException {
+    index(instance, xml, readYourWrites);
+  }
+
   /**
    * Clears the index of all workflow instances.
    */
   public void clear() throws WorkflowDatabaseException {
     try {
       synchronized (solrServer) {
+        synchronized (pendingDocuments) {
+          pendingDocuments.clear();
+          failedAttempts.clear();
+        }
         solrServer.deleteByQuery("*:*");
         solrServer.commit();
       }
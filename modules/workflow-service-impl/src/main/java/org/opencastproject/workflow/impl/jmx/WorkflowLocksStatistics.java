@@ -0,0 +1,118 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workflow.impl.jmx;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WorkflowLocksStatistics implements WorkflowLocksStatisticsMXBean {
+
+  private final AtomicLong lockCount = new AtomicLong();
+  private final AtomicLong contendedLockCount = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+  private final AtomicLong maxWaitTime = new AtomicLong();
+  private volatile int stripes;
+
+  public void setStripes(int stripes) {
+    this.stripes = stripes;
+  }
+
+  /**
+   * Records an acquired lock.
+   *
+   * @param contended
+   *          whether the lock was held by another thread on acquisition
+   * @param waitTime
+   *          the time spent waiting for the lock in nanoseconds
+   */
+  public void lockAcquired(boolean contended, long waitTime) {
+    lockCount.incrementAndGet();
+    if (!contended)
+      return;
+    contendedLockCount.incrementAndGet();
+    totalWaitTime.addAndGet(waitTime);
+    long max = maxWaitTime.get();
+    while (waitTime > max && !maxWaitTime.compareAndSet(max, waitTime)) {
+      max = maxWaitTime.get();
+    }
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#getStripes()
+   */
+  @Override
+  public int getStripes() {
+    return stripes;
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#getLockCount()
+   */
+  @Override
+  public long getLockCount() {
+    return lockCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#getContendedLockCount()
+   */
+  @Override
+  public long getContendedLockCount() {
+    return contendedLockCount.get();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#getTotalWaitTime()
+   */
+  @Override
+  public long getTotalWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get());
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#getAverageWaitTime()
+   */
+  @Override
+  public long getAverageWaitTime() {
+    long contended = contendedLockCount.get();
+    return contended == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get() / contended);
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#getMaxWaitTime()
+   */
+  @Override
+  public long getMaxWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowLocksStatisticsMXBean#reset()
+   */
+  @Override
+  public void reset() {
+    lockCount.set(0);
+    contendedLockCount.set(0);
+    totalWaitTime.set(0);
+    maxWaitTime.set(0);
+  }
+
+}
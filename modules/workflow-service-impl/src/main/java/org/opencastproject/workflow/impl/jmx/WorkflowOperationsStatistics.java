@@ -0,0 +1,104 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workflow.impl.jmx;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WorkflowOperationsStatistics implements WorkflowOperationsStatisticsMXBean {
+
+  private final AtomicLong declinedCount = new AtomicLong();
+  private volatile ThreadPoolExecutor executor;
+  private volatile int maxThreads;
+
+  /**
+   * Sets the pool of threads running workflow operations.
+   *
+   * @param executor
+   *          the thread pool
+   * @param maxThreads
+   *          the maximum number of threads, 0 if unbounded
+   */
+  public void setExecutor(ThreadPoolExecutor executor, int maxThreads) {
+    this.executor = executor;
+    this.maxThreads = maxThreads;
+  }
+
+  /**
+   * Records a workflow job which was not accepted because the pool was busy.
+   */
+  public void declined() {
+    declinedCount.incrementAndGet();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatisticsMXBean#getMaxThreads()
+   */
+  @Override
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatisticsMXBean#getThreads()
+   */
+  @Override
+  public int getThreads() {
+    ThreadPoolExecutor executor = this.executor;
+    return executor == null ? 0 : executor.getPoolSize();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatisticsMXBean#getRunning()
+   */
+  @Override
+  public int getRunning() {
+    ThreadPoolExecutor executor = this.executor;
+    return executor == null ? 0 : executor.getActiveCount();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatisticsMXBean#getQueued()
+   */
+  @Override
+  public int getQueued() {
+    ThreadPoolExecutor executor = this.executor;
+    return executor == null ? 0 : executor.getQueue().size();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatisticsMXBean#getCompletedCount()
+   */
+  @Override
+  public long getCompletedCount() {
+    ThreadPoolExecutor executor = this.executor;
+    return executor == null ? 0L : executor.getCompletedTaskCount();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowOperationsStatisticsMXBean#getDeclinedCount()
+   */
+  @Override
+  public long getDeclinedCount() {
+    return declinedCount.get();
+  }
+
+}
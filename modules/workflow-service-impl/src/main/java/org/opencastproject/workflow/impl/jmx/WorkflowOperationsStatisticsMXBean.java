@@ -0,0 +1,70 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workflow.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the pool of threads running workflow operations
+ */
+public interface WorkflowOperationsStatisticsMXBean {
+
+  /**
+   * Gets the maximum number of workflow operations running at the same time, 0 if unbounded
+   *
+   * @return the maximum number of threads
+   */
+  int getMaxThreads();
+
+  /**
+   * Gets the number of threads in the pool
+   *
+   * @return the number of threads
+   */
+  int getThreads();
+
+  /**
+   * Gets the number of workflow operations currently running
+   *
+   * @return the number of running workflow operations
+   */
+  int getRunning();
+
+  /**
+   * Gets the number of workflow operations waiting for a thread
+   *
+   * @return the number of queued workflow operations
+   */
+  int getQueued();
+
+  /**
+   * Gets the number of workflow operations which have been run
+   *
+   * @return the number of completed workflow operations
+   */
+  long getCompletedCount();
+
+  /**
+   * Gets the number of workflow jobs which were not accepted because the pool was busy
+   *
+   * @return the number of declined workflow jobs
+   */
+  long getDeclinedCount();
+
+}
@@ -23,41 +23,124 @@ package org.opencastproject.workflow.impl.jmx;
 
 import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
 import org.opencastproject.workflow.api.WorkflowStatistics;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.MBeanNotificationInfo;
 import javax.management.Notification;
 import javax.management.NotificationBroadcasterSupport;
 
+/**
+ * Statistics on the workflows of all organizations.
+ * <p>
+ * The statistics are maintained incrementally from the state changes of the workflows. Since a state change may be
+ * missed, e.g. if a workflow is changed on another node, they are occasionally replaced by statistics read from the
+ * workflow index using {@link #reconcile(Map, List)}. Workflows on hold are tracked up to {@link #MAX_WORKFLOWS_ON_HOLD}
+ * workflows.
+ */
 public class WorkflowsStatistics extends NotificationBroadcasterSupport implements WorkflowsStatisticsMXBean {
 
+  /** The maximum number of workflows on hold whose templates are tracked */
+  public static final int MAX_WORKFLOWS_ON_HOLD = 1000;
+
   private static final String DELIMITER = ";";
-  private long sequenceNumber = 1;
+  private final AtomicLong sequenceNumber = new AtomicLong(1);
 
-  private Map<String, Long> workflowCounts = new HashMap<String, Long>();
-  private WorkflowStatistics workflowStatistics;
+  /** The number of workflows per organization, indexed by the ordinal of the workflow state */
+  private final Map<String, long[]> workflowCounts = new HashMap<String, long[]>();
 
-  public WorkflowsStatistics(WorkflowStatistics workflowStatistics, List<WorkflowInstance> workflows) {
-    updateWorkflow(workflowStatistics, workflows);
+  /** The templates of the workflows on hold by workflow identifier */
+  private final Map<Long, String> workflowsOnHold = new LinkedHashMap<Long, String>();
+
+  /**
+   * Replaces the statistics.
+   *
+   * @param statistics
+   *          the workflow statistics per organization identifier
+   * @param workflows
+   *          the workflows on hold, only the first {@link #MAX_WORKFLOWS_ON_HOLD} workflows are tracked
+   */
+  public void reconcile(Map<String, WorkflowStatistics> statistics, List<WorkflowInstance> workflows) {
+    synchronized (this) {
+      workflowCounts.clear();
+      for (Entry<String, WorkflowStatistics> entry : statistics.entrySet()) {
+        WorkflowStatistics stats = entry.getValue();
+        long[] counts = getCounts(entry.getKey());
+        counts[WorkflowState.INSTANTIATED.ordinal()] = stats.getInstantiated();
+        counts[WorkflowState.RUNNING.ordinal()] = stats.getRunning();
+        counts[WorkflowState.STOPPED.ordinal()] = stats.getStopped();
+        counts[WorkflowState.PAUSED.ordinal()] = stats.getPaused();
+        counts[WorkflowState.SUCCEEDED.ordinal()] = stats.getFinished();
+        counts[WorkflowState.FAILED.ordinal()] = stats.getFailed();
+        counts[WorkflowState.FAILING.ordinal()] = stats.getFailing();
+      }
+      workflowsOnHold.clear();
+      for (WorkflowInstance wf : workflows) {
+        if (workflowsOnHold.size() >= MAX_WORKFLOWS_ON_HOLD)
+          break;
+        workflowsOnHold.put(wf.getId(), wf.getTemplate());
+      }
+    }
+    sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber.getAndIncrement(), "Workflows reconciled"));
   }
 
-  public void updateWorkflow(WorkflowStatistics workflowStatistics, List<WorkflowInstance> workflows) {
-    this.workflowStatistics = workflowStatistics;
-    for (WorkflowInstance wf : workflows) {
-      Long count = workflowCounts.get(wf.getTemplate());
-      if (count == null) {
-        workflowCounts.put(wf.getTemplate(), 1L);
+  /**
+   * Records the state change of a workflow.
+   *
+   * @param organization
+   *          the organization identifier of the workflow
+   * @param workflowId
+   *          the workflow identifier
+   * @param template
+   *          the workflow template
+   * @param from
+   *          the previous state or <code>null</code> if the workflow has been created
+   * @param to
+   *          the new state or <code>null</code> if the workflow has been removed
+   */
+  public void updateWorkflow(String organization, long workflowId, String template, WorkflowState from,
+          WorkflowState to) {
+    if (from == to)
+      return;
+    synchronized (this) {
+      long[] counts = getCounts(organization);
+      if (from != null)
+        counts[from.ordinal()] = Math.max(0L, counts[from.ordinal()] - 1);
+      if (to != null)
+        counts[to.ordinal()]++;
+      if (to == WorkflowState.PAUSED) {
+        if (workflowsOnHold.size() < MAX_WORKFLOWS_ON_HOLD)
+          workflowsOnHold.put(workflowId, template);
       } else {
-        workflowCounts.put(wf.getTemplate(), count++);
+        workflowsOnHold.remove(workflowId);
       }
     }
-    sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber++, "Workflow updated"));
+    sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber.getAndIncrement(), "Workflow updated"));
+  }
+
+  private long[] getCounts(String organization) {
+    long[] counts = workflowCounts.get(organization);
+    if (counts == null) {
+      counts = new long[WorkflowState.values().length];
+      workflowCounts.put(organization, counts);
+    }
+    return counts;
+  }
+
+  private synchronized int getCount(WorkflowState state) {
+    long count = 0L;
+    for (long[] counts : workflowCounts.values()) {
+      count += counts[state.ordinal()];
+    }
+    return (int) count;
   }
 
   @Override
@@ -74,8 +157,14 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    * @see org.opencastproject.workflow.impl.jmx.WorkflowsStatisticsMXBean#getTotal()
    */
   @Override
-  public int getTotal() {
-    return (int) workflowStatistics.getTotal();
+  public synchronized int getTotal() {
+    long total = 0L;
+    for (long[] counts : workflowCounts.values()) {
+      for (long count : counts) {
+        total += count;
+      }
+    }
+    return (int) total;
   }
 
   /**
@@ -83,7 +172,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getInstantiated() {
-    return (int) workflowStatistics.getInstantiated();
+    return getCount(WorkflowState.INSTANTIATED);
   }
 
   /**
@@ -91,7 +180,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getRunning() {
-    return (int) workflowStatistics.getRunning();
+    return getCount(WorkflowState.RUNNING);
   }
 
   /**
@@ -99,7 +188,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getOnHold() {
-    return (int) workflowStatistics.getPaused();
+    return getCount(WorkflowState.PAUSED);
   }
 
   /**
@@ -107,7 +196,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getStopped() {
-    return (int) workflowStatistics.getStopped();
+    return getCount(WorkflowState.STOPPED);
   }
 
   /**
@@ -115,7 +204,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getFinished() {
-    return (int) workflowStatistics.getFinished();
+    return getCount(WorkflowState.SUCCEEDED);
   }
 
   /**
@@ -123,7 +212,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getFailing() {
-    return (int) workflowStatistics.getFailing();
+    return getCount(WorkflowState.FAILING);
   }
 
   /**
@@ -131,7 +220,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public int getFailed() {
-    return (int) workflowStatistics.getFailed();
+    return getCount(WorkflowState.FAILED);
   }
 
   /**
@@ -139,8 +228,15 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
    */
   @Override
   public String[] getWorkflowsOnHold() {
+    Map<String, Long> templateCounts = new HashMap<String, Long>();
+    synchronized (this) {
+      for (String template : workflowsOnHold.values()) {
+        Long count = templateCounts.get(template);
+        templateCounts.put(template, count == null ? 1L : count + 1);
+      }
+    }
     List<String> operationList = new ArrayList<String>();
-    for (Entry<String, Long> entry : workflowCounts.entrySet()) {
+    for (Entry<String, Long> entry : templateCounts.entrySet()) {
       operationList.add(entry.getKey() + DELIMITER + entry.getValue());
     }
     return operationList.toArray(new String[operationList.size()]);
@@ -21,16 +21,23 @@
 
 package org.opencastproject.workflow.impl;
 
+import org.opencastproject.mediapackage.Catalog;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageElementBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageElements;
 import org.opencastproject.metadata.api.MediaPackageMetadataService;
 import org.opencastproject.metadata.api.MediapackageMetadataImpl;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.net.URI;
+
 public class MetadataExtractionTest {
   private WorkflowServiceImpl service;
 
@@ -68,4 +75,36 @@ public class MetadataExtractionTest {
     Assert.assertEquals(TITLE, mp.getTitle());
     Assert.assertEquals(SERIES, mp.getSeriesTitle());
   }
+
+  @Test
+  public void testMetadataCache() throws Exception {
+    MediaPackageMetadataService cachedService = EasyMock.createMock(MediaPackageMetadataService.class);
+    EasyMock.expect(cachedService.getPriority()).andReturn(1).anyTimes();
+    EasyMock.expect(cachedService.getMetadata((MediaPackage) EasyMock.anyObject())).andReturn(metadata).times(2);
+    EasyMock.replay(cachedService);
+    service = new WorkflowServiceImpl();
+    service.addMetadataService(cachedService);
+
+    MediaPackage mp = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    Catalog catalog = (Catalog) MediaPackageElementBuilderFactory.newInstance().newElementBuilder()
+            .elementFromURI(new URI("http://localhost/episode.xml"), Catalog.TYPE, MediaPackageElements.EPISODE);
+    catalog.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, "1"));
+    mp.add(catalog);
+
+    // The catalogs are unchanged, so the metadata is only extracted once
+    service.populateMediaPackageMetadata(mp);
+    service.populateMediaPackageMetadata(mp);
+    Assert.assertEquals(TITLE, mp.getTitle());
+
+    // Media packages with the same catalogs share the metadata
+    MediaPackage other = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    other.add((Catalog) catalog.clone());
+    service.populateMediaPackageMetadata(other);
+    Assert.assertEquals(TITLE, other.getTitle());
+
+    // A changed catalog is read again
+    catalog.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, "2"));
+    service.populateMediaPackageMetadata(mp);
+    EasyMock.verify(cachedService);
+  }
 }
@@ -62,6 +62,7 @@ import org.opencastproject.workflow.api.WorkflowDefinitionImpl;
 import org.opencastproject.workflow.api.WorkflowInstance;
 import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
 import org.opencastproject.workflow.api.WorkflowInstanceImpl;
+import org.opencastproject.workflow.api.WorkflowListener;
 import org.opencastproject.workflow.api.WorkflowOperationDefinitionImpl;
 import org.opencastproject.workflow.api.WorkflowOperationException;
 import org.opencastproject.workflow.api.WorkflowOperationHandler;
@@ -86,21 +87,34 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class WorkflowServiceImplTest {
 
@@ -292,6 +306,49 @@ public class WorkflowServiceImplTest {
     Assert.assertEquals(2, service.countWorkflowInstances());
   }
 
+  @Test
+  public void testListenersGetIndependentCopies() throws Exception {
+    final List<WorkflowInstance> notified = new CopyOnWriteArrayList<WorkflowInstance>();
+    final List<WorkflowState> notifiedStates = new CopyOnWriteArrayList<WorkflowState>();
+    final CountDownLatch succeeded = new CountDownLatch(1);
+    WorkflowListener listener = new WorkflowListener() {
+      @Override
+      public void operationChanged(WorkflowInstance workflow) {
+      }
+
+      @Override
+      public void stateChanged(WorkflowInstance workflow) {
+        notified.add(workflow);
+        notifiedStates.add(workflow.getState());
+        if (workflow.getState() == WorkflowState.SUCCEEDED)
+          succeeded.countDown();
+      }
+    };
+    service.addWorkflowListener(listener);
+    try {
+      WorkflowInstance instance = service.start(workingDefinition, mediapackage1);
+      Assert.assertTrue(succeeded.await(30, TimeUnit.SECONDS));
+      Assert.assertTrue(notified.size() > 1);
+
+      // Every listener got its own snapshot, which later updates of the workflow did not change
+      Set<WorkflowInstance> distinct = Collections.newSetFromMap(new IdentityHashMap<WorkflowInstance, Boolean>());
+      distinct.addAll(notified);
+      Assert.assertEquals(notified.size(), distinct.size());
+      Assert.assertFalse(distinct.contains(instance));
+      for (int i = 0; i < notified.size(); i++) {
+        Assert.assertEquals(notifiedStates.get(i), notified.get(i).getState());
+      }
+
+      // Changing a snapshot does not change the stored workflow
+      WorkflowInstance snapshot = notified.get(notified.size() - 1);
+      snapshot.getMediaPackage().setTitle("changed by a listener");
+      Assert.assertFalse("changed by a listener".equals(
+              service.getWorkflowById(instance.getId()).getMediaPackage().getTitle()));
+    } finally {
+      service.removeWorkflowListener(listener);
+    }
+  }
+
   @Test
   public void testGetWorkflowByMediaPackageId() throws Exception {
     // Ensure that the database doesn't have a workflow instance with this media package
@@ -855,6 +912,52 @@ public class WorkflowServiceImplTest {
     Assert.assertEquals(count, stateListener.countStateChanges(WorkflowState.SUCCEEDED));
   }
 
+  /**
+   * Updates two workflows in parallel to test that the striped locks don't lose updates.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testConcurrentUpdatesOfDifferentWorkflows() throws Exception {
+    final int updates = 10;
+    final WorkflowInstance[] instances = new WorkflowInstance[] {
+            startAndWait(pausingWorkflowDefinition, mediapackage1, WorkflowState.PAUSED),
+            startAndWait(pausingWorkflowDefinition, mediapackage2, WorkflowState.PAUSED) };
+
+    final CyclicBarrier start = new CyclicBarrier(instances.length);
+    ExecutorService executor = Executors.newFixedThreadPool(instances.length);
+    try {
+      List<Future<Void>> results = new ArrayList<Future<Void>>();
+      for (final WorkflowInstance instance : instances) {
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            start.await();
+            for (int i = 0; i < updates; i++) {
+              WorkflowInstance workflow = service.getWorkflowById(instance.getId());
+              workflow.setConfiguration("update-" + i, Long.toString(instance.getId()));
+              service.update(workflow);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> result : results) {
+        result.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (WorkflowInstance instance : instances) {
+      WorkflowInstance workflow = service.getWorkflowById(instance.getId());
+      assertEquals(WorkflowState.PAUSED, workflow.getState());
+      for (int i = 0; i < updates; i++) {
+        assertEquals(Long.toString(instance.getId()), workflow.getConfiguration("update-" + i));
+      }
+    }
+  }
+
   private WorkflowInstanceImpl setupWorkflowInstanceImpl(long id, String operation, WorkflowState state, Date startDate)
           throws ConfigurationException, MediaPackageException, NotFoundException, ServiceRegistryException {
 
@@ -965,6 +1068,67 @@ public class WorkflowServiceImplTest {
     }
   }
 
+  /**
+   * Test for {@link WorkflowServiceImpl#isReadyToAccept(Job)} declining jobs while all operation threads are busy and
+   * the operation queue is full
+   *
+   * @throws Exception
+   *           if anything fails
+   */
+  @Test
+  public void testDeclineJobsIfOperationThreadsAreBusy() throws Exception {
+    Hashtable<String, Object> properties = new Hashtable<String, Object>();
+    properties.put(WorkflowServiceImpl.OPERATION_THREADS_CONFIG_KEY, "1");
+    properties.put(WorkflowServiceImpl.OPERATION_QUEUE_SIZE_CONFIG_KEY, "1");
+    BundleContext bundleContext = createNiceMock(BundleContext.class);
+    expect(bundleContext.getProperty((String) EasyMock.anyObject())).andReturn("opencast_system_account").anyTimes();
+    ComponentContext cc = createNiceMock(ComponentContext.class);
+    expect(cc.getProperties()).andReturn(properties).anyTimes();
+    expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    OrganizationDirectoryService organizationDirectoryService = createNiceMock(OrganizationDirectoryService.class);
+    Job job = createNiceMock(Job.class);
+    expect(job.getOperation()).andReturn(WorkflowServiceImpl.Operation.START_OPERATION.toString()).anyTimes();
+    replay(bundleContext, cc, organizationDirectoryService, job);
+
+    // The limited service registers its JMX beans with the same names
+    service.deactivate();
+    WorkflowServiceImpl limitedService = new WorkflowServiceImpl();
+    limitedService.setSecurityService(securityService);
+    limitedService.setOrganizationDirectoryService(organizationDirectoryService);
+    limitedService.setDao(dao);
+    limitedService.activate(cc);
+
+    final CountDownLatch release = new CountDownLatch(1);
+    Runnable operation = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    try {
+      limitedService.operationExecutor.submit(operation);
+      for (int i = 0; i < 500 && limitedService.operationExecutor.getActiveCount() < 1; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, limitedService.operationExecutor.getActiveCount());
+
+      // The only thread is busy, but there is still room in the queue
+      Assert.assertTrue(limitedService.isReadyToAccept(job));
+      assertEquals(0, limitedService.getOperationsStatistics().getDeclinedCount());
+
+      limitedService.operationExecutor.submit(operation);
+      Assert.assertFalse(limitedService.isReadyToAccept(job));
+      assertEquals(1, limitedService.getOperationsStatistics().getDeclinedCount());
+    } finally {
+      release.countDown();
+      limitedService.deactivate();
+    }
+  }
+
   class SucceedingWorkflowOperationHandler extends AbstractWorkflowOperationHandler {
     @Override
     public SortedMap<String, String> getConfigurationOptions() {
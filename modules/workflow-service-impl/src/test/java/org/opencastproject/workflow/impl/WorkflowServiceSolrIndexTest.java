@@ -22,11 +22,21 @@
 package org.opencastproject.workflow.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.JobImpl;
+import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElements;
 import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.security.api.AccessControlList;
+import org.opencastproject.security.api.AclScope;
+import org.opencastproject.security.api.AuthorizationService;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbRole;
 import org.opencastproject.security.api.JaxbUser;
@@ -36,6 +46,8 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.util.PathSupport;
+import org.opencastproject.util.data.Tuple;
+import org.opencastproject.workflow.api.WorkflowDatabaseException;
 import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
 import org.opencastproject.workflow.api.WorkflowInstanceImpl;
 import org.opencastproject.workflow.api.WorkflowParser;
@@ -43,20 +55,39 @@ import org.opencastproject.workflow.api.WorkflowQuery;
 import org.opencastproject.workflow.api.WorkflowService;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.NamedList;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test cases for the implementation at {@link WorkflowServiceSolrIndex}.
  */
 public class WorkflowServiceSolrIndexTest {
 
+  /** The logger */
+  private static final Logger logger = LoggerFactory.getLogger(WorkflowServiceSolrIndexTest.class);
+
   private WorkflowServiceSolrIndex dao = null;
 
   @Before
@@ -182,4 +213,179 @@ public class WorkflowServiceSolrIndexTest {
     assertEquals(expected, solrQuery);
   }
 
+  /**
+   * Tests whether asynchronous indexing writes the latest update of a workflow and makes it visible on request
+   */
+  @Test
+  public void testAsynchronousIndexing() throws Exception {
+    enableAsynchronousIndexing();
+    WorkflowInstanceImpl workflow = createWorkflow(124);
+
+    // The update is waiting for being written
+    long count = dao.countWorkflowInstances(null, null);
+    dao.update(workflow, null, false);
+    assertEquals(count, dao.countWorkflowInstances(null, null));
+
+    // Only the latest update is written
+    workflow.setState(WorkflowState.RUNNING);
+    dao.update(workflow, null, false);
+    workflow.setState(WorkflowState.PAUSED);
+    dao.update(workflow, null, true);
+    assertEquals(count + 1, dao.countWorkflowInstances(null, null));
+    assertEquals(1, dao.countWorkflowInstances(WorkflowState.PAUSED, null));
+
+    // Removing a workflow discards its waiting update
+    workflow.setState(WorkflowState.SUCCEEDED);
+    dao.update(workflow, null, false);
+    dao.remove(124);
+    dao.flush();
+    assertEquals(count, dao.countWorkflowInstances(null, null));
+  }
+
+  /**
+   * Tests whether documents which cannot be written are retried without failing the updates of other workflows
+   */
+  @Test
+  public void testAsynchronousIndexingFailure() throws Exception {
+    enableAsynchronousIndexing();
+    final SolrServer solrServer = dao.solrServer;
+    final Set<String> rejected = new HashSet<String>();
+    rejected.add("125");
+    dao.solrServer = new SolrServer() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public NamedList<Object> request(SolrRequest request) throws SolrServerException, IOException {
+        if (request instanceof UpdateRequest && ((UpdateRequest) request).getDocuments() != null) {
+          for (SolrInputDocument doc : ((UpdateRequest) request).getDocuments()) {
+            if (rejected.contains(doc.getFieldValue(WorkflowServiceSolrIndex.ID_KEY).toString()))
+              throw new SolrServerException("Rejected");
+          }
+        }
+        return solrServer.request(request);
+      }
+    };
+    try {
+      long count = dao.countWorkflowInstances(null, null);
+      WorkflowInstanceImpl failing = createWorkflow(125);
+      dao.update(failing, null, false);
+
+      // The failing document of another workflow doesn't fail this update
+      dao.update(createWorkflow(124), null, true);
+      assertEquals(count + 1, dao.countWorkflowInstances(null, null));
+
+      try {
+        dao.update(failing, null, true);
+        fail("The update of a workflow which cannot be indexed must fail");
+      } catch (WorkflowDatabaseException e) {
+        // Expected
+      }
+
+      // The failed document is retried
+      rejected.clear();
+      dao.flush();
+      assertEquals(count + 2, dao.countWorkflowInstances(null, null));
+    } finally {
+      dao.solrServer = solrServer;
+    }
+  }
+
+  /**
+   * Tests whether documents written in the background are committed by solr, while read-your-writes updates commit
+   */
+  @Test
+  public void testAsynchronousIndexingCommitWithin() throws Exception {
+    enableAsynchronousIndexing();
+    dao.indexingLatency = 10L;
+    final SolrServer solrServer = dao.solrServer;
+    final List<UpdateRequest> updates = new CopyOnWriteArrayList<UpdateRequest>();
+    final CountDownLatch written = new CountDownLatch(1);
+    dao.solrServer = new SolrServer() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public NamedList<Object> request(SolrRequest request) throws SolrServerException, IOException {
+        NamedList<Object> response = solrServer.request(request);
+        if (request instanceof UpdateRequest) {
+          updates.add((UpdateRequest) request);
+          written.countDown();
+        }
+        return response;
+      }
+    };
+    try {
+      dao.update(createWorkflow(127), null, false);
+      assertTrue(written.await(10, TimeUnit.SECONDS));
+      assertEquals(1, updates.size());
+      assertEquals(10, updates.get(0).getCommitWithin());
+      assertFalse(isCommit(updates.get(0)));
+
+      updates.clear();
+      dao.update(createWorkflow(128), null, true);
+      assertEquals(2, updates.size());
+      assertTrue(isCommit(updates.get(1)));
+    } finally {
+      dao.solrServer = solrServer;
+    }
+  }
+
+  private static boolean isCommit(UpdateRequest request) {
+    return request.getParams() != null && request.getParams().getBool(UpdateParams.COMMIT, false);
+  }
+
+  /**
+   * Tests whether the index stores the serialized workflow it is given instead of serializing the workflow again
+   */
+  @Test
+  public void testReuseSerializedWorkflow() throws Exception {
+    setUpAuthorizationService();
+    WorkflowInstanceImpl workflow = createWorkflow(126);
+    for (int i = 0; i < 500; i++) {
+      workflow.getMediaPackage().add(new URI("http://localhost/track-" + i + ".mp4"), MediaPackageElement.Type.Track,
+              MediaPackageElements.PRESENTER_SOURCE);
+    }
+    String xml = WorkflowParser.toXml(workflow);
+    assertSame(xml, dao.createDocument(workflow, xml).getFieldValue("xml"));
+    assertEquals(xml, dao.createDocument(workflow).getFieldValue("xml"));
+
+    final int runs = 20;
+    long time = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      dao.createDocument(workflow);
+    }
+    final long serializingTime = System.nanoTime() - time;
+    time = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      dao.createDocument(workflow, xml);
+    }
+    final long reusingTime = System.nanoTime() - time;
+    logger.info("Created {} documents of a workflow with 500 tracks in {} ms serializing it and {} ms reusing its xml",
+            runs, TimeUnit.NANOSECONDS.toMillis(serializingTime), TimeUnit.NANOSECONDS.toMillis(reusingTime));
+  }
+
+  private void enableAsynchronousIndexing() {
+    setUpAuthorizationService();
+    dao.synchronousIndexing = false;
+    dao.indexingLatency = 60000L;
+    dao.indexingExecutor = WorkflowServiceSolrIndex.createIndexingExecutor();
+  }
+
+  private void setUpAuthorizationService() {
+    AuthorizationService authzService = EasyMock.createNiceMock(AuthorizationService.class);
+    EasyMock.expect(authzService.getActiveAcl((MediaPackage) EasyMock.anyObject()))
+            .andReturn(Tuple.tuple(new AccessControlList(), AclScope.Series)).anyTimes();
+    EasyMock.replay(authzService);
+    dao.setAuthorizationService(authzService);
+  }
+
+  private static WorkflowInstanceImpl createWorkflow(long id) throws Exception {
+    WorkflowInstanceImpl workflow = new WorkflowInstanceImpl();
+    workflow.setId(id);
+    workflow.setCreator(SecurityServiceStub.DEFAULT_ORG_ADMIN);
+    workflow.setOrganization(new DefaultOrganization());
+    workflow.setState(WorkflowState.INSTANTIATED);
+    workflow.setMediaPackage(MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew());
+    return workflow;
+  }
+
 }
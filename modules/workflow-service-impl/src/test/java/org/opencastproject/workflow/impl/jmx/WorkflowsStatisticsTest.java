@@ -0,0 +1,96 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl.jmx;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
+import org.opencastproject.workflow.api.WorkflowInstanceImpl;
+import org.opencastproject.workflow.api.WorkflowStatistics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class WorkflowsStatisticsTest {
+
+  @Test
+  public void testUpdateWorkflow() throws Exception {
+    WorkflowsStatistics statistics = new WorkflowsStatistics();
+    statistics.updateWorkflow("org1", 1L, "full", null, WorkflowState.INSTANTIATED);
+    statistics.updateWorkflow("org2", 2L, "full", null, WorkflowState.INSTANTIATED);
+    statistics.updateWorkflow("org1", 1L, "full", WorkflowState.INSTANTIATED, WorkflowState.RUNNING);
+    statistics.updateWorkflow("org1", 1L, "full", WorkflowState.RUNNING, WorkflowState.PAUSED);
+    assertEquals(2, statistics.getTotal());
+    assertEquals(1, statistics.getInstantiated());
+    assertEquals(0, statistics.getRunning());
+    assertEquals(1, statistics.getOnHold());
+    assertArrayEquals(new String[] { "full;1" }, statistics.getWorkflowsOnHold());
+
+    statistics.updateWorkflow("org1", 1L, "full", WorkflowState.PAUSED, WorkflowState.SUCCEEDED);
+    assertEquals(0, statistics.getOnHold());
+    assertEquals(1, statistics.getFinished());
+    assertEquals(0, statistics.getWorkflowsOnHold().length);
+
+    statistics.updateWorkflow("org1", 1L, "full", WorkflowState.SUCCEEDED, null);
+    assertEquals(1, statistics.getTotal());
+    assertEquals(0, statistics.getFinished());
+  }
+
+  @Test
+  public void testReconcile() throws Exception {
+    WorkflowsStatistics statistics = new WorkflowsStatistics();
+    statistics.updateWorkflow("org1", 1L, "full", null, WorkflowState.RUNNING);
+
+    WorkflowStatistics org1 = new WorkflowStatistics();
+    org1.setPaused(2);
+    org1.setFailed(1);
+    WorkflowStatistics org2 = new WorkflowStatistics();
+    org2.setPaused(1);
+    Map<String, WorkflowStatistics> counts = new HashMap<String, WorkflowStatistics>();
+    counts.put("org1", org1);
+    counts.put("org2", org2);
+    statistics.reconcile(counts, Arrays.<WorkflowInstance> asList(workflow(2L, "full"), workflow(3L, "full"),
+            workflow(4L, "fast")));
+
+    assertEquals(4, statistics.getTotal());
+    assertEquals(0, statistics.getRunning());
+    assertEquals(3, statistics.getOnHold());
+    assertEquals(1, statistics.getFailed());
+    String[] onHold = statistics.getWorkflowsOnHold();
+    Arrays.sort(onHold);
+    assertArrayEquals(new String[] { "fast;1", "full;2" }, onHold);
+  }
+
+  private static WorkflowInstance workflow(long id, String template) {
+    WorkflowInstanceImpl workflow = new WorkflowInstanceImpl();
+    workflow.setId(id);
+    workflow.setTemplate(template);
+    workflow.setState(WorkflowState.PAUSED);
+    return workflow;
+  }
+
+}
@@ -137,16 +137,19 @@ public class CleanupWorkflowOperationHandler extends AbstractWorkflowOperationHa
           Job operationInstanceJob = (serviceRegistry.getJob(operationInstanceId));
           List<String> list = new ArrayList<>();
           operationInstanceJob.setArguments(list);
-          serviceRegistry.updateJob(operationInstanceJob);
+          // the operation's job and its finished child jobs are updated in a single transaction
+          List<Job> jobsToUpdate = new ArrayList<>();
+          jobsToUpdate.add(operationInstanceJob);
 
           List<Job> jobs = serviceRegistry.getChildJobs(operationInstanceId);
           for (Job job : jobs) {
             if (job.getStatus() == Job.Status.FINISHED) {
               logger.debug("Deleting Arguments:  " + job.getArguments());
               job.setArguments(list);
-              serviceRegistry.updateJob(job);
+              jobsToUpdate.add(job);
             }
           }
+          serviceRegistry.updateJobs(jobsToUpdate);
         }
       } catch (ServiceRegistryException | NotFoundException ex) {
         logger.error("Deleting JobArguments failed for Job {}: {} ", operationInstanceId, ex);
@@ -90,7 +90,8 @@ public class CleanupWorkflowOperationHandlerTest {
     Job currentJob = EasyMock.createNiceMock(Job.class);
     currentJob.setArguments((List<String>) EasyMock.anyObject());
     EasyMock.expect(serviceRegistry.getJob(EasyMock.anyLong())).andReturn(currentJob).anyTimes();
-    EasyMock.expect(serviceRegistry.updateJob((Job) EasyMock.anyObject())).andReturn(currentJob).anyTimes();
+    EasyMock.expect(serviceRegistry.updateJobs((List<Job>) EasyMock.anyObject())).andReturn(Arrays.asList(currentJob))
+            .anyTimes();
     EasyMock.expect(serviceRegistry.getChildJobs(EasyMock.anyLong())).andReturn(new ArrayList<Job>()).anyTimes();
     EasyMock.replay(serviceRegistry, currentJob);
     cleanupWOH.setServiceRegistry(serviceRegistry);
@@ -0,0 +1,239 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workingfilerepository.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Deduplicating store for the contents of the working file repository.
+ * <p>
+ * Every distinct content is kept exactly once as <code>&lt;directory&gt;/&lt;ab&gt;/&lt;digest&gt;</code> and is
+ * materialized in the media package element directories as hard links. The hard link count of a stored file serves as
+ * its reference count: a content whose only remaining link is the one in the store is no longer referenced and can be
+ * removed. Since the reference count is maintained by the file system, it stays consistent if several nodes share the
+ * same storage.
+ */
+public class ContentAddressedStore {
+
+  /** The logger */
+  private static final Logger logger = LoggerFactory.getLogger(ContentAddressedStore.class);
+
+  /** The file attribute holding the number of hard links */
+  private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+
+  /** The store's root directory */
+  private final File directory;
+
+  /**
+   * Creates a content store in the given directory, which must be on the same file system as the files added to it.
+   *
+   * @param directory
+   *          the root directory of the store
+   */
+  public ContentAddressedStore(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns whether the file system of the given directory supports hard links and link counts.
+   *
+   * @param directory
+   *          an existing directory
+   * @return whether a content store can be created in the directory
+   */
+  public static boolean isSupported(File directory) {
+    File probe = null;
+    File link = null;
+    try {
+      probe = File.createTempFile("probe", ".tmp", directory);
+      link = new File(directory, probe.getName() + ".link");
+      Files.createLink(link.toPath(), probe.toPath());
+      return getLinkCount(probe.toPath()) == 2;
+    } catch (IOException | UnsupportedOperationException | IllegalArgumentException | SecurityException e) {
+      logger.debug("Hard links are not supported in {}: {}", directory, e.getMessage());
+      return false;
+    } finally {
+      FileUtils.deleteQuietly(link);
+      FileUtils.deleteQuietly(probe);
+    }
+  }
+
+  /**
+   * Adds a file to the store. If the store already contains the same content, the file is deleted and a new hard link
+   * to the stored content is returned instead, which can then be moved to the file's final location. Otherwise the file
+   * itself is added to the store and returned. Contents are only considered the same if their digests and sizes are
+   * equal, so a file whose digest collides with a stored content of a different size is kept as an independent copy.
+   *
+   * @param file
+   *          the file to add, located on the same file system as the store
+   * @param digest
+   *          the md5 digest of the file's content
+   * @return the file that holds the content, either <code>file</code> or a link to the stored content
+   * @throws IOException
+   *           if the content cannot be stored
+   */
+  public File store(File file, String digest) throws IOException {
+    final File content = getContentFile(digest);
+    FileUtils.forceMkdir(content.getParentFile());
+    try {
+      Files.createLink(content.toPath(), file.toPath());
+      logger.trace("Added content {} to the store", digest);
+      return file;
+    } catch (FileAlreadyExistsException e) {
+      logger.trace("Content {} is already stored", digest);
+    }
+
+    final File link = File.createTempFile("content", ".tmp", file.getParentFile());
+    try {
+      Files.delete(link.toPath());
+      Files.createLink(link.toPath(), content.toPath());
+    } catch (NoSuchFileException e) {
+      // The stored content has been released in the meantime
+      logger.debug("Content {} has been removed concurrently, storing it again", digest);
+      return store(file, digest);
+    }
+    if (!isSameContent(link, file)) {
+      Files.delete(link.toPath());
+      logger.warn("Stored content {} does not match the size of {}, not deduplicating it", digest, file);
+      return file;
+    }
+    Files.delete(file.toPath());
+    logger.debug("Deduplicated {} with stored content {}", file, digest);
+    return link;
+  }
+
+  /**
+   * Creates a hard link to the stored content at the given location, provided that the stored content is the source
+   * file itself or has the same size.
+   *
+   * @param digest
+   *          the md5 digest of the content
+   * @param source
+   *          the file whose content is to be linked
+   * @param target
+   *          the file to create, which must not exist
+   * @return whether the store contained the content
+   * @throws IOException
+   *           if the link cannot be created
+   */
+  public boolean link(String digest, File source, File target) throws IOException {
+    try {
+      Files.createLink(target.toPath(), getContentFile(digest).toPath());
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    if (!isSameContent(target, source)) {
+      Files.delete(target.toPath());
+      logger.warn("Stored content {} does not match the size of {}, not linking it", digest, source);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Removes the given content from the store if it is not referenced anymore.
+   *
+   * @param digest
+   *          the md5 digest of the content
+   * @return whether the content has been removed
+   */
+  public boolean release(String digest) {
+    final File content = getContentFile(digest);
+    try {
+      if (getLinkCount(content.toPath()) > 1)
+        return false;
+      Files.delete(content.toPath());
+      logger.trace("Removed unreferenced content {} from the store", digest);
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException e) {
+      logger.warn("Unable to release content {}: {}", digest, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Returns the number of files referencing the given content.
+   *
+   * @param digest
+   *          the md5 digest of the content
+   * @return the number of references or <code>-1</code> if the store does not contain the content
+   * @throws IOException
+   *           if the link count cannot be read
+   */
+  public int getReferenceCount(String digest) throws IOException {
+    try {
+      return getLinkCount(getContentFile(digest).toPath()) - 1;
+    } catch (NoSuchFileException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Removes all contents that are not referenced anymore, e.g. because media package directories have been deleted
+   * without going through the working file repository.
+   *
+   * @return the number of removed contents
+   */
+  public int collectGarbage() {
+    int removed = 0;
+    final File[] prefixes = directory.listFiles();
+    if (prefixes == null)
+      return 0;
+    for (File prefix : prefixes) {
+      final File[] contents = prefix.listFiles();
+      if (contents == null)
+        continue;
+      for (File content : contents) {
+        if (release(content.getName()))
+          removed++;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns whether two files with the same digest hold the same content. Files linking the same inode are the same,
+   * otherwise the digest and the size are trusted rather than reading both files.
+   */
+  private static boolean isSameContent(File a, File b) throws IOException {
+    return Files.isSameFile(a.toPath(), b.toPath()) || a.length() == b.length();
+  }
+
+  private File getContentFile(String digest) {
+    return new File(new File(directory, digest.substring(0, 2)), digest);
+  }
+
+  private static int getLinkCount(Path path) throws IOException {
+    return ((Number) Files.getAttribute(path, LINK_COUNT_ATTRIBUTE)).intValue();
+  }
+
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workingfilerepository.impl;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.util.data.Option;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * A contiguous region of a file, written to the response using {@link FileChannel#transferTo(long, long,
+ * WritableByteChannel)}, so that only the requested bytes are read.
+ */
+final class FileRegion implements StreamingOutput {
+
+  /** The unit of the supported HTTP range requests */
+  private static final String BYTES_UNIT = "bytes=";
+
+  /** The precision of HTTP dates in milliseconds */
+  private static final long HTTP_DATE_PRECISION = 1000L;
+
+  /** The file */
+  private final File file;
+
+  /** The offset of the first byte of the region */
+  private final long start;
+
+  /** The offset of the last byte of the region */
+  private final long end;
+
+  /** The file length at the time the region was created */
+  private final long fileLength;
+
+  private FileRegion(File file, long start, long end, long fileLength) {
+    this.file = file;
+    this.start = start;
+    this.end = end;
+    this.fileLength = fileLength;
+  }
+
+  /**
+   * Creates a region spanning the whole file.
+   *
+   * @param file
+   *          the file
+   * @return the region
+   */
+  static FileRegion whole(File file) {
+    final long length = file.length();
+    return new FileRegion(file, 0, length - 1, length);
+  }
+
+  /**
+   * Parses the value of an HTTP <code>Range</code> header. Only single byte ranges are supported, i.e.
+   * <code>bytes=first-last</code>, <code>bytes=first-</code> and <code>bytes=-suffixLength</code>. Headers that are
+   * missing, malformed or request multiple ranges are ignored, as permitted by RFC 7233, in which case the whole file
+   * should be returned.
+   *
+   * @param file
+   *          the file
+   * @param rangeHeader
+   *          the header value, may be <code>null</code>
+   * @return the requested region or none if the header should be ignored
+   */
+  static Option<FileRegion> parse(File file, String rangeHeader) {
+    final String range = StringUtils.trimToNull(rangeHeader);
+    if (range == null || !range.startsWith(BYTES_UNIT))
+      return none();
+    final String spec = range.substring(BYTES_UNIT.length()).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0 || spec.indexOf(',') >= 0)
+      return none();
+
+    final long length = file.length();
+    try {
+      final String first = spec.substring(0, dash).trim();
+      final String last = spec.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        // Suffix range, i.e. the last n bytes
+        final long suffix = Long.parseLong(last);
+        if (suffix < 0)
+          return none();
+        return some(new FileRegion(file, Math.max(0, length - suffix), suffix == 0 ? -1 : length - 1, length));
+      }
+      final long start = Long.parseLong(first);
+      final long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+      if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start))
+        return none();
+      return some(new FileRegion(file, start, end, length));
+    } catch (NumberFormatException e) {
+      return none();
+    }
+  }
+
+  /**
+   * Evaluates the value of an HTTP <code>If-Range</code> header. A range request may only be answered with a part of the
+   * file if the header is missing, if it matches the entity tag of the file or if the file has not been modified since
+   * the given date. Otherwise the whole file has to be sent, as the client's copy of the other parts is outdated.
+   *
+   * @param file
+   *          the file
+   * @param eTag
+   *          the entity tag of the file, may be <code>null</code>
+   * @param ifRangeHeader
+   *          the header value, may be <code>null</code>
+   * @return whether a requested range may be served
+   */
+  static boolean isRangeValid(File file, String eTag, String ifRangeHeader) {
+    final String ifRange = StringUtils.trimToNull(ifRangeHeader);
+    if (ifRange == null)
+      return true;
+    // Weak entity tags must not be used for range requests
+    if (ifRange.startsWith("W/"))
+      return false;
+    if (ifRange.startsWith("\""))
+      return eTag != null && StringUtils.strip(ifRange, "\"").equals(StringUtils.strip(eTag, "\""));
+    try {
+      final long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return file.lastModified() < date + HTTP_DATE_PRECISION;
+    } catch (DateTimeParseException e) {
+      // Some clients don't quote the entity tag
+      return eTag != null && ifRange.equals(eTag);
+    }
+  }
+
+  /**
+   * Returns whether the region contains at least one byte of the file. Unsatisfiable ranges have to be answered with
+   * status 416.
+   */
+  boolean isSatisfiable() {
+    return start < fileLength && start <= end;
+  }
+
+  /** Returns whether the region is only a part of the file. */
+  boolean isPartial() {
+    return start > 0 || end < fileLength - 1;
+  }
+
+  /** Returns the number of bytes in the region. */
+  long getLength() {
+    return Math.max(0, end - start + 1);
+  }
+
+  /** Returns the value of the <code>Content-Range</code> header describing the region. */
+  String getContentRange() {
+    if (!isSatisfiable())
+      return "bytes */" + fileLength;
+    return "bytes " + start + "-" + end + "/" + fileLength;
+  }
+
+  @Override
+  public void write(OutputStream out) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final WritableByteChannel target = Channels.newChannel(out);
+      long position = start;
+      long remaining = getLength();
+      while (remaining > 0) {
+        final long transferred = channel.transferTo(position, remaining, target);
+        if (transferred <= 0)
+          throw new IOException("File " + file + " was truncated while it was being sent");
+        position += transferred;
+        remaining -= transferred;
+      }
+      out.flush();
+    }
+  }
+
+}
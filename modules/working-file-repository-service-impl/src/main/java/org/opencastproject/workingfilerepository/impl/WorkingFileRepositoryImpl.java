@@ -59,8 +59,13 @@ import java.nio.file.StandardCopyOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.ObjectInstance;
 
@@ -83,6 +88,18 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     }
   };
 
+  /** Configuration key for enabling the deduplicating content store */
+  public static final String DEDUPLICATION_KEY = "org.opencastproject.file.repo.deduplication";
+
+  /** Configuration key for the interval in seconds in which unreferenced contents are removed from the store */
+  public static final String DEDUPLICATION_GC_INTERVAL_KEY = "org.opencastproject.file.repo.deduplication.gc.interval";
+
+  /** The default interval in seconds in which unreferenced contents are removed from the store */
+  public static final long DEFAULT_DEDUPLICATION_GC_INTERVAL = 3600L;
+
+  /** The directory below the root directory holding the deduplicated contents */
+  public static final String CONTENT_STORE_DIRECTORY = "content";
+
   /** Working file repository JMX type */
   private static final String JMX_WORKING_FILE_REPOSITORY_TYPE = "WorkingFileRepository";
 
@@ -107,6 +124,12 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
   /** The security service to get current organization from */
   protected SecurityService securityService;
 
+  /** The deduplicating content store or <code>null</code> if deduplication is disabled */
+  protected ContentAddressedStore contentStore = null;
+
+  /** Removes unreferenced contents from the content store periodically */
+  private ScheduledExecutorService contentStoreCollector = null;
+
   /**
    * Activate the component
    */
@@ -139,6 +162,12 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
       throw e;
     }
 
+    if (Boolean.parseBoolean(StringUtils.trimToEmpty(cc.getBundleContext().getProperty(DEDUPLICATION_KEY)))) {
+      createContentStore();
+      if (contentStore != null)
+        scheduleContentStoreCollection(cc.getBundleContext().getProperty(DEDUPLICATION_GC_INTERVAL_KEY));
+    }
+
     registeredMXBean = JmxUtil.registerMXBean(workingFileRepositoryBean, JMX_WORKING_FILE_REPOSITORY_TYPE);
 
     logger.info(getDiskSpace());
@@ -148,9 +177,66 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
    * Callback from OSGi on service deactivation.
    */
   public void deactivate() {
+    if (contentStoreCollector != null)
+      contentStoreCollector.shutdownNow();
     JmxUtil.unregisterMXBean(registeredMXBean);
   }
 
+  /**
+   * Creates the deduplicating content store below the root directory. If the file system does not support hard links,
+   * deduplication stays disabled.
+   *
+   * @throws IOException
+   *         if the content store directory cannot be created
+   */
+  void createContentStore() throws IOException {
+    File directory = new File(rootDirectory, CONTENT_STORE_DIRECTORY);
+    FileUtils.forceMkdir(directory);
+    if (!ContentAddressedStore.isSupported(directory)) {
+      logger.warn("Deduplication is disabled since {} does not support hard links", directory);
+      return;
+    }
+    contentStore = new ContentAddressedStore(directory);
+    int removed = contentStore.collectGarbage();
+    logger.info("Deduplicating identical files in {}, removed {} unreferenced contents", directory, removed);
+  }
+
+  /**
+   * Removes unreferenced contents from the content store periodically. Contents are released when the working file
+   * repository deletes their last link, but media package directories may also be deleted directly.
+   *
+   * @param interval
+   *          the configured interval in seconds or <code>null</code> to use the default
+   */
+  private void scheduleContentStoreCollection(String interval) {
+    long seconds = DEFAULT_DEDUPLICATION_GC_INTERVAL;
+    if (StringUtils.isNotBlank(interval)) {
+      try {
+        seconds = Long.parseLong(interval.trim());
+      } catch (NumberFormatException e) {
+        seconds = -1L;
+      }
+      if (seconds <= 0) {
+        logger.warn("Invalid content store collection interval '{}', using the default of {} seconds", interval,
+                DEFAULT_DEDUPLICATION_GC_INTERVAL);
+        seconds = DEFAULT_DEDUPLICATION_GC_INTERVAL;
+      }
+    }
+    contentStoreCollector = Executors.newSingleThreadScheduledExecutor();
+    contentStoreCollector.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          int removed = contentStore.collectGarbage();
+          logger.debug("Removed {} unreferenced contents from the content store", removed);
+        } catch (Exception e) {
+          logger.warn("Unable to remove unreferenced contents from the content store", e);
+        }
+      }
+    }, seconds, seconds, TimeUnit.SECONDS);
+    logger.info("Removing unreferenced contents from the content store every {} seconds", seconds);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -160,6 +246,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     File f;
     try {
       f = getFile(mediaPackageID, mediaPackageElementID);
+      String digest = readStoredDigest(f);
 
       File parentDirectory = f.getParentFile();
       logger.debug("Attempting to delete {}", parentDirectory.getAbsolutePath());
@@ -167,6 +254,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
       File parentsParentDirectory = parentDirectory.getParentFile();
       if (parentsParentDirectory.isDirectory() && parentsParentDirectory.list().length == 0)
         FileUtils.forceDelete(parentDirectory.getParentFile());
+      releaseContent(digest);
       return true;
     } catch (NotFoundException e) {
       log.info("Unable to delete non existing media package element {}@{}", mediaPackageElementID, mediaPackageID);
@@ -259,9 +347,15 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     File dir = getElementDirectory(mediaPackageID, mediaPackageElementID);
 
     File[] filesToDelete = null;
+    List<String> replacedDigests = new ArrayList<String>();
 
     if (dir.exists()) {
       filesToDelete = dir.listFiles();
+      for (File md5FileToDelete : dir.listFiles(MD5_FINAME_FILTER)) {
+        String digest = readStoredDigest(getSourceFile(md5FileToDelete));
+        if (digest != null)
+          replacedDigests.add(digest);
+      }
     } else {
       logger.debug("Attempting to create a new directory at {}", dir.getAbsolutePath());
       FileUtils.forceMkdir(dir);
@@ -282,6 +376,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     }
 
     FileOutputStream out = null;
+    String md5 = null;
     try {
 
       fTmp = File.createTempFile(f.getName(), ".tmp", dir);
@@ -303,7 +398,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
       }
 
       // Store the hash
-      String md5 = Checksum.convertToHex(dis.getMessageDigest().digest());
+      md5 = Checksum.convertToHex(dis.getMessageDigest().digest());
       try {
         FileUtils.writeStringToFile(md5FileTmp, md5);
       } catch (IOException e) {
@@ -322,6 +417,15 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
       IOUtils.closeQuietly(in);
     }
 
+    // Replace the new file with a link to identical content that is already stored
+    if (contentStore != null) {
+      try {
+        fTmp = contentStore.store(fTmp, md5);
+      } catch (IOException e) {
+        logger.warn("Unable to deduplicate {}: {}", f.getAbsolutePath(), e.getMessage());
+      }
+    }
+
     // Rename temporary files to the final version atomically
     try {
       Files.move(md5FileTmp.toPath(), md5File.toPath(), StandardCopyOption.ATOMIC_MOVE);
@@ -343,6 +447,10 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
         }
       }
     }
+    for (String digest : replacedDigests) {
+      if (!digest.equals(md5))
+        releaseContent(digest);
+    }
 
     return getURI(mediaPackageID, mediaPackageElementID, filename);
   }
@@ -393,6 +501,36 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     }
   }
 
+  /**
+   * Returns the precalculated md5 hash of a content file.
+   *
+   * @param f
+   *         the content file
+   * @return the md5 hash or <code>null</code> if it cannot be read
+   */
+  private String readStoredDigest(File f) {
+    File md5File = getMd5File(f);
+    if (!md5File.isFile())
+      return null;
+    try {
+      return StringUtils.trimToNull(FileUtils.readFileToString(md5File, "utf-8"));
+    } catch (IOException e) {
+      logger.debug("Unable to read md5 hash from {}: {}", md5File, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Removes the content with the given md5 hash from the content store if it is not referenced anymore.
+   *
+   * @param digest
+   *         the md5 hash, may be <code>null</code>
+   */
+  private void releaseContent(String digest) {
+    if (contentStore != null && digest != null)
+      contentStore.release(digest);
+  }
+
   /**
    * Gets the file handle for an md5 associated with a content file. Calling this method and obtaining a File handle is
    * not a guarantee that the md5 file exists.
@@ -668,8 +806,14 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     File destFile;
     try {
       destFile = new File(destDir, PathSupport.toSafeName(toFileName));
-      FileSupport.link(source, destFile);
-      createMd5(destFile);
+      String digest = contentStore != null && !destFile.exists() ? readStoredDigest(source) : null;
+      if (digest != null && contentStore.link(digest, source, destFile)) {
+        // Identical content is already stored, so there is no need to share the file with the collection
+        FileUtils.writeStringToFile(getMd5File(destFile), digest);
+      } else {
+        FileSupport.link(source, destFile);
+        createMd5(destFile);
+      }
     } catch (Exception e) {
       FileUtils.deleteDirectory(destDir);
     }
@@ -25,11 +25,10 @@ import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
 import static javax.servlet.http.HttpServletResponse.SC_NO_CONTENT;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_PARTIAL_CONTENT;
+import static javax.servlet.http.HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE;
 import static org.opencastproject.util.IoSupport.withFile;
 import static org.opencastproject.util.MimeTypes.getMimeType;
-import static org.opencastproject.util.RestUtil.R.ok;
-import static org.opencastproject.util.RestUtil.fileResponse;
-import static org.opencastproject.util.RestUtil.partialFileResponse;
 import static org.opencastproject.util.data.Option.none;
 import static org.opencastproject.util.data.Option.some;
 import static org.opencastproject.util.doc.rest.RestParameter.Type.FILE;
@@ -37,6 +36,7 @@ import static org.opencastproject.util.doc.rest.RestParameter.Type.STRING;
 
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.data.Function2;
+import org.opencastproject.util.data.Option;
 import org.opencastproject.util.doc.rest.RestParameter;
 import org.opencastproject.util.doc.rest.RestQuery;
 import org.opencastproject.util.doc.rest.RestResponse;
@@ -64,6 +64,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Date;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DELETE;
@@ -243,11 +244,14 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
           @RestParameter(name = "mediaPackageID", description = "the mediapackage identifier", isRequired = true, type = STRING),
           @RestParameter(name = "mediaPackageElementID", description = "the mediapackage element identifier", isRequired = true, type = STRING) }, reponses = {
           @RestResponse(responseCode = SC_OK, description = "File returned"),
+          @RestResponse(responseCode = SC_PARTIAL_CONTENT, description = "Requested range of the file returned"),
           @RestResponse(responseCode = SC_NOT_MODIFIED, description = "If file not modified"),
-          @RestResponse(responseCode = SC_NOT_FOUND, description = "Not found") })
+          @RestResponse(responseCode = SC_NOT_FOUND, description = "Not found"),
+          @RestResponse(responseCode = SC_REQUESTED_RANGE_NOT_SATISFIABLE, description = "Requested range not satisfiable") })
   public Response restGet(@PathParam("mediaPackageID") final String mediaPackageID,
           @PathParam("mediaPackageElementID") final String mediaPackageElementID,
-          @HeaderParam("If-None-Match") String ifNoneMatch) throws NotFoundException {
+          @HeaderParam("If-None-Match") String ifNoneMatch, @HeaderParam("Range") String range,
+          @HeaderParam("If-Range") String ifRange) throws NotFoundException {
     // Check the If-None-Match header first
     String md5 = null;
     try {
@@ -259,12 +263,14 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
       logger.warn("Error reading digest of {}/{}", mediaPackageElementID, mediaPackageElementID);
     }
     try {
-      return withFile(getFile(mediaPackageID, mediaPackageElementID), new Function2.X<InputStream, File, Response>() {
+      final File file = getFile(mediaPackageID, mediaPackageElementID);
+      final String contentType = withFile(file, new Function2.X<InputStream, File, String>() {
         @Override
-        public Response xapply(InputStream in, File f) throws Exception {
-          return ok(get(mediaPackageID, mediaPackageElementID), extractContentType(in), some(f.length()), none(""));
+        public String xapply(InputStream in, File f) throws Exception {
+          return extractContentType(in);
         }
       }).orError(new NotFoundException()).get();
+      return fileRegionResponse(file, contentType, none(""), range, ifRange, md5);
     } catch (IllegalStateException e) {
       logger.error("Unable to provide element '{}' from mediapackage '{}': {}", mediaPackageElementID,
               mediaPackageID, e);
@@ -301,11 +307,13 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
           @RestParameter(name = "mediaPackageElementID", description = "the mediapackage element identifier", isRequired = true, type = STRING),
           @RestParameter(name = "fileName", description = "the file name", isRequired = true, type = STRING) }, reponses = {
           @RestResponse(responseCode = SC_OK, description = "File returned"),
-          @RestResponse(responseCode = SC_NOT_FOUND, description = "Not found") })
+          @RestResponse(responseCode = SC_PARTIAL_CONTENT, description = "Requested range of the file returned"),
+          @RestResponse(responseCode = SC_NOT_FOUND, description = "Not found"),
+          @RestResponse(responseCode = SC_REQUESTED_RANGE_NOT_SATISFIABLE, description = "Requested range not satisfiable") })
   public Response restGet(@PathParam("mediaPackageID") String mediaPackageID,
           @PathParam("mediaPackageElementID") String mediaPackageElementID, @PathParam("fileName") String fileName,
-          @HeaderParam("If-None-Match") String ifNoneMatch, @HeaderParam("Range") String range)
-          throws NotFoundException {
+          @HeaderParam("If-None-Match") String ifNoneMatch, @HeaderParam("Range") String range,
+          @HeaderParam("If-Range") String ifRange) throws NotFoundException {
     String md5 = null;
     // Check the If-None-Match header first
     try {
@@ -319,16 +327,10 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
     }
 
     try {
-      if (StringUtils.isNotBlank(range)) {
-        logger.debug("trying to retrieve range: {}", range);
-        return partialFileResponse(getFile(mediaPackageID, mediaPackageElementID), getMimeType(fileName),
-                some(fileName), range).tag(md5).build();
-
-      } else {
-        // No If-Non-Match header provided, or the file changed in the meantime
-        return fileResponse(getFile(mediaPackageID, mediaPackageElementID), getMimeType(fileName),
-                some(fileName)).tag(md5).build();
-      }
+      return fileRegionResponse(getFile(mediaPackageID, mediaPackageElementID), getMimeType(fileName),
+              some(fileName), range, ifRange, md5);
+    } catch (NotFoundException e) {
+      throw e;
     } catch (Exception e) {
       logger.error("Unable to provide element '{}' from mediapackage '{}': {}", mediaPackageElementID,
               mediaPackageID, e);
@@ -342,11 +344,61 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
           @RestParameter(name = "collectionId", description = "the collection identifier", isRequired = true, type = STRING),
           @RestParameter(name = "fileName", description = "the file name", isRequired = true, type = STRING) }, reponses = {
           @RestResponse(responseCode = SC_OK, description = "File returned"),
-          @RestResponse(responseCode = SC_NOT_FOUND, description = "Not found") })
+          @RestResponse(responseCode = SC_PARTIAL_CONTENT, description = "Requested range of the file returned"),
+          @RestResponse(responseCode = SC_NOT_FOUND, description = "Not found"),
+          @RestResponse(responseCode = SC_REQUESTED_RANGE_NOT_SATISFIABLE, description = "Requested range not satisfiable") })
   public Response restGetFromCollection(@PathParam("collectionId") String collectionId,
-          @PathParam("fileName") String fileName) throws NotFoundException {
-    return fileResponse(getFileFromCollection(collectionId, fileName), getMimeType(fileName), some(fileName))
-            .build();
+          @PathParam("fileName") String fileName, @HeaderParam("Range") String range,
+          @HeaderParam("If-Range") String ifRange) throws NotFoundException {
+    return fileRegionResponse(getFileFromCollection(collectionId, fileName), getMimeType(fileName), some(fileName),
+            range, ifRange, null);
+  }
+
+  /**
+   * Creates a response serving the given file or, if a satisfiable byte range was requested and the
+   * <code>If-Range</code> condition holds, the requested part of it.
+   *
+   * @param file
+   *          the file to serve
+   * @param contentType
+   *          the content type
+   * @param fileName
+   *          the file name to send as content disposition
+   * @param range
+   *          the value of the <code>Range</code> header, may be <code>null</code>
+   * @param ifRange
+   *          the value of the <code>If-Range</code> header, may be <code>null</code>
+   * @param md5
+   *          the md5 hash of the file to send as entity tag, may be <code>null</code>
+   * @return the response
+   */
+  private Response fileRegionResponse(File file, String contentType, Option<String> fileName, String range,
+          String ifRange, String md5) {
+    FileRegion region = FileRegion.whole(file);
+    if (range != null && !FileRegion.isRangeValid(file, md5, ifRange)) {
+      logger.debug("Ignoring range '{}' of {}, the client's copy is outdated", range, file);
+      range = null;
+    }
+    for (FileRegion requested : FileRegion.parse(file, range)) {
+      if (!requested.isSatisfiable()) {
+        logger.debug("Requested range '{}' of {} is not satisfiable", range, file);
+        return Response.status(SC_REQUESTED_RANGE_NOT_SATISFIABLE).header("Content-Range",
+                requested.getContentRange()).build();
+      }
+      logger.debug("Serving range '{}' of {}", range, file);
+      region = requested;
+    }
+
+    final Response.ResponseBuilder b = Response.status(region.isPartial() ? SC_PARTIAL_CONTENT : SC_OK)
+            .entity(region).header("Accept-Ranges", "bytes").header("Content-Length", region.getLength())
+            .header("Content-Type", contentType).lastModified(new Date(file.lastModified()));
+    if (region.isPartial())
+      b.header("Content-Range", region.getContentRange());
+    for (String fn : fileName)
+      b.header("Content-Disposition", "attachment; filename=" + fn);
+    if (md5 != null)
+      b.tag(md5);
+    return b.build();
   }
 
   @GET
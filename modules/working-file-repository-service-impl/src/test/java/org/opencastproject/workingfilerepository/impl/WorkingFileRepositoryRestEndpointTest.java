@@ -36,13 +36,19 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import junit.framework.Assert;
 
@@ -82,7 +88,6 @@ public class WorkingFileRepositoryRestEndpointTest {
     String mediaPackageId = "mp";
     String image = "element1";
     InputStream in = null;
-    InputStream responseIn = null;
 
     try {
       in = getClass().getResourceAsStream("/opencast_header.gif");
@@ -92,7 +97,7 @@ public class WorkingFileRepositoryRestEndpointTest {
     }
 
     // execute gets, and ensure that the content types are correct
-    Response response = endpoint.restGet(mediaPackageId, image, null);
+    Response response = endpoint.restGet(mediaPackageId, image, null, null, null);
 
     Assert.assertEquals("Gif content type", "image/gif", response.getMetadata().getFirst("Content-Type"));
 
@@ -100,12 +105,10 @@ public class WorkingFileRepositoryRestEndpointTest {
     try {
       in = getClass().getResourceAsStream("/opencast_header.gif");
       byte[] bytesFromClasspath = IOUtils.toByteArray(in);
-      responseIn = (InputStream) response.getEntity();
-      byte[] bytesFromRepo = IOUtils.toByteArray(responseIn);
+      byte[] bytesFromRepo = getEntity(response);
       Assert.assertTrue(Arrays.equals(bytesFromClasspath, bytesFromRepo));
     } finally {
       IOUtils.closeQuietly(in);
-      IOUtils.closeQuietly(responseIn);
     }
   }
 
@@ -123,7 +126,7 @@ public class WorkingFileRepositoryRestEndpointTest {
     }
 
     // execute gets, and ensure that the content types are correct
-    Response response = endpoint.restGetFromCollection("collection-2", "opencast_header.gif");
+    Response response = endpoint.restGetFromCollection("collection-2", "opencast_header.gif", null, null);
 
     Assert.assertEquals("Gif content type", "image/gif", response.getMetadata().getFirst("Content-Type"));
   }
@@ -134,7 +137,6 @@ public class WorkingFileRepositoryRestEndpointTest {
     String mediaPackageId = "mp";
     String dc = "element1";
     InputStream in = null;
-    InputStream responseIn = null;
     try {
       in = getClass().getResourceAsStream("/dublincore.xml");
       endpoint.put(mediaPackageId, dc, "dublincore.xml", in);
@@ -143,7 +145,7 @@ public class WorkingFileRepositoryRestEndpointTest {
     }
 
     // execute gets, and ensure that the content types are correct
-    Response response = endpoint.restGet(mediaPackageId, dc, null);
+    Response response = endpoint.restGet(mediaPackageId, dc, null, null, null);
 
     Assert.assertEquals("Gif content type", "application/xml", response.getMetadata().getFirst("Content-Type"));
 
@@ -151,12 +153,10 @@ public class WorkingFileRepositoryRestEndpointTest {
     try {
       in = getClass().getResourceAsStream("/dublincore.xml");
       byte[] imageBytesFromClasspath = IOUtils.toByteArray(in);
-      responseIn = (InputStream) response.getEntity();
-      byte[] imageBytesFromRepo = IOUtils.toByteArray(responseIn);
+      byte[] imageBytesFromRepo = getEntity(response);
       Assert.assertTrue(Arrays.equals(imageBytesFromClasspath, imageBytesFromRepo));
     } finally {
       IOUtils.closeQuietly(in);
-      IOUtils.closeQuietly(responseIn);
     }
   }
 
@@ -164,7 +164,6 @@ public class WorkingFileRepositoryRestEndpointTest {
     String mediaPackageId = "mp";
     String dc = "element1";
     InputStream in = null;
-    InputStream responseIn = null;
     try {
       in = getClass().getResourceAsStream("/dublincore.xml");
       endpoint.put(mediaPackageId, dc, "dublincore.xml", in);
@@ -175,19 +174,75 @@ public class WorkingFileRepositoryRestEndpointTest {
     try {
       in = getClass().getResourceAsStream("/dublincore.xml");
       String md5 = DigestUtils.md5Hex(in);
-      Response response = endpoint.restGet(mediaPackageId, dc, md5);
+      Response response = endpoint.restGet(mediaPackageId, dc, md5, null, null);
       Assert.assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
-      responseIn = (InputStream) response.getEntity();
-      Assert.assertNull(responseIn);
-      response = endpoint.restGet(mediaPackageId, dc, "foo");
+      Assert.assertNull(response.getEntity());
+      response = endpoint.restGet(mediaPackageId, dc, "foo", null, null);
       Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
-      responseIn = (InputStream) response.getEntity();
-      Assert.assertNotNull(responseIn);
+      Assert.assertNotNull(response.getEntity());
     } finally {
       IOUtils.closeQuietly(in);
-      IOUtils.closeQuietly(responseIn);
     }
 
   }
 
+  @Test
+  public void testRange() throws Exception {
+    String mediaPackageId = "mp";
+    String dc = "element1";
+    InputStream in = null;
+    byte[] bytes = null;
+    try {
+      in = getClass().getResourceAsStream("/dublincore.xml");
+      bytes = IOUtils.toByteArray(in);
+      endpoint.put(mediaPackageId, dc, "dublincore.xml", new ByteArrayInputStream(bytes));
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+
+    Response response = endpoint.restGet(mediaPackageId, dc, "dublincore.xml", null, "bytes=10-19", null);
+    Assert.assertEquals(206, response.getStatus());
+    Assert.assertEquals("bytes 10-19/" + bytes.length, response.getMetadata().getFirst("Content-Range"));
+    Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, 10, 20), getEntity(response)));
+
+    // Resume from an offset up to the end of the file
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=100-", null);
+    Assert.assertEquals(206, response.getStatus());
+    Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, 100, bytes.length), getEntity(response)));
+
+    // The last 5 bytes
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=-5", null);
+    Assert.assertEquals(206, response.getStatus());
+    Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, bytes.length - 5, bytes.length), getEntity(response)));
+
+    // Ranges beyond the end of the file are not satisfiable
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=" + bytes.length + "-", null);
+    Assert.assertEquals(416, response.getStatus());
+    Assert.assertEquals("bytes */" + bytes.length, response.getMetadata().getFirst("Content-Range"));
+
+    // Malformed ranges are ignored
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=foo", null);
+    Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    Assert.assertTrue(Arrays.equals(bytes, getEntity(response)));
+
+    // Ranges are only served if the client's copy is up to date
+    String md5 = DigestUtils.md5Hex(bytes);
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=10-19", "\"" + md5 + "\"");
+    Assert.assertEquals(206, response.getStatus());
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=10-19", "\"foo\"");
+    Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    Assert.assertTrue(Arrays.equals(bytes, getEntity(response)));
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=10-19", "Sun, 06 Nov 1994 08:49:37 GMT");
+    Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    response = endpoint.restGet(mediaPackageId, dc, null, "bytes=10-19",
+            DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+    Assert.assertEquals(206, response.getStatus());
+  }
+
+  private static byte[] getEntity(Response response) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    return out.toByteArray();
+  }
+
 }
@@ -34,6 +34,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.easymock.EasyMock;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -198,6 +199,64 @@ public class WorkingFileRepositoryTest {
     }
   }
 
+  @Test
+  public void testDeduplication() throws Exception {
+    repo.createContentStore();
+    Assume.assumeNotNull(repo.contentStore);
+
+    InputStream in = null;
+    for (String element : Arrays.asList("element-1", "element-2")) {
+      try {
+        in = getClass().getClassLoader().getResourceAsStream("opencast_header.gif");
+        repo.put("deduplicated-mediapackage", element, "opencast_header.gif", in);
+      } finally {
+        IOUtils.closeQuietly(in);
+      }
+    }
+    String digest = repo.getMediaPackageElementDigest("deduplicated-mediapackage", "element-1");
+    Assert.assertEquals(digest, repo.getMediaPackageElementDigest("deduplicated-mediapackage", "element-2"));
+    Assert.assertEquals(2, repo.contentStore.getReferenceCount(digest));
+
+    repo.delete("deduplicated-mediapackage", "element-1");
+    Assert.assertEquals(1, repo.contentStore.getReferenceCount(digest));
+    try {
+      in = repo.get("deduplicated-mediapackage", "element-2");
+      Assert.assertTrue(IOUtils.toByteArray(in).length > 0);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+
+    repo.delete("deduplicated-mediapackage", "element-2");
+    Assert.assertEquals(-1, repo.contentStore.getReferenceCount(digest));
+  }
+
+  @Test
+  public void testDeduplicationOfCollidingDigests() throws Exception {
+    repo.createContentStore();
+    Assume.assumeNotNull(repo.contentStore);
+
+    File dir = new File(repo.rootDirectory, "collision");
+    FileUtils.forceMkdir(dir);
+    File original = new File(dir, "original");
+    File colliding = new File(dir, "colliding");
+    FileUtils.writeStringToFile(original, "original content");
+    FileUtils.writeStringToFile(colliding, "forged! content");
+
+    // Pretend that both files share the same digest
+    String digest = "0123456789abcdef0123456789abcdef";
+    Assert.assertEquals(original, repo.contentStore.store(original, digest));
+    Assert.assertEquals(colliding, repo.contentStore.store(colliding, digest));
+    Assert.assertEquals("forged! content", FileUtils.readFileToString(colliding));
+    Assert.assertEquals("original content", FileUtils.readFileToString(original));
+    Assert.assertEquals(1, repo.contentStore.getReferenceCount(digest));
+
+    File target = new File(dir, "target");
+    Assert.assertFalse(repo.contentStore.link(digest, colliding, target));
+    Assert.assertFalse(target.exists());
+    Assert.assertTrue(repo.contentStore.link(digest, original, target));
+    Assert.assertEquals("original content", FileUtils.readFileToString(target));
+  }
+
   @Test
   public void testMove() throws Exception {
     String newFileName = "newfile.gif";
@@ -0,0 +1,309 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workspace.impl;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the md5 hashes of the files in the workspace.
+ * <p>
+ * Each hash is stored together with the size, modification time and file key of the file it has been calculated for,
+ * so that a cached hash can be validated with a single stat call instead of reading the whole file again. Hashes of
+ * files below the workspace root directory are persisted in a parallel directory tree next to the root directory, so
+ * they survive restarts without being counted or cleaned up as workspace files.
+ */
+public class Md5Index {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(Md5Index.class);
+
+  /** The suffix of the name of the directory next to the workspace root holding the persisted hashes */
+  public static final String INDEX_DIRECTORY_SUFFIX = ".md5index";
+
+  /** The maximum number of hashes kept in memory */
+  private static final int MAX_CACHED_ENTRIES = 10000;
+
+  /** The recently used hashes by absolute file path */
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_CACHED_ENTRIES;
+    }
+  };
+
+  /** The number of hashes served from the index */
+  private final AtomicLong hits = new AtomicLong();
+
+  /** The number of hashes that had to be calculated */
+  private final AtomicLong misses = new AtomicLong();
+
+  /** The workspace root directory or <code>null</code> if the hashes are not persisted */
+  private volatile Path rootDirectory = null;
+
+  /** The directory holding the persisted hashes */
+  private volatile Path indexDirectory = null;
+
+  /**
+   * Sets the workspace root directory. Hashes of files below this directory are persisted.
+   *
+   * @param rootDirectory
+   *          the workspace root directory
+   */
+  public void setRootDirectory(File rootDirectory) {
+    final Path root = rootDirectory.getAbsoluteFile().toPath().normalize();
+    if (root.getFileName() == null)
+      return;
+    this.indexDirectory = root.resolveSibling(root.getFileName() + INDEX_DIRECTORY_SUFFIX);
+    this.rootDirectory = root;
+  }
+
+  /**
+   * Returns the directory holding the persisted hashes.
+   *
+   * @return the directory or <code>null</code> if the hashes are not persisted
+   */
+  public File getIndexDirectory() {
+    final Path index = indexDirectory;
+    return index == null ? null : index.toFile();
+  }
+
+  /**
+   * Returns the md5 hash of a file, calculating it only if the file has changed since it was last hashed.
+   *
+   * @param file
+   *          the file
+   * @return the md5 hash
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  public String md5(File file) throws IOException {
+    final BasicFileAttributes attributes = readAttributes(file);
+    final Entry entry = getEntry(file);
+    if (entry != null && entry.matches(attributes)) {
+      hits.incrementAndGet();
+      return entry.md5;
+    }
+
+    misses.incrementAndGet();
+    InputStream in = null;
+    final String md5;
+    try {
+      in = new FileInputStream(file);
+      md5 = DigestUtils.md5Hex(in);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+    put(file, md5, attributes);
+    return md5;
+  }
+
+  /**
+   * Records the md5 hash of a file whose content has just been written, e.g. while downloading it.
+   *
+   * @param file
+   *          the file
+   * @param md5
+   *          the md5 hash of the file's content
+   * @throws IOException
+   *           if the file attributes cannot be read
+   */
+  public void put(File file, String md5) throws IOException {
+    put(file, md5, readAttributes(file));
+  }
+
+  /**
+   * Removes the hash of a file from the index.
+   *
+   * @param file
+   *          the file
+   */
+  public void remove(File file) {
+    synchronized (entries) {
+      entries.remove(key(file));
+    }
+    final File indexFile = getIndexFile(file);
+    if (indexFile != null && FileUtils.deleteQuietly(indexFile))
+      deleteEmptyParents(indexFile);
+  }
+
+  /**
+   * Removes the persisted hashes of all files below a directory. Hashes kept in memory are not removed, but they are
+   * validated before they are used.
+   *
+   * @param directory
+   *          the directory
+   */
+  public void removeAll(File directory) {
+    final File indexFile = getIndexFile(directory);
+    if (indexFile == null)
+      return;
+    final File indexSubdirectory = new File(indexFile.getParentFile(), directory.getName());
+    if (FileUtils.deleteQuietly(indexSubdirectory))
+      deleteEmptyParents(indexSubdirectory);
+  }
+
+  /**
+   * Returns the number of hashes served from the index.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of hashes that had to be calculated.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  private void put(File file, String md5, BasicFileAttributes attributes) {
+    final Entry entry = new Entry(md5, attributes.size(), attributes.lastModifiedTime().toMillis(),
+            fileKey(attributes));
+    synchronized (entries) {
+      entries.put(key(file), entry);
+    }
+    final File indexFile = getIndexFile(file);
+    if (indexFile == null)
+      return;
+    try {
+      FileUtils.writeStringToFile(indexFile, entry.toString(), "UTF-8");
+    } catch (IOException e) {
+      logger.debug("Unable to persist the md5 hash of {}: {}", file, e.getMessage());
+      FileUtils.deleteQuietly(indexFile);
+    }
+  }
+
+  private Entry getEntry(File file) {
+    synchronized (entries) {
+      final Entry entry = entries.get(key(file));
+      if (entry != null)
+        return entry;
+    }
+    final File indexFile = getIndexFile(file);
+    if (indexFile == null || !indexFile.isFile())
+      return null;
+    try {
+      final Entry entry = Entry.parse(FileUtils.readFileToString(indexFile, "UTF-8"));
+      if (entry != null) {
+        synchronized (entries) {
+          entries.put(key(file), entry);
+        }
+      }
+      return entry;
+    } catch (IOException e) {
+      logger.debug("Unable to read the persisted md5 hash of {}: {}", file, e.getMessage());
+      return null;
+    }
+  }
+
+  /** Returns the file the hash of the given file is persisted in or <code>null</code> if it is not persisted. */
+  private File getIndexFile(File file) {
+    final Path root = rootDirectory;
+    if (root == null)
+      return null;
+    final Path path = file.getAbsoluteFile().toPath().normalize();
+    if (!path.startsWith(root) || path.equals(root))
+      return null;
+    final Path indexFile = indexDirectory.resolve(root.relativize(path));
+    return new File(indexFile.toString() + ".md5");
+  }
+
+  /** Removes the empty directories the given index file or directory was located in. */
+  private void deleteEmptyParents(File indexFile) {
+    final File index = indexDirectory.toFile();
+    File parent = indexFile.getParentFile();
+    while (parent != null && !parent.equals(index) && parent.delete()) {
+      parent = parent.getParentFile();
+    }
+  }
+
+  private static String key(File file) {
+    return file.getAbsolutePath();
+  }
+
+  private static BasicFileAttributes readAttributes(File file) throws IOException {
+    return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+  }
+
+  private static String fileKey(BasicFileAttributes attributes) {
+    final Object fileKey = attributes.fileKey();
+    return fileKey == null ? "-" : StringUtils.deleteWhitespace(fileKey.toString());
+  }
+
+  /** A hash along with the state of the file it has been calculated for */
+  private static final class Entry {
+
+    private final String md5;
+    private final long size;
+    private final long lastModified;
+    private final String fileKey;
+
+    private Entry(String md5, long size, long lastModified, String fileKey) {
+      this.md5 = md5;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.fileKey = fileKey;
+    }
+
+    private boolean matches(BasicFileAttributes attributes) {
+      return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis()
+              && fileKey.equals(fileKey(attributes));
+    }
+
+    private static Entry parse(String value) {
+      final String[] parts = StringUtils.split(StringUtils.trimToEmpty(value), ' ');
+      if (parts.length != 4)
+        return null;
+      try {
+        return new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return md5 + " " + size + " " + lastModified + " " + fileKey;
+    }
+
+  }
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workspace.impl;
+
+import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.data.Function;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks guarding individual paths of the workspace.
+ * <p>
+ * Threads working on different paths never block each other, while threads working on the same path are serialized.
+ * Locks are created on demand and discarded as soon as no thread holds or waits for them.
+ */
+public class PathLocks {
+
+  /** The locks currently in use by path */
+  private final Map<String, PathLock> locks = new HashMap<>();
+
+  /** The number of acquired locks */
+  private final AtomicLong acquisitions = new AtomicLong();
+
+  /** The number of locks that were held by another thread when they were requested */
+  private final AtomicLong contendedAcquisitions = new AtomicLong();
+
+  /** The total time spent waiting for contended locks in nanoseconds */
+  private final AtomicLong waitTime = new AtomicLong();
+
+  /**
+   * Acquires the lock of a path, blocking until it is available. The returned handle has to be closed to release the
+   * lock.
+   *
+   * @param path
+   *          the path to lock
+   * @return the handle to release the lock
+   */
+  public Handle lock(File path) {
+    final String key = path.getAbsoluteFile().toPath().normalize().toString();
+    final PathLock pathLock;
+    synchronized (locks) {
+      PathLock existing = locks.get(key);
+      if (existing == null) {
+        existing = new PathLock();
+        locks.put(key, existing);
+      }
+      existing.users++;
+      pathLock = existing;
+    }
+    if (!pathLock.lock.tryLock()) {
+      final long start = System.nanoTime();
+      pathLock.lock.lock();
+      contendedAcquisitions.incrementAndGet();
+      waitTime.addAndGet(System.nanoTime() - start);
+    }
+    acquisitions.incrementAndGet();
+    return new Handle(key, pathLock);
+  }
+
+  /**
+   * Runs a function having exclusive access to the given file, both within this process and, by means of a
+   * {@link FileLock}, towards other processes.
+   *
+   * @param file
+   *          the file
+   * @param f
+   *          the function to apply to the file
+   * @return the function's result
+   * @throws NotFoundException
+   *           if the directory of the file does not exist
+   * @throws IOException
+   *           if the file lock cannot be acquired
+   */
+  public <A> A locked(File file, Function<File, A> f) throws NotFoundException, IOException {
+    try (Handle handle = lock(file)) {
+      final RandomAccessFile raf;
+      try {
+        raf = new RandomAccessFile(file, "rw");
+      } catch (FileNotFoundException e) {
+        throw new NotFoundException("Error acquiring lock for " + file.getAbsolutePath(), e);
+      }
+      try {
+        final FileLock fileLock = raf.getChannel().lock();
+        try {
+          return f.apply(file);
+        } finally {
+          fileLock.release();
+        }
+      } finally {
+        IoSupport.closeQuietly(raf);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of acquired locks.
+   *
+   * @return the number of acquisitions
+   */
+  public long getAcquisitions() {
+    return acquisitions.get();
+  }
+
+  /**
+   * Returns the number of lock acquisitions that had to wait for another thread.
+   *
+   * @return the number of contended acquisitions
+   */
+  public long getContendedAcquisitions() {
+    return contendedAcquisitions.get();
+  }
+
+  /**
+   * Returns the total time threads have been waiting for locks.
+   *
+   * @return the wait time in milliseconds
+   */
+  public long getWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(waitTime.get());
+  }
+
+  /**
+   * Returns the number of paths that are currently locked or waited for.
+   *
+   * @return the number of paths
+   */
+  public int getLockedPaths() {
+    synchronized (locks) {
+      return locks.size();
+    }
+  }
+
+  private static final class PathLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private int users = 0;
+  }
+
+  /** Handle of an acquired path lock */
+  public final class Handle implements AutoCloseable {
+
+    private final String key;
+    private final PathLock pathLock;
+
+    private Handle(String key, PathLock pathLock) {
+      this.key = key;
+      this.pathLock = pathLock;
+    }
+
+    /** Releases the lock. */
+    @Override
+    public void close() {
+      pathLock.lock.unlock();
+      synchronized (locks) {
+        if (--pathLock.users == 0)
+          locks.remove(key);
+      }
+    }
+
+  }
+
+}
@@ -25,7 +25,6 @@ import static java.lang.String.format;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.opencastproject.util.EqualsUtil.ne;
-import static org.opencastproject.util.IoSupport.locked;
 import static org.opencastproject.util.PathSupport.path;
 import static org.opencastproject.util.RequireUtil.notNull;
 import static org.opencastproject.util.data.Arrays.cons;
@@ -55,6 +54,7 @@ import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 import org.opencastproject.workspace.api.Workspace;
 import org.opencastproject.workspace.impl.jmx.WorkspaceBean;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -69,12 +69,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.security.DigestInputStream;
 import java.util.Date;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -110,14 +110,18 @@ public final class WorkspaceImpl implements Workspace {
   /** Unknown file name string */
   private static final String UNKNOWN_FILENAME = "unknown";
 
+  /** The md5 hashes of the workspace files */
+  private final Md5Index md5Index = new Md5Index();
+
+  /** The locks guarding the workspace files and directories */
+  private final PathLocks pathLocks = new PathLocks();
+
   /** The JMX workspace bean */
-  private WorkspaceBean workspaceBean = new WorkspaceBean(this);
+  private WorkspaceBean workspaceBean = new WorkspaceBean(this, md5Index, pathLocks);
 
   /** The JMX bean object instance */
   private ObjectInstance registeredMXBean;
 
-  private final Object lock = new Object();
-
   /** The workspace root directory */
   private String wsRoot = null;
 
@@ -199,6 +203,7 @@ public final class WorkspaceImpl implements Workspace {
         throw new IllegalStateException("Could not create workspace directory.", e);
       }
     }
+    md5Index.setRootDirectory(f);
 
     // Test whether hard linking between working file repository and workspace is possible
     if (pathMappable != null) {
@@ -309,7 +314,7 @@ public final class WorkspaceImpl implements Workspace {
           // if the file exists in the workspace, but is older than the wfr copy, replace it
           if (workspaceFileLastModified < wfrCopy.lastModified()) {
             logger.debug("Replacing {} with an updated version from the file repository", inWs.getAbsolutePath());
-            locked(inWs, copyOrLink(wfrCopy));
+            pathLocks.locked(inWs, copyOrLink(wfrCopy));
           } else {
             logger.debug("{} is up to date", inWs);
           }
@@ -322,7 +327,7 @@ public final class WorkspaceImpl implements Workspace {
       }
     }
     // do HTTP transfer
-    return locked(inWs, downloadIfNecessary(uri));
+    return pathLocks.locked(inWs, downloadIfNecessary(uri));
   }
 
   @Override
@@ -478,28 +483,30 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * Download content of an HTTP response to a file.
+   * Download content of an HTTP response to a file. The md5 hash of the content is calculated on the fly and recorded
+   * in the md5 index.
    *
    * @return the destination file
    */
-  private static File downloadTo(final HttpResponse response, final File dst) throws IOException {
+  private File downloadTo(final HttpResponse response, final File dst) throws IOException {
     // ignore return value
     dst.createNewFile();
-    InputStream in = null;
+    DigestInputStream in = null;
     OutputStream out = null;
     try {
-      in = response.getEntity().getContent();
+      in = new DigestInputStream(response.getEntity().getContent(), DigestUtils.getMd5Digest());
       out = new FileOutputStream(dst);
       IOUtils.copyLarge(in, out);
     } finally {
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(out);
     }
+    md5Index.put(dst, Hex.encodeHexString(in.getMessageDigest().digest()));
     return dst;
   }
 
   /**
-   * Returns the md5 of a file
+   * Returns the md5 of a file. The hash is only calculated if the file has changed since it was last hashed.
    *
    * @param file
    *          the source file
@@ -517,13 +524,7 @@ public final class WorkspaceImpl implements Workspace {
     if (!file.isFile())
       throw new IllegalArgumentException("File " + file.getAbsolutePath() + " can not be read");
 
-    InputStream in = null;
-    try {
-      in = new FileInputStream(file);
-      return DigestUtils.md5Hex(in);
-    } finally {
-      IOUtils.closeQuietly(in);
-    }
+    return md5Index.md5(file);
   }
 
   @Override
@@ -556,9 +557,14 @@ public final class WorkspaceImpl implements Workspace {
     // Remove the file and optionally its parent directory if empty
     File f = toWorkspaceFile(uri);
     if (f.isFile()) {
-      synchronized (lock) {
-        File mpElementDir = f.getParentFile();
+      // Lock the directories before the file to wait for downloads of the file in progress. The media package
+      // directory is locked as well since it may be removed, which must not happen while a sibling element is put.
+      File mpElementDir = f.getParentFile();
+      try (PathLocks.Handle parentLock = pathLocks.lock(mpElementDir.getParentFile());
+           PathLocks.Handle directoryLock = pathLocks.lock(mpElementDir);
+           PathLocks.Handle fileLock = pathLocks.lock(f)) {
         FileUtils.forceDelete(f);
+        md5Index.remove(f);
 
         // Remove containing folder if a mediapackage element or a not a static collection
         if (isMediaPackage || !isStaticCollection(collectionId))
@@ -578,8 +584,12 @@ public final class WorkspaceImpl implements Workspace {
   public void delete(String mediaPackageID, String mediaPackageElementID) throws NotFoundException, IOException {
     // delete locally
     final File f = workspaceFile(WorkingFileRepository.MEDIAPACKAGE_PATH_PREFIX, mediaPackageID, mediaPackageElementID);
-    FileUtils.deleteQuietly(f);
-    FileSupport.delete(f.getParentFile());
+    try (PathLocks.Handle parentLock = pathLocks.lock(f.getParentFile());
+         PathLocks.Handle directoryLock = pathLocks.lock(f)) {
+      FileUtils.deleteQuietly(f);
+      md5Index.removeAll(f);
+      FileSupport.delete(f.getParentFile());
+    }
     // delete in WFR
     wfr.delete(mediaPackageID, mediaPackageElementID);
     // todo check in WFR
@@ -595,8 +605,11 @@ public final class WorkspaceImpl implements Workspace {
     // Determine the target location in the workspace
     File workspaceFile = null;
     FileOutputStream out = null;
-    synchronized (lock) {
-      workspaceFile = toWorkspaceFile(uri);
+    workspaceFile = toWorkspaceFile(uri);
+    // Lock the media package directory first, so that it is not removed while the element directory is created
+    final File mpElementDir = workspaceFile.getParentFile();
+    try (PathLocks.Handle parentLock = pathLocks.lock(mpElementDir.getParentFile());
+         PathLocks.Handle directoryLock = pathLocks.lock(mpElementDir)) {
       FileUtils.touch(workspaceFile);
     }
 
@@ -635,8 +648,8 @@ public final class WorkspaceImpl implements Workspace {
     File tempFile = null;
     FileOutputStream out = null;
     try {
-      synchronized (lock) {
-        tempFile = toWorkspaceFile(uri);
+      tempFile = toWorkspaceFile(uri);
+      try (PathLocks.Handle directoryLock = pathLocks.lock(tempFile.getParentFile())) {
         FileUtils.touch(tempFile);
         out = new FileOutputStream(tempFile);
       }
@@ -739,6 +752,7 @@ public final class WorkspaceImpl implements Workspace {
     final File f = workspaceFile(WorkingFileRepository.COLLECTION_PATH_PREFIX, collectionId,
             PathSupport.toSafeName(fileName));
     FileUtils.deleteQuietly(f);
+    md5Index.remove(f);
     if (removeCollection) {
       FileSupport.delete(f.getParentFile());
     }
@@ -909,6 +923,7 @@ public final class WorkspaceImpl implements Workspace {
 
       // Delete old files
       if (FileUtils.deleteQuietly(file)) {
+        md5Index.remove(file);
         logger.info("Deleted {}", file);
       } else {
         logger.warn("Could not delete {}", file);
@@ -922,6 +937,7 @@ public final class WorkspaceImpl implements Workspace {
     final File f = workspaceFile(WorkingFileRepository.MEDIAPACKAGE_PATH_PREFIX, mediaPackageId.toString());
     logger.debug("Clean workspace media package directory {}", f);
     FileUtils.deleteDirectory(f);
+    md5Index.removeAll(f);
   }
 
   @Override
@@ -23,13 +23,21 @@ package org.opencastproject.workspace.impl.jmx;
 
 import org.opencastproject.util.data.Option.Match;
 import org.opencastproject.workspace.api.Workspace;
+import org.opencastproject.workspace.impl.Md5Index;
+import org.opencastproject.workspace.impl.PathLocks;
 
 public class WorkspaceBean implements WorkspaceMXBean {
 
   private final Workspace workspace;
 
-  public WorkspaceBean(Workspace workspace) {
+  private final Md5Index md5Index;
+
+  private final PathLocks pathLocks;
+
+  public WorkspaceBean(Workspace workspace, Md5Index md5Index, PathLocks pathLocks) {
     this.workspace = workspace;
+    this.md5Index = md5Index;
+    this.pathLocks = pathLocks;
   }
 
   /**
@@ -86,4 +94,52 @@ public class WorkspaceBean implements WorkspaceMXBean {
     });
   }
 
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getMd5CacheHits()
+   */
+  @Override
+  public long getMd5CacheHits() {
+    return md5Index.getHits();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getMd5CacheMisses()
+   */
+  @Override
+  public long getMd5CacheMisses() {
+    return md5Index.getMisses();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getLockAcquisitions()
+   */
+  @Override
+  public long getLockAcquisitions() {
+    return pathLocks.getAcquisitions();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getContendedLockAcquisitions()
+   */
+  @Override
+  public long getContendedLockAcquisitions() {
+    return pathLocks.getContendedAcquisitions();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getLockWaitTime()
+   */
+  @Override
+  public long getLockWaitTime() {
+    return pathLocks.getWaitTime();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getLockedPaths()
+   */
+  @Override
+  public int getLockedPaths() {
+    return pathLocks.getLockedPaths();
+  }
+
 }
@@ -47,4 +47,46 @@ public interface WorkspaceMXBean {
    */
   long getTotalSpace();
 
+  /**
+   * Gets the number of md5 hashes served from the md5 index of the workspace files
+   *
+   * @return number of md5 index hits
+   */
+  long getMd5CacheHits();
+
+  /**
+   * Gets the number of md5 hashes that had to be calculated from the workspace files
+   *
+   * @return number of md5 index misses
+   */
+  long getMd5CacheMisses();
+
+  /**
+   * Gets the number of acquired workspace file and directory locks
+   *
+   * @return number of lock acquisitions
+   */
+  long getLockAcquisitions();
+
+  /**
+   * Gets the number of lock acquisitions that had to wait for another thread
+   *
+   * @return number of contended lock acquisitions
+   */
+  long getContendedLockAcquisitions();
+
+  /**
+   * Gets the total time threads have been waiting for workspace locks in milliseconds
+   *
+   * @return total lock wait time in milliseconds
+   */
+  long getLockWaitTime();
+
+  /**
+   * Gets the number of workspace paths that are currently locked or waited for
+   *
+   * @return number of locked paths
+   */
+  int getLockedPaths();
+
 }
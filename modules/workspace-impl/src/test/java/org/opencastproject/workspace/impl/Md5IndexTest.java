@@ -0,0 +1,103 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workspace.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class Md5IndexTest {
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  private File root;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    root = testFolder.newFolder("workspace");
+    file = new File(root, "mediapackage/element/file.txt");
+    FileUtils.writeStringToFile(file, "content", "UTF-8");
+  }
+
+  @Test
+  public void testUnchangedFileIsNotHashedAgain() throws Exception {
+    Md5Index index = new Md5Index();
+    index.setRootDirectory(root);
+    assertEquals(DigestUtils.md5Hex("content"), index.md5(file));
+    assertEquals(DigestUtils.md5Hex("content"), index.md5(file));
+    assertEquals(1, index.getMisses());
+    assertEquals(1, index.getHits());
+  }
+
+  @Test
+  public void testChangedFileIsHashedAgain() throws Exception {
+    Md5Index index = new Md5Index();
+    index.setRootDirectory(root);
+    index.md5(file);
+    FileUtils.writeStringToFile(file, "changed content", "UTF-8");
+    assertEquals(DigestUtils.md5Hex("changed content"), index.md5(file));
+    assertEquals(2, index.getMisses());
+  }
+
+  @Test
+  public void testPersistedHashes() throws Exception {
+    Md5Index index = new Md5Index();
+    index.setRootDirectory(root);
+    index.put(file, "0123456789abcdef0123456789abcdef");
+
+    Md5Index restarted = new Md5Index();
+    restarted.setRootDirectory(root);
+    assertEquals("0123456789abcdef0123456789abcdef", restarted.md5(file));
+    assertEquals(1, restarted.getHits());
+
+    restarted.removeAll(new File(root, "mediapackage"));
+    Md5Index cleaned = new Md5Index();
+    cleaned.setRootDirectory(root);
+    assertNotEquals("0123456789abcdef0123456789abcdef", cleaned.md5(file));
+    assertEquals(1, cleaned.getMisses());
+  }
+
+  @Test
+  public void testHashesArePersistedOutsideOfTheRoot() throws Exception {
+    Md5Index index = new Md5Index();
+    index.setRootDirectory(root);
+    index.md5(file);
+    assertArrayEquals(new String[] { "mediapackage" }, root.list());
+    assertTrue(index.getIndexDirectory().isDirectory());
+
+    FileUtils.forceDelete(file);
+    index.remove(file);
+    assertArrayEquals(new String[0], index.getIndexDirectory().list());
+  }
+
+}
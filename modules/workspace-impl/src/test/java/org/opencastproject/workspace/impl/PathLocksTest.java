@@ -0,0 +1,86 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.workspace.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PathLocksTest {
+
+  private final PathLocks locks = new PathLocks();
+
+  @Test
+  public void testDifferentPathsDoNotBlock() throws Exception {
+    try (PathLocks.Handle a = locks.lock(new File("workspace/mp1/element/file"))) {
+      assertTrue(lockInOtherThread(new File("workspace/mp2/element/file"), 1000L));
+    }
+    assertEquals(0, locks.getContendedAcquisitions());
+    assertEquals(0, locks.getLockedPaths());
+  }
+
+  @Test
+  public void testSamePathBlocks() throws Exception {
+    final File path = new File("workspace/mp1/element/file");
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread other;
+    try (PathLocks.Handle a = locks.lock(new File("workspace/mp1/element/../element/file"))) {
+      other = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try (PathLocks.Handle b = locks.lock(path)) {
+            acquired.countDown();
+          }
+        }
+      });
+      other.start();
+      assertFalse(acquired.await(100L, TimeUnit.MILLISECONDS));
+    }
+    assertTrue(acquired.await(10L, TimeUnit.SECONDS));
+    other.join();
+    assertEquals(2, locks.getAcquisitions());
+    assertEquals(1, locks.getContendedAcquisitions());
+    assertEquals(0, locks.getLockedPaths());
+  }
+
+  private boolean lockInOtherThread(final File path, long timeout) throws InterruptedException {
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try (PathLocks.Handle handle = locks.lock(path)) {
+          acquired.countDown();
+        }
+      }
+    });
+    thread.start();
+    boolean result = acquired.await(timeout, TimeUnit.MILLISECONDS);
+    thread.join();
+    return result;
+  }
+
+}